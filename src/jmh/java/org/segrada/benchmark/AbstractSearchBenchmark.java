@@ -0,0 +1,114 @@
+package org.segrada.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.store.FSDirectory;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexDocument;
+import org.segrada.search.lucene.LuceneSearchEngine;
+import org.segrada.search.lucene.LuceneSegradaAnalyzer;
+import org.segrada.search.solr.SolrSearchEngine;
+import org.segrada.session.ApplicationSettings;
+import org.segrada.session.ApplicationSettingsProperties;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Base of search engine benchmarks: creates the engine to measure. Settings are read like in the application, so
+ * they can be changed by system properties (e.g. -jvmArgsAppend -Dlucene.highlighter=postings). The Solr engine
+ * needs a running server set by -Dsolr.server=... The Lucene result cache is off, unless its size is set by
+ * -p resultCacheSize=..., so searches are measured instead of cache lookups.
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractSearchBenchmark {
+	/**
+	 * engine to measure: lucene or solr
+	 */
+	@Param({"lucene"})
+	public String engine;
+
+	/**
+	 * entries of the Lucene result cache, 0 to switch it off
+	 */
+	@Param({"0"})
+	public int resultCacheSize;
+
+	protected SearchEngine searchEngine;
+
+	/**
+	 * index directory of Lucene engine
+	 */
+	private Path indexPath;
+
+	/**
+	 * create search engine with empty index
+	 * @throws IOException if index directory could not be created
+	 */
+	protected void createSearchEngine() throws IOException {
+		ApplicationSettings settings = new ApplicationSettingsProperties();
+		settings.setSetting("search.resultCache.size", String.valueOf(resultCacheSize));
+
+		switch (engine) {
+			case "lucene":
+				indexPath = Files.createTempDirectory("segrada-benchmark");
+				searchEngine = new LuceneSearchEngine(FSDirectory.open(indexPath), new LuceneSegradaAnalyzer(), settings);
+				break;
+			case "solr":
+				searchEngine = new SolrSearchEngine(settings, new LuceneSegradaAnalyzer());
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown search engine " + engine);
+		}
+
+		searchEngine.clearAllIndexes();
+	}
+
+	/**
+	 * create search engine and index generated corpus in batches
+	 * @param corpusSize number of documents
+	 * @return documents indexed
+	 * @throws IOException if index directory could not be created
+	 */
+	protected List<SearchIndexDocument> createIndexedSearchEngine(int corpusSize) throws IOException {
+		createSearchEngine();
+
+		List<SearchIndexDocument> documents = new SearchCorpusGenerator(42L).generate(corpusSize);
+		for (int i = 0; i < documents.size(); i += 500) {
+			searchEngine.indexAll(documents.subList(i, Math.min(i + 500, documents.size())));
+			searchEngine.flush();
+		}
+
+		return documents;
+	}
+
+	@TearDown
+	public void destroySearchEngine() throws IOException {
+		if (searchEngine instanceof LuceneSearchEngine) ((LuceneSearchEngine) searchEngine).destroy();
+		else if (searchEngine instanceof SolrSearchEngine) {
+			searchEngine.clearAllIndexes();
+			((SolrSearchEngine) searchEngine).destroy();
+		}
+
+		if (indexPath != null) FileUtils.deleteDirectory(indexPath.toFile());
+	}
+}
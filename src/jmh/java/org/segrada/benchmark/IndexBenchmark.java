@@ -0,0 +1,82 @@
+package org.segrada.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.segrada.search.SearchIndexDocument;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Indexing throughput: single documents as saved by the services and batches as written by the index queue and
+ * reindexing. Documents are written over and over again, so later iterations measure updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IndexBenchmark extends AbstractSearchBenchmark {
+	/**
+	 * documents per batch
+	 */
+	@Param({"100"})
+	public int batchSize;
+
+	/**
+	 * approximate length of file full texts in words
+	 */
+	@Param({"2000"})
+	public int fullTextWords;
+
+	private List<SearchIndexDocument> documents;
+
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		createSearchEngine();
+		documents = new SearchCorpusGenerator(42L, 200, fullTextWords).generate(5000);
+	}
+
+	@Benchmark
+	public boolean indexSingle() {
+		return searchEngine.index(nextDocuments(1).get(0));
+	}
+
+	/**
+	 * one batch per operation - documents per second are batchSize times the score
+	 */
+	@Benchmark
+	public boolean indexBatch() {
+		boolean written = searchEngine.indexAll(nextDocuments(batchSize));
+		searchEngine.flush();
+		return written;
+	}
+
+	/**
+	 * @param count number of documents
+	 * @return next documents of corpus, starting over at the end
+	 */
+	private List<SearchIndexDocument> nextDocuments(int count) {
+		if (next + count > documents.size()) next = 0;
+		List<SearchIndexDocument> batch = documents.subList(next, next + count);
+		next += count;
+		return batch;
+	}
+}
@@ -0,0 +1,100 @@
+package org.segrada.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.segrada.search.SearchPaginationInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Latency of deep result pages: fetched by page number (collecting all hits before the page) and by the cursor of
+ * the previous page. Each call searches the next of several terms matching most documents, highlighting is switched
+ * off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PaginationBenchmark extends AbstractSearchBenchmark {
+	@Param({"10000"})
+	public int corpusSize;
+
+	@Param({"1", "10", "100"})
+	public int page;
+
+	/**
+	 * number of terms cycled
+	 */
+	private static final int TERMS = 32;
+
+	private final List<String> terms = new ArrayList<>();
+
+	private final List<Map<String, String>> pageFilters = new ArrayList<>();
+
+	private final List<Map<String, String>> cursorFilters = new ArrayList<>();
+
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		createIndexedSearchEngine(corpusSize);
+
+		// four frequent words each, or operator: matches most documents
+		SearchCorpusGenerator generator = new SearchCorpusGenerator(11L);
+		for (int i = 0; i < TERMS; i++) {
+			String term = generator.word() + " " + generator.word() + " " + generator.word() + " " + generator.word();
+			terms.add(term);
+
+			Map<String, String> filters = new HashMap<>();
+			filters.put("limit", "20");
+			filters.put("operator", "or");
+			filters.put("highlight", "false");
+			Map<String, String> cursorFilter = new HashMap<>(filters);
+
+			// walk to page before the one measured to get its cursor
+			for (int j = 1; j < page; j++) {
+				cursorFilter.put("page", String.valueOf(j));
+				SearchPaginationInfo result = searchEngine.search(term, cursorFilter);
+				if (result.getNextCursor() == null) break;
+				cursorFilter.put("after", result.getNextCursor());
+			}
+			cursorFilter.put("page", String.valueOf(page));
+			filters.put("page", String.valueOf(page));
+
+			pageFilters.add(filters);
+			cursorFilters.add(cursorFilter);
+		}
+	}
+
+	@Benchmark
+	public SearchPaginationInfo pageByNumber() {
+		next = (next + 1) % TERMS;
+		return searchEngine.search(terms.get(next), pageFilters.get(next));
+	}
+
+	@Benchmark
+	public SearchPaginationInfo pageByCursor() {
+		next = (next + 1) % TERMS;
+		return searchEngine.search(terms.get(next), cursorFilters.get(next));
+	}
+}
@@ -0,0 +1,113 @@
+package org.segrada.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.segrada.search.SearchPaginationInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Query latency of the first result page per filter combination, with and without highlighting. Each call searches
+ * the next of 1024 generated terms, so an enabled result cache only helps with terms repeated within its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark extends AbstractSearchBenchmark {
+	@Param({"10000"})
+	public int corpusSize;
+
+	/**
+	 * filters: none, class, tags, classAndTags, temporal or facets
+	 */
+	@Param({"none", "class", "tags", "classAndTags", "temporal", "facets"})
+	public String filter;
+
+	@Param({"true", "false"})
+	public boolean highlight;
+
+	private final Map<String, String> filters = new HashMap<>();
+
+	private final List<String> terms = new ArrayList<>();
+
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		createIndexedSearchEngine(corpusSize);
+
+		// one and two word terms
+		SearchCorpusGenerator generator = new SearchCorpusGenerator(7L);
+		for (int i = 0; i < 1024; i++)
+			terms.add(i % 2 == 0 ? generator.word() : generator.word() + " " + generator.word());
+
+		switch (filter) {
+			case "class":
+				filters.put("class", "Node,Source");
+				break;
+			case "tags":
+				filters.put("tags", randomTags(3));
+				break;
+			case "classAndTags":
+				filters.put("class", "Node,Source");
+				filters.put("tags", randomTags(3));
+				break;
+			case "temporal":
+				filters.put("minJD", "800");
+				filters.put("maxJD", "900");
+				break;
+			case "facets":
+				filters.put("facets", "true");
+				break;
+			default:
+		}
+		if (!highlight) filters.put("highlight", "false");
+	}
+
+	@Benchmark
+	public SearchPaginationInfo search() {
+		return searchEngine.search(nextTerm(), filters);
+	}
+
+	private String nextTerm() {
+		next = (next + 1) % terms.size();
+		return terms.get(next);
+	}
+
+	/**
+	 * @param count number of tags
+	 * @return comma separated tag ids of corpus
+	 */
+	private static String randomTags(int count) {
+		Random random = new Random(count);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) sb.append(',');
+			sb.append("99-").append(random.nextInt(20));
+		}
+
+		return sb.toString();
+	}
+}
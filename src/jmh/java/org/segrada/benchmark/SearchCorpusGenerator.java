@@ -0,0 +1,215 @@
+package org.segrada.benchmark;
+
+import org.segrada.rendering.markup.MarkupFilter;
+import org.segrada.rendering.markup.MarkupFilterFactory;
+import org.segrada.search.SearchIndexDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Deterministic generator of search index documents: the same seed always creates the same corpus. Documents look
+ * like the ones written by the services - titles, descriptions in default, markdown and html markup converted to plain
+ * text, tags, temporal extents and (for files) large extracted full texts.
+ */
+public class SearchCorpusGenerator {
+	/**
+	 * vocabulary - words at the start are picked far more often than the ones at the end (roughly Zipf distributed)
+	 */
+	private static final String[] WORDS = {
+			"der", "die", "und", "in", "den", "von", "zu", "das", "mit", "sich", "des", "auf", "für", "ist", "im",
+			"dem", "nicht", "ein", "eine", "als", "auch", "es", "an", "werden", "aus", "er", "hat", "dass", "sie",
+			"nach", "wird", "bei", "einer", "um", "am", "sind", "noch", "wie", "einem", "über", "einen", "so", "zum",
+			"Kaiser", "König", "Kloster", "Urkunde", "Bischof", "Abt", "Reich", "Karl", "Ludwig", "Otto", "Heinrich",
+			"Lothar", "Konrad", "Friedrich", "Aachen", "Worms", "Mainz", "Köln", "Trier", "Regensburg", "Fulda",
+			"Reichenau", "Sankt", "Gallen", "Lorsch", "Corvey", "Hersfeld", "Synode", "Hoftag", "Schenkung",
+			"Privileg", "Immunität", "Grafschaft", "Herzogtum", "Pfalz", "Kapitular", "Annalen", "Chronik", "Vita",
+			"Brief", "Diplom", "Siegel", "Zeuge", "Vasall", "Lehen", "Gefolgschaft", "Frieden", "Fehde", "Krönung",
+			"Salbung", "Reliquien", "Translation", "Gesandtschaft", "Byzanz", "Papst", "Rom", "Ravenna", "Pavia",
+			"Langobarden", "Sachsen", "Franken", "Bayern", "Alemannen", "Friesen", "Awaren", "Normannen", "Slawen",
+			"Ungarn", "Sarazenen", "Missionierung", "Taufe", "Erzbistum", "Domkapitel", "Stift", "Pfarrei", "Zehnt",
+			"Markt", "Münze", "Zoll", "Burg", "Mühle", "Weinberg", "Forst", "Wildbann", "Hufe", "Fronhof", "Villikation"
+	};
+
+	private static final String[] CLASS_NAMES = {"Node", "Relation", "Source", "File"};
+
+	/**
+	 * markup formats of descriptions
+	 */
+	private static final String[] MARKUPS = {"default", "markdown", "html"};
+
+	private final Random random;
+
+	private final MarkupFilter[] markupFilters = new MarkupFilter[MARKUPS.length];
+
+	/**
+	 * number of distinct tags
+	 */
+	private final int tags;
+
+	/**
+	 * approximate length of extracted full texts in words
+	 */
+	private final int fullTextWords;
+
+	/**
+	 * Constructor
+	 * @param seed of random numbers
+	 * @param tags number of distinct tags
+	 * @param fullTextWords approximate length of extracted file full texts in words
+	 */
+	public SearchCorpusGenerator(long seed, int tags, int fullTextWords) {
+		this.random = new Random(seed);
+		this.tags = Math.max(1, tags);
+		this.fullTextWords = fullTextWords;
+
+		for (int i = 0; i < MARKUPS.length; i++)
+			markupFilters[i] = MarkupFilterFactory.produce(MARKUPS[i]);
+	}
+
+	/**
+	 * Constructor with defaults: 200 tags, full texts of about 20.000 words
+	 * @param seed of random numbers
+	 */
+	public SearchCorpusGenerator(long seed) {
+		this(seed, 200, 20000);
+	}
+
+	/**
+	 * generate documents
+	 * @param count number of documents
+	 * @return documents with ids "1-0", "1-1", ...
+	 */
+	public List<SearchIndexDocument> generate(int count) {
+		List<SearchIndexDocument> documents = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+			documents.add(generate("1-" + i));
+
+		return documents;
+	}
+
+	/**
+	 * generate single document
+	 * @param id of document
+	 * @return document
+	 */
+	public SearchIndexDocument generate(String id) {
+		SearchIndexDocument document = new SearchIndexDocument(id);
+
+		String className = CLASS_NAMES[random.nextInt(CLASS_NAMES.length)];
+		document.setClassName(className);
+		document.setTitle(capitalize(words(2 + random.nextInt(5))));
+		if (random.nextInt(3) == 0) document.setSubTitles(capitalize(words(1 + random.nextInt(3))));
+
+		// description in one of the markup formats, indexed as plain text like the services do
+		int markup = random.nextInt(MARKUPS.length);
+		String content = markupFilters[markup].toPlain(markup(MARKUPS[markup], 1 + random.nextInt(4)));
+		// files carry their extracted full text
+		if (className.equals("File") && fullTextWords > 0)
+			content += " " + words(fullTextWords / 2 + random.nextInt(fullTextWords));
+		document.setContent(content);
+
+		// up to 4 tags, lower tag numbers are more common
+		int tagCount = random.nextInt(5);
+		if (tagCount > 0) {
+			String[] tagIds = new String[tagCount];
+			for (int i = 0; i < tagCount; i++)
+				tagIds[i] = "99-" + skewed(tags);
+			document.setTagIds(tagIds);
+		}
+
+		if (random.nextBoolean()) document.setColor(random.nextInt(0xFFFFFF));
+
+		// temporal extent between 700 and 1200 A.D. for most documents
+		if (random.nextInt(4) > 0) {
+			long minJD = 1976827L + random.nextInt(500 * 365);
+			document.setMinJD(minJD);
+			document.setMaxJD(minJD + random.nextInt(20 * 365));
+		}
+
+		document.setWeight(className.equals("Node") ? 10f : 1f);
+
+		return document;
+	}
+
+	/**
+	 * @return a word of the vocabulary, first words are more common
+	 */
+	public String word() {
+		return WORDS[skewed(WORDS.length)];
+	}
+
+	/**
+	 * create text in markup format
+	 * @param format default, markdown or html
+	 * @param paragraphs number of paragraphs
+	 * @return markup text
+	 */
+	private String markup(String format, int paragraphs) {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < paragraphs; i++) {
+			String emphasized = word();
+			String sentence = capitalize(words(8 + random.nextInt(20)));
+			String reference = "[[arf:" + (800 + random.nextInt(50)) + "]]";
+
+			switch (format) {
+				case "markdown":
+					if (i == 0) sb.append("## ").append(capitalize(words(3))).append("\n\n");
+					sb.append(sentence).append(" **").append(emphasized).append("** ").append(reference).append(".\n\n");
+					break;
+				case "html":
+					sb.append("<p>").append(sentence).append(" <em>").append(emphasized).append("</em> &amp; ")
+							.append(reference).append(".</p>\n");
+					break;
+				default:
+					sb.append(sentence).append(" *").append(emphasized).append("* - ").append(reference).append(".\n\n");
+			}
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * @param count number of words
+	 * @return words separated by blanks, with a full stop every few words
+	 */
+	private String words(int count) {
+		StringBuilder sb = new StringBuilder(count * 8);
+		for (int i = 0; i < count; i++) {
+			if (i > 0) sb.append(i % 12 == 0 ? ". " : " ");
+			sb.append(word());
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * @param max exclusive maximum
+	 * @return random number between 0 and max, small numbers more likely
+	 */
+	private int skewed(int max) {
+		double r = random.nextDouble();
+		return Math.min(max - 1, (int) (max * r * r * r));
+	}
+
+	private static String capitalize(String text) {
+		if (text.isEmpty()) return text;
+		return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+	}
+}
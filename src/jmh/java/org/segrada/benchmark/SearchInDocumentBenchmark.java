@@ -0,0 +1,62 @@
+package org.segrada.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.segrada.search.SearchIndexDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Highlighting cost within single files carrying large extracted full texts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchInDocumentBenchmark extends AbstractSearchBenchmark {
+	@Param({"2000"})
+	public int corpusSize;
+
+	/**
+	 * ids of file documents
+	 */
+	private final List<String> fileIds = new ArrayList<>();
+
+	private final List<String> terms = new ArrayList<>();
+
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		for (SearchIndexDocument document : createIndexedSearchEngine(corpusSize))
+			if (document.getClassName().equals("File")) fileIds.add(document.getId());
+
+		SearchCorpusGenerator generator = new SearchCorpusGenerator(7L);
+		for (int i = 0; i < 64; i++)
+			terms.add(i % 2 == 0 ? generator.word() : generator.word() + " " + generator.word());
+	}
+
+	@Benchmark
+	public String[] searchInDocument() {
+		next++;
+		return searchEngine.searchInDocument(terms.get(next % terms.size()), fileIds.get(next % fileIds.size()));
+	}
+}
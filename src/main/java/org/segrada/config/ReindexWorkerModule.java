@@ -0,0 +1,117 @@
+package org.segrada.config;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
+import com.google.inject.Provides;
+import com.google.inject.name.Named;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import org.segrada.search.SearchEngine;
+import org.segrada.service.*;
+import org.segrada.service.base.AbstractFullTextService;
+import org.segrada.service.binarydata.BinaryDataService;
+import org.segrada.service.repository.factory.RepositoryFactory;
+import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbCountCache;
+import org.segrada.service.repository.orientdb.util.OrientDbEntityCache;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
+import org.segrada.session.ApplicationSettings;
+import org.segrada.session.Identity;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Child module of the application injector binding the full text services for reindex workers outside of requests.
+ * Services are bound with the name {@link #WORKER}, because the application injector binds them to the request. They
+ * work on the database connection the worker has set for its current chunk and write to the search index synchronously.
+ * Singletons are taken from the application injector.
+ */
+public class ReindexWorkerModule extends AbstractModule {
+	/**
+	 * name of bindings for workers
+	 */
+	public static final String WORKER = "reindexWorker";
+
+	/**
+	 * provides database connection of current worker thread
+	 */
+	private final Provider<ODatabaseDocumentTx> databaseProvider;
+
+	/**
+	 * Constructor
+	 * @param databaseProvider provides database connection of current worker thread
+	 */
+	public ReindexWorkerModule(Provider<ODatabaseDocumentTx> databaseProvider) {
+		this.databaseProvider = databaseProvider;
+	}
+
+	@Override
+	protected void configure() {
+		// bindings are provided below
+	}
+
+	// new factory for each service, bound to the database connection of the current chunk
+	@Provides @Named(WORKER)
+	public RepositoryFactory provideRepositoryFactory(ApplicationSettings settings, SearchEngine searchEngine,
+	                                                  OrientDbCountCache countCache, OrientDbEntityCache entityCache,
+	                                                  OrientDbTagHierarchy tagHierarchy) {
+		// no identity outside of requests
+		OrientDbRepositoryFactory repositoryFactory = new OrientDbRepositoryFactory(databaseProvider.get(), settings, new Identity());
+		repositoryFactory.setSearchEngine(searchEngine);
+		repositoryFactory.setCountCache(countCache);
+		repositoryFactory.setEntityCache(entityCache);
+		repositoryFactory.setTagHierarchy(tagHierarchy);
+		repositoryFactory.setIdentityMap(new OrientDbIdentityMap());
+		return repositoryFactory;
+	}
+
+	// no queue: services write to the search index synchronously
+
+	@Provides @Named(WORKER)
+	public CommentService provideCommentService(@Named(WORKER) RepositoryFactory repositoryFactory, SearchEngine searchEngine, SuggestService suggestService) {
+		return withSuggestService(new CommentService(repositoryFactory, searchEngine, null), suggestService);
+	}
+
+	@Provides @Named(WORKER)
+	public FileService provideFileService(@Named(WORKER) RepositoryFactory repositoryFactory, SearchEngine searchEngine, SuggestService suggestService, BinaryDataService binaryDataService) {
+		return withSuggestService(new FileService(repositoryFactory, searchEngine, null, binaryDataService), suggestService);
+	}
+
+	@Provides @Named(WORKER)
+	public NodeService provideNodeService(@Named(WORKER) RepositoryFactory repositoryFactory, SearchEngine searchEngine, SuggestService suggestService) {
+		return withSuggestService(new NodeService(repositoryFactory, searchEngine, null), suggestService);
+	}
+
+	@Provides @Named(WORKER)
+	public RelationService provideRelationService(@Named(WORKER) RepositoryFactory repositoryFactory, SearchEngine searchEngine, SuggestService suggestService) {
+		return withSuggestService(new RelationService(repositoryFactory, searchEngine, null), suggestService);
+	}
+
+	@Provides @Named(WORKER)
+	public SourceService provideSourceService(@Named(WORKER) RepositoryFactory repositoryFactory, SearchEngine searchEngine, SuggestService suggestService) {
+		return withSuggestService(new SourceService(repositoryFactory, searchEngine, null), suggestService);
+	}
+
+	/**
+	 * set member injected by the application injector
+	 * @param service created service
+	 * @param suggestService suggest service
+	 * @return service
+	 */
+	private static <T extends AbstractFullTextService> T withSuggestService(T service, SuggestService suggestService) {
+		service.setSuggestService(suggestService);
+		return service;
+	}
+}
@@ -10,10 +10,10 @@ import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.SimpleFSDirectory;
 import org.segrada.model.savedquery.GraphSavedQueryDataWorker;
 import org.segrada.model.savedquery.SavedQueryDataWorker;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.lucene.LuceneDirectoryFactory;
 import org.segrada.search.lucene.LuceneSearchEngine;
 import org.segrada.search.lucene.LuceneSegradaAnalyzer;
 import org.segrada.search.solr.SolrSearchEngine;
@@ -27,6 +27,7 @@ import org.segrada.service.repository.factory.RepositoryFactory;
 import org.segrada.service.repository.orientdb.OrientRememberMeRepository;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
 import org.segrada.service.repository.orientdb.querybuilder.QueryBuilder;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
 import org.segrada.session.ApplicationSettings;
 import org.segrada.session.ApplicationSettingsProperties;
 import org.segrada.util.PBKDF2WithHmacSHA1PasswordEncoder;
@@ -34,6 +35,8 @@ import org.segrada.util.PasswordEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import static org.segrada.util.Preconditions.checkNotNull;
@@ -89,6 +92,7 @@ public class ServiceModule extends AbstractModule {
 		bind(UserService.class);
 		bind(UserGroupService.class);
 		bind(SavedQueryService.class);
+		bind(ReindexService.class);
 
 		// bind remember me service
 		bind(RememberMeRepository.class).to(OrientRememberMeRepository.class);
@@ -149,7 +153,7 @@ public class ServiceModule extends AbstractModule {
 			// define search engine for solr server
 			return new SolrSearchEngine(settings, luceneAnalyzer);
 		}
-		return new LuceneSearchEngine(luceneDirectory, luceneAnalyzer);
+		return new LuceneSearchEngine(luceneDirectory, luceneAnalyzer, settings);
 	}
 
 	@Provides
@@ -177,6 +181,12 @@ public class ServiceModule extends AbstractModule {
 		return orientGraphFactory.getDatabase();
 	}
 
+	// entities converted in the request, shared by all repository factories of the request
+	@Provides @RequestScoped
+	public OrientDbIdentityMap provideIdentityMap() {
+		return new OrientDbIdentityMap();
+	}
+
 	// lucene should be thread save in practice
 	@Provides @Singleton @Inject
 	public Directory provideLuceneDirectory(ApplicationSettings settings) {
@@ -190,7 +200,18 @@ public class ServiceModule extends AbstractModule {
 		savePath += "lucene" + java.io.File.separator;
 
 		try {
-			return new SimpleFSDirectory(Paths.get(savePath));
+			// recover from an interrupted switch to a rebuilt index
+			Path path = Paths.get(savePath);
+			Path rebuiltPath = path.resolveSibling(path.getFileName().toString() + ".rebuild");
+			if (!Files.exists(path) && Files.exists(rebuiltPath))
+				Files.move(rebuiltPath, path);
+
+			// directory implementation is configurable, memory mapped by default on 64-bit JVMs
+			LuceneDirectoryFactory directoryFactory = LuceneDirectoryFactory.fromSettings(settings);
+			if (logger.isInfoEnabled())
+				logger.info("Lucene directory kind: " + directoryFactory.getKind());
+
+			return directoryFactory.open(path);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
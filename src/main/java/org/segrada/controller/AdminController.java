@@ -4,8 +4,16 @@ import com.google.inject.Inject;
 import com.google.inject.servlet.RequestScoped;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.lucene.LuceneFilterCache;
+import org.segrada.search.lucene.LuceneResultCache;
+import org.segrada.search.lucene.LuceneSearchEngine;
+import org.segrada.service.ReindexService;
 import org.segrada.service.base.AbstractFullTextService;
+import org.segrada.service.repository.orientdb.util.OrientDbEntityCache;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +53,18 @@ import java.util.ResourceBundle;
 public class AdminController {
 	private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
 
+	@Inject
+	private ReindexService reindexService;
+
 	@Inject
 	private SearchEngine searchEngine;
 
+	@Inject
+	private OrientDbEntityCache entityCache;
+
+	@Inject
+	private OrientDbTagHierarchy tagHierarchy;
+
 	/**
 	 * map to all full text services
 	 */
@@ -73,39 +90,98 @@ public class AdminController {
 	public String reindex(@Context ServletContext context) {
 		clearCache(context); // delete caches
 
-		// clear index
-		searchEngine.clearAllIndexes();
+		// start reindexing in background
+		boolean started = reindexService.start(fullTextServiceMap);
 
-		// how many entities do we have in total?
-		long total = 0;
-		long done = 0;
-		for (Map.Entry<String, AbstractFullTextService> entry : fullTextServiceMap.entrySet()) {
-			total += (float) entry.getValue().count();
+		initI18N(context);
+		try {
+			return messages.getString(started ? "ReindexingStarted" : "ReindexingRunning");
+		} catch (Exception e) {
+			return started ? "Reindexing started." : "Reindexing is running already.";
 		}
-		if (logger.isDebugEnabled())
-			logger.debug("Reindexing count: " + total);
+	}
 
-		// work all services and update index
-		for (Map.Entry<String, AbstractFullTextService> entry : fullTextServiceMap.entrySet()) {
-			if (logger.isDebugEnabled())
-				logger.debug("Started reindexing " + entry);
+	@GET
+	@Path("/reindex/status")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	@RolesAllowed("ADMIN")
+	public String reindexStatus() {
+		JSONObject jsonObject = new JSONObject();
+
+		try {
+			jsonObject.put("running", reindexService.isRunning());
+			jsonObject.put("done", reindexService.getDone());
+			jsonObject.put("total", reindexService.getTotal());
+			jsonObject.put("errors", reindexService.getErrors());
+			jsonObject.put("elapsed", reindexService.getElapsed());
+			jsonObject.put("rate", reindexService.getRate());
+			jsonObject.put("eta", reindexService.getEta());
+		} catch (JSONException e) {
+			logger.error("Could not create reindex status", e);
+		}
 
-			// reindex this batch
-			entry.getValue().reindexAll();
+		return jsonObject.toString();
+	}
 
-			// all done
-			done += (float) entry.getValue().count();
+	@GET
+	@Path("/search_cache")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	@RolesAllowed("ADMIN")
+	public String searchCacheStatus() {
+		JSONObject jsonObject = new JSONObject();
 
-			if (logger.isDebugEnabled())
-				logger.debug("Reindexed " + entry + ": " + done + "/" + total);
+		LuceneResultCache resultCache = searchEngine instanceof LuceneSearchEngine ? ((LuceneSearchEngine) searchEngine).getResultCache() : null;
+		LuceneFilterCache filterCache = searchEngine instanceof LuceneSearchEngine ? ((LuceneSearchEngine) searchEngine).getFilterCache() : null;
+		try {
+			jsonObject.put("enabled", resultCache != null);
+			if (resultCache != null) {
+				jsonObject.put("size", resultCache.size());
+				jsonObject.put("maxEntries", resultCache.getMaxEntries());
+				jsonObject.put("hits", resultCache.getHits());
+				jsonObject.put("misses", resultCache.getMisses());
+				jsonObject.put("evictions", resultCache.getEvictions());
+				jsonObject.put("invalidations", resultCache.getInvalidations());
+			}
+			if (filterCache != null) {
+				JSONObject filterCacheObject = new JSONObject();
+				filterCacheObject.put("size", filterCache.size());
+				filterCacheObject.put("hits", filterCache.getHits());
+				filterCacheObject.put("misses", filterCache.getMisses());
+				jsonObject.put("filterCache", filterCacheObject);
+			}
+		} catch (JSONException e) {
+			logger.error("Could not create search cache status", e);
 		}
 
-		initI18N(context);
+		return jsonObject.toString();
+	}
+
+	@GET
+	@Path("/entity_cache")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	@RolesAllowed("ADMIN")
+	public String entityCacheStatus() {
+		JSONObject jsonObject = new JSONObject();
+
 		try {
-			return messages.getString("ReindexingFinished");
-		} catch (Exception e) {
-			return "Finished with error(s).";
+			for (Map.Entry<String, OrientDbEntityCache.ClassCache> entry : entityCache.getClassCaches().entrySet()) {
+				OrientDbEntityCache.ClassCache classCache = entry.getValue();
+
+				JSONObject classObject = new JSONObject();
+				classObject.put("size", classCache.size());
+				classObject.put("maxEntries", classCache.getMaxEntries());
+				classObject.put("hits", classCache.getHits());
+				classObject.put("misses", classCache.getMisses());
+				classObject.put("hitRate", classCache.getHitRate());
+				classObject.put("evictions", classCache.getEvictions());
+				classObject.put("invalidations", classCache.getInvalidations());
+				jsonObject.put(entry.getKey(), classObject);
+			}
+		} catch (JSONException e) {
+			logger.error("Could not create entity cache status", e);
 		}
+
+		return jsonObject.toString();
 	}
 
 	@GET
@@ -118,6 +194,8 @@ public class AdminController {
 		if (cache != null) {
 			cache.removeAll(); // flush whole cache
 		}
+		entityCache.clear();
+		tagHierarchy.clear(); // reloaded on next use
 
 		initI18N(context);
 		try {
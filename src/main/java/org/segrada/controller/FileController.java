@@ -14,7 +14,9 @@ import org.segrada.auth.CheckSecondParameterForModelName;
 import org.segrada.controller.base.AbstractColoredController;
 import org.segrada.model.File;
 import org.segrada.model.prototype.*;
+import org.segrada.search.Suggestion;
 import org.segrada.service.FileService;
+import org.segrada.service.SuggestService;
 import org.segrada.service.PictogramService;
 import org.segrada.service.TagService;
 import org.segrada.service.base.AbstractRepositoryService;
@@ -60,6 +62,9 @@ public class FileController extends AbstractColoredController<IFile> {
 	@Inject
 	private FileService service;
 
+	@Inject
+	private SuggestService suggestService;
+
 	@Inject
 	private PictogramService pictogramService;
 
@@ -437,6 +442,16 @@ public class FileController extends AbstractColoredController<IFile> {
 		if (tags != null && !tags.isEmpty()) tagIds = tags.split(",");
 		else tagIds = null;
 
+		// answer from type-ahead suggestions, if loaded
+		if (term != null && !term.trim().isEmpty()) {
+			List<Suggestion> suggestions = suggestService.suggest(term, Collections.singleton("File"), null, 30);
+			if (suggestions != null) {
+				for (Suggestion suggestion : suggestions)
+					jsonArray.put(suggestion.toJSON());
+				return jsonArray.toString();
+			}
+		}
+
 		// search term finding
 		for (IFile node : service.search(term)) {
 			try {
@@ -119,7 +119,12 @@ public class LocationController extends AbstractBaseController<ILocation> {
 
 			// try to save
 			if (!service.save(location)) error = true;
-			else clearCache(); // delete caches
+			else {
+				// save parent in order to update locations in search index
+				parentService.save(parent);
+
+				clearCache(); // delete caches
+			}
 		}
 
 		Map<String, Object> model = new HashMap<>();
@@ -149,6 +154,7 @@ public class LocationController extends AbstractBaseController<ILocation> {
 			if (parentModel == null || parentId == null || parentModel.isEmpty() || parentId.isEmpty()) error = true;
 			else if (parentModel.equals("Node")) parentService = this.nodeService;
 			else if (parentModel.equals("Relation")) parentService = this.relationService;
+			else if (parentModel.equals("Source")) parentService = this.sourceService;
 
 			// try to delete element
 			if (!service.delete(location)) error = true;
@@ -158,6 +164,8 @@ public class LocationController extends AbstractBaseController<ILocation> {
 			if (parentService != null) {
 				parent = (SegradaCoreEntity) parentService.findById(parentId);
 				if (parent == null) error = true;
+				// save parent in order to update locations in search index
+				else if (!error) parentService.save(parent);
 			} else error = true;
 		}
 
@@ -13,7 +13,9 @@ import org.segrada.model.prototype.INode;
 import org.segrada.model.prototype.IRelation;
 import org.segrada.model.prototype.ITag;
 import org.segrada.rendering.json.JSONConverter;
+import org.segrada.search.Suggestion;
 import org.segrada.service.NodeService;
+import org.segrada.service.SuggestService;
 import org.segrada.service.RelationService;
 import org.segrada.service.TagService;
 import org.segrada.service.base.SegradaService;
@@ -49,6 +51,9 @@ public class NodeController extends AbstractColoredController<INode> {
 	@Inject
 	private NodeService service;
 
+	@Inject
+	private SuggestService suggestService;
+
 	@Inject
 	private RelationService relationService;
 
@@ -220,6 +225,16 @@ public class NodeController extends AbstractColoredController<INode> {
 		if (tags != null && !tags.isEmpty()) tagIds = tags.split(",");
 		else tagIds = null;
 
+		// answer from type-ahead suggestions, if loaded
+		if (tagIds == null && term != null && !term.trim().isEmpty()) {
+			List<Suggestion> suggestions = suggestService.suggest(term, Collections.singleton("Node"), null, 30);
+			if (suggestions != null) {
+				for (Suggestion suggestion : suggestions)
+					jsonArray.put(suggestion.toJSON());
+				return jsonArray.toString();
+			}
+		}
+
 		// search term finding
 		for (INode node : service.findBySearchTermAndTags(term, 30, true, tagIds)) {
 			try {
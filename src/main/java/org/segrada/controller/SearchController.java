@@ -3,20 +3,37 @@ package org.segrada.controller;
 import com.google.inject.Inject;
 import com.google.inject.servlet.RequestScoped;
 import com.sun.jersey.api.view.Viewable;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
 import org.segrada.model.prototype.ITag;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchHit;
+import org.segrada.search.SearchPaginationInfo;
+import org.segrada.search.Suggestion;
+import org.segrada.service.SuggestService;
 import org.segrada.service.TagService;
 import org.segrada.session.Identity;
 
+import javax.annotation.security.PermitAll;
 import javax.annotation.security.RolesAllowed;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
@@ -54,21 +71,119 @@ public class SearchController {
 	@Inject
 	private Identity identity;
 
+	@Inject
+	private SuggestService suggestService;
+
 	@GET
 	@Produces(MediaType.TEXT_HTML)
 	@RolesAllowed("SEARCH")
 	public Viewable index(
 			@QueryParam("s") String term,
 			@QueryParam("page") String page,
+			@QueryParam("after") String after,
 			@QueryParam("fields") String fields,
 			@QueryParam("operator") String operator,
 			@QueryParam("class") String clazz,
 			@QueryParam("tags") List<String> tags,
-			@QueryParam("limit") String limit
+			@QueryParam("limit") String limit,
+			@QueryParam("minEntry") String minEntry,
+			@QueryParam("maxEntry") String maxEntry,
+			@QueryParam("facets") String facets
 	) {
+		Map<String, String> filters = createFilters(page, after, fields, operator, clazz, tags, limit, minEntry, maxEntry);
+		// class counts are shown in class select, if requested
+		if (facets != null && !facets.isEmpty()) filters.put("facets", facets);
+
+		// create model map
+		Map<String, Object> model = new HashMap<>();
+		model.put("paginationInfo", searchEngine.search(term, filters));
+		model.put("searchTerm", term);
+		model.put("filters", filters);
+		if (tags != null && !tags.isEmpty()) {
+			model.put("tags", tags);
+		}
+		model.put("searchClasses", SEARCH_CLASSES);
+		return new Viewable("search/index", model);
+	}
+
+	@GET
+	@Path("/json")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	@RolesAllowed("SEARCH")
+	public Response json(
+			@QueryParam("s") String term,
+			@QueryParam("page") String page,
+			@QueryParam("after") String after,
+			@QueryParam("fields") String fields,
+			@QueryParam("operator") String operator,
+			@QueryParam("class") String clazz,
+			@QueryParam("tags") List<String> tags,
+			@QueryParam("limit") String limit,
+			@QueryParam("minEntry") String minEntry,
+			@QueryParam("maxEntry") String maxEntry,
+			@QueryParam("facets") String facets,
+			@QueryParam("select") String select
+	) {
+		Map<String, String> filters = createFilters(page, after, fields, operator, clazz, tags, limit, minEntry, maxEntry);
+		if (facets != null && !facets.isEmpty()) filters.put("facets", facets);
+
+		// selected hit fields, comma separated - no highlighting if fragments are not selected
+		Set<String> selectedFields = null;
+		if (select != null && !select.isEmpty()) {
+			selectedFields = Arrays.stream(select.split(",")).map(String::trim).filter(f -> !f.isEmpty()).collect(Collectors.toSet());
+			if (!selectedFields.contains("highlightText")) filters.put("highlight", "false");
+		}
+
+		SearchPaginationInfo paginationInfo = searchEngine.search(term, filters);
+		final Set<String> hitFields = selectedFields;
+
+		// stream hits one by one instead of building the whole document in memory
+		StreamingOutput output = outputStream -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+			writer.write("{\"page\":" + paginationInfo.getPage());
+			writer.write(",\"pages\":" + paginationInfo.getPages());
+			writer.write(",\"total\":" + paginationInfo.getTotal());
+			writer.write(",\"entriesPerPage\":" + paginationInfo.getEntriesPerPage());
+			if (paginationInfo.getNextCursor() != null)
+				writer.write(",\"nextCursor\":" + JSONObject.quote(paginationInfo.getNextCursor()));
+
+			writer.write(",\"hits\":[");
+			boolean first = true;
+			for (SearchHit hit : paginationInfo.getEntities()) {
+				if (first) first = false;
+				else writer.write(',');
+				writer.write(hit.toJSON(hitFields).toString());
+			}
+			writer.write(']');
+
+			// facet counts per dimension, if requested
+			if (paginationInfo.getFacets() != null) {
+				JSONObject jsonFacets = new JSONObject();
+				try {
+					for (Map.Entry<String, Map<String, Integer>> facet : paginationInfo.getFacets().entrySet())
+						jsonFacets.put(facet.getKey(), new JSONObject(facet.getValue()));
+				} catch (JSONException e) {
+					// ignore
+				}
+				writer.write(",\"facets\":" + jsonFacets.toString());
+			}
+
+			writer.write('}');
+			writer.flush();
+		};
+
+		return Response.ok(output).build();
+	}
+
+	/**
+	 * create filters for search engine from request parameters, restricting classes to the ones the user may access
+	 */
+	private Map<String, String> createFilters(String page, String after, String fields, String operator, String clazz, List<String> tags, String limit, String minEntry, String maxEntry) {
 		// filters:
 		Map<String, String> filters = new HashMap<>();
 		if (page != null && !page.isEmpty()) filters.put("page", page);
+		if (after != null && !after.isEmpty()) filters.put("after", after);
 		if (fields != null && !fields.isEmpty()) filters.put("fields", fields);
 		if (operator != null && !operator.isEmpty()) filters.put("operator", operator);
 		if (clazz != null && !clazz.isEmpty()) {
@@ -100,17 +215,11 @@ public class SearchController {
 				filters.put("tags", sb.toString());
 		}
 		if (limit != null && !limit.isEmpty()) filters.put("limit", limit);
+		// temporal extent: date inputs, converted to julian days by search engine
+		if (minEntry != null && !minEntry.isEmpty()) filters.put("minJD", minEntry);
+		if (maxEntry != null && !maxEntry.isEmpty()) filters.put("maxJD", maxEntry);
 
-		// create model map
-		Map<String, Object> model = new HashMap<>();
-		model.put("paginationInfo", searchEngine.search(term, filters));
-		model.put("searchTerm", term);
-		model.put("filters", filters);
-		if (tags != null && !tags.isEmpty()) {
-			model.put("tags", tags);
-		}
-		model.put("searchClasses", SEARCH_CLASSES);
-		return new Viewable("search/index", model);
+		return filters;
 	}
 
 	@GET
@@ -127,4 +236,57 @@ public class SearchController {
 
 		return new Viewable("search/in_document", model);
 	}
+
+	@GET
+	@Path("/in_document/json")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	@RolesAllowed("SEARCH")
+	public String searchInDocumentJson(
+			@QueryParam("s") String term,
+			@QueryParam("id") String id
+	) {
+		JSONObject jsonObject = new JSONObject();
+		try {
+			jsonObject.put("id", id);
+			jsonObject.put("hits", new JSONArray(Arrays.asList(searchEngine.searchInDocument(term, id))));
+		} catch (JSONException e) {
+			// ignore
+		}
+
+		return jsonObject.toString();
+	}
+
+	@GET
+	@Path("/suggest")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	@PermitAll
+	public String suggest(
+			@QueryParam("s") String term,
+			@QueryParam("class") String clazz,
+			@QueryParam("limit") String limit
+	) {
+		// classes to suggest, comma separated - access is checked by service
+		List<String> classes = null;
+		if (clazz != null && !clazz.isEmpty())
+			classes = Arrays.stream(clazz.split(",")).map(String::trim).filter(c -> !c.isEmpty()).collect(Collectors.toList());
+
+		int max = 10;
+		if (limit != null && !limit.isEmpty()) {
+			try {
+				max = Integer.parseInt(limit);
+				if (max <= 0 || max > 100) max = 10;
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+
+		// empty while suggestions are loaded
+		JSONArray jsonArray = new JSONArray();
+		List<Suggestion> suggestions = suggestService.suggest(term, classes, identity, max);
+		if (suggestions != null)
+			for (Suggestion suggestion : suggestions)
+				jsonArray.put(suggestion.toJSON());
+
+		return jsonArray.toString();
+	}
 }
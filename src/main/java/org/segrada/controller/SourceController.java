@@ -12,7 +12,9 @@ import org.segrada.model.Source;
 import org.segrada.model.prototype.IFile;
 import org.segrada.model.prototype.ISource;
 import org.segrada.model.prototype.ITag;
+import org.segrada.search.Suggestion;
 import org.segrada.service.SourceService;
+import org.segrada.service.SuggestService;
 import org.segrada.service.TagService;
 import org.segrada.service.base.SegradaService;
 
@@ -23,6 +25,7 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +53,9 @@ public class SourceController extends AbstractColoredController<ISource> {
 	@Inject
 	private SourceService service;
 
+	@Inject
+	private SuggestService suggestService;
+
 	@Inject
 	private TagService tagService;
 
@@ -280,6 +286,16 @@ public class SourceController extends AbstractColoredController<ISource> {
 		// json array to hold hits
 		JSONArray jsonArray = new JSONArray();
 
+		// answer from type-ahead suggestions, if loaded
+		if (term != null && !term.trim().isEmpty()) {
+			List<Suggestion> suggestions = suggestService.suggest(term, Collections.singleton("Source"), null, 30);
+			if (suggestions != null) {
+				for (Suggestion suggestion : suggestions)
+					jsonArray.put(suggestion.toJSON());
+				return jsonArray.toString();
+			}
+		}
+
 		// search term finding
 		for (ISource node : service.findBySearchTerm(term, 30, true)) {
 			try {
@@ -13,7 +13,9 @@ import org.segrada.model.prototype.INode;
 import org.segrada.model.prototype.ITag;
 import org.segrada.model.prototype.SegradaTaggable;
 import org.segrada.rendering.json.JSONConverter;
+import org.segrada.search.Suggestion;
 import org.segrada.service.TagService;
+import org.segrada.service.SuggestService;
 import org.segrada.service.base.AbstractRepositoryService;
 import org.segrada.service.base.SegradaService;
 import org.segrada.service.repository.prototype.CRUDRepository;
@@ -27,6 +29,7 @@ import javax.ws.rs.core.Response;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +57,9 @@ public class TagController extends AbstractBaseController<ITag> {
 	@Inject
 	private TagService service;
 
+	@Inject
+	private SuggestService suggestService;
+
 	@Inject
 	private JSONConverter jsonConverter;
 
@@ -300,6 +306,16 @@ public class TagController extends AbstractBaseController<ITag> {
 		// json array to hold hits
 		JSONArray jsonArray = new JSONArray();
 
+		// answer from type-ahead suggestions, if loaded
+		if (term != null && !term.trim().isEmpty()) {
+			List<Suggestion> suggestions = suggestService.suggest(term, Collections.singleton("Tag"), null, 25);
+			if (suggestions != null) {
+				for (Suggestion suggestion : suggestions)
+					jsonArray.put(suggestion.toJSON());
+				return jsonArray.toString();
+			}
+		}
+
 		// search term finding
 		for (ITag tag : service.findBySearchTerm(term, 25, true)) {
 			try {
@@ -14,6 +14,7 @@ import org.segrada.service.repository.prototype.CRUDRepository;
 import org.segrada.service.repository.prototype.PaginatingRepositoryOrService;
 
 import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
@@ -46,6 +47,9 @@ public abstract class AbstractBaseController<T extends SegradaEntity> {
 	@Inject
 	protected HttpSession session;
 
+	@Inject
+	protected HttpServletRequest request;
+
 	/**
 	 * Handle non paginated index
 	 * @param service showing pages
@@ -135,8 +139,17 @@ public abstract class AbstractBaseController<T extends SegradaEntity> {
 		// save to session
 		session.setAttribute(key, cleanedFilter);
 
+		// cursors of neighbouring pages are valid for a single request only - not saved to session
+		Map<String, Object> pageFilter = cleanedFilter;
+		String after = request.getParameter("after"), before = request.getParameter("before");
+		if ((after != null && !after.isEmpty()) || (before != null && !before.isEmpty())) {
+			pageFilter = new HashMap<>(cleanedFilter);
+			if (after != null && !after.isEmpty()) pageFilter.put("after", after);
+			else pageFilter.put("before", before);
+		}
+
 		// add to model map
-		model.put("paginationInfo", service.paginate(page, entriesPerPage, cleanedFilter));
+		model.put("paginationInfo", service.paginate(page, entriesPerPage, pageFilter));
 		model.put("filters", cleanedFilter);
 
 		return new Viewable(getBasePath() + viewName, model);
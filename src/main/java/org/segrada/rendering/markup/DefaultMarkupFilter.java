@@ -74,9 +74,15 @@ public class DefaultMarkupFilter extends MarkupFilter {
 	}
 
 	public DefaultMarkupFilter() {
-		if (injector != null)
-			sourceService = injector.getInstance(SourceService.class);
-		else sourceService = null;
+		SourceService service = null;
+		if (injector != null) {
+			try {
+				service = injector.getInstance(SourceService.class);
+			} catch (RuntimeException e) {
+				// outside of a request (e.g. background reindexing) - source references are not resolved
+			}
+		}
+		sourceService = service;
 	}
 
 	public static void setInjector(Injector injector) {
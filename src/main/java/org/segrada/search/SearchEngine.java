@@ -1,7 +1,7 @@
 package org.segrada.search;
 
-import org.segrada.service.util.PaginationInfo;
-
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,16 +36,102 @@ public interface SearchEngine {
 	 * @param weight    weight of document, might be dependent of class or user definition
 	 * @return
 	 */
-	boolean index(String id, String className, String title, String subTitles, String content, String[] tagIds,  Integer color, String iconFileIdentifier, float weight);
+	default boolean index(String id, String className, String title, String subTitles, String content, String[] tagIds,  Integer color, String iconFileIdentifier, float weight) {
+		return index(id, className, title, subTitles, content, tagIds, color, iconFileIdentifier, weight, null, null);
+	}
+
+	/**
+	 * index new document in search engine including its temporal extent
+	 *
+	 * @param id        of document e.g. db id
+	 * @param className full classname referenced - may be a dummy
+	 * @param title     title of document, if any (should be ranked very high)
+	 * @param subTitles subtitles of document, if any (should be ranked relatively high)
+	 * @param content   text content of document, if any (plain text)
+	 * @param tagIds    ids of tags the indexed element belongs to (optional)
+	 * @param color     color id (optional)
+	 * @param iconFileIdentifier file identifier for icon (optional)
+	 * @param weight    weight of document, might be dependent of class or user definition
+	 * @param minJD     start of temporal extent as julian day (optional)
+	 * @param maxJD     end of temporal extent as julian day (optional)
+	 * @return
+	 */
+	default boolean index(String id, String className, String title, String subTitles, String content, String[] tagIds,  Integer color, String iconFileIdentifier, float weight, @Nullable Long minJD, @Nullable Long maxJD) {
+		SearchIndexDocument document = new SearchIndexDocument(id);
+		document.setClassName(className);
+		document.setTitle(title);
+		document.setSubTitles(subTitles);
+		document.setContent(content);
+		document.setTagIds(tagIds);
+		document.setColor(color);
+		document.setIconFileIdentifier(iconFileIdentifier);
+		document.setWeight(weight);
+		document.setMinJD(minJD);
+		document.setMaxJD(maxJD);
+
+		return index(document);
+	}
+
+	/**
+	 * index new document in search engine including its temporal extent and locations
+	 *
+	 * @param document to index
+	 * @return true if document has been indexed
+	 */
+	boolean index(SearchIndexDocument document);
+
+	/**
+	 * index a batch of documents - documents are not necessarily visible to searches before flush is called
+	 *
+	 * @param documents to index
+	 * @return true if batch has been written
+	 */
+	boolean indexAll(List<SearchIndexDocument> documents);
+
+	/**
+	 * start rebuilding the index: indexAll writes to a new index while searches and single updates still use the
+	 * current one
+	 *
+	 * @return false if rebuilding is not supported or running already - clear the index instead
+	 */
+	boolean startRebuild();
+
+	/**
+	 * switch to rebuilt index, replaying changes made to the current index in the meantime
+	 *
+	 * @return true if switched
+	 */
+	boolean finishRebuild();
+
+	/**
+	 * throw away rebuilt index
+	 */
+	void cancelRebuild();
 
 	/**
 	 * Do a search
 	 *
 	 * @param searchTerm term(s) to search for
-	 * @param filters    possible filters to search in, e.g. class names, etc.
+	 * @param filters    possible filters to search in, e.g. class names, etc. - "after" takes the cursor of the
+	 *                   previous page to fetch the next page without collecting all hits before it
+	 *                   - "facets" set to true counts class names and tags of all hits
+	 *                   - "highlight" set to false skips highlighting of hits
+	 *                   - "minJD"/"maxJD" take date inputs, hits have to start after/end before them
+	 *                   - "geo" takes a WKT shape (e.g. POLYGON, ENVELOPE or BUFFER(POINT(lng lat), degrees)), hits
+	 *                   have to have a location within it
 	 * @return paginated search results
 	 */
-	PaginationInfo<SearchHit> search(String searchTerm, Map<String, String> filters);
+	SearchPaginationInfo search(String searchTerm, Map<String, String> filters);
+
+	/**
+	 * Do a search and return ids of all hits - not sorted by relevance, no paging
+	 *
+	 * @param searchTerm term(s) to search for, null matches all documents
+	 * @param filters    filters as in search, paging filters are ignored - "limit" returns the ids of that many best
+	 *                   hits only, sorted by relevance
+	 * @return ids of all hits
+	 */
+	List<String> searchIds(String searchTerm, Map<String, String> filters);
 
 	/**
 	 * search within a document for certain terms and return list of highlighted hits
@@ -74,4 +160,20 @@ public interface SearchEngine {
 	 * completely clear index
 	 */
 	void clearAllIndexes();
+
+	/**
+	 * persist pending changes - called after bulk indexing and when the index queue is flushed
+	 */
+	void flush();
+
+	/**
+	 * start a batch of single index updates in the current thread - changes do not have to be visible to searches
+	 * before endBatch is called
+	 */
+	void beginBatch();
+
+	/**
+	 * end batch of single index updates: make changes visible to searches, without necessarily persisting them
+	 */
+	void endBatch();
 }
@@ -1,10 +1,16 @@
 package org.segrada.search;
 
 import org.apache.commons.lang3.StringUtils;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
 import org.segrada.model.base.AbstractSegradaEntity;
 import org.segrada.model.prototype.IUser;
 import org.segrada.model.prototype.SegradaEntity;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+
 /**
  * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
  * <p>
@@ -110,4 +116,53 @@ public class SearchHit extends AbstractSegradaEntity {
 	public void setRelevance(float relevance) {
 		this.relevance = relevance;
 	}
+
+	@Override
+	public JSONObject toJSON() {
+		JSONObject jsonObject = super.toJSON();
+
+		try {
+			jsonObject.put("className", className);
+			jsonObject.put("title", title);
+			jsonObject.put("subTitles", subTitles);
+			if (tagIds != null) jsonObject.put("tagIds", new JSONArray(Arrays.asList(tagIds)));
+			jsonObject.put("color", getColorCode());
+			jsonObject.put("iconFileIdentifier", iconFileIdentifier);
+			if (highlightText != null) jsonObject.put("highlightText", new JSONArray(Arrays.asList(highlightText)));
+			jsonObject.put("relevance", relevance);
+		} catch (Exception e) {
+			// ignore
+		}
+
+		return jsonObject;
+	}
+
+	/**
+	 * lean JSON representation containing selected fields only
+	 * @param fields names of fields to include (id, uid, className, title, subTitles, tagIds, color,
+	 *               iconFileIdentifier, highlightText, relevance), null for all fields
+	 * @return JSON object
+	 */
+	public JSONObject toJSON(@Nullable Collection<String> fields) {
+		if (fields == null) return toJSON();
+
+		JSONObject jsonObject = new JSONObject();
+
+		try {
+			if (fields.contains("id")) jsonObject.put("id", getId());
+			if (fields.contains("uid")) jsonObject.put("uid", getUid());
+			if (fields.contains("className")) jsonObject.put("className", className);
+			if (fields.contains("title")) jsonObject.put("title", title);
+			if (fields.contains("subTitles")) jsonObject.put("subTitles", subTitles);
+			if (fields.contains("tagIds") && tagIds != null) jsonObject.put("tagIds", new JSONArray(Arrays.asList(tagIds)));
+			if (fields.contains("color")) jsonObject.put("color", getColorCode());
+			if (fields.contains("iconFileIdentifier")) jsonObject.put("iconFileIdentifier", iconFileIdentifier);
+			if (fields.contains("highlightText") && highlightText != null) jsonObject.put("highlightText", new JSONArray(Arrays.asList(highlightText)));
+			if (fields.contains("relevance")) jsonObject.put("relevance", relevance);
+		} catch (Exception e) {
+			// ignore
+		}
+
+		return jsonObject;
+	}
 }
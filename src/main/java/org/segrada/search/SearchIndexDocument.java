@@ -0,0 +1,152 @@
+package org.segrada.search;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Single document to be written to the search index in bulk operations
+ */
+public class SearchIndexDocument {
+	protected final String id;
+
+	protected String className;
+
+	protected String title;
+
+	protected String subTitles;
+
+	/**
+	 * plain text content
+	 */
+	protected String content;
+
+	protected String[] tagIds;
+
+	protected Integer color;
+
+	protected String iconFileIdentifier;
+
+	protected float weight = 1f;
+
+	/**
+	 * temporal extent as julian days
+	 */
+	protected Long minJD;
+
+	protected Long maxJD;
+
+	/**
+	 * locations as latitude/longitude pairs
+	 */
+	protected List<double[]> locations;
+
+	public SearchIndexDocument(String id) {
+		this.id = id;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public void setClassName(String className) {
+		this.className = className;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getSubTitles() {
+		return subTitles;
+	}
+
+	public void setSubTitles(String subTitles) {
+		this.subTitles = subTitles;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	public String[] getTagIds() {
+		return tagIds;
+	}
+
+	public void setTagIds(String[] tagIds) {
+		this.tagIds = tagIds;
+	}
+
+	public Integer getColor() {
+		return color;
+	}
+
+	public void setColor(Integer color) {
+		this.color = color;
+	}
+
+	public String getIconFileIdentifier() {
+		return iconFileIdentifier;
+	}
+
+	public void setIconFileIdentifier(String iconFileIdentifier) {
+		this.iconFileIdentifier = iconFileIdentifier;
+	}
+
+	public float getWeight() {
+		return weight;
+	}
+
+	public void setWeight(float weight) {
+		this.weight = weight;
+	}
+
+	public @Nullable Long getMinJD() {
+		return minJD;
+	}
+
+	public void setMinJD(@Nullable Long minJD) {
+		this.minJD = minJD;
+	}
+
+	public @Nullable Long getMaxJD() {
+		return maxJD;
+	}
+
+	public void setMaxJD(@Nullable Long maxJD) {
+		this.maxJD = maxJD;
+	}
+
+	public @Nullable List<double[]> getLocations() {
+		return locations;
+	}
+
+	public void setLocations(@Nullable List<double[]> locations) {
+		this.locations = locations;
+	}
+}
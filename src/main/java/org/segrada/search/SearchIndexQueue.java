@@ -0,0 +1,322 @@
+package org.segrada.search;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.segrada.session.ApplicationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Background queue for search index writes: jobs are keyed by document id, so several updates of the same
+ * document are coalesced into one write. A single worker thread works the queue in batches and makes each batch
+ * visible to searches at its end. Changes are persisted by the search engine from time to time, on flush and on
+ * shutdown.
+ */
+@Singleton
+public class SearchIndexQueue {
+	private static final Logger logger = LoggerFactory.getLogger(SearchIndexQueue.class);
+
+	/**
+	 * single write to the search index
+	 */
+	public interface Job {
+		/**
+		 * @return true if job was successful, false if it should be retried
+		 */
+		boolean run();
+	}
+
+	/**
+	 * queued job and number of failed attempts
+	 */
+	private static class Entry {
+		private final String id;
+
+		private final Job job;
+
+		private int attempts = 0;
+
+		private Entry(String id, Job job) {
+			this.id = id;
+			this.job = job;
+		}
+	}
+
+	/**
+	 * reference to search engine
+	 */
+	private final SearchEngine searchEngine;
+
+	/**
+	 * maximum number of pending documents - callers will block if queue is full
+	 */
+	private final int capacity;
+
+	/**
+	 * maximum number of documents written per batch
+	 */
+	private final int batchSize;
+
+	/**
+	 * maximum time in milliseconds to wait for more documents before a batch is written
+	 */
+	private final long maxLatency;
+
+	/**
+	 * number of retries for failed jobs
+	 */
+	private final int retries;
+
+	/**
+	 * pending jobs by document id (insertion ordered)
+	 */
+	private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+
+	/**
+	 * number of jobs currently worked on by the worker
+	 */
+	private int inFlight = 0;
+
+	/**
+	 * true if a flush has been requested - write next batch immediately
+	 */
+	private boolean flushRequested = false;
+
+	/**
+	 * false after shutdown
+	 */
+	private boolean running = true;
+
+	/**
+	 * worker thread
+	 */
+	private final Thread worker;
+
+	/**
+	 * Constructor
+	 * @param searchEngine search engine written to
+	 * @param settings application settings
+	 */
+	@Inject
+	public SearchIndexQueue(SearchEngine searchEngine, ApplicationSettings settings) {
+		this(searchEngine,
+				settings.getSettingAsInteger("search.indexQueue.capacity", 10000),
+				settings.getSettingAsInteger("search.indexQueue.batchSize", 100),
+				settings.getSettingAsInteger("search.indexQueue.maxLatency", 500),
+				settings.getSettingAsInteger("search.indexQueue.retries", 3));
+	}
+
+	/**
+	 * Constructor
+	 * @param searchEngine search engine written to
+	 * @param capacity maximum number of pending documents
+	 * @param batchSize maximum number of documents per batch
+	 * @param maxLatency milliseconds to wait for more documents before writing a batch
+	 * @param retries number of retries for failed jobs
+	 */
+	public SearchIndexQueue(SearchEngine searchEngine, int capacity, int batchSize, long maxLatency, int retries) {
+		this.searchEngine = searchEngine;
+
+		// sane values
+		this.capacity = capacity > 0 ? capacity : 10000;
+		this.batchSize = batchSize > 0 ? batchSize : 100;
+		this.maxLatency = maxLatency >= 0 ? maxLatency : 500;
+		this.retries = retries >= 0 ? retries : 3;
+
+		worker = new Thread(this::work, "SearchIndexQueue");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * add job to queue - replaces a pending job of the same document, blocks while queue is full
+	 * @param id of document
+	 * @param job to run
+	 */
+	public void enqueue(String id, Job job) {
+		synchronized (this) {
+			try {
+				// wait for free space, unless job can be coalesced with a pending one
+				while (running && pending.size() >= capacity && !pending.containsKey(id))
+					wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			if (running && (pending.size() < capacity || pending.containsKey(id))) {
+				pending.put(id, new Entry(id, job));
+				notifyAll();
+				return;
+			}
+		}
+
+		// queue has been shut down: run job synchronously
+		if (!runJob(id, job))
+			logger.error("Could not write document to search index: " + id);
+	}
+
+	/**
+	 * wait until all pending jobs have been written and persist them
+	 */
+	public void flush() {
+		synchronized (this) {
+			if (!pending.isEmpty() || inFlight > 0) {
+				flushRequested = true;
+				notifyAll();
+
+				try {
+					while (!pending.isEmpty() || inFlight > 0)
+						wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		flushSearchEngine();
+	}
+
+	/**
+	 * write all pending jobs and stop worker - called on application shutdown
+	 */
+	public void shutdown() {
+		logger.info("Shutting down search index queue");
+
+		synchronized (this) {
+			running = false;
+			notifyAll();
+		}
+
+		try {
+			worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		flushSearchEngine();
+	}
+
+	/**
+	 * @return number of pending jobs
+	 */
+	public synchronized int size() {
+		return pending.size();
+	}
+
+	/**
+	 * worker loop
+	 */
+	private void work() {
+		while (true) {
+			List<Entry> batch = new ArrayList<>();
+
+			synchronized (this) {
+				try {
+					while (running && pending.isEmpty())
+						wait();
+
+					// wait a little for more jobs to fill the batch
+					long deadline = System.currentTimeMillis() + maxLatency;
+					long waitFor;
+					while (running && !flushRequested && pending.size() < batchSize
+							&& (waitFor = deadline - System.currentTimeMillis()) > 0)
+						wait(waitFor);
+				} catch (InterruptedException e) {
+					running = false; // stop worker, but work remaining jobs
+				}
+
+				// shut down and everything done
+				if (pending.isEmpty()) {
+					flushRequested = false;
+					notifyAll();
+					if (!running) return;
+					continue;
+				}
+
+				// take batch from queue
+				Iterator<Entry> it = pending.values().iterator();
+				while (it.hasNext() && batch.size() < batchSize) {
+					batch.add(it.next());
+					it.remove();
+				}
+				inFlight = batch.size();
+				notifyAll(); // there is space in queue again
+			}
+
+			// work batch - searchers are refreshed once at its end
+			List<Entry> failed = new ArrayList<>();
+			searchEngine.beginBatch();
+			try {
+				for (Entry entry : batch) {
+					if (!runJob(entry.id, entry.job))
+						failed.add(entry);
+				}
+			} finally {
+				try {
+					searchEngine.endBatch();
+				} catch (Exception e) {
+					logger.error("Could not refresh search index", e);
+				}
+			}
+
+			synchronized (this) {
+				// retry failed jobs, unless there is a newer job for the document
+				for (Entry entry : failed) {
+					if (++entry.attempts > retries)
+						logger.error("Could not write document to search index after " + retries + " retries: " + entry.id);
+					else if (!pending.containsKey(entry.id))
+						pending.put(entry.id, entry);
+				}
+
+				inFlight = 0;
+				if (pending.isEmpty()) flushRequested = false;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * persist changes written to search engine
+	 */
+	private void flushSearchEngine() {
+		try {
+			searchEngine.flush();
+		} catch (Exception e) {
+			logger.error("Could not flush search index", e);
+		}
+	}
+
+	/**
+	 * run single job
+	 * @param id of document
+	 * @param job to run
+	 * @return true on success
+	 */
+	private static boolean runJob(String id, Job job) {
+		try {
+			return job.run();
+		} catch (Throwable e) {
+			logger.warn("Error while writing document to search index: " + id, e);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.segrada.search;
+
+import org.segrada.service.util.PaginationInfo;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Pagination information of search results, including a cursor to fetch the next page cheaply and facet counts
+ */
+public class SearchPaginationInfo extends PaginationInfo<SearchHit> {
+	/**
+	 * cursor pointing after the last hit of this page, null if there is no next page
+	 */
+	private final String nextCursor;
+
+	/**
+	 * facet counts per dimension (className, tag): value -> number of hits, null if not requested
+	 */
+	private final Map<String, Map<String, Integer>> facets;
+
+	/**
+	 * constructor
+	 */
+	public SearchPaginationInfo(int page, int pages, int total, int entriesPerPage, List<SearchHit> entities, @Nullable String nextCursor) {
+		this(page, pages, total, entriesPerPage, entities, nextCursor, null);
+	}
+
+	/**
+	 * constructor
+	 */
+	public SearchPaginationInfo(int page, int pages, int total, int entriesPerPage, List<SearchHit> entities, @Nullable String nextCursor, @Nullable Map<String, Map<String, Integer>> facets) {
+		super(page, pages, total, entriesPerPage, entities);
+		this.nextCursor = nextCursor;
+		this.facets = facets;
+	}
+
+	/**
+	 * @return cursor to pass as "after" filter together with the next page number, null if there is no next page
+	 */
+	public @Nullable String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * @return facet counts per dimension (className, tag), sorted by count descending - null if not requested
+	 */
+	public @Nullable Map<String, Map<String, Integer>> getFacets() {
+		return facets;
+	}
+
+	/**
+	 * @param dimension facet dimension (className, tag)
+	 * @param value facet value
+	 * @return number of hits having value or null if unknown
+	 */
+	public @Nullable Integer getFacetCount(String dimension, String value) {
+		if (facets == null || !facets.containsKey(dimension)) return null;
+		return facets.get(dimension).get(value);
+	}
+}
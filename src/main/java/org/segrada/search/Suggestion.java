@@ -0,0 +1,87 @@
+package org.segrada.search;
+
+import org.codehaus.jettison.json.JSONObject;
+import org.segrada.model.base.AbstractSegradaEntity;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Single type-ahead suggestion
+ */
+public class Suggestion {
+	/**
+	 * uid of entity
+	 */
+	private final String id;
+
+	private final String className;
+
+	/**
+	 * title to display
+	 */
+	private final String title;
+
+	/**
+	 * text that matched (title, alternative title, short reference, etc.)
+	 */
+	private final String text;
+
+	public Suggestion(String id, String className, String title, String text) {
+		this.id = id;
+		this.className = className;
+		this.title = title;
+		this.text = text;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getClassName() {
+		return className;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return JSON representation, compatible with entity search results (id, uid, title)
+	 */
+	public JSONObject toJSON() {
+		JSONObject jsonObject = new JSONObject();
+
+		try {
+			jsonObject.put("id", AbstractSegradaEntity.convertUidToOrientId(id));
+			jsonObject.put("uid", id);
+			jsonObject.put("className", className);
+			jsonObject.put("title", title);
+			jsonObject.put("text", text);
+		} catch (Exception e) {
+			// ignore
+		}
+
+		return jsonObject;
+	}
+
+	@Override
+	public String toString() {
+		return "{Suggestion}" + id + ": " + title;
+	}
+}
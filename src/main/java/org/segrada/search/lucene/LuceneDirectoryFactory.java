@@ -0,0 +1,153 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.store.*;
+import org.segrada.session.ApplicationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Opens Lucene file system directories of the configured kind:
+ * <ul>
+ *     <li>auto: memory mapped on 64-bit JVMs, NIO (or simple on Windows) otherwise</li>
+ *     <li>mmap, niofs, simplefs: force the respective implementation</li>
+ *     <li>hybrid: memory map files used for searching (terms, postings, norms, doc values), read stored fields and
+ *     term vectors via NIO - keeps address space and page cache for the hot parts of the index</li>
+ * </ul>
+ */
+public class LuceneDirectoryFactory {
+	private static final Logger logger = LoggerFactory.getLogger(LuceneDirectoryFactory.class);
+
+	/**
+	 * directory kinds
+	 */
+	public static final String AUTO = "auto";
+	public static final String MMAP = "mmap";
+	public static final String NIOFS = "niofs";
+	public static final String SIMPLEFS = "simplefs";
+	public static final String HYBRID = "hybrid";
+
+	/**
+	 * default extensions of files memory mapped by hybrid directories
+	 */
+	public static final Set<String> DEFAULT_MMAP_EXTENSIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+			"tim", "tip", "doc", "pos", "pay", "nvd", "nvm", "dvd", "dvm", "cfs", "cfe")));
+
+	/**
+	 * kind of directory to open
+	 */
+	private final String kind;
+
+	/**
+	 * extensions of files memory mapped by hybrid directories
+	 */
+	private final Set<String> mmapExtensions;
+
+	/**
+	 * Constructor
+	 * @param kind of directory: auto, mmap, niofs, simplefs or hybrid
+	 * @param mmapExtensions extensions of files memory mapped by hybrid directories
+	 */
+	public LuceneDirectoryFactory(String kind, Set<String> mmapExtensions) {
+		this.kind = kind;
+		this.mmapExtensions = mmapExtensions;
+	}
+
+	/**
+	 * create factory from settings lucene.directory and lucene.directory.mmapExtensions
+	 * @param settings application settings
+	 * @return factory
+	 */
+	public static LuceneDirectoryFactory fromSettings(ApplicationSettings settings) {
+		String kind = settings.getSetting("lucene.directory", AUTO);
+		kind = kind == null ? AUTO : kind.trim().toLowerCase();
+
+		if (!Arrays.asList(AUTO, MMAP, NIOFS, SIMPLEFS, HYBRID).contains(kind)) {
+			logger.warn("Unknown lucene.directory " + kind + ", falling back to " + AUTO);
+			kind = AUTO;
+		}
+
+		Set<String> mmapExtensions = DEFAULT_MMAP_EXTENSIONS;
+		String extensions = settings.getSetting("lucene.directory.mmapExtensions", "");
+		if (extensions != null && !extensions.trim().isEmpty())
+			mmapExtensions = Arrays.stream(extensions.split(",")).map(String::trim).filter(e -> !e.isEmpty())
+					.collect(Collectors.toSet());
+
+		return new LuceneDirectoryFactory(kind, mmapExtensions);
+	}
+
+	/**
+	 * create factory opening directories of the same kind as the given one
+	 * @param directory template
+	 * @return factory
+	 */
+	public static LuceneDirectoryFactory like(Directory directory) {
+		// extensions of switch directories are not exposed, assume defaults
+		if (directory instanceof FileSwitchDirectory) return new LuceneDirectoryFactory(HYBRID, DEFAULT_MMAP_EXTENSIONS);
+		if (directory instanceof MMapDirectory) return new LuceneDirectoryFactory(MMAP, DEFAULT_MMAP_EXTENSIONS);
+		if (directory instanceof NIOFSDirectory) return new LuceneDirectoryFactory(NIOFS, DEFAULT_MMAP_EXTENSIONS);
+		if (directory instanceof SimpleFSDirectory) return new LuceneDirectoryFactory(SIMPLEFS, DEFAULT_MMAP_EXTENSIONS);
+		return new LuceneDirectoryFactory(AUTO, DEFAULT_MMAP_EXTENSIONS);
+	}
+
+	/**
+	 * open directory
+	 * @param path of directory
+	 * @return directory
+	 * @throws IOException on file system errors
+	 */
+	public Directory open(Path path) throws IOException {
+		switch (kind) {
+			case MMAP:
+				return new MMapDirectory(path);
+			case NIOFS:
+				return new NIOFSDirectory(path);
+			case SIMPLEFS:
+				return new SimpleFSDirectory(path);
+			case HYBRID:
+				// both directories share the path, files are routed by extension
+				return new FileSwitchDirectory(mmapExtensions, new MMapDirectory(path), new NIOFSDirectory(path), true);
+			default:
+				return FSDirectory.open(path);
+		}
+	}
+
+	/**
+	 * @return kind of directory opened by this factory
+	 */
+	public String getKind() {
+		return kind;
+	}
+
+	/**
+	 * @param directory to examine
+	 * @return file system path of directory or null, if directory does not live in the file system
+	 */
+	public static @Nullable Path getPath(Directory directory) {
+		if (directory instanceof FSDirectory) return ((FSDirectory) directory).getDirectory();
+		if (directory instanceof FileSwitchDirectory) return getPath(((FileSwitchDirectory) directory).getPrimaryDir());
+		return null;
+	}
+}
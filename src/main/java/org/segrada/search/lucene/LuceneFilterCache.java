@@ -0,0 +1,125 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.queries.TermsFilter;
+import org.apache.lucene.search.CachingWrapperFilter;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.FilterCachingPolicy;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * LRU cache of term filters (e.g. class names or tag ids). Each filter keeps a bitset per index segment, keyed by the
+ * segment core, so bitsets of unchanged segments survive reader refreshes.
+ */
+public class LuceneFilterCache {
+	/**
+	 * maximum number of filters
+	 */
+	private final int maxEntries;
+
+	/**
+	 * filters in access order, keyed by field and normalized value list
+	 */
+	private final LinkedHashMap<String, Filter> filters;
+
+	/**
+	 * counters
+	 */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param maxEntries maximum number of filters
+	 */
+	public LuceneFilterCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.filters = new LinkedHashMap<String, Filter>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Filter> eldest) {
+				return size() > LuceneFilterCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * get cached filter matching any of the values
+	 * @param field to filter
+	 * @param values comma separated list of values
+	 * @return filter
+	 */
+	public Filter get(String field, String values) {
+		List<String> valueList = Arrays.stream(values.split(",")).map(String::trim).filter(v -> !v.isEmpty())
+				.distinct().sorted().collect(Collectors.toList());
+		String key = field + ":" + String.join(",", valueList);
+
+		synchronized (this) {
+			Filter filter = filters.get(key);
+			if (filter != null) {
+				hits.incrementAndGet();
+				return filter;
+			}
+			misses.incrementAndGet();
+
+			filter = new BitSetCachingFilter(new TermsFilter(field, valueList.stream().map(BytesRef::new).collect(Collectors.toList())));
+			filters.put(key, filter);
+
+			return filter;
+		}
+	}
+
+	public synchronized int size() {
+		return filters.size();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * caches bitsets of all segments, which can be intersected cheaply
+	 */
+	private static class BitSetCachingFilter extends CachingWrapperFilter {
+		private BitSetCachingFilter(Filter filter) {
+			super(filter, FilterCachingPolicy.ALWAYS_CACHE);
+		}
+
+		@Override
+		protected DocIdSet cacheImpl(DocIdSetIterator iterator, LeafReader reader) throws IOException {
+			BitDocIdSet.Builder builder = new BitDocIdSet.Builder(reader.maxDoc());
+			builder.or(iterator);
+			DocIdSet docIdSet = builder.build();
+
+			return docIdSet == null ? DocIdSet.EMPTY : docIdSet;
+		}
+	}
+}
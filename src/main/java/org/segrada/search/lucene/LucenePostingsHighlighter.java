@@ -0,0 +1,86 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.postingshighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.postingshighlight.Passage;
+import org.apache.lucene.search.postingshighlight.PassageFormatter;
+import org.apache.lucene.search.postingshighlight.PostingsHighlighter;
+
+import java.io.IOException;
+import java.text.BreakIterator;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Highlighter reading offsets from postings instead of term vectors: returns the best sentences of each document
+ * as separate fragments, documents without matches get no fragments.
+ */
+public class LucenePostingsHighlighter extends PostingsHighlighter {
+	/**
+	 * formats each passage as own fragment
+	 */
+	private final PassageFormatter formatter = new PassageFormatter() {
+		private final DefaultPassageFormatter passageFormatter = new DefaultPassageFormatter("<b>", "</b>", "", false);
+
+		@Override
+		public Object format(Passage[] passages, String content) {
+			String[] fragments = new String[passages.length];
+			for (int i = 0; i < passages.length; i++)
+				fragments[i] = passageFormatter.format(new Passage[]{passages[i]}, content).trim();
+
+			return fragments;
+		}
+	};
+
+	/**
+	 * Constructor
+	 */
+	public LucenePostingsHighlighter() {
+		// highlight whole content - file texts may be long
+		super(Integer.MAX_VALUE - 1);
+	}
+
+	/**
+	 * highlight query in field of documents
+	 * @param field to highlight
+	 * @param query to highlight
+	 * @param searcher searcher documents have been found with
+	 * @param docIds documents to highlight
+	 * @param maxFragments maximum number of fragments per document
+	 * @return fragments per document in order of docIds
+	 * @throws IOException on index errors
+	 */
+	public String[][] highlight(String field, Query query, IndexSearcher searcher, int[] docIds, int maxFragments) throws IOException {
+		Object[] highlights = highlightFieldsAsObjects(new String[]{field}, query, searcher, docIds, new int[]{maxFragments}).get(field);
+
+		String[][] fragments = new String[docIds.length][];
+		for (int i = 0; i < docIds.length; i++)
+			fragments[i] = highlights == null || highlights[i] == null ? new String[0] : (String[]) highlights[i];
+
+		return fragments;
+	}
+
+	@Override
+	protected PassageFormatter getFormatter(String field) {
+		return formatter;
+	}
+
+	@Override
+	protected Passage[] getEmptyHighlight(String fieldName, BreakIterator bi, int maxPassages) {
+		// no matches, no fragments
+		return new Passage[0];
+	}
+}
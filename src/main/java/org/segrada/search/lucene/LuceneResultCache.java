@@ -0,0 +1,191 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.search.ScoreDoc;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * LRU cache of search results (top doc ids and scores) - entries are only valid for the index reader generation they
+ * have been created with, the whole cache is dropped as soon as a newer reader is seen
+ */
+public class LuceneResultCache {
+	/**
+	 * cached result
+	 */
+	public static class Entry {
+		private final ScoreDoc[] scoreDocs;
+
+		private final int totalHits;
+
+		private final Map<String, Map<String, Integer>> facets;
+
+		public Entry(ScoreDoc[] scoreDocs, int totalHits) {
+			this(scoreDocs, totalHits, null);
+		}
+
+		public Entry(ScoreDoc[] scoreDocs, int totalHits, @Nullable Map<String, Map<String, Integer>> facets) {
+			this.scoreDocs = scoreDocs;
+			this.totalHits = totalHits;
+			this.facets = facets;
+		}
+
+		/**
+		 * @return top hits, sorted by relevance
+		 */
+		public ScoreDoc[] getScoreDocs() {
+			return scoreDocs;
+		}
+
+		public int getTotalHits() {
+			return totalHits;
+		}
+
+		/**
+		 * @return facet counts of all hits, null if not collected
+		 */
+		public @Nullable Map<String, Map<String, Integer>> getFacets() {
+			return facets;
+		}
+
+		/**
+		 * @param numHits number of top hits needed
+		 * @return true if entry contains enough hits
+		 */
+		public boolean covers(int numHits) {
+			return scoreDocs.length >= numHits || scoreDocs.length >= totalHits;
+		}
+	}
+
+	/**
+	 * maximum number of entries
+	 */
+	private final int maxEntries;
+
+	/**
+	 * entries in access order
+	 */
+	private final LinkedHashMap<String, Entry> entries;
+
+	/**
+	 * generation (reader key) the entries belong to
+	 */
+	private Object generation;
+
+	/**
+	 * counters
+	 */
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param maxEntries maximum number of entries
+	 */
+	public LuceneResultCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() > LuceneResultCache.this.maxEntries) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * get cached result - caller has to report whether the entry could be used (hit) or not (miss)
+	 * @param key normalized query key
+	 * @param generation key of the index reader used for searching
+	 * @return entry or null if not cached for this generation
+	 */
+	public synchronized Entry get(String key, Object generation) {
+		return generation == this.generation ? entries.get(key) : null;
+	}
+
+	/**
+	 * count cache hit
+	 */
+	public void hit() {
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * count cache miss
+	 */
+	public void miss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * add result to cache - drops all entries, if generation has changed
+	 * @param key normalized query key
+	 * @param generation key of the index reader used for searching
+	 * @param entry result
+	 */
+	public synchronized void put(String key, Object generation, Entry entry) {
+		if (generation != this.generation) {
+			if (!entries.isEmpty()) invalidations.incrementAndGet();
+			entries.clear();
+			this.generation = generation;
+		}
+
+		entries.put(key, entry);
+	}
+
+	/**
+	 * drop all entries
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		generation = null;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * @return number of times the cache has been dropped because the index has changed
+	 */
+	public long getInvalidations() {
+		return invalidations.get();
+	}
+}
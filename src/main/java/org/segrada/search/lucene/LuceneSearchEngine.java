@@ -3,34 +3,55 @@ package org.segrada.search.lucene;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.spatial4j.core.context.SpatialContext;
-import com.spatial4j.core.distance.DistanceUtils;
+import com.spatial4j.core.context.jts.JtsSpatialContext;
 import com.spatial4j.core.shape.Shape;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.*;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.index.*;
 import org.apache.lucene.queries.BooleanFilter;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
-import org.apache.lucene.queryparser.xml.builders.BooleanFilterBuilder;
 import org.apache.lucene.search.*;
 import org.apache.lucene.search.vectorhighlight.FastVectorHighlighter;
 import org.apache.lucene.search.vectorhighlight.FieldQuery;
+import org.apache.lucene.spatial.SpatialStrategy;
+import org.apache.lucene.spatial.prefix.RecursivePrefixTreeStrategy;
+import org.apache.lucene.spatial.prefix.tree.GeohashPrefixTree;
 import org.apache.lucene.spatial.query.SpatialArgs;
 import org.apache.lucene.spatial.query.SpatialOperation;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
-import org.apache.lucene.util.GeoDistanceUtils;
+import org.apache.lucene.store.RAMDirectory;
 import org.segrada.search.SearchEngine;
 import org.segrada.search.SearchHit;
-import org.segrada.service.util.PaginationInfo;
+import org.segrada.search.SearchIndexDocument;
+import org.segrada.search.SearchPaginationInfo;
+import org.segrada.session.ApplicationSettings;
+import org.segrada.util.FlexibleDateParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
@@ -53,15 +74,44 @@ import java.util.Map;
 public class LuceneSearchEngine implements SearchEngine {
 	private static final Logger logger = LoggerFactory.getLogger(LuceneSearchEngine.class);
 
+	/**
+	 * number of uncommitted changes after which the index writer will commit to disk - changes are visible to
+	 * searchers before that, a commit is only needed to make them durable
+	 */
+	private static final int COMMIT_THRESHOLD = 1000;
+
+	/**
+	 * bounds of number of hits kept per result cache entry
+	 */
+	private static final int RESULT_CACHE_MIN_HITS = 100;
+	private static final int RESULT_CACHE_MAX_HITS = 10000;
+
+	/**
+	 * facet dimensions and maximum number of values counted per dimension
+	 */
+	private static final String[] FACET_DIMENSIONS = {"className", "tag"};
+	private static final int FACET_MAX_VALUES = 100;
+
+	/**
+	 * levels of geohash grid locations are indexed in (11 = cells of about 15 cm)
+	 */
+	private static final int SPATIAL_PREFIX_TREE_LEVELS = 11;
+
+	/**
+	 * suffixes of directories next to the index directory: rebuilt index and old index during switch
+	 */
+	private static final String REBUILD_SUFFIX = ".rebuild";
+	private static final String OLD_SUFFIX = ".old";
+
 	/**
 	 * reference to analyzer
 	 */
 	protected final Analyzer analyzer;
 
 	/**
-	 * reference to directory
+	 * reference to directory - replaced after a rebuild
 	 */
-	protected final Directory directory;
+	protected volatile Directory directory;
 
 	/**
 	 * stored and non text indexed field type
@@ -73,6 +123,93 @@ public class LuceneSearchEngine implements SearchEngine {
 	 */
 	protected final FieldType indexedTextType;
 
+	/**
+	 * highlighter reading offsets from postings, null if term vectors are used for highlighting
+	 */
+	protected final LucenePostingsHighlighter postingsHighlighter;
+
+	/**
+	 * facet configuration: class name and tags are counted using sorted set doc values
+	 */
+	protected final FacetsConfig facetsConfig;
+
+	/**
+	 * geo context (supporting polygons) and strategy indexing locations into a prefix tree
+	 */
+	protected final SpatialContext spatialContext;
+	protected final SpatialStrategy spatialStrategy;
+
+	/**
+	 * shared index writer, kept open for the life of the engine (thread safe) - replaced after a rebuild
+	 */
+	protected volatile IndexWriter indexWriter;
+
+	/**
+	 * near real time searcher manager fed by the index writer - replaced after a rebuild
+	 */
+	protected volatile SearcherManager searcherManager;
+
+	/**
+	 * writes share this lock, switching to a rebuilt index takes it exclusively
+	 */
+	private final ReentrantReadWriteLock generationLock = new ReentrantReadWriteLock();
+
+	/**
+	 * directory and writer of index being rebuilt, null if no rebuild is running
+	 */
+	private Directory rebuildDirectory;
+	private volatile IndexWriter rebuildWriter;
+
+	/**
+	 * changes written to the current index during a rebuild, replayed onto the rebuilt index (null document = removed)
+	 */
+	private volatile Map<String, Document> rebuildChanges;
+
+	/**
+	 * cache of search results, null if disabled
+	 */
+	private final LuceneResultCache resultCache;
+
+	/**
+	 * cache of class and tag filters
+	 */
+	private final LuceneFilterCache filterCache;
+
+	/**
+	 * changes not committed to disk yet
+	 */
+	private final AtomicInteger uncommittedChanges = new AtomicInteger();
+
+	/**
+	 * true while the current thread runs a batch of single updates - searchers are refreshed at the end of the batch
+	 */
+	private final ThreadLocal<Boolean> inBatch = ThreadLocal.withInitial(() -> false);
+
+	/**
+	 * facet ordinals of last reader facets have been counted for - rebuilt lazily after each refresh
+	 */
+	private IndexReader facetStateReader;
+	private SortedSetDocValuesReaderState facetState;
+
+	/**
+	 * opens directories of the same kind as the current one when rebuilding
+	 */
+	private final LuceneDirectoryFactory directoryFactory;
+
+	/**
+	 * creates searchers searching segments in parallel
+	 */
+	private final LuceneSearcherFactory searcherFactory;
+
+	/**
+	 * index writer settings: RAM buffer, merge policy and merge scheduling
+	 */
+	private final double ramBufferSizeMB;
+	private final String mergePolicy;
+	private final double maxMergedSegmentMB;
+	private final boolean mergeThrottle;
+	private final int mergeThreads;
+
 	/**
 	 * Constructor
 	 *
@@ -81,9 +218,43 @@ public class LuceneSearchEngine implements SearchEngine {
 	 */
 	@Inject
 	public LuceneSearchEngine(Directory luceneDirectory, Analyzer luceneAnalyzer) {
+		this(luceneDirectory, luceneAnalyzer, null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param luceneDirectory directory to save hits in
+	 * @param luceneAnalyzer  analyzer to use
+	 * @param settings        application settings or null for defaults
+	 */
+	public LuceneSearchEngine(Directory luceneDirectory, Analyzer luceneAnalyzer, @Nullable ApplicationSettings settings) {
 		this.directory = luceneDirectory;
 		this.analyzer = luceneAnalyzer;
 
+		int resultCacheSize = settings != null ? settings.getSettingAsInteger("search.resultCache.size", 1000) : 1000;
+		resultCache = resultCacheSize > 0 ? new LuceneResultCache(resultCacheSize) : null;
+		int filterCacheSize = settings != null ? settings.getSettingAsInteger("search.filterCache.size", 100) : 100;
+		filterCache = new LuceneFilterCache(filterCacheSize > 0 ? filterCacheSize : 100);
+
+		directoryFactory = LuceneDirectoryFactory.like(luceneDirectory);
+
+		// index writer settings
+		double ramBufferSizeMB = settings != null ? settings.getSettingAsDouble("lucene.ramBufferSizeMB", IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB) : IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB;
+		this.ramBufferSizeMB = ramBufferSizeMB > 0 ? ramBufferSizeMB : IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB;
+		String mergePolicy = settings != null ? settings.getSetting("lucene.mergePolicy", "tiered") : null;
+		this.mergePolicy = mergePolicy != null ? mergePolicy.trim() : "tiered";
+		double maxMergedSegmentMB = settings != null ? settings.getSettingAsDouble("lucene.maxMergedSegmentMB", 0) : 0;
+		this.maxMergedSegmentMB = maxMergedSegmentMB > 0 ? maxMergedSegmentMB : 0;
+		String mergeThrottle = settings != null ? settings.getSetting("lucene.mergeThrottle", "true") : null;
+		this.mergeThrottle = mergeThrottle == null || !mergeThrottle.trim().equalsIgnoreCase("false");
+		int mergeThreads = settings != null ? settings.getSettingAsInteger("lucene.mergeThreads", 0) : 0;
+		this.mergeThreads = mergeThreads > 0 ? mergeThreads : 0;
+
+		// search threads: 0 = number of processors, 1 = search in calling thread
+		int searchThreads = settings != null ? settings.getSettingAsInteger("lucene.searchThreads", 1) : 1;
+		searcherFactory = new LuceneSearcherFactory(searchThreads > 0 ? searchThreads : Runtime.getRuntime().availableProcessors());
+
 		// stored, indexed, but not tokenized
 		simpleIndexType = new FieldType();
 		simpleIndexType.setStored(true);
@@ -91,169 +262,232 @@ public class LuceneSearchEngine implements SearchEngine {
 		simpleIndexType.setTokenized(false);
 		simpleIndexType.freeze();
 
-		// stored, indexed and searchable text type
+		// highlighting profile: term vectors (vector) or offsets in postings only (postings)
+		String highlighter = settings != null ? settings.getSetting("lucene.highlighter", "vector") : null;
+		postingsHighlighter = highlighter != null && highlighter.trim().equalsIgnoreCase("postings") ? new LucenePostingsHighlighter() : null;
+
+		// stored, indexed and searchable text type - offsets are indexed in postings, term vectors are needed by the
+		// vector highlighter only
 		indexedTextType = new FieldType();
 		indexedTextType.setStored(true);
 		indexedTextType.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
-		indexedTextType.setStoreTermVectors(true);
-		indexedTextType.setStoreTermVectorOffsets(true);
-		indexedTextType.setStoreTermVectorPositions(true);
+		if (postingsHighlighter == null) {
+			indexedTextType.setStoreTermVectors(true);
+			indexedTextType.setStoreTermVectorOffsets(true);
+			indexedTextType.setStoreTermVectorPositions(true);
+		}
 		indexedTextType.freeze();
+
+		// facets
+		facetsConfig = new FacetsConfig();
+		facetsConfig.setMultiValued("tag", true);
+
+		// locations
+		spatialContext = JtsSpatialContext.GEO;
+		spatialStrategy = new RecursivePrefixTreeStrategy(new GeohashPrefixTree(spatialContext, SPATIAL_PREFIX_TREE_LEVELS), "location");
+
+		try {
+			// open writer once and create near real time searchers from it
+			indexWriter = new IndexWriter(directory, createIndexWriterConfig());
+			searcherManager = new SearcherManager(indexWriter, true, searcherFactory);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		// term vectors written with the vector profile are not needed any more
+		if (postingsHighlighter != null && hasTermVectors())
+			logger.info("Lucene index contains term vectors not used by the postings highlighter - reindex to shrink the index.");
 	}
 
-	@Override
-	// TODO: add shapes to index here
-	public synchronized boolean index(String id, String className, String title, String subTitles, String content, String[] tagIds, Integer color, String iconFileIdentifier, float weight) {
+	/**
+	 * @return true if content of current index has been indexed with term vectors
+	 */
+	protected boolean hasTermVectors() {
+		IndexSearcher iSearcher = null;
 		try {
-			// init index writer config
-			IndexWriterConfig indexWriterConfig = new IndexWriterConfig(this.analyzer);
+			iSearcher = acquireSearcher();
+			FieldInfo fieldInfo = MultiFields.getMergedFieldInfos(iSearcher.getIndexReader()).fieldInfo("content");
 
-			// create new index writer
-			IndexWriter iWriter = new IndexWriter(directory, indexWriterConfig);
-			Document doc = new Document();
+			return fieldInfo != null && fieldInfo.hasVectors();
+		} catch (Exception e) {
+			logger.warn("Could not read field infos of index", e);
+		} finally {
+			releaseSearcher(iSearcher);
+		}
 
-			doc.add(new Field("id", id, simpleIndexType));
-			doc.add(new Field("className", className, simpleIndexType));
+		return false;
+	}
 
-			Field field;
-			if (title != null) {
-				field = new Field("title", title, indexedTextType);
-				field.setBoost(10f * weight);
-				doc.add(field);
-			}
+	/**
+	 * highlight search term in content of documents
+	 * @param searchTerm term(s) to highlight
+	 * @param iSearcher searcher documents have been found with
+	 * @param docIds documents to highlight
+	 * @param fragmentSize size of fragments (vector highlighter only, postings highlighter returns sentences)
+	 * @param maxFragments maximum number of fragments per document
+	 * @return fragments per document in order of docIds
+	 * @throws ParseException if search term could not be parsed
+	 * @throws IOException on index errors
+	 */
+	protected String[][] highlightContent(String searchTerm, IndexSearcher iSearcher, int[] docIds, int fragmentSize, int maxFragments) throws ParseException, IOException {
+		Query query = new QueryParser("content", analyzer).parse(searchTerm);
 
-			if (subTitles != null) {
-				field = new Field("subTitles", subTitles, indexedTextType);
-				field.setBoost(6f * weight);
-				doc.add(field);
-			}
+		if (postingsHighlighter != null)
+			return postingsHighlighter.highlight("content", query, iSearcher, docIds, maxFragments);
 
-			// add content
-			if (content == null) content = "";
-			field = new Field("content", content, indexedTextType);
-			field.setBoost(weight);
-			doc.add(field);
+		FastVectorHighlighter highlighter = new FastVectorHighlighter();
+		FieldQuery fieldQuery = highlighter.getFieldQuery(query, iSearcher.getIndexReader());
 
-			// add tagIds
-			if (tagIds != null)
-				for (String tagId : tagIds) {
-					field = new Field("tag", tagId, simpleIndexType);
-					field.setBoost(weight);
-					doc.add(field);
-				}
+		String[][] fragments = new String[docIds.length][];
+		for (int i = 0; i < docIds.length; i++)
+			fragments[i] = highlighter.getBestFragments(fieldQuery, iSearcher.getIndexReader(), docIds[i], "content", fragmentSize, maxFragments);
 
-			// add color and icon - just stored
-			if (color != null) {
-				field = new IntField("color", color, IntField.TYPE_STORED);
-				doc.add(field);
-			}
+		return fragments;
+	}
 
-			// add color and icon - just stored
-			if (iconFileIdentifier != null) {
-				field = new Field("iconFileIdentifier", iconFileIdentifier, TextField.TYPE_STORED);
-				doc.add(field);
-			}
+	@Override
+	public boolean index(SearchIndexDocument document) {
+		generationLock.readLock().lock();
+		try {
+			Document doc = createDocument(document);
 
 			// create or update document
-			iWriter.updateDocument(new Term("id", id), doc);
-			iWriter.close();
+			indexWriter.updateDocument(new Term("id", document.getId()), doc);
+			recordChange(document.getId(), doc);
+			changed();
 		} catch (Exception e) {
-			logger.error("Could not index document " + id, e);
+			logger.error("Could not index document " + document.getId(), e);
 			return false;
+		} finally {
+			generationLock.readLock().unlock();
 		}
 
 		return true;
 	}
 
 	@Override
-	public PaginationInfo<SearchHit> search(String searchTerm, Map<String, String> filters) {
-		// to avoid NPEs
-		if (filters == null) filters = new HashMap<>();
-
-		// set defaults
-		int page = 1;
-		int entriesPerPage = 20;
-
+	public boolean indexAll(List<SearchIndexDocument> documents) {
+		generationLock.readLock().lock();
 		try {
-			DirectoryReader iReader = DirectoryReader.open(directory);
-
-			String[] containFields;
-			// do we have a filter to contain to certain fields?
-			if (filters.containsKey("fields")) {
-				String fields = filters.get("fields");
-				if (fields.isEmpty()) containFields = new String[]{"title", "subTitles", "content"};
-				else if (fields.equalsIgnoreCase("title")) containFields = new String[]{"title"};
-				else if (fields.equalsIgnoreCase("subTitles")) containFields = new String[]{"subTitles"};
-				else if (fields.equalsIgnoreCase("content")) containFields = new String[]{"content"};
-				else if (fields.equalsIgnoreCase("allTitles")) containFields = new String[]{"title", "subTitles"};
-				else throw new RuntimeException("fields-Filter " + fields + " is not known.");
-			} else containFields = new String[]{"title", "subTitles", "content"};
-
-			// Parse a simple query that searches for "text":
-			MultiFieldQueryParser parser = new MultiFieldQueryParser(containFields, analyzer);
-
-			// which operator do we use?
-			parser.setDefaultOperator(QueryParser.Operator.AND);
-			if (filters.containsKey("operator")) {
-				String operator = filters.get("operator");
-				if (operator.equalsIgnoreCase("or")) parser.setDefaultOperator(QueryParser.Operator.OR);
-				else if (!operator.isEmpty() && !operator.equalsIgnoreCase("and")) throw new RuntimeException("operator-Filter " + operator + " is not and/or.");
+			// write to rebuilt index, if rebuilding
+			IndexWriter writer = rebuildWriter != null ? rebuildWriter : indexWriter;
+
+			for (SearchIndexDocument document : documents) {
+				writer.updateDocument(new Term("id", document.getId()), createDocument(document));
 			}
+			// do not refresh searchers, this is done on flush
+			if (writer == indexWriter) uncommittedChanges.addAndGet(documents.size());
+		} catch (Exception e) {
+			logger.error("Could not index batch of " + documents.size() + " documents", e);
+			return false;
+		} finally {
+			generationLock.readLock().unlock();
+		}
 
-			// filters for query
-			List<Filter> searchFilters = new ArrayList<>();
-
-			// class filter
-			if (filters.containsKey("class") && !filters.get("class").isEmpty()) {
-				// multiple classes?
-				String[] classes = filters.get("class").split(",");
-
-				// single class
-				if (classes.length <= 1) {
-					TermQuery categoryQuery = new TermQuery(new Term("className", filters.get("class")));
-					searchFilters.add(new QueryWrapperFilter(categoryQuery));
-				} else { // multiple classes
-					Filter[] categories = new Filter[classes.length];
-					for (int i = 0; i < classes.length; i++) {
-						categories[i] = new QueryWrapperFilter(new TermQuery(new Term("className", classes[i].trim())));
-					}
-					BooleanFilter bFilter = new BooleanFilter();
-					for (Filter f : categories)
-						bFilter.add(f, BooleanClause.Occur.SHOULD);
+		return true;
+	}
 
-					// add chained filter
-					searchFilters.add(bFilter);
-				}
-			}
+	/**
+	 * create lucene document from data
+	 * @param document data to index
+	 * @return document to add to index
+	 * @throws IOException if facet fields could not be built
+	 */
+	protected Document createDocument(SearchIndexDocument document) throws IOException {
+		String id = document.getId();
+		String className = document.getClassName();
+		String title = document.getTitle();
+		String subTitles = document.getSubTitles();
+		String content = document.getContent();
+		String[] tagIds = document.getTagIds();
+		Integer color = document.getColor();
+		String iconFileIdentifier = document.getIconFileIdentifier();
+		float weight = document.getWeight();
+		Long minJD = document.getMinJD();
+		Long maxJD = document.getMaxJD();
+
+		Document doc = new Document();
+
+		doc.add(new Field("id", id, simpleIndexType));
+		doc.add(new Field("className", className, simpleIndexType));
+		doc.add(new SortedSetDocValuesFacetField("className", className));
+
+		Field field;
+		if (title != null) {
+			field = new Field("title", title, indexedTextType);
+			field.setBoost(10f * weight);
+			doc.add(field);
+		}
 
-			// tag filter
-			if (filters.containsKey("tags") && !filters.get("tags").isEmpty()) {
-				// split tags into array
-				String[] tags = filters.get("tags").split(",");
-				BooleanQuery booleanQuery = new BooleanQuery();
-				for (String tag : tags) {
-					booleanQuery.add(new TermQuery(new Term("tag", tag.trim())), BooleanClause.Occur.SHOULD);
-				}
-				searchFilters.add(new QueryWrapperFilter(booleanQuery));
+		if (subTitles != null) {
+			field = new Field("subTitles", subTitles, indexedTextType);
+			field.setBoost(6f * weight);
+			doc.add(field);
+		}
+
+		// add content
+		if (content == null) content = "";
+		field = new Field("content", content, indexedTextType);
+		field.setBoost(weight);
+		doc.add(field);
+
+		// add tagIds
+		if (tagIds != null)
+			for (String tagId : tagIds) {
+				field = new Field("tag", tagId, simpleIndexType);
+				field.setBoost(weight);
+				doc.add(field);
+				if (!tagId.isEmpty()) doc.add(new SortedSetDocValuesFacetField("tag", tagId));
 			}
 
-			// create filter - if multiple filters applied, add chained filter
-			Filter filter = null;
-			if (searchFilters.size() == 1)
-				filter = searchFilters.get(0);
-			else if (searchFilters.size() > 1) {
-				BooleanFilter bFilter = new BooleanFilter();
-				for (Filter f : searchFilters)
-					bFilter.add(f, BooleanClause.Occur.MUST);
+		// add color and icon - just stored
+		if (color != null) {
+			field = new IntField("color", color, IntField.TYPE_STORED);
+			doc.add(field);
+		}
+
+		// add color and icon - just stored
+		if (iconFileIdentifier != null) {
+			field = new Field("iconFileIdentifier", iconFileIdentifier, TextField.TYPE_STORED);
+			doc.add(field);
+		}
 
-				filter = bFilter;
+		// temporal extent: numeric fields for range filters, doc values for sorting
+		if (minJD != null) {
+			doc.add(new LongField("minJD", minJD, Field.Store.NO));
+			doc.add(new NumericDocValuesField("minJD", minJD));
+		}
+		if (maxJD != null) {
+			doc.add(new LongField("maxJD", maxJD, Field.Store.NO));
+			doc.add(new NumericDocValuesField("maxJD", maxJD));
+		}
+
+		// locations: cells of prefix tree
+		if (document.getLocations() != null)
+			for (double[] location : document.getLocations()) {
+				for (Field locationField : spatialStrategy.createIndexableFields(spatialContext.makePoint(location[1], location[0])))
+					doc.add(locationField);
 			}
 
-			// define query
-			Query query = null;
-			if (searchTerm != null)
-				query = parser.parse(searchTerm);
-			if (query == null) query = new MatchAllDocsQuery(); // fallback to match all documents
+		// translate facet fields to doc values
+		return facetsConfig.build(doc);
+	}
+
+	@Override
+	public SearchPaginationInfo search(String searchTerm, Map<String, String> filters) {
+		// to avoid NPEs
+		if (filters == null) filters = new HashMap<>();
+
+		// set defaults
+		int page = 1;
+		int entriesPerPage = 20;
+
+		IndexSearcher iSearcher = null;
+		try {
+			iSearcher = acquireSearcher();
+
+			Filter filter = createFilter(filters);
+			Query query = createQuery(searchTerm, filters);
 
 			// get hits per page
 			if (filters.containsKey("limit")) {
@@ -274,34 +508,53 @@ public class LuceneSearchEngine implements SearchEngine {
 				}
 			}
 
-			// calculate start/stop indexes
-			int startIndex = (page - 1) * entriesPerPage;
-			int endIndex = page * entriesPerPage;
-
-			IndexSearcher iSearcher = new IndexSearcher(iReader);
-			// do search
-			TopDocs topDocs = iSearcher.search(query, filter, 1000);
+			// cursor of last hit of previous page, if given and still valid for this reader
+			long readerVersion = getReaderVersion(iSearcher);
+			ScoreDoc after = null;
+			if (filters.containsKey("after") && !filters.get("after").isEmpty())
+				after = decodeCursor(filters.get("after"), readerVersion);
+			if (page <= 0) page = 1;
+
+			// count facets of all hits?
+			boolean withFacets = Boolean.parseBoolean(filters.get("facets"));
+
+			// do search: collect the page only, if cursor is given - otherwise all hits up to the page
+			String cacheKey = createCacheKey(searchTerm, filters);
+			LuceneResultCache.Entry result;
+			int startIndex;
+			if (after != null) {
+				result = searchAfter(iSearcher, query, filter, cacheKey, after, entriesPerPage, withFacets);
+				startIndex = 0;
+			} else {
+				result = searchTop(iSearcher, query, filter, cacheKey, page * entriesPerPage, withFacets);
+				startIndex = (page - 1) * entriesPerPage;
+			}
 
-			// update end index
-			if (topDocs.scoreDocs.length < endIndex)
-				endIndex = topDocs.scoreDocs.length;
 			// how many pages do we have?
-			int pages = topDocs.scoreDocs.length / entriesPerPage + 1;
+			int pages = result.getTotalHits() == 0 ? 1 : (result.getTotalHits() - 1) / entriesPerPage + 1;
 			// reset page to sane limit, if needed
-			if (page <= 0 || page > pages) page = 1;
-
-			// highlighter
-			FastVectorHighlighter highlighter = new FastVectorHighlighter();
-			FieldQuery fieldQuery = null;
-			// field query for highlighted terms
-			if (searchTerm != null)
-				fieldQuery = highlighter.getFieldQuery(new QueryParser("content", analyzer).parse(searchTerm), iReader);
+			if (page > pages) {
+				page = 1;
+				if (after != null) result = searchTop(iSearcher, query, filter, cacheKey, entriesPerPage, withFacets);
+				startIndex = 0;
+			}
+			ScoreDoc[] scoreDocs = result.getScoreDocs();
+			int endIndex = Math.min(startIndex + entriesPerPage, scoreDocs.length);
+
+			// highlight all hits of page at once - unless switched off by caller
+			String[][] highlights = null;
+			if (searchTerm != null && !"false".equals(filters.get("highlight"))) {
+				int[] docIds = new int[Math.max(0, endIndex - startIndex)];
+				for (int i = startIndex; i < endIndex; i++)
+					docIds[i - startIndex] = scoreDocs[i].doc;
+				highlights = highlightContent(searchTerm, iSearcher, docIds, 18, 10);
+			}
 
 			// cycle trough hits
 			List<SearchHit> hits = new ArrayList<>();
 
 			for (int i = startIndex ; i < endIndex ; i++) {
-				ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+				ScoreDoc scoreDoc = scoreDocs[i];
 				Document hitDoc = iSearcher.doc(scoreDoc.doc);
 
 				SearchHit searchHit = new SearchHit();
@@ -316,25 +569,493 @@ public class LuceneSearchEngine implements SearchEngine {
 				searchHit.setRelevance(scoreDoc.score);
 
 				// get highlighted components
-				if (searchTerm != null) {
-					String[] bestFragments = highlighter.getBestFragments(fieldQuery, iReader, scoreDoc.doc, "content", 18, 10);
-					searchHit.setHighlightText(bestFragments);
-				}
+				if (highlights != null)
+					searchHit.setHighlightText(highlights[i - startIndex]);
 
 				// add hit
 				hits.add(searchHit);
 			}
 
-			iReader.close();
+			// cursor for next page
+			String nextCursor = null;
+			if (page < pages && endIndex > startIndex)
+				nextCursor = encodeCursor(scoreDocs[endIndex - 1], readerVersion);
 
 			// return pagination info
-			return new PaginationInfo<>(page, pages, topDocs.totalHits, entriesPerPage, hits);
+			return new SearchPaginationInfo(page, pages, result.getTotalHits(), entriesPerPage, hits, nextCursor, result.getFacets());
 		} catch (Throwable e) {
 			logger.error("Error in search.", e);
+		} finally {
+			releaseSearcher(iSearcher);
 		}
 
 		// return empty list result in order to avoid NPEs
-		return new PaginationInfo<>(page, 1, 0, entriesPerPage, new ArrayList<>());
+		return new SearchPaginationInfo(page, 1, 0, entriesPerPage, new ArrayList<>(), null);
+	}
+
+	@Override
+	public List<String> searchIds(String searchTerm, Map<String, String> filters) {
+		// to avoid NPEs
+		if (filters == null) filters = new HashMap<>();
+
+		IndexSearcher iSearcher = null;
+		try {
+			iSearcher = acquireSearcher();
+
+			Filter filter = createFilter(filters);
+			Query query = createQuery(searchTerm, filters);
+			if (filter != null) query = new FilteredQuery(query, filter);
+
+			Set<String> idField = Collections.singleton("id");
+
+			// limited: best hits only
+			int limit = parseLimit(filters);
+			if (limit > 0) {
+				ScoreDoc[] hits = iSearcher.search(query, limit).scoreDocs;
+				List<String> ids = new ArrayList<>(hits.length);
+				for (ScoreDoc hit : hits)
+					ids.add(iSearcher.doc(hit.doc, idField).get("id"));
+
+				return ids;
+			}
+
+			// collect doc ids only, no scoring - segments are collected in parallel, if possible
+			List<Integer> docs = iSearcher.search(query, new CollectorManager<DocIdCollector, List<Integer>>() {
+				@Override
+				public DocIdCollector newCollector() {
+					return new DocIdCollector();
+				}
+
+				@Override
+				public List<Integer> reduce(Collection<DocIdCollector> collectors) {
+					List<Integer> docs = new ArrayList<>();
+					for (DocIdCollector collector : collectors)
+						docs.addAll(collector.docs);
+					Collections.sort(docs);
+					return docs;
+				}
+			});
+
+			// load ids in doc id order
+			List<String> ids = new ArrayList<>(docs.size());
+			for (int doc : docs)
+				ids.add(iSearcher.doc(doc, idField).get("id"));
+
+			return ids;
+		} catch (Throwable e) {
+			logger.error("Error in search.", e);
+		} finally {
+			releaseSearcher(iSearcher);
+		}
+
+		return new ArrayList<>();
+	}
+
+	/**
+	 * @param filters search filters
+	 * @return maximum number of ids to return, 0 for all
+	 */
+	private int parseLimit(Map<String, String> filters) {
+		if (!filters.containsKey("limit")) return 0;
+		try {
+			return Math.max(0, Integer.parseInt(filters.get("limit")));
+		} catch (NumberFormatException e) {
+			logger.warn("Could not parse limit " + filters.get("limit") + " to integer", e);
+			return 0;
+		}
+	}
+
+	/**
+	 * create query from search term
+	 * @param searchTerm term(s) to search for or null to match all documents
+	 * @param filters search filters - fields and operator are taken into account
+	 * @return query
+	 * @throws ParseException if search term could not be parsed
+	 */
+	protected Query createQuery(@Nullable String searchTerm, Map<String, String> filters) throws ParseException {
+		String[] containFields;
+		// do we have a filter to contain to certain fields?
+		if (filters.containsKey("fields")) {
+			String fields = filters.get("fields");
+			if (fields.isEmpty()) containFields = new String[]{"title", "subTitles", "content"};
+			else if (fields.equalsIgnoreCase("title")) containFields = new String[]{"title"};
+			else if (fields.equalsIgnoreCase("subTitles")) containFields = new String[]{"subTitles"};
+			else if (fields.equalsIgnoreCase("content")) containFields = new String[]{"content"};
+			else if (fields.equalsIgnoreCase("allTitles")) containFields = new String[]{"title", "subTitles"};
+			else throw new RuntimeException("fields-Filter " + fields + " is not known.");
+		} else containFields = new String[]{"title", "subTitles", "content"};
+
+		// Parse a simple query that searches for "text":
+		MultiFieldQueryParser parser = new MultiFieldQueryParser(containFields, analyzer);
+
+		// which operator do we use?
+		parser.setDefaultOperator(QueryParser.Operator.AND);
+		if (filters.containsKey("operator")) {
+			String operator = filters.get("operator");
+			if (operator.equalsIgnoreCase("or")) parser.setDefaultOperator(QueryParser.Operator.OR);
+			else if (!operator.isEmpty() && !operator.equalsIgnoreCase("and")) throw new RuntimeException("operator-Filter " + operator + " is not and/or.");
+		}
+
+		// define query
+		Query query = null;
+		if (searchTerm != null)
+			query = parser.parse(searchTerm);
+		if (query == null) query = new MatchAllDocsQuery(); // fallback to match all documents
+
+		return query;
+	}
+
+	/**
+	 * create filter from class, tag, temporal and geo filters
+	 * @param filters search filters
+	 * @return filter or null, if no filter applies
+	 */
+	protected @Nullable Filter createFilter(Map<String, String> filters) {
+		// filters for query
+		List<Filter> searchFilters = new ArrayList<>();
+
+		// class filter (one or more classes) - cached bitsets
+		if (filters.containsKey("class") && !filters.get("class").isEmpty())
+			searchFilters.add(filterCache.get("className", filters.get("class")));
+
+		// tag filter - cached bitsets
+		if (filters.containsKey("tags") && !filters.get("tags").isEmpty())
+			searchFilters.add(filterCache.get("tag", filters.get("tags")));
+
+		// temporal filters: entity has to start after minJD and end before maxJD
+		FlexibleDateParser dateParser = new FlexibleDateParser();
+		if (filters.containsKey("minJD") && !filters.get("minJD").isEmpty()) {
+			Long minJD = dateParser.inputToJd(filters.get("minJD"), "G", false);
+			if (minJD != null && minJD > Long.MIN_VALUE)
+				searchFilters.add(new QueryWrapperFilter(NumericRangeQuery.newLongRange("minJD", minJD, null, true, true)));
+		}
+		if (filters.containsKey("maxJD") && !filters.get("maxJD").isEmpty()) {
+			Long maxJD = dateParser.inputToJd(filters.get("maxJD"), "G", true);
+			if (maxJD != null && maxJD < Long.MAX_VALUE)
+				searchFilters.add(new QueryWrapperFilter(NumericRangeQuery.newLongRange("maxJD", null, maxJD, true, true)));
+		}
+
+		// geo filter: at least one location of entity within shape
+		if (filters.containsKey("geo") && !filters.get("geo").isEmpty()) {
+			Shape shape;
+			try {
+				shape = spatialContext.readShapeFromWkt(filters.get("geo"));
+			} catch (java.text.ParseException e) {
+				throw new RuntimeException("geo-Filter " + filters.get("geo") + " is not a valid shape.", e);
+			}
+			searchFilters.add(spatialStrategy.makeFilter(new SpatialArgs(SpatialOperation.Intersects, shape)));
+		}
+
+		// create filter - if multiple filters applied, add chained filter
+		if (searchFilters.isEmpty()) return null;
+		if (searchFilters.size() == 1) return searchFilters.get(0);
+
+		BooleanFilter bFilter = new BooleanFilter();
+		for (Filter f : searchFilters)
+			bFilter.add(f, BooleanClause.Occur.MUST);
+
+		return bFilter;
+	}
+
+	/**
+	 * get top hits, from result cache if possible
+	 * @param iSearcher searcher
+	 * @param query query
+	 * @param filter filter or null
+	 * @param cacheKey key for result cache
+	 * @param numHits number of top hits needed
+	 * @param withFacets count facets of all hits
+	 * @return top hits - may contain more than numHits
+	 * @throws IOException on search error
+	 */
+	protected LuceneResultCache.Entry searchTop(IndexSearcher iSearcher, Query query, @Nullable Filter filter, String cacheKey, int numHits, boolean withFacets) throws IOException {
+		if (resultCache == null || numHits > RESULT_CACHE_MAX_HITS) return collect(iSearcher, query, filter, null, numHits, withFacets);
+
+		Object generation = iSearcher.getIndexReader().getCombinedCoreAndDeletesKey();
+		LuceneResultCache.Entry entry = resultCache.get(cacheKey, generation);
+		if (entry != null && entry.covers(numHits) && (!withFacets || entry.getFacets() != null)) {
+			resultCache.hit();
+			return entry;
+		}
+		resultCache.miss();
+
+		// collect some more hits, so paging through the results will hit the cache - keep facets once counted
+		LuceneResultCache.Entry collected = collect(iSearcher, query, filter, null, Math.max(numHits * 2, RESULT_CACHE_MIN_HITS),
+				withFacets || (entry != null && entry.getFacets() != null));
+		resultCache.put(cacheKey, generation, collected);
+
+		return collected;
+	}
+
+	/**
+	 * get hits after cursor, from result cache if possible
+	 * @param iSearcher searcher
+	 * @param query query
+	 * @param filter filter or null
+	 * @param cacheKey key for result cache
+	 * @param after last hit of previous page
+	 * @param numHits number of hits needed
+	 * @param withFacets count facets of all hits
+	 * @return hits after cursor
+	 * @throws IOException on search error
+	 */
+	protected LuceneResultCache.Entry searchAfter(IndexSearcher iSearcher, Query query, @Nullable Filter filter, String cacheKey, ScoreDoc after, int numHits, boolean withFacets) throws IOException {
+		if (resultCache != null) {
+			LuceneResultCache.Entry entry = resultCache.get(cacheKey, iSearcher.getIndexReader().getCombinedCoreAndDeletesKey());
+			if (entry != null && (!withFacets || entry.getFacets() != null)) {
+				ScoreDoc[] scoreDocs = entry.getScoreDocs();
+				for (int i = 0; i < scoreDocs.length; i++) {
+					if (scoreDocs[i].doc == after.doc && Float.floatToIntBits(scoreDocs[i].score) == Float.floatToIntBits(after.score)) {
+						if (!entry.covers(i + 1 + numHits)) break;
+
+						resultCache.hit();
+						return new LuceneResultCache.Entry(Arrays.copyOfRange(scoreDocs, i + 1, Math.min(i + 1 + numHits, scoreDocs.length)),
+								entry.getTotalHits(), entry.getFacets());
+					}
+				}
+			}
+			resultCache.miss();
+		}
+
+		return collect(iSearcher, query, filter, after, numHits, withFacets);
+	}
+
+	/**
+	 * collect hits and - if needed - facet counts in a single pass
+	 * @param iSearcher searcher
+	 * @param query query
+	 * @param filter filter or null
+	 * @param after last hit of previous page or null to collect top hits
+	 * @param numHits number of hits needed
+	 * @param withFacets count facets of all hits
+	 * @return hits (and facets)
+	 * @throws IOException on search error
+	 */
+	protected LuceneResultCache.Entry collect(IndexSearcher iSearcher, Query query, @Nullable Filter filter, @Nullable ScoreDoc after, int numHits, boolean withFacets) throws IOException {
+		if (!withFacets) {
+			TopDocs topDocs = after == null ? iSearcher.search(query, filter, numHits) : iSearcher.searchAfter(after, query, filter, numHits);
+			return new LuceneResultCache.Entry(topDocs.scoreDocs, topDocs.totalHits);
+		}
+
+		// wrap filter the same way the searcher does, so scores (and cursors) stay the same
+		Query filteredQuery = filter == null ? query : new FilteredQuery(query, filter);
+		int maxDoc = Math.max(1, iSearcher.getIndexReader().maxDoc());
+		int numHitsLimited = Math.max(1, Math.min(numHits, maxDoc));
+
+		// collect top hits and facets per slice of segments (in parallel, if possible) and merge them
+		return iSearcher.search(filteredQuery, new CollectorManager<TopDocsAndFacetsCollector, LuceneResultCache.Entry>() {
+			@Override
+			public TopDocsAndFacetsCollector newCollector() {
+				return new TopDocsAndFacetsCollector(TopScoreDocCollector.create(numHitsLimited, after));
+			}
+
+			@Override
+			public LuceneResultCache.Entry reduce(Collection<TopDocsAndFacetsCollector> collectors) throws IOException {
+				TopDocs[] topDocs = new TopDocs[collectors.size()];
+				List<FacetsCollector.MatchingDocs> matchingDocs = new ArrayList<>();
+				int i = 0;
+				for (TopDocsAndFacetsCollector collector : collectors) {
+					topDocs[i++] = collector.topDocsCollector.topDocs();
+					matchingDocs.addAll(collector.facetsCollector.getMatchingDocs());
+				}
+				TopDocs merged = TopDocs.merge(numHitsLimited, topDocs);
+
+				// facets of all slices
+				FacetsCollector facetsCollector = new FacetsCollector() {
+					@Override
+					public List<MatchingDocs> getMatchingDocs() {
+						return matchingDocs;
+					}
+				};
+
+				return new LuceneResultCache.Entry(merged.scoreDocs, merged.totalHits, countFacets(iSearcher.getIndexReader(), facetsCollector));
+			}
+		});
+	}
+
+	/**
+	 * collects doc ids of a slice of segments
+	 */
+	private static class DocIdCollector extends SimpleCollector {
+		private final List<Integer> docs = new ArrayList<>();
+		private int docBase;
+
+		@Override
+		protected void doSetNextReader(LeafReaderContext context) throws IOException {
+			docBase = context.docBase;
+		}
+
+		@Override
+		public void collect(int doc) throws IOException {
+			docs.add(docBase + doc);
+		}
+
+		@Override
+		public boolean needsScores() {
+			return false;
+		}
+	}
+
+	/**
+	 * collects top hits and facets of a slice of segments in one pass
+	 */
+	private static class TopDocsAndFacetsCollector implements Collector {
+		private final TopScoreDocCollector topDocsCollector;
+		private final FacetsCollector facetsCollector = new FacetsCollector();
+		private final Collector collector;
+
+		TopDocsAndFacetsCollector(TopScoreDocCollector topDocsCollector) {
+			this.topDocsCollector = topDocsCollector;
+			this.collector = MultiCollector.wrap(topDocsCollector, facetsCollector);
+		}
+
+		@Override
+		public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+			return collector.getLeafCollector(context);
+		}
+
+		@Override
+		public boolean needsScores() {
+			return collector.needsScores();
+		}
+	}
+
+	/**
+	 * count facet values of collected hits
+	 * @param iReader reader hits have been collected from
+	 * @param facetsCollector collected hits
+	 * @return facet dimension -> value -> count, sorted by count descending
+	 * @throws IOException on read error
+	 */
+	protected Map<String, Map<String, Integer>> countFacets(IndexReader iReader, FacetsCollector facetsCollector) throws IOException {
+		SortedSetDocValuesReaderState state = getFacetState(iReader);
+		Facets counts = state != null ? new SortedSetDocValuesFacetCounts(state, facetsCollector) : null;
+
+		Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+		for (String dimension : FACET_DIMENSIONS) {
+			Map<String, Integer> values = new LinkedHashMap<>();
+			if (counts != null && state.getOrdRange(dimension) != null) {
+				FacetResult facetResult = counts.getTopChildren(FACET_MAX_VALUES, dimension);
+				if (facetResult != null)
+					for (LabelAndValue labelAndValue : facetResult.labelValues)
+						values.put(labelAndValue.label, labelAndValue.value.intValue());
+			}
+			facets.put(dimension, values);
+		}
+
+		return facets;
+	}
+
+	/**
+	 * get facet ordinals of reader - created once per reader
+	 * @param iReader current reader
+	 * @return state or null, if no documents with facets have been indexed yet
+	 * @throws IOException on read error
+	 */
+	private synchronized @Nullable SortedSetDocValuesReaderState getFacetState(IndexReader iReader) throws IOException {
+		if (facetStateReader != iReader) {
+			try {
+				facetState = new DefaultSortedSetDocValuesReaderState(iReader);
+			} catch (IllegalArgumentException e) {
+				// empty index or index created before facets were added - reindex to get facets
+				facetState = null;
+			}
+			facetStateReader = iReader;
+		}
+
+		return facetState;
+	}
+
+	/**
+	 * create key for result cache: normalized search term and filters that change the hits
+	 * @param searchTerm term searched for
+	 * @param filters search filters
+	 * @return key
+	 */
+	protected static String createCacheKey(@Nullable String searchTerm, Map<String, String> filters) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(searchTerm == null ? "" : searchTerm.trim().replaceAll("\\s+", " ")).append('\0');
+		sb.append(filters.getOrDefault("fields", "").toLowerCase()).append('\0');
+		sb.append(filters.getOrDefault("operator", "").toLowerCase()).append('\0');
+		sb.append(normalizeList(filters.get("class"))).append('\0');
+		sb.append(normalizeList(filters.get("tags"))).append('\0');
+		sb.append(filters.getOrDefault("minJD", "").trim()).append('\0');
+		sb.append(filters.getOrDefault("maxJD", "").trim()).append('\0');
+		sb.append(filters.getOrDefault("geo", "").trim());
+
+		return sb.toString();
+	}
+
+	/**
+	 * @param list comma separated list or null
+	 * @return sorted, trimmed list
+	 */
+	private static String normalizeList(@Nullable String list) {
+		if (list == null || list.isEmpty()) return "";
+
+		return Arrays.stream(list.split(",")).map(String::trim).sorted().collect(Collectors.joining(","));
+	}
+
+	/**
+	 * @return cache of class and tag filters
+	 */
+	public LuceneFilterCache getFilterCache() {
+		return filterCache;
+	}
+
+	/**
+	 * @return result cache or null if disabled
+	 */
+	public @Nullable LuceneResultCache getResultCache() {
+		return resultCache;
+	}
+
+	/**
+	 * @param iSearcher searcher
+	 * @return version of the searcher's index reader - changes with each refresh after the index has been changed
+	 */
+	protected static long getReaderVersion(IndexSearcher iSearcher) {
+		IndexReader reader = iSearcher.getIndexReader();
+		return reader instanceof DirectoryReader ? ((DirectoryReader) reader).getVersion() : -1L;
+	}
+
+	/**
+	 * encode last hit of a page as cursor string - doc ids are valid for a single reader only, so its version is added
+	 * @param scoreDoc last hit
+	 * @param readerVersion version of reader hit has been found with
+	 * @return cursor
+	 */
+	protected static String encodeCursor(ScoreDoc scoreDoc, long readerVersion) {
+		return Integer.toHexString(Float.floatToIntBits(scoreDoc.score)) + "-" + Integer.toHexString(scoreDoc.doc)
+				+ "-" + Long.toHexString(readerVersion);
+	}
+
+	/**
+	 * decode cursor string
+	 * @param cursor encoded by encodeCursor
+	 * @param readerVersion version of current reader
+	 * @return score doc to search after or null, if cursor is invalid or has been created by another reader - callers
+	 * fall back to paging by page number then
+	 */
+	protected static @Nullable ScoreDoc decodeCursor(String cursor, long readerVersion) {
+		String[] parts = cursor.split("-");
+		if (parts.length != 3) return null;
+
+		try {
+			if (Long.parseUnsignedLong(parts[2], 16) != readerVersion) {
+				if (logger.isDebugEnabled())
+					logger.debug("Search cursor " + cursor + " belongs to another index reader - paging by page number");
+				return null;
+			}
+
+			float score = Float.intBitsToFloat(Integer.parseUnsignedInt(parts[0], 16));
+			int doc = Integer.parseInt(parts[1], 16);
+			return new ScoreDoc(doc, score);
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid search cursor " + cursor);
+			return null;
+		}
 	}
 
 	@Override
@@ -342,9 +1063,9 @@ public class LuceneSearchEngine implements SearchEngine {
 		// sanity check
 		if (searchTerm == null || id == null || searchTerm.isEmpty() || id.isEmpty()) return new String[]{};
 
+		IndexSearcher iSearcher = null;
 		try {
-			DirectoryReader iReader = DirectoryReader.open(directory);
-			IndexSearcher iSearcher = new IndexSearcher(iReader);
+			iSearcher = acquireSearcher();
 
 			// only search content
 			MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{"content"}, analyzer);
@@ -360,59 +1081,45 @@ public class LuceneSearchEngine implements SearchEngine {
 			if (topDocs.scoreDocs.length > 0) {
 				ScoreDoc scoreDoc = topDocs.scoreDocs[0];
 
-				// get highlighted text
-				FastVectorHighlighter highlighter = new FastVectorHighlighter();
-				FieldQuery fieldQuery = highlighter.getFieldQuery(new QueryParser("content", analyzer).parse(searchTerm), iReader);
-
 				// return max of 100 highlighted elements
-				return highlighter.getBestFragments(fieldQuery, iReader, scoreDoc.doc, "content", 100, 100);
+				return highlightContent(searchTerm, iSearcher, new int[]{scoreDoc.doc}, 100, 100)[0];
 			}
 		} catch (Throwable e) {
 			logger.error("Error in search.", e);
+		} finally {
+			releaseSearcher(iSearcher);
 		}
 
 		return new String[]{};
 	}
 
 	@Override
-	public synchronized void remove(String id) {
+	public void remove(String id) {
+		generationLock.readLock().lock();
 		try {
-			// init index writer config
-			IndexWriterConfig indexWriterConfig = new IndexWriterConfig(this.analyzer);
-
-			// create new index writer
-			IndexWriter iWriter = new IndexWriter(directory, indexWriterConfig);
-
-			PhraseQuery query = new PhraseQuery();
-			query.add(new Term("id", id));
-
-			iWriter.deleteDocuments(query);
-
-			iWriter.close();
+			indexWriter.deleteDocuments(new Term("id", id));
+			recordChange(id, null);
+			changed();
 		} catch (Exception e) {
 			logger.warn("Error while deleting document " + id, e);
+		} finally {
+			generationLock.readLock().unlock();
 		}
 	}
 
 	@Override
-	public synchronized SearchHit getById(String id) {
+	public SearchHit getById(String id) {
+		IndexSearcher iSearcher = null;
 		try {
-			DirectoryReader iReader = DirectoryReader.open(directory);
-			IndexSearcher iSearcher = new IndexSearcher(iReader);
+			iSearcher = acquireSearcher();
 
-			PhraseQuery query = new PhraseQuery();
-			query.add(new Term("id", id));
-			
-			TopDocs topDocs = iSearcher.search(query, null, 1);
+			TopDocs topDocs = iSearcher.search(new TermQuery(new Term("id", id)), 1);
 
 			// not found?
-			if (topDocs.totalHits == 0) {
-				iReader.close();
-				return null;
-			}
+			if (topDocs.totalHits == 0) return null;
 
 			// fetch hit
-			Document document = iSearcher.doc(0);
+			Document document = iSearcher.doc(topDocs.scoreDocs[0].doc);
 
 			SearchHit searchHit = new SearchHit();
 			searchHit.setId(document.get("id"));
@@ -422,30 +1129,358 @@ public class LuceneSearchEngine implements SearchEngine {
 			searchHit.setHighlightText(new String[]{document.get("content")});
 			searchHit.setTagIds(document.getValues("tag"));
 
-			iReader.close();
-
 			return searchHit;
 		} catch (Exception e) {
 			logger.warn("Error in getById", e);
+		} finally {
+			releaseSearcher(iSearcher);
 		}
 
 		return null;
 	}
 
 	@Override
-	public synchronized void clearAllIndexes() {
+	public void clearAllIndexes() {
+		generationLock.readLock().lock();
+		try {
+			indexWriter.deleteAll();
+			commit();
+		} catch (Exception e) {
+			logger.warn("Error while deleting all entries", e);
+		} finally {
+			generationLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void flush() {
+		if (uncommittedChanges.get() > 0) commit();
+	}
+
+	@Override
+	public void beginBatch() {
+		inBatch.set(true);
+	}
+
+	@Override
+	public void endBatch() {
+		inBatch.set(false);
+
+		generationLock.readLock().lock();
+		try {
+			searcherManager.maybeRefreshBlocking(); // near real time refresh, no fsync
+		} catch (IOException e) {
+			logger.warn("Error while refreshing lucene searchers", e);
+		} finally {
+			generationLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * commit pending changes to disk and refresh searchers
+	 */
+	public void commit() {
+		generationLock.readLock().lock();
+		try {
+			uncommittedChanges.set(0);
+			indexWriter.commit();
+			searcherManager.maybeRefreshBlocking();
+		} catch (IOException e) {
+			logger.warn("Error while committing lucene index", e);
+		} finally {
+			generationLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public boolean startRebuild() {
+		generationLock.writeLock().lock();
 		try {
-			// init index writer config
-			IndexWriterConfig indexWriterConfig = new IndexWriterConfig(this.analyzer);
+			if (rebuildWriter != null) return false;
+
+			rebuildDirectory = createRebuildDirectory();
+			rebuildWriter = new IndexWriter(rebuildDirectory, createIndexWriterConfig().setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+			rebuildChanges = Collections.synchronizedMap(new HashMap<>());
+
+			logger.info("Started rebuilding Lucene index");
+			return true;
+		} catch (Exception e) {
+			logger.error("Could not start rebuilding Lucene index", e);
+			discardRebuild();
+			return false;
+		} finally {
+			generationLock.writeLock().unlock();
+		}
+	}
 
-			// create new index writer
-			IndexWriter iWriter = new IndexWriter(directory, indexWriterConfig);
+	@Override
+	public boolean finishRebuild() {
+		Directory oldDirectory;
+		SearcherManager oldSearcherManager;
+
+		generationLock.writeLock().lock();
+		try {
+			if (rebuildWriter == null) return false;
 
-			iWriter.deleteAll();
+			// replay changes made while rebuilding
+			synchronized (rebuildChanges) {
+				for (Map.Entry<String, Document> change : rebuildChanges.entrySet()) {
+					if (change.getValue() == null) rebuildWriter.deleteDocuments(new Term("id", change.getKey()));
+					else rebuildWriter.updateDocument(new Term("id", change.getKey()), change.getValue());
+				}
+			}
+			rebuildWriter.close(); // commits rebuilt index
+			rebuildWriter = null;
+
+			// close current writer - searchers acquired before keep working until released
+			indexWriter.close();
+			oldDirectory = directory;
+			oldSearcherManager = searcherManager;
+
+			// switch to new index
+			Directory newDirectory = promoteRebuildDirectory(rebuildDirectory);
+			indexWriter = new IndexWriter(newDirectory, createIndexWriterConfig());
+			searcherManager = new SearcherManager(indexWriter, true, searcherFactory);
+			directory = newDirectory;
+			uncommittedChanges.set(0);
+			rebuildDirectory = null;
+			rebuildChanges = null;
+		} catch (Exception e) {
+			logger.error("Could not switch to rebuilt Lucene index", e);
+			discardRebuild();
+			reopenAfterFailedSwitch();
+			return false;
+		} finally {
+			generationLock.writeLock().unlock();
+		}
 
-			iWriter.close();
+		// delete old index
+		try {
+			oldSearcherManager.close();
+			deleteOldDirectory(oldDirectory);
 		} catch (Exception e) {
-			logger.warn("Error while deleting all entries", e);
+			logger.warn("Could not delete old Lucene index", e);
+		}
+
+		logger.info("Switched to rebuilt Lucene index");
+		return true;
+	}
+
+	@Override
+	public void cancelRebuild() {
+		generationLock.writeLock().lock();
+		try {
+			if (rebuildWriter != null) {
+				logger.info("Cancelled rebuilding Lucene index");
+				discardRebuild();
+			}
+		} finally {
+			generationLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * called after each change to the index: make change visible to searchers (at the end of a batch, if running) and
+	 * commit from time to time
+	 * @throws IOException on refresh error
+	 */
+	protected void changed() throws IOException {
+		if (uncommittedChanges.incrementAndGet() >= COMMIT_THRESHOLD) commit();
+		else if (!inBatch.get()) searcherManager.maybeRefreshBlocking(); // near real time refresh, no fsync
+	}
+
+	/**
+	 * create configuration of index writers from settings
+	 * @return index writer configuration
+	 */
+	protected IndexWriterConfig createIndexWriterConfig() {
+		IndexWriterConfig config = new IndexWriterConfig(analyzer);
+		config.setRAMBufferSizeMB(ramBufferSizeMB);
+
+		// merge policy
+		if (mergePolicy.equalsIgnoreCase("logByteSize")) {
+			LogByteSizeMergePolicy policy = new LogByteSizeMergePolicy();
+			if (maxMergedSegmentMB > 0) policy.setMaxMergeMB(maxMergedSegmentMB);
+			config.setMergePolicy(policy);
+		} else if (mergePolicy.equalsIgnoreCase("logDoc")) {
+			config.setMergePolicy(new LogDocMergePolicy());
+		} else {
+			if (!mergePolicy.equalsIgnoreCase("tiered"))
+				logger.warn("Unknown lucene.mergePolicy " + mergePolicy + ", falling back to tiered");
+			TieredMergePolicy policy = new TieredMergePolicy();
+			if (maxMergedSegmentMB > 0) policy.setMaxMergedSegmentMB(maxMergedSegmentMB);
+			config.setMergePolicy(policy);
+		}
+
+		// merge scheduler: throttle merge IO adaptively, so searches are not starved by large merges
+		ConcurrentMergeScheduler scheduler = new ConcurrentMergeScheduler();
+		if (!mergeThrottle) scheduler.disableAutoIOThrottle();
+		if (mergeThreads > 0) scheduler.setMaxMergesAndThreads(mergeThreads + 5, mergeThreads);
+		config.setMergeScheduler(scheduler);
+
+		return config;
+	}
+
+	/**
+	 * remember change to replay it onto the rebuilt index
+	 * @param id of document
+	 * @param doc document or null if removed
+	 */
+	private void recordChange(String id, Document doc) {
+		Map<String, Document> changes = rebuildChanges;
+		if (changes != null) changes.put(id, doc);
+	}
+
+	/**
+	 * create empty directory for rebuilding the index: next to the index directory for file system indexes
+	 * @return directory
+	 * @throws IOException on file system errors
+	 */
+	protected Directory createRebuildDirectory() throws IOException {
+		if (directory instanceof RAMDirectory) return new RAMDirectory();
+		Path path = LuceneDirectoryFactory.getPath(directory);
+		if (path == null)
+			throw new UnsupportedOperationException("Cannot rebuild index in " + directory.getClass().getName());
+
+		// remove remains of earlier rebuilds
+		deletePath(siblingPath(path, REBUILD_SUFFIX));
+		deletePath(siblingPath(path, OLD_SUFFIX));
+
+		return openDirectory(siblingPath(path, REBUILD_SUFFIX));
+	}
+
+	/**
+	 * move rebuilt index to the place of the current index - current writer has to be closed
+	 * @param rebuilt directory containing the rebuilt index
+	 * @return directory to use from now on
+	 * @throws IOException on file system errors
+	 */
+	protected Directory promoteRebuildDirectory(Directory rebuilt) throws IOException {
+		Path rebuiltPath = LuceneDirectoryFactory.getPath(rebuilt);
+		if (rebuiltPath == null) return rebuilt;
+
+		Path path = LuceneDirectoryFactory.getPath(directory);
+		rebuilt.close();
+
+		Files.move(path, siblingPath(path, OLD_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+		Files.move(rebuiltPath, path, StandardCopyOption.ATOMIC_MOVE);
+
+		return openDirectory(path);
+	}
+
+	/**
+	 * close and delete directory of the replaced index
+	 * @param oldDirectory directory of replaced index
+	 * @throws IOException on file system errors
+	 */
+	protected void deleteOldDirectory(Directory oldDirectory) throws IOException {
+		Path path = LuceneDirectoryFactory.getPath(oldDirectory);
+		oldDirectory.close();
+		if (path != null) deletePath(siblingPath(path, OLD_SUFFIX));
+	}
+
+	/**
+	 * open directory of the same kind as the current one
+	 * @param path of directory
+	 * @return directory
+	 * @throws IOException on file system errors
+	 */
+	protected Directory openDirectory(Path path) throws IOException {
+		return directoryFactory.open(path);
+	}
+
+	/**
+	 * throw away rebuilt index - called with generation lock held
+	 */
+	private void discardRebuild() {
+		try {
+			if (rebuildWriter != null) rebuildWriter.rollback();
+			if (rebuildDirectory != null) {
+				Path path = LuceneDirectoryFactory.getPath(rebuildDirectory);
+				rebuildDirectory.close();
+				if (path != null) deletePath(path);
+			}
+		} catch (Exception e) {
+			logger.warn("Error while discarding rebuilt Lucene index", e);
+		}
+
+		rebuildWriter = null;
+		rebuildDirectory = null;
+		rebuildChanges = null;
+	}
+
+	/**
+	 * reopen index if switching failed after current writer has been closed - called with generation lock held
+	 */
+	private void reopenAfterFailedSwitch() {
+		if (indexWriter.isOpen()) return;
+
+		try {
+			// old index has been moved already: move it back
+			Path path = LuceneDirectoryFactory.getPath(directory);
+			if (path != null) {
+				Path oldPath = siblingPath(path, OLD_SUFFIX);
+				if (!Files.exists(path) && Files.exists(oldPath))
+					Files.move(oldPath, path, StandardCopyOption.ATOMIC_MOVE);
+			}
+
+			indexWriter = new IndexWriter(directory, createIndexWriterConfig());
+			searcherManager = new SearcherManager(indexWriter, true, searcherFactory);
+		} catch (IOException e) {
+			logger.error("Could not reopen Lucene index", e);
+		}
+	}
+
+	/**
+	 * @param path of index directory
+	 * @param suffix to add
+	 * @return path next to index directory
+	 */
+	private static Path siblingPath(Path path, String suffix) {
+		return path.resolveSibling(path.getFileName().toString() + suffix);
+	}
+
+	/**
+	 * delete directory recursively, if it exists
+	 * @param path to delete
+	 * @throws IOException on file system errors
+	 */
+	private static void deletePath(Path path) throws IOException {
+		if (!Files.exists(path)) return;
+
+		try (Stream<Path> paths = Files.walk(path)) {
+			for (Path toDelete : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.delete(toDelete);
+		}
+	}
+
+	/**
+	 * acquire searcher from current searcher manager - retries if index has been switched in the meantime
+	 * @return searcher, release after use
+	 * @throws IOException on read error
+	 */
+	protected IndexSearcher acquireSearcher() throws IOException {
+		while (true) {
+			SearcherManager manager = searcherManager;
+			try {
+				return manager.acquire();
+			} catch (AlreadyClosedException e) {
+				if (manager == searcherManager) throw e;
+			}
+		}
+	}
+
+	/**
+	 * release searcher acquired from searcher manager
+	 * @param iSearcher searcher to release (may be null)
+	 */
+	protected void releaseSearcher(IndexSearcher iSearcher) {
+		if (iSearcher == null) return;
+
+		try {
+			searcherManager.release(iSearcher);
+		} catch (IOException e) {
+			logger.warn("Error while releasing searcher", e);
 		}
 	}
 
@@ -453,10 +1488,16 @@ public class LuceneSearchEngine implements SearchEngine {
 	public void destroy() {
 		logger.info("Shutting down Lucene index");
 
+		cancelRebuild();
+
 		try {
+			searcherManager.close();
+			indexWriter.close(); // commits pending changes
 			directory.close();
 		} catch (IOException e) {
 			logger.warn("Error while closing lucene index", e);
 		}
+
+		searcherFactory.close();
 	}
 }
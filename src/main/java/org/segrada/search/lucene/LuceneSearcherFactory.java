@@ -0,0 +1,125 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Creates searchers searching segments in parallel: segments are grouped into one slice per search thread, each slice
+ * is searched by a bounded pool shared by all searchers. Slices are runs of consecutive segments, so hits with equal
+ * scores are still ordered by document id (needed by search cursors).
+ */
+public class LuceneSearcherFactory extends SearcherFactory implements Closeable {
+	/**
+	 * pending slices per thread before slices are searched by the calling thread
+	 */
+	private static final int QUEUE_SIZE_PER_THREAD = 64;
+
+	/**
+	 * number of search threads
+	 */
+	private final int threads;
+
+	/**
+	 * shared pool, null if searching in the calling thread only
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Constructor
+	 * @param threads number of search threads, 1 or less to search in calling thread only
+	 */
+	public LuceneSearcherFactory(int threads) {
+		this.threads = Math.max(1, threads);
+
+		if (this.threads > 1) {
+			AtomicInteger counter = new AtomicInteger();
+			executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(this.threads * QUEUE_SIZE_PER_THREAD), runnable -> {
+						Thread thread = new Thread(runnable, "LuceneSearch-" + counter.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}, new ThreadPoolExecutor.CallerRunsPolicy());
+		} else executor = null;
+	}
+
+	/**
+	 * @return number of search threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	@Override
+	public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+		if (executor == null) return new IndexSearcher(reader);
+
+		return new IndexSearcher(reader, executor) {
+			@Override
+			protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+				return createSlices(leaves, threads);
+			}
+		};
+	}
+
+	/**
+	 * group consecutive segments into slices of about the same number of documents
+	 * @param leaves segments of reader
+	 * @param maxSlices maximum number of slices
+	 * @return slices
+	 */
+	static IndexSearcher.LeafSlice[] createSlices(List<LeafReaderContext> leaves, int maxSlices) {
+		long total = 0;
+		for (LeafReaderContext leaf : leaves)
+			total += leaf.reader().maxDoc();
+		long docsPerSlice = Math.max(1, total / Math.max(1, maxSlices));
+
+		List<IndexSearcher.LeafSlice> slices = new ArrayList<>();
+		List<LeafReaderContext> slice = new ArrayList<>();
+		long docs = 0;
+		for (LeafReaderContext leaf : leaves) {
+			slice.add(leaf);
+			docs += leaf.reader().maxDoc();
+
+			// slice full - last slice takes the rest
+			if (docs >= docsPerSlice && slices.size() < maxSlices - 1) {
+				slices.add(new IndexSearcher.LeafSlice(slice.toArray(new LeafReaderContext[slice.size()])));
+				slice.clear();
+				docs = 0;
+			}
+		}
+		if (!slice.isEmpty())
+			slices.add(new IndexSearcher.LeafSlice(slice.toArray(new LeafReaderContext[slice.size()])));
+
+		return slices.toArray(new IndexSearcher.LeafSlice[slices.size()]);
+	}
+
+	@Override
+	public void close() {
+		if (executor != null) executor.shutdown();
+	}
+}
@@ -0,0 +1,233 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.core.LowerCaseFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.segrada.search.Suggestion;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * In-memory infix suggester: each word of the suggested texts is indexed with all of its prefixes, so every word typed
+ * is answered by a single term lookup. Unlike the FST suggesters, entries of single entities can be updated and
+ * removed at any time.
+ */
+public class LuceneSuggester implements Closeable {
+	/**
+	 * prefix lengths indexed - longer words typed are cut
+	 */
+	private static final int MIN_GRAM = 1;
+	private static final int MAX_GRAM = 20;
+
+	/**
+	 * analyzer of texts: words and their prefixes
+	 */
+	private final Analyzer indexAnalyzer = new Analyzer() {
+		@Override
+		protected TokenStreamComponents createComponents(String fieldName) {
+			Tokenizer src = new StandardTokenizer();
+			TokenStream tok = new ASCIIFoldingFilter(new LowerCaseFilter(src));
+			return new TokenStreamComponents(src, new EdgeNGramTokenFilter(tok, MIN_GRAM, MAX_GRAM));
+		}
+	};
+
+	/**
+	 * analyzer of terms typed: words only
+	 */
+	private final Analyzer queryAnalyzer = new Analyzer() {
+		@Override
+		protected TokenStreamComponents createComponents(String fieldName) {
+			Tokenizer src = new StandardTokenizer();
+			return new TokenStreamComponents(src, new ASCIIFoldingFilter(new LowerCaseFilter(src)));
+		}
+	};
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searcherManager;
+
+	/**
+	 * true if there are changes not visible to searchers yet
+	 */
+	private final AtomicBoolean changed = new AtomicBoolean();
+
+	/**
+	 * Constructor
+	 */
+	public LuceneSuggester() {
+		Map<String, Analyzer> analyzers = new HashMap<>();
+		analyzers.put("text", indexAnalyzer);
+
+		try {
+			writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new PerFieldAnalyzerWrapper(new KeywordAnalyzer(), analyzers)));
+			searcherManager = new SearcherManager(writer, true, null);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * add or replace suggestions of an entity
+	 * @param id of entity
+	 * @param className class name of entity
+	 * @param title title to display, first text if null
+	 * @param texts texts to match (title, alternative titles, etc.), null or empty entries are skipped
+	 * @throws IOException on index errors
+	 */
+	public void update(String id, String className, @Nullable String title, Collection<String> texts) throws IOException {
+		// fall back to first text
+		if (title == null || title.isEmpty())
+			title = texts.stream().filter(t -> t != null && !t.trim().isEmpty()).findFirst().orElse("");
+
+		List<Document> docs = new ArrayList<>(texts.size());
+		for (String text : texts) {
+			if (text == null || text.trim().isEmpty()) continue;
+
+			Document doc = new Document();
+			doc.add(new StringField("id", id, Field.Store.YES));
+			doc.add(new StringField("className", className, Field.Store.YES));
+			doc.add(new StoredField("title", title));
+			doc.add(new SortedDocValuesField("sort", new BytesRef(title.toLowerCase())));
+			doc.add(new TextField("text", text.trim(), Field.Store.YES));
+			docs.add(doc);
+		}
+
+		if (docs.isEmpty()) writer.deleteDocuments(new Term("id", id));
+		else writer.updateDocuments(new Term("id", id), docs);
+		changed.set(true);
+	}
+
+	/**
+	 * remove suggestions of an entity
+	 * @param id of entity
+	 * @throws IOException on index errors
+	 */
+	public void remove(String id) throws IOException {
+		writer.deleteDocuments(new Term("id", id));
+		changed.set(true);
+	}
+
+	/**
+	 * remove all suggestions
+	 * @throws IOException on index errors
+	 */
+	public void clear() throws IOException {
+		writer.deleteAll();
+		changed.set(true);
+	}
+
+	/**
+	 * find suggestions containing words starting with all words of term
+	 * @param term typed so far
+	 * @param classNames class names to restrict suggestions to, null for all
+	 * @param limit maximum number of suggestions
+	 * @return suggestions, best match first - one per entity
+	 * @throws IOException on index errors
+	 */
+	public List<Suggestion> suggest(String term, @Nullable Collection<String> classNames, int limit) throws IOException {
+		List<String> words = analyze(term);
+		if (words.isEmpty() || limit <= 0 || (classNames != null && classNames.isEmpty())) return new ArrayList<>(0);
+
+		BooleanQuery.Builder builder = new BooleanQuery.Builder();
+		for (String word : words)
+			builder.add(new TermQuery(new Term("text", word.length() > MAX_GRAM ? word.substring(0, MAX_GRAM) : word)), BooleanClause.Occur.MUST);
+
+		if (classNames != null) {
+			BooleanQuery.Builder classBuilder = new BooleanQuery.Builder();
+			for (String className : classNames)
+				classBuilder.add(new TermQuery(new Term("className", className)), BooleanClause.Occur.SHOULD);
+			builder.add(classBuilder.build(), BooleanClause.Occur.FILTER);
+		}
+
+		// make changes visible
+		if (changed.compareAndSet(true, false)) searcherManager.maybeRefreshBlocking();
+
+		IndexSearcher searcher = searcherManager.acquire();
+		try {
+			// shorter texts score higher, ties are sorted by title
+			Sort sort = new Sort(SortField.FIELD_SCORE, new SortField("sort", SortField.Type.STRING));
+			// entities may match with several texts
+			TopDocs topDocs = searcher.search(builder.build(), limit * 3, sort);
+
+			Set<String> seen = new HashSet<>();
+			List<Suggestion> suggestions = new ArrayList<>(limit);
+			for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+				Document doc = searcher.doc(scoreDoc.doc);
+				if (!seen.add(doc.get("id"))) continue;
+
+				suggestions.add(new Suggestion(doc.get("id"), doc.get("className"), doc.get("title"), doc.get("text")));
+				if (suggestions.size() >= limit) break;
+			}
+
+			return suggestions;
+		} finally {
+			searcherManager.release(searcher);
+		}
+	}
+
+	/**
+	 * @return number of suggested texts
+	 */
+	public int size() {
+		return writer.numDocs();
+	}
+
+	/**
+	 * split term into normalized words
+	 * @param term to analyze
+	 * @return list of words
+	 * @throws IOException on analyzer errors
+	 */
+	private List<String> analyze(@Nullable String term) throws IOException {
+		List<String> words = new ArrayList<>();
+		if (term == null) return words;
+
+		try (TokenStream stream = queryAnalyzer.tokenStream("text", term)) {
+			CharTermAttribute charTermAttribute = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken())
+				words.add(charTermAttribute.toString());
+			stream.end();
+		}
+
+		return words;
+	}
+
+	@Override
+	public void close() throws IOException {
+		searcherManager.close();
+		writer.close();
+	}
+}
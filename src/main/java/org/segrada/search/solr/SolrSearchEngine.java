@@ -4,26 +4,35 @@ import com.google.inject.Singleton;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
 import org.apache.lucene.util.Version;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.StreamingResponseCallback;
+import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrClient;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.QueryResponse;
-import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.segrada.search.SearchEngine;
 import org.segrada.search.SearchHit;
-import org.segrada.service.util.PaginationInfo;
+import org.segrada.search.SearchIndexDocument;
+import org.segrada.search.SearchPaginationInfo;
 import org.segrada.session.ApplicationSettings;
+import org.segrada.util.FlexibleDateParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -55,6 +64,17 @@ public class SolrSearchEngine implements SearchEngine {
 	 */
 	protected SolrClient solr;
 
+	/**
+	 * client for updates: buffers documents and streams them to the server in bulk - may be null, if updates are sent
+	 * by solr directly
+	 */
+	protected ConcurrentUpdateSolrClient updateClient;
+
+	/**
+	 * milliseconds until updates have to be committed by Solr, 0 to soft commit on flush
+	 */
+	private final int commitWithin;
+
 	/**
 	 * reference to analyzer
 	 */
@@ -71,6 +91,9 @@ public class SolrSearchEngine implements SearchEngine {
 	private final String tag;
 	private final String color; // should be stored only
 	private final String icon; // should be stored only
+	private final String minJD; // should be long
+	private final String maxJD; // should be long
+	private final String location; // should be spatial (location_rpt)
 
 	/**
 	 * Constructor
@@ -89,6 +112,12 @@ public class SolrSearchEngine implements SearchEngine {
 		tag = settings.getSetting("solr.field_tag", "tag_ss");
 		color = settings.getSetting("solr.field_color", "color_s");
 		icon = settings.getSetting("solr.field_icon", "icon_s");
+		minJD = settings.getSetting("solr.field_minJD", "minJD_l");
+		maxJD = settings.getSetting("solr.field_maxJD", "maxJD_l");
+		location = settings.getSetting("solr.field_location", "location_rpt");
+
+		// update settings
+		commitWithin = Math.max(0, settings.getSettingAsInteger("solr.commitWithin", 1000));
 
 		String url = settings.getSetting("solr.server");
 		if (url == null || url.isEmpty()) {
@@ -105,56 +134,138 @@ public class SolrSearchEngine implements SearchEngine {
 		} catch (Exception e) {
 			solr = null; // remove solr
 			logger.error("Could not connect to Solr server", e);
+			return;
 		}
+
+		// create buffering update client: queued documents are sent in one request, waiting pollTime ms for more
+		int queueSize = settings.getSettingAsInteger("solr.update.queueSize", 100);
+		int threads = settings.getSettingAsInteger("solr.update.threads", 1);
+		updateClient = new ConcurrentUpdateSolrClient(url, queueSize > 0 ? queueSize : 100, threads > 0 ? threads : 1) {
+			@Override
+			public void handleError(Throwable ex) {
+				logger.error("Could not send updates to Solr server", ex);
+			}
+		};
+		updateClient.setPollQueueTime(Math.max(0, settings.getSettingAsInteger("solr.update.pollTime", 250)));
+	}
+
+	/**
+	 * @return client to send updates with
+	 */
+	protected SolrClient getUpdateClient() {
+		return updateClient != null ? updateClient : solr;
 	}
 
 	@Override
-	public boolean index(String id, String className, String title, String subTitles, String content, String[] tagIds, Integer color, String iconFileIdentifier, float weight) {
+	public boolean index(SearchIndexDocument document) {
 		try {
-			SolrInputDocument doc = new SolrInputDocument();
+			// add document - committed by Solr within commitWithin or on flush
+			getUpdateClient().add(createDocument(document), commitWithin > 0 ? commitWithin : -1);
+		} catch (Exception e) {
+			logger.error("Could not index document " + document.getId(), e);
+			return false;
+		}
 
-			doc.addField(this.id, id);
-			doc.addField(this.className, className);
+		return true;
+	}
 
-			if (title != null)
-				doc.addField(this.title, title, 10f * weight);
+	@Override
+	public boolean indexAll(List<SearchIndexDocument> documents) {
+		if (documents.isEmpty()) return true;
 
-			if (subTitles != null)
-				doc.addField(this.subTitles, subTitles, 6f * weight);
+		try {
+			List<SolrInputDocument> docs = new ArrayList<>(documents.size());
+			for (SearchIndexDocument document : documents) {
+				docs.add(createDocument(document));
+			}
 
-			// add content
-			if (content == null) content = "";
-			doc.addField(this.content, content, weight);
+			// add documents in one request - committed by Solr within commitWithin or on flush
+			getUpdateClient().add(docs, commitWithin > 0 ? commitWithin : -1);
+		} catch (Exception e) {
+			logger.error("Could not index batch of " + documents.size() + " documents", e);
+			return false;
+		}
 
-			// add tagIds
-			if (tagIds != null)
-				for (String tagId : tagIds) {
-					doc.addField(this.tag, tagId, weight);
-				}
+		return true;
+	}
 
-			// add color and icon - just stored
-			if (color != null)
-				doc.addField(this.color, color, 0);
+	@Override
+	public boolean startRebuild() {
+		return false; // not supported, index is cleared before reindexing
+	}
 
-			// add color and icon - just stored
-			if (iconFileIdentifier != null)
-				doc.addField(this.icon, iconFileIdentifier, 0);
+	@Override
+	public boolean finishRebuild() {
+		return false;
+	}
 
-			// add document
-			UpdateResponse response = solr.add(doc);
+	@Override
+	public void cancelRebuild() {
+	}
 
-			// commit it - do soft commit
-			solr.commit(false, false, true);
-		} catch (Exception e) {
-			logger.error("Could not index document " + id, e);
-			return false;
-		}
+	/**
+	 * create solr document from data
+	 * @param document data to index
+	 * @return document to add to index
+	 */
+	protected SolrInputDocument createDocument(SearchIndexDocument document) {
+		String id = document.getId();
+		String className = document.getClassName();
+		String title = document.getTitle();
+		String subTitles = document.getSubTitles();
+		String content = document.getContent();
+		String[] tagIds = document.getTagIds();
+		Integer color = document.getColor();
+		String iconFileIdentifier = document.getIconFileIdentifier();
+		float weight = document.getWeight();
+		Long minJD = document.getMinJD();
+		Long maxJD = document.getMaxJD();
+
+		SolrInputDocument doc = new SolrInputDocument();
+
+		doc.addField(this.id, id);
+		doc.addField(this.className, className);
+
+		if (title != null)
+			doc.addField(this.title, title, 10f * weight);
+
+		if (subTitles != null)
+			doc.addField(this.subTitles, subTitles, 6f * weight);
+
+		// add content
+		if (content == null) content = "";
+		doc.addField(this.content, content, weight);
+
+		// add tagIds
+		if (tagIds != null)
+			for (String tagId : tagIds) {
+				doc.addField(this.tag, tagId, weight);
+			}
 
-		return true;
+		// add color and icon - just stored
+		if (color != null)
+			doc.addField(this.color, color, 0);
+
+		// add color and icon - just stored
+		if (iconFileIdentifier != null)
+			doc.addField(this.icon, iconFileIdentifier, 0);
+
+		// temporal extent
+		if (minJD != null)
+			doc.addField(this.minJD, minJD);
+		if (maxJD != null)
+			doc.addField(this.maxJD, maxJD);
+
+		// locations as "lat,lng" points
+		if (document.getLocations() != null)
+			for (double[] location : document.getLocations())
+				doc.addField(this.location, location[0] + "," + location[1]);
+
+		return doc;
 	}
 
 	@Override
-	public PaginationInfo<SearchHit> search(String searchTerm, Map<String, String> filters) {
+	public SearchPaginationInfo search(String searchTerm, Map<String, String> filters) {
 		// to avoid NPEs
 		if (filters == null) filters = new HashMap<>();
 
@@ -163,66 +274,7 @@ public class SolrSearchEngine implements SearchEngine {
 		int entriesPerPage = 20;
 
 		try {
-			// Parse a simple query that searches for "text":
-			MultiFieldQueryParser parser;
-			String[] containFields;
-			// do we have a filter to contain to certain fields?
-			if (filters.containsKey("fields")) {
-				String fields = filters.get("fields");
-				if (fields.isEmpty()) containFields = new String[]{this.title, this.subTitles, this.content};
-				else if (fields.equalsIgnoreCase(this.title)) containFields = new String[]{this.title};
-				else if (fields.equalsIgnoreCase(this.subTitles)) containFields = new String[]{this.subTitles};
-				else if (fields.equalsIgnoreCase(this.content)) containFields = new String[]{this.content};
-				else if (fields.equalsIgnoreCase("allTitles")) containFields = new String[]{this.title, this.subTitles};
-				else throw new RuntimeException("fields-Filter " + fields + " is not known.");
-			} else containFields = new String[]{this.title, this.subTitles, this.content};
-			parser = new MultiFieldQueryParser(containFields, analyzer);
-
-			// which operator do we use?
-			parser.setDefaultOperator(QueryParser.Operator.AND);
-			if (filters.containsKey("operator")) {
-				String operator = filters.get("operator");
-				if (operator.equalsIgnoreCase("or")) parser.setDefaultOperator(QueryParser.Operator.OR);
-				else if (!operator.isEmpty() && !operator.equalsIgnoreCase("and")) throw new RuntimeException("operator-Filter " + operator + " is not and/or.");
-			}
-
-			// filters for query
-			SolrQuery query = new SolrQuery();
-			// class filter
-			if (filters.containsKey("class") && !filters.get("class").isEmpty()) {
-				// multiple classes?
-				String[] classes = filters.get("class").split(",");
-
-				// single class
-				if (classes.length <= 1) {
-					query.addFilterQuery(this.className, filters.get("class"));
-				} else { // multiple classes
-					StringBuilder chained = new StringBuilder("(");
-					for (int i = 0; i < classes.length; i++) {
-						if (i > 0) chained.append(" OR ");
-						chained.append("className:").append(classes[i].trim());
-					}
-					query.addFilterQuery(this.className, chained + ")");
-				}
-			}
-
-			// tag filter
-			if (filters.containsKey("tags") && !filters.get("tags").isEmpty()) {
-				// split tags into array
-				String[] tags = filters.get("tags").split(",");
-				BooleanQuery booleanQuery = new BooleanQuery();
-				for (String tagLocal : tags) {
-					booleanQuery.add(new TermQuery(new Term("tag", tagLocal.trim())), BooleanClause.Occur.SHOULD);
-				}
-				query.addFilterQuery(this.tag, booleanQuery.toString());
-			}
-
-			// define query
-			Query queryTerm = null;
-			if (searchTerm != null)
-				queryTerm = parser.parse(searchTerm);
-			if (queryTerm == null) queryTerm = new MatchAllDocsQuery(); // fallback to match all documents
-			query.setQuery(queryTerm.toString());
+			SolrQuery query = createQuery(searchTerm, filters);
 
 			// get hits per page
 			if (filters.containsKey("limit")) {
@@ -243,28 +295,48 @@ public class SolrSearchEngine implements SearchEngine {
 				}
 			}
 
-			// calculate start index
-			int startIndex = (page - 1) * entriesPerPage;
-
-			query.setStart(startIndex);
+			// stable sort needed by cursors: relevance, ties broken by id
+			query.setSort(SolrQuery.SortClause.desc("score"));
+			query.addSort(this.id, SolrQuery.ORDER.asc);
 			query.setRows(entriesPerPage);
 
-			query.setFields("*", "score");
+			// deep pages: continue from cursor of previous page - first page starts new cursor, pages without cursor
+			// fall back to offsets
+			String cursorMark = null;
+			if (filters.containsKey("after") && !filters.get("after").isEmpty()) cursorMark = filters.get("after");
+			else if (page <= 1) cursorMark = CursorMarkParams.CURSOR_MARK_START;
+
+			if (cursorMark != null) query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+			else query.setStart((page - 1) * entriesPerPage);
+
+			// fields needed by search hits only
+			query.setFields(this.id, this.className, this.title, this.subTitles, this.tag, this.color, this.icon, "score");
+
+			// define highlighting - only needed if there is something to highlight and caller did not switch it off
+			if (searchTerm != null && !searchTerm.isEmpty() && !"false".equals(filters.get("highlight"))) {
+				query.setHighlight(true);
+				query.addHighlightField(this.content);
+				query.setHighlightFragsize(18);
+				query.setHighlightSnippets(10);
+				query.setHighlightSimplePre("<b>");
+				query.setHighlightSimplePost("</b>");
+			}
 
-			// define highlighting
-			query.setHighlight(true);
-			query.addHighlightField(this.content);
-			query.setHighlightFragsize(18);
-			query.setHighlightSnippets(10);
-			query.setHighlightSimplePre("<b>");
-			query.setHighlightSimplePost("</b>");
+			// count class names and tags of all hits in the same request
+			boolean withFacets = Boolean.parseBoolean(filters.get("facets"));
+			if (withFacets) {
+				query.setFacet(true);
+				query.addFacetField(this.className, this.tag);
+				query.setFacetMinCount(1);
+				query.setFacetLimit(100);
+			}
 
 			// do query
 			QueryResponse response = solr.query(query);
 			SolrDocumentList results = response.getResults();
 
 			// how many pages do we have?
-			int pages = (int) (results.getNumFound() / entriesPerPage + 1);
+			int pages = results.getNumFound() == 0 ? 1 : (int) ((results.getNumFound() - 1) / entriesPerPage + 1);
 
 			// cycle trough hits
 			List<SearchHit> hits = new ArrayList<>();
@@ -278,7 +350,7 @@ public class SolrSearchEngine implements SearchEngine {
 					searchHit.setRelevance((float) score);
 
 				// get highlighted components
-				if (searchTerm != null && response.getHighlighting().get(searchHit.getId()) != null) {
+				if (response.getHighlighting() != null && response.getHighlighting().get(searchHit.getId()) != null) {
 					List<String> fragments = response.getHighlighting().get(searchHit.getId()).get(this.content);
 					if (fragments != null) {
 						String[] bestFragments = new String[fragments.size() > 10 ? 10 : fragments.size()];
@@ -292,14 +364,195 @@ public class SolrSearchEngine implements SearchEngine {
 				hits.add(searchHit);
 			}
 
+			// facet counts mapped to common dimension names
+			Map<String, Map<String, Integer>> facets = null;
+			if (withFacets) {
+				facets = new LinkedHashMap<>();
+				facets.put("className", getFacetCounts(response, this.className));
+				facets.put("tag", getFacetCounts(response, this.tag));
+			}
+
+			// cursor for next page, if there is one
+			String nextCursor = null;
+			if (cursorMark != null && page < pages && response.getNextCursorMark() != null && !response.getNextCursorMark().equals(cursorMark))
+				nextCursor = response.getNextCursorMark();
+
 			// return pagination info
-			return new PaginationInfo<>(page, pages, (int) results.getNumFound(), entriesPerPage, hits);
+			return new SearchPaginationInfo(page, pages, (int) results.getNumFound(), entriesPerPage, hits, nextCursor, facets);
 		} catch (Throwable e) {
 			logger.error("Error in search.", e);
 		}
 
 		// return empty list result in order to avoid NPEs
-		return new PaginationInfo<>(page, 1, 0, entriesPerPage, new ArrayList<>());
+		return new SearchPaginationInfo(page, 1, 0, entriesPerPage, new ArrayList<>(), null);
+	}
+
+	@Override
+	public List<String> searchIds(String searchTerm, Map<String, String> filters) {
+		// to avoid NPEs
+		if (filters == null) filters = new HashMap<>();
+
+		List<String> ids = new ArrayList<>();
+		try {
+			SolrQuery query = createQuery(searchTerm, filters);
+			query.setFields(this.id);
+
+			// limited: best hits only
+			int limit = parseLimit(filters);
+			if (limit > 0) {
+				query.setRows(limit);
+				for (SolrDocument doc : solr.query(query).getResults())
+					ids.add(getOneValueFromField(doc, this.id));
+
+				return ids;
+			}
+
+			query.setSort(this.id, SolrQuery.ORDER.asc);
+			query.setRows(1000);
+
+			// stream ids in chunks - cursors keep the cost of each chunk flat, documents are not collected in lists
+			StreamingResponseCallback callback = new StreamingResponseCallback() {
+				@Override
+				public void streamSolrDocument(SolrDocument doc) {
+					ids.add(getOneValueFromField(doc, SolrSearchEngine.this.id));
+				}
+
+				@Override
+				public void streamDocListInfo(long numFound, long start, Float maxScore) {
+				}
+			};
+
+			String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+			while (true) {
+				query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+				String nextCursorMark = solr.queryAndStreamResponse(query, callback).getNextCursorMark();
+
+				// same cursor: no more hits
+				if (nextCursorMark == null || nextCursorMark.equals(cursorMark)) break;
+				cursorMark = nextCursorMark;
+			}
+		} catch (Throwable e) {
+			logger.error("Error in search.", e);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * @param filters search filters
+	 * @return maximum number of ids to return, 0 for all
+	 */
+	private int parseLimit(Map<String, String> filters) {
+		if (!filters.containsKey("limit")) return 0;
+		try {
+			return Math.max(0, Integer.parseInt(filters.get("limit")));
+		} catch (NumberFormatException e) {
+			logger.warn("Could not parse limit " + filters.get("limit") + " to integer", e);
+			return 0;
+		}
+	}
+
+	/**
+	 * create query with filter queries from search term and filters
+	 * @param searchTerm term(s) to search for or null to match all documents
+	 * @param filters search filters
+	 * @return query
+	 * @throws ParseException if search term could not be parsed
+	 */
+	protected SolrQuery createQuery(@Nullable String searchTerm, Map<String, String> filters) throws ParseException {
+		// Parse a simple query that searches for "text":
+		MultiFieldQueryParser parser;
+		String[] containFields;
+		// do we have a filter to contain to certain fields?
+		if (filters.containsKey("fields")) {
+			String fields = filters.get("fields");
+			if (fields.isEmpty()) containFields = new String[]{this.title, this.subTitles, this.content};
+			else if (fields.equalsIgnoreCase(this.title)) containFields = new String[]{this.title};
+			else if (fields.equalsIgnoreCase(this.subTitles)) containFields = new String[]{this.subTitles};
+			else if (fields.equalsIgnoreCase(this.content)) containFields = new String[]{this.content};
+			else if (fields.equalsIgnoreCase("allTitles")) containFields = new String[]{this.title, this.subTitles};
+			else throw new RuntimeException("fields-Filter " + fields + " is not known.");
+		} else containFields = new String[]{this.title, this.subTitles, this.content};
+		parser = new MultiFieldQueryParser(containFields, analyzer);
+
+		// which operator do we use?
+		parser.setDefaultOperator(QueryParser.Operator.AND);
+		if (filters.containsKey("operator")) {
+			String operator = filters.get("operator");
+			if (operator.equalsIgnoreCase("or")) parser.setDefaultOperator(QueryParser.Operator.OR);
+			else if (!operator.isEmpty() && !operator.equalsIgnoreCase("and")) throw new RuntimeException("operator-Filter " + operator + " is not and/or.");
+		}
+
+		// filters for query
+		SolrQuery query = new SolrQuery();
+		// class filter
+		if (filters.containsKey("class") && !filters.get("class").isEmpty()) {
+			// multiple classes?
+			String[] classes = filters.get("class").split(",");
+
+			// single class
+			if (classes.length <= 1) {
+				query.addFilterQuery(this.className, filters.get("class"));
+			} else { // multiple classes
+				StringBuilder chained = new StringBuilder("(");
+				for (int i = 0; i < classes.length; i++) {
+					if (i > 0) chained.append(" OR ");
+					chained.append("className:").append(classes[i].trim());
+				}
+				query.addFilterQuery(this.className, chained + ")");
+			}
+		}
+
+		// tag filter
+		if (filters.containsKey("tags") && !filters.get("tags").isEmpty()) {
+			// split tags into array
+			String[] tags = filters.get("tags").split(",");
+			BooleanQuery booleanQuery = new BooleanQuery();
+			for (String tagLocal : tags) {
+				booleanQuery.add(new TermQuery(new Term("tag", tagLocal.trim())), BooleanClause.Occur.SHOULD);
+			}
+			query.addFilterQuery(this.tag, booleanQuery.toString());
+		}
+
+		// temporal filters: entity has to start after minJD and end before maxJD
+		FlexibleDateParser dateParser = new FlexibleDateParser();
+		if (filters.containsKey("minJD") && !filters.get("minJD").isEmpty()) {
+			Long minJD = dateParser.inputToJd(filters.get("minJD"), "G", false);
+			if (minJD != null && minJD > Long.MIN_VALUE) query.addFilterQuery(this.minJD + ":[" + minJD + " TO *]");
+		}
+		if (filters.containsKey("maxJD") && !filters.get("maxJD").isEmpty()) {
+			Long maxJD = dateParser.inputToJd(filters.get("maxJD"), "G", true);
+			if (maxJD != null && maxJD < Long.MAX_VALUE) query.addFilterQuery(this.maxJD + ":[* TO " + maxJD + "]");
+		}
+
+		// geo filter: at least one location of entity within shape
+		if (filters.containsKey("geo") && !filters.get("geo").isEmpty())
+			query.addFilterQuery("{!field f=" + this.location + "}Intersects(" + filters.get("geo") + ")");
+
+		// define query
+		Query queryTerm = null;
+		if (searchTerm != null)
+			queryTerm = parser.parse(searchTerm);
+		if (queryTerm == null) queryTerm = new MatchAllDocsQuery(); // fallback to match all documents
+		query.setQuery(queryTerm.toString());
+
+		return query;
+	}
+
+	/**
+	 * @param response query response
+	 * @param field facet field
+	 * @return value -> count, sorted by count descending
+	 */
+	private Map<String, Integer> getFacetCounts(QueryResponse response, String field) {
+		Map<String, Integer> values = new LinkedHashMap<>();
+
+		FacetField facetField = response.getFacetField(field);
+		if (facetField != null && facetField.getValues() != null)
+			for (FacetField.Count count : facetField.getValues())
+				values.put(count.getName(), (int) count.getCount());
+
+		return values;
 	}
 
 	/**
@@ -327,7 +580,7 @@ public class SolrSearchEngine implements SearchEngine {
 		}
 
 		// color
-		Object colorLocal = doc.get("color");
+		Object colorLocal = doc.get(this.color);
 		if (colorLocal != null && !(colorLocal instanceof String)) colorLocal = colorLocal.toString();
 		searchHit.setColor(colorLocal!=null?new Integer((String)colorLocal):null);
 
@@ -404,8 +657,7 @@ public class SolrSearchEngine implements SearchEngine {
 	@Override
 	public void remove(String id) {
 		try {
-			solr.deleteById(id);
-			solr.commit();
+			getUpdateClient().deleteById(id, commitWithin > 0 ? commitWithin : -1);
 		} catch (Exception e) {
 			logger.error("Solr remove error.", e);
 		}
@@ -426,13 +678,57 @@ public class SolrSearchEngine implements SearchEngine {
 		return null;
 	}
 
+	@Override
+	public void flush() {
+		try {
+			// send buffered updates
+			if (updateClient != null) updateClient.blockUntilFinished();
+
+			// make updates visible now, if Solr does not commit them by itself
+			if (commitWithin <= 0) solr.commit(false, false, true);
+		} catch (Exception e) {
+			logger.error("Solr flush error.", e);
+		}
+	}
+
+	@Override
+	public void beginBatch() {
+		// updates are buffered by the update client anyway
+	}
+
+	@Override
+	public void endBatch() {
+		// send updates and make them visible - Solr persists them by itself
+		flush();
+	}
+
 	@Override
 	public void clearAllIndexes() {
 		try {
+			if (updateClient != null) updateClient.blockUntilFinished();
 			solr.deleteByQuery("*:*");
 			solr.commit();
 		} catch (Exception e) {
 			logger.error("Solr clearAllIndexes error.", e);
 		}
 	}
+
+	@PreDestroy
+	public void destroy() {
+		logger.info("Shutting down Solr clients");
+
+		try {
+			// send buffered updates and commit them
+			if (updateClient != null) {
+				updateClient.blockUntilFinished();
+				updateClient.close();
+			}
+			if (solr != null) {
+				solr.commit();
+				solr.close();
+			}
+		} catch (Exception e) {
+			logger.warn("Error while shutting down Solr clients", e);
+		}
+	}
 }
@@ -6,6 +6,7 @@ import org.segrada.model.prototype.IComment;
 import org.segrada.model.prototype.SegradaAnnotatedEntity;
 import org.segrada.model.prototype.SegradaEntity;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexQueue;
 import org.segrada.service.base.AbstractFullTextService;
 import org.segrada.service.repository.CommentRepository;
 import org.segrada.service.repository.TagRepository;
@@ -36,8 +37,8 @@ public class CommentService extends AbstractFullTextService<IComment, CommentRep
 	 * Constructor
 	 */
 	@Inject
-	public CommentService(RepositoryFactory repositoryFactory, SearchEngine searchEngine) {
-		super(repositoryFactory, CommentRepository.class, searchEngine);
+	public CommentService(RepositoryFactory repositoryFactory, SearchEngine searchEngine, @Nullable SearchIndexQueue searchIndexQueue) {
+		super(repositoryFactory, CommentRepository.class, searchEngine, searchIndexQueue);
 	}
 
 	@Override
@@ -7,6 +7,7 @@ import org.segrada.model.prototype.SegradaAnnotatedEntity;
 import org.segrada.model.prototype.SegradaEntity;
 import org.segrada.rendering.markup.MarkupFilterFactory;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexQueue;
 import org.segrada.service.base.AbstractFullTextService;
 import org.segrada.service.base.BinaryDataHandler;
 import org.segrada.service.base.SearchTermService;
@@ -53,8 +54,8 @@ public class FileService extends AbstractFullTextService<IFile, FileRepository>
 	 * Constructor
 	 */
 	@Inject
-	public FileService(RepositoryFactory repositoryFactory, SearchEngine searchEngine, BinaryDataService binaryDataService) {
-		super(repositoryFactory, FileRepository.class, searchEngine);
+	public FileService(RepositoryFactory repositoryFactory, SearchEngine searchEngine, @Nullable SearchIndexQueue searchIndexQueue, BinaryDataService binaryDataService) {
+		super(repositoryFactory, FileRepository.class, searchEngine, searchIndexQueue);
 
 		this.binaryDataService = binaryDataService;
 	}
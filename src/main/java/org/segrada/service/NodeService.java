@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import org.segrada.model.Node;
 import org.segrada.model.prototype.INode;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexQueue;
 import org.segrada.service.base.AbstractFullTextService;
 import org.segrada.service.base.SearchTermService;
 import org.segrada.service.repository.NodeRepository;
@@ -38,8 +39,8 @@ public class NodeService extends AbstractFullTextService<INode, NodeRepository>
 	 * Constructor
 	 */
 	@Inject
-	public NodeService(RepositoryFactory repositoryFactory, SearchEngine searchEngine) {
-		super(repositoryFactory, NodeRepository.class, searchEngine);
+	public NodeService(RepositoryFactory repositoryFactory, SearchEngine searchEngine, @Nullable SearchIndexQueue searchIndexQueue) {
+		super(repositoryFactory, NodeRepository.class, searchEngine, searchIndexQueue);
 	}
 
 	@Override
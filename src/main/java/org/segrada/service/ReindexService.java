@@ -0,0 +1,387 @@
+package org.segrada.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Singleton;
+import com.google.inject.name.Names;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import org.segrada.config.ReindexWorkerModule;
+import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexDocument;
+import org.segrada.service.base.AbstractFullTextService;
+import org.segrada.session.ApplicationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Rebuilds the search index in the background: entities are split into chunks of ids which are loaded, converted
+ * and written in batches by a pool of workers, each working with its own database connection. If the search engine
+ * supports it, the new index is built next to the current one, which keeps answering searches until it is replaced.
+ */
+@Singleton
+public class ReindexService {
+	private static final Logger logger = LoggerFactory.getLogger(ReindexService.class);
+
+	/**
+	 * injector to create services for workers
+	 */
+	private final Injector injector;
+
+	/**
+	 * factory for worker database connections
+	 */
+	private final OrientGraphFactory orientGraphFactory;
+
+	/**
+	 * reference to search engine
+	 */
+	private final SearchEngine searchEngine;
+
+	/**
+	 * number of worker threads
+	 */
+	private final int threads;
+
+	/**
+	 * number of entities per chunk
+	 */
+	private final int chunkSize;
+
+	/**
+	 * database connection of the current worker thread, used by services of the worker injector
+	 */
+	private final ThreadLocal<ODatabaseDocumentTx> workerDatabase = new ThreadLocal<>();
+
+	/**
+	 * injector creating services for workers, child of the application injector - null if not running
+	 */
+	private volatile Injector workerInjector;
+
+	/**
+	 * runs the coordinator of the current reindexing
+	 */
+	private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "ReindexCoordinator");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * workers of the current reindexing, null if not running
+	 */
+	private volatile ExecutorService workers;
+
+	/**
+	 * true while reindexing is running
+	 */
+	private volatile boolean running = false;
+
+	/**
+	 * progress counters
+	 */
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong done = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+
+	/**
+	 * true if search engine builds a new index while the current one keeps serving searches
+	 */
+	private volatile boolean rebuilding = false;
+
+	/**
+	 * start and end time of last run
+	 */
+	private volatile long startedAt = 0L;
+	private volatile long finishedAt = 0L;
+
+	/**
+	 * Constructor
+	 */
+	@Inject
+	public ReindexService(Injector injector, OrientGraphFactory orientGraphFactory, ApplicationSettings settings, SearchEngine searchEngine) {
+		this.injector = injector;
+		this.orientGraphFactory = orientGraphFactory;
+		this.searchEngine = searchEngine;
+
+		int threads = settings.getSettingAsInteger("search.reindex.threads", 0);
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		int chunkSize = settings.getSettingAsInteger("search.reindex.chunkSize", 100);
+		this.chunkSize = chunkSize > 0 ? chunkSize : 100;
+	}
+
+	/**
+	 * start reindexing in the background - returns immediately
+	 * @param fullTextServiceMap services to reindex (taken from the current request)
+	 * @return false if reindexing is running already
+	 */
+	public boolean start(Map<String, AbstractFullTextService> fullTextServiceMap) {
+		synchronized (this) {
+			if (running) return false;
+			running = true;
+		}
+
+		try {
+			// how many entities do we have in total?
+			long count = 0;
+			for (AbstractFullTextService service : fullTextServiceMap.values()) {
+				count += service.count();
+			}
+			total.set(count);
+			done.set(0);
+			errors.set(0);
+			startedAt = System.currentTimeMillis();
+			finishedAt = 0L;
+
+			if (logger.isInfoEnabled())
+				logger.info("Reindexing started, entities: " + count + ", threads: " + threads);
+
+			// build new index in the background or clear the current one, if not supported
+			rebuilding = searchEngine.startRebuild();
+			if (!rebuilding) searchEngine.clearAllIndexes();
+		} catch (RuntimeException e) {
+			running = false;
+			throw e;
+		}
+
+		// service classes to be instantiated for each worker
+		final Class[] serviceClasses = fullTextServiceMap.values().stream().map(Object::getClass).toArray(Class[]::new);
+
+		try {
+			coordinator.execute(() -> work(serviceClasses));
+		} catch (RejectedExecutionException e) { // shut down already
+			if (rebuilding) searchEngine.cancelRebuild();
+			rebuilding = false;
+			running = false;
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * stop reindexing and wait for it to end - called on application shutdown before the search engine is closed
+	 */
+	public void shutdown() {
+		// coordinator did not start yet: drop rebuilt index
+		if (!coordinator.shutdownNow().isEmpty()) {
+			if (rebuilding) searchEngine.cancelRebuild();
+			rebuilding = false;
+			running = false;
+		}
+		ExecutorService workers = this.workers;
+		if (workers != null) workers.shutdownNow();
+
+		try {
+			if (!coordinator.awaitTermination(30, TimeUnit.SECONDS))
+				logger.warn("Reindexing did not stop in time.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return true while reindexing
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * @return number of entities to reindex
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+	/**
+	 * @return number of entities reindexed so far
+	 */
+	public long getDone() {
+		return done.get();
+	}
+
+	/**
+	 * @return number of entities that could not be indexed
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * @return milliseconds elapsed since start (until end, if finished)
+	 */
+	public long getElapsed() {
+		if (startedAt == 0L) return 0L;
+		return (finishedAt > 0L ? finishedAt : System.currentTimeMillis()) - startedAt;
+	}
+
+	/**
+	 * @return entities per second
+	 */
+	public double getRate() {
+		long elapsed = getElapsed();
+		if (elapsed <= 0L) return 0d;
+		return done.get() * 1000d / elapsed;
+	}
+
+	/**
+	 * @return estimated milliseconds until finished, -1 if unknown
+	 */
+	public long getEta() {
+		if (!running) return 0L;
+		double rate = getRate();
+		if (rate <= 0d) return -1L;
+		return (long) (Math.max(0L, total.get() - done.get()) * 1000d / rate);
+	}
+
+	/**
+	 * coordinator: split entities into chunks and let the workers index them
+	 * @param serviceClasses services to reindex
+	 */
+	private void work(Class[] serviceClasses) {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "ReindexWorker-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		workers = executor;
+
+		boolean success = false;
+		ODatabaseDocumentTx db = null;
+		try {
+			// created once for all workers, services are bound to the database connection of the calling thread
+			workerInjector = injector.createChildInjector(new ReindexWorkerModule(workerDatabase::get));
+
+			db = orientGraphFactory.getDatabase();
+			workerDatabase.set(db);
+
+			for (Class serviceClass : serviceClasses) {
+				AbstractFullTextService service = createService(serviceClass);
+
+				// get first id of each chunk - cheap, entities are not loaded here
+				String lastUid = null;
+				while (true) {
+					if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Reindexing stopped");
+
+					db.activateOnCurrentThread();
+					List<String> uids = service.findNextUidsFrom(lastUid, chunkSize);
+					if (uids.isEmpty()) break;
+
+					final String fromUid = lastUid;
+					final int size = uids.size();
+					executor.execute(() -> indexChunk(serviceClass, fromUid, size));
+
+					if (uids.size() < chunkSize) break;
+					lastUid = uids.get(uids.size() - 1);
+				}
+			}
+
+			// wait for workers
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+			// rebuilt index misses the entities of failed chunks
+			success = errors.get() == 0;
+			if (!success)
+				logger.error("Reindexing failed for " + errors.get() + " entities" + (rebuilding ? " - keeping current index." : "."));
+		} catch (Exception e) {
+			logger.error("Error while reindexing", e);
+			executor.shutdownNow();
+
+			// let running chunks end before the rebuilt index is dropped
+			boolean interrupted = Thread.interrupted();
+			try {
+				executor.awaitTermination(30, TimeUnit.SECONDS);
+			} catch (InterruptedException ie) {
+				interrupted = true;
+			}
+			if (interrupted) Thread.currentThread().interrupt();
+		} finally {
+			workerDatabase.remove();
+			if (db != null) {
+				db.activateOnCurrentThread();
+				db.close();
+			}
+
+			// switch to rebuilt index - keep the current one if reindexing failed or was incomplete
+			if (rebuilding) {
+				if (success) searchEngine.finishRebuild();
+				else searchEngine.cancelRebuild();
+				rebuilding = false;
+			} else searchEngine.flush();
+
+			workers = null;
+			workerInjector = null;
+			finishedAt = System.currentTimeMillis();
+			running = false;
+
+			if (logger.isInfoEnabled())
+				logger.info("Reindexing finished: " + done.get() + "/" + total.get() + " entities, " + errors.get() + " errors, " + getElapsed() + "ms");
+		}
+	}
+
+	/**
+	 * worker: index single chunk
+	 * @param serviceClass service to use
+	 * @param fromUid uid to start after, null for first entity
+	 * @param size number of entities in chunk
+	 */
+	@SuppressWarnings("unchecked")
+	private void indexChunk(Class serviceClass, String fromUid, int size) {
+		List<SearchIndexDocument> documents = null;
+		ODatabaseDocumentTx db = null;
+		try {
+			db = orientGraphFactory.getDatabase();
+			workerDatabase.set(db);
+			AbstractFullTextService service = createService(serviceClass);
+
+			documents = service.prepareSearchIndexDocuments(fromUid, chunkSize);
+			if (documents.isEmpty()) return;
+
+			if (searchEngine.indexAll(documents)) done.addAndGet(documents.size());
+			else errors.addAndGet(documents.size());
+		} catch (Exception e) {
+			logger.error("Error while reindexing chunk of " + serviceClass.getSimpleName() + " after " + fromUid, e);
+			// documents prepared for indexing or entities of chunk, if preparing failed
+			errors.addAndGet(documents != null ? documents.size() : size);
+		} finally {
+			workerDatabase.remove();
+			if (db != null) db.close();
+		}
+	}
+
+	/**
+	 * create service instance working on the database connection of the current thread
+	 * @param serviceClass service to create
+	 * @return service instance
+	 */
+	private AbstractFullTextService createService(Class<? extends AbstractFullTextService> serviceClass) {
+		return workerInjector.getInstance(Key.get(serviceClass, Names.named(ReindexWorkerModule.WORKER)));
+	}
+}
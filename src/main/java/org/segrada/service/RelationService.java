@@ -6,6 +6,7 @@ import org.segrada.model.prototype.INode;
 import org.segrada.model.prototype.IRelation;
 import org.segrada.model.prototype.IRelationType;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexQueue;
 import org.segrada.service.base.AbstractFullTextService;
 import org.segrada.service.repository.RelationRepository;
 import org.segrada.service.repository.TagRepository;
@@ -39,8 +40,8 @@ public class RelationService extends AbstractFullTextService<IRelation, Relation
 	 * Constructor
 	 */
 	@Inject
-	public RelationService(RepositoryFactory repositoryFactory, SearchEngine searchEngine) {
-		super(repositoryFactory, RelationRepository.class, searchEngine);
+	public RelationService(RepositoryFactory repositoryFactory, SearchEngine searchEngine, @Nullable SearchIndexQueue searchIndexQueue) {
+		super(repositoryFactory, RelationRepository.class, searchEngine, searchIndexQueue);
 	}
 
 	@Override
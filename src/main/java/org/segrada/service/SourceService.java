@@ -4,6 +4,7 @@ import com.google.inject.Inject;
 import org.segrada.model.Source;
 import org.segrada.model.prototype.ISource;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexQueue;
 import org.segrada.service.base.AbstractFullTextService;
 import org.segrada.service.base.SearchTermService;
 import org.segrada.service.repository.SourceRepository;
@@ -38,8 +39,8 @@ public class SourceService extends AbstractFullTextService<ISource, SourceReposi
 	 * Constructor
 	 */
 	@Inject
-	public SourceService(RepositoryFactory repositoryFactory, SearchEngine searchEngine) {
-		super(repositoryFactory, SourceRepository.class, searchEngine);
+	public SourceService(RepositoryFactory repositoryFactory, SearchEngine searchEngine, @Nullable SearchIndexQueue searchIndexQueue) {
+		super(repositoryFactory, SourceRepository.class, searchEngine, searchIndexQueue);
 	}
 
 	@Override
@@ -73,10 +74,13 @@ public class SourceService extends AbstractFullTextService<ISource, SourceReposi
 	protected SearchIndexEntity prepareIndexEntity(ISource entity) {
 		SearchIndexEntity idxEntity = new SearchIndexEntity(entity.getUid());
 		idxEntity.title = entity.getShortTitle();
-		String subTitles = entity.getCitation();
-		if (subTitles == null || subTitles.isEmpty()) subTitles = entity.getTitle();
-		if (subTitles == null || subTitles.isEmpty()) subTitles = entity.getAuthor();
-		idxEntity.subTitles = subTitles;
+		// long title and short reference are searched like titles
+		StringBuilder subTitles = new StringBuilder();
+		appendLine(subTitles, entity.getShortRef());
+		appendLine(subTitles, entity.getLongTitle());
+		String citation = entity.getCitation();
+		appendLine(subTitles, citation == null || citation.isEmpty() ? entity.getAuthor() : citation);
+		idxEntity.subTitles = subTitles.toString();
 		idxEntity.content = entity.getDescription();
 		idxEntity.contentMarkup = entity.getDescriptionMarkup();
 		idxEntity.weight = 1f;
@@ -92,6 +96,17 @@ public class SourceService extends AbstractFullTextService<ISource, SourceReposi
 		return idxEntity;
 	}
 
+	/**
+	 * append line to string builder, if not empty
+	 * @param sb string builder
+	 * @param line to append
+	 */
+	private static void appendLine(StringBuilder sb, @Nullable String line) {
+		if (line == null || line.isEmpty()) return;
+		if (sb.length() > 0) sb.append('\n');
+		sb.append(line);
+	}
+
 	/**
 	 * Find entities by title
 	 * @param ref reference title
@@ -0,0 +1,226 @@
+package org.segrada.service;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.tinkerpop.blueprints.impls.orient.OrientGraphFactory;
+import org.segrada.model.base.AbstractSegradaEntity;
+import org.segrada.model.prototype.*;
+import org.segrada.search.Suggestion;
+import org.segrada.search.lucene.LuceneSuggester;
+import org.segrada.session.Identity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Type-ahead suggestions of node titles and alternative titles, source titles and short references, file titles and
+ * names and tag titles. Suggestions are kept in memory: they are loaded once in the background and updated whenever
+ * entities are saved or deleted, so suggesting never touches the database.
+ */
+@Singleton
+public class SuggestService {
+	private static final Logger logger = LoggerFactory.getLogger(SuggestService.class);
+
+	/**
+	 * suggested classes and roles needed to see them
+	 */
+	private static final Map<String, String> CLASS_ROLES = new LinkedHashMap<>();
+	static {
+		CLASS_ROLES.put("Node", "NODE");
+		CLASS_ROLES.put("Source", "SOURCE");
+		CLASS_ROLES.put("File", "FILE");
+		CLASS_ROLES.put("Tag", "TAG");
+	}
+
+	/**
+	 * factory for database connection used for loading suggestions
+	 */
+	private final OrientGraphFactory orientGraphFactory;
+
+	private final LuceneSuggester suggester = new LuceneSuggester();
+
+	/**
+	 * state of initial load
+	 */
+	private volatile boolean loading = false;
+	private volatile boolean loaded = false;
+
+	/**
+	 * Constructor
+	 */
+	@Inject
+	public SuggestService(OrientGraphFactory orientGraphFactory) {
+		this.orientGraphFactory = orientGraphFactory;
+	}
+
+	/**
+	 * get suggestions for term - the first call starts loading suggestions in the background
+	 * @param term typed so far
+	 * @param classNames classes to suggest, null for all
+	 * @param identity user, suggestions are restricted to classes the user has access to - null for no restriction
+	 * @param limit maximum number of suggestions
+	 * @return suggestions or null, if suggestions have not been loaded yet
+	 */
+	public @Nullable List<Suggestion> suggest(String term, @Nullable Collection<String> classNames, @Nullable Identity identity, int limit) {
+		if (!loaded) {
+			load();
+			return null;
+		}
+
+		Collection<String> classes = classNames == null ? CLASS_ROLES.keySet() : classNames;
+		if (identity != null)
+			classes = classes.stream().filter(c -> CLASS_ROLES.containsKey(c) && identity.hasAccess(CLASS_ROLES.get(c)))
+					.collect(Collectors.toList());
+
+		try {
+			return suggester.suggest(term, classes, limit);
+		} catch (Exception e) {
+			logger.error("Could not get suggestions for " + term, e);
+			return null;
+		}
+	}
+
+	/**
+	 * add or replace suggestions of entity - other entities are ignored
+	 * @param entity saved entity
+	 */
+	public void update(@Nullable SegradaEntity entity) {
+		if (entity == null || entity.getUid() == null || entity.getUid().isEmpty()) return;
+
+		try {
+			if (entity instanceof INode) {
+				INode node = (INode) entity;
+				suggester.update(entity.getUid(), "Node", node.getTitle(), Arrays.asList(node.getTitle(), node.getAlternativeTitles()));
+			} else if (entity instanceof ISource) {
+				ISource source = (ISource) entity;
+				suggester.update(entity.getUid(), "Source", getSourceTitle(source.getLongTitle(), source.getShortTitle()),
+						Arrays.asList(source.getShortTitle(), source.getShortRef(), source.getLongTitle()));
+			} else if (entity instanceof IFile) {
+				IFile file = (IFile) entity;
+				suggester.update(entity.getUid(), "File", file.getTitle() == null ? file.getFilename() : file.getTitle(),
+						Arrays.asList(file.getTitle(), file.getFilename()));
+			} else if (entity instanceof ITag) {
+				ITag tag = (ITag) entity;
+				suggester.update(entity.getUid(), "Tag", tag.getTitle(), Collections.singletonList(tag.getTitle()));
+			}
+		} catch (Exception e) {
+			logger.warn("Could not update suggestions of " + entity.getUid(), e);
+		}
+	}
+
+	/**
+	 * remove suggestions of entity
+	 * @param uid of entity
+	 */
+	public void remove(@Nullable String uid) {
+		if (uid == null) return;
+
+		try {
+			suggester.remove(uid);
+		} catch (Exception e) {
+			logger.warn("Could not remove suggestions of " + uid, e);
+		}
+	}
+
+	/**
+	 * @return true if suggestions have been loaded
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * start loading suggestions in the background, if not loaded yet
+	 */
+	public void load() {
+		synchronized (this) {
+			if (loaded || loading) return;
+			loading = true;
+		}
+
+		Thread thread = new Thread(this::loadAll, "SuggestLoader");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * load suggestions of all suggested classes - reads plain documents, entities are not created
+	 */
+	private void loadAll() {
+		long start = System.currentTimeMillis();
+		ODatabaseDocumentTx db = null;
+		try {
+			db = orientGraphFactory.getDatabase();
+
+			for (String className : CLASS_ROLES.keySet()) {
+				for (ODocument document : db.browseClass(className)) {
+					String uid = AbstractSegradaEntity.convertOrientIdToUid(document.getIdentity().toString());
+					if (uid == null) continue;
+
+					switch (className) {
+						case "Node":
+							suggester.update(uid, className, document.field("title"),
+									Arrays.asList(document.field("title"), document.field("alternativeTitles")));
+							break;
+						case "Source":
+							suggester.update(uid, className, getSourceTitle(document.field("longTitle"), document.field("shortTitle")),
+									Arrays.asList(document.field("shortTitle"), document.field("shortRef"), document.field("longTitle")));
+							break;
+						case "File":
+							String title = document.field("title");
+							suggester.update(uid, className, title == null ? document.field("filename") : title,
+									Arrays.asList(title, document.field("filename")));
+							break;
+						default:
+							suggester.update(uid, className, document.field("title"), Collections.singletonList(document.field("title")));
+					}
+				}
+			}
+
+			loaded = true;
+			if (logger.isInfoEnabled())
+				logger.info("Loaded " + suggester.size() + " suggestions in " + (System.currentTimeMillis() - start) + "ms");
+		} catch (Exception e) {
+			logger.error("Could not load suggestions", e);
+		} finally {
+			if (db != null) db.close();
+			loading = false;
+		}
+	}
+
+	/**
+	 * @return title of source to display - long title, if set (like Source.getTitle)
+	 */
+	private static String getSourceTitle(@Nullable String longTitle, String shortTitle) {
+		return longTitle == null || longTitle.isEmpty() ? shortTitle : longTitle;
+	}
+
+	@PreDestroy
+	public void destroy() {
+		try {
+			suggester.close();
+		} catch (Exception e) {
+			logger.warn("Could not close suggester", e);
+		}
+	}
+}
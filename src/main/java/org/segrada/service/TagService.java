@@ -33,6 +33,11 @@ import java.util.Map;
  * Tag service
  */
 public class TagService extends AbstractRepositoryService<ITag, TagRepository> implements SearchTermService<ITag>, PaginatingRepositoryOrService<ITag> {
+	/**
+	 * type-ahead suggestions - optional
+	 */
+	private SuggestService suggestService;
+
 	/**
 	 * Constructor
 	 */
@@ -41,6 +46,29 @@ public class TagService extends AbstractRepositoryService<ITag, TagRepository> i
 		super(repositoryFactory, TagRepository.class);
 	}
 
+	/**
+	 * @param suggestService type-ahead suggestions to keep up to date
+	 */
+	@Inject
+	public void setSuggestService(SuggestService suggestService) {
+		this.suggestService = suggestService;
+	}
+
+	@Override
+	public boolean save(ITag entity) {
+		if (super.save(entity)) {
+			if (suggestService != null) suggestService.update(entity);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean delete(ITag entity) {
+		if (suggestService != null && entity != null) suggestService.remove(entity.getUid());
+		return super.delete(entity);
+	}
+
 	@Override
 	public ITag createNewInstance() {
 		return new Tag();
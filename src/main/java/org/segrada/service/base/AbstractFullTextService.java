@@ -1,15 +1,22 @@
 package org.segrada.service.base;
 
+import com.google.inject.Inject;
+import org.segrada.model.prototype.ILocation;
+import org.segrada.model.prototype.SegradaCoreEntity;
 import org.segrada.model.prototype.SegradaEntity;
 import org.segrada.rendering.markup.MarkupFilter;
 import org.segrada.rendering.markup.MarkupFilterFactory;
 import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexDocument;
+import org.segrada.search.SearchIndexQueue;
+import org.segrada.service.SuggestService;
 import org.segrada.service.repository.factory.RepositoryFactory;
 import org.segrada.service.repository.prototype.CRUDRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,11 +45,37 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 	private final SearchEngine searchEngine;
 
 	/**
-	 * Constructor
+	 * reference to background index queue - if null, index is written synchronously
+	 */
+	private final SearchIndexQueue searchIndexQueue;
+
+	/**
+	 * type-ahead suggestions - optional
+	 */
+	private SuggestService suggestService;
+
+	/**
+	 * Constructor - writes search index synchronously
 	 */
 	public AbstractFullTextService(RepositoryFactory repositoryFactory, Class clazz, SearchEngine searchEngine) {
+		this(repositoryFactory, clazz, searchEngine, null);
+	}
+
+	/**
+	 * Constructor
+	 */
+	public AbstractFullTextService(RepositoryFactory repositoryFactory, Class clazz, SearchEngine searchEngine, @Nullable SearchIndexQueue searchIndexQueue) {
 		super(repositoryFactory, clazz);
 		this.searchEngine = searchEngine;
+		this.searchIndexQueue = searchIndexQueue;
+	}
+
+	/**
+	 * @param suggestService type-ahead suggestions to keep up to date
+	 */
+	@Inject
+	public void setSuggestService(SuggestService suggestService) {
+		this.suggestService = suggestService;
 	}
 
 	@Override
@@ -77,6 +110,10 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 
 			list = findNextEntriesFrom(lastUid, 100);
 		}
+
+		// wait for queued entities to be written
+		if (searchIndexQueue != null)
+			searchIndexQueue.flush();
 	}
 
 	/**
@@ -84,9 +121,12 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 	 * @param entity to index
 	 */
 	protected void indexEntity(T entity) {
-		SearchIndexEntity searchIndexEntity = prepareIndexEntity(entity);
+		SearchIndexEntity searchIndexEntity = prepareIndexEntityWithCore(entity);
 		if (searchIndexEntity != null)
 			saveToSearchIndex(searchIndexEntity);
+
+		if (suggestService != null)
+			suggestService.update(entity);
 	}
 
 	/**
@@ -96,6 +136,31 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 	 */
 	abstract protected @Nullable SearchIndexEntity prepareIndexEntity(T entity);
 
+	/**
+	 * prepare entity for indexing and add temporal extent and locations of core entities
+	 * @param entity to be indexed
+	 * @return SearchIndexEntity or null
+	 */
+	protected @Nullable SearchIndexEntity prepareIndexEntityWithCore(T entity) {
+		SearchIndexEntity searchIndexEntity = prepareIndexEntity(entity);
+
+		if (searchIndexEntity != null && entity instanceof SegradaCoreEntity) {
+			SegradaCoreEntity coreEntity = (SegradaCoreEntity) entity;
+			if (searchIndexEntity.minJD == null) searchIndexEntity.minJD = coreEntity.getMinJD();
+			if (searchIndexEntity.maxJD == null) searchIndexEntity.maxJD = coreEntity.getMaxJD();
+
+			if (searchIndexEntity.locations == null && coreEntity.getLocations() != null) {
+				List<double[]> locations = new ArrayList<>();
+				for (ILocation location : coreEntity.getLocations())
+					if (location.getLatitude() != null && location.getLongitude() != null)
+						locations.add(new double[]{location.getLatitude(), location.getLongitude()});
+				searchIndexEntity.locations = locations;
+			}
+		}
+
+		return searchIndexEntity;
+	}
+
 	/**
 	 * commit converted entity (prepareEntityForSearch) to search index - called by save method
 	 * @param entity prepared entity for search engine
@@ -104,7 +169,7 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 		// sanity check
 		if (entity == null || entity.id == null) return;
 
-		// get correct markup filter
+		// get correct markup filter - has to be created within the request, because filters may depend on it
 		MarkupFilter markupFilter;
 		try {
 			markupFilter = MarkupFilterFactory.produce(entity.contentMarkup);
@@ -113,23 +178,81 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 			return;
 		}
 
-		String modelClass = getModelClass().getSimpleName().substring(1);  // clip off the I of the interface
-
-		// to index
-		if (!searchEngine.index(
-				entity.id,
-				modelClass,
-				entity.title,
-				entity.subTitles,
-				markupFilter.toPlain(entity.content), // convert content to plain, searchable text
-				entity.tagIds,
-				entity.color,
-				entity.iconFileIdentifier,
-				entity.weight
-		))
-			logger.error("Could not write entity to search index: " + modelClass + "/" + entity.id);
-		else if (logger.isInfoEnabled())
-			logger.info("Indexed entity to search index: " + modelClass + "/" + entity.id);
+		String modelClass = getIndexClassName();
+
+		writeToSearchIndex(entity.id, () -> {
+			// to index
+			if (!searchEngine.index(createSearchIndexDocument(entity, modelClass, markupFilter))) {
+				logger.error("Could not write entity to search index: " + modelClass + "/" + entity.id);
+				return false;
+			}
+
+			if (logger.isInfoEnabled())
+				logger.info("Indexed entity to search index: " + modelClass + "/" + entity.id);
+			return true;
+		});
+	}
+
+	/**
+	 * load next entities starting from uid and convert them to search index documents - used by bulk reindexing
+	 * @param uid to start with or null for first entry
+	 * @param number maximum number of entities
+	 * @return list of documents, empty if no entities are left
+	 */
+	public List<SearchIndexDocument> prepareSearchIndexDocuments(@Nullable String uid, int number) {
+		List<T> list = findNextEntriesFrom(uid, number);
+		if (list == null) return new ArrayList<>(0);
+
+		String modelClass = getIndexClassName();
+
+		List<SearchIndexDocument> documents = new ArrayList<>(list.size());
+		for (T entity : list) {
+			try {
+				SearchIndexEntity searchIndexEntity = prepareIndexEntityWithCore(entity);
+				if (searchIndexEntity == null || searchIndexEntity.id == null) continue;
+
+				documents.add(createSearchIndexDocument(searchIndexEntity, modelClass,
+						MarkupFilterFactory.produce(searchIndexEntity.contentMarkup)));
+
+				if (suggestService != null)
+					suggestService.update(entity);
+			} catch (Exception e) {
+				logger.warn("Could not prepare entity for search index: " + modelClass + "/" + entity.getUid(), e);
+			}
+		}
+
+		return documents;
+	}
+
+	/**
+	 * convert prepared entity to document for search engine
+	 * @param entity prepared entity
+	 * @param modelClass class name used in search index
+	 * @param markupFilter filter converting content to plain, searchable text
+	 * @return document to index
+	 */
+	protected SearchIndexDocument createSearchIndexDocument(SearchIndexEntity entity, String modelClass, MarkupFilter markupFilter) {
+		SearchIndexDocument document = new SearchIndexDocument(entity.id);
+		document.setClassName(modelClass);
+		document.setTitle(entity.title);
+		document.setSubTitles(entity.subTitles);
+		document.setContent(markupFilter.toPlain(entity.content));
+		document.setTagIds(entity.tagIds);
+		document.setColor(entity.color);
+		document.setIconFileIdentifier(entity.iconFileIdentifier);
+		document.setWeight(entity.weight);
+		document.setMinJD(entity.minJD);
+		document.setMaxJD(entity.maxJD);
+		document.setLocations(entity.locations);
+
+		return document;
+	}
+
+	/**
+	 * @return class name used in search index
+	 */
+	protected String getIndexClassName() {
+		return getModelClass().getSimpleName().substring(1);  // clip off the I of the interface
 	}
 
 	/**
@@ -138,12 +261,32 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 	 */
 	protected void removeFromSearchIndex(@Nullable T entity) {
 		if (entity != null) {
-			searchEngine.remove(entity.getUid());
-			if (logger.isInfoEnabled())
-				logger.info("Removed entity from search index: " + entity.toString());
+			String entityDescription = entity.toString();
+
+			if (suggestService != null)
+				suggestService.remove(entity.getUid());
+
+			writeToSearchIndex(entity.getUid(), () -> {
+				searchEngine.remove(entity.getUid());
+				if (logger.isInfoEnabled())
+					logger.info("Removed entity from search index: " + entityDescription);
+				return true;
+			});
 		}
 	}
 
+	/**
+	 * write to search index using the index queue, if set
+	 * @param id of document
+	 * @param job writing to the search engine
+	 */
+	private void writeToSearchIndex(String id, SearchIndexQueue.Job job) {
+		if (searchIndexQueue != null)
+			searchIndexQueue.enqueue(id, job);
+		else
+			job.run();
+	}
+
 	/**
 	 * Helper class for search index saving
 	 */
@@ -166,6 +309,18 @@ abstract public class AbstractFullTextService<T extends SegradaEntity, E extends
 
 		public float weight;
 
+		/**
+		 * temporal extent as julian days
+		 */
+		public Long minJD;
+
+		public Long maxJD;
+
+		/**
+		 * locations as latitude/longitude pairs
+		 */
+		public List<double[]> locations;
+
 		public SearchIndexEntity(String id) {
 			this.id = id;
 		}
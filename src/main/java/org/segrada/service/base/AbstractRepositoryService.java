@@ -68,6 +68,11 @@ public abstract class AbstractRepositoryService<T extends SegradaEntity, E exten
 		return repository.findNextEntriesFrom(uid, number);
 	}
 
+	@Override
+	public List<String> findNextUidsFrom(String uid, int number) {
+		return repository.findNextUidsFrom(uid, number);
+	}
+
 	@Override
 	public long count() {
 		return repository.count();
@@ -44,6 +44,8 @@ public interface SegradaService<T extends SegradaEntity> {
 
 	List<T> findNextEntriesFrom(String uid, int number);
 
+	List<String> findNextUidsFrom(String uid, int number);
+
 	long count();
 
 	/**
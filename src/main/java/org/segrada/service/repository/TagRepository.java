@@ -109,6 +109,13 @@ public interface TagRepository extends CRUDRepository<ITag>, SearchTermRepositor
 	 */
 	void connectTag(ITag parent, SegradaTaggable child);
 
+	/**
+	 * Connect entity to exactly the tags given, creating new tags and removing connections not listed
+	 * @param entity node to set tags of
+	 * @param titles tag titles, null or empty to remove all tags
+	 */
+	void setTags(SegradaTaggable entity, @Nullable String[] titles);
+
 	/**
 	 * Remove existing tag connection
 	 * @param tagId id of tag
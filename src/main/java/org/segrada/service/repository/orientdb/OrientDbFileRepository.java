@@ -4,13 +4,11 @@ import com.google.inject.Inject;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.queryparser.flexible.standard.QueryParserUtil;
-import org.apache.lucene.search.TermQuery;
 import org.segrada.model.File;
 import org.segrada.model.prototype.IFile;
 import org.segrada.model.prototype.SegradaAnnotatedEntity;
 import org.segrada.model.prototype.SegradaEntity;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.FileRepository;
 import org.segrada.service.repository.orientdb.base.AbstractAnnotatedOrientDbRepository;
 import org.segrada.service.repository.orientdb.base.AbstractOrientDbRepository;
@@ -244,22 +242,14 @@ public class OrientDbFileRepository extends AbstractAnnotatedOrientDbRepository<
 		// search for term
 		List<ODocument> result;
 		if (term != null && !term.isEmpty()) {
-			// create query term for lucene full text search
-			StringBuilder sb = new StringBuilder();
-			boolean first = true;
-			for (String termPart : term.toLowerCase().split("\\s+")) {
-				termPart = QueryParserUtil.escape(termPart);
-				TermQuery termQuery1 = new TermQuery(new Term("title", termPart + "*"));
-				TermQuery termQuery2 = new TermQuery(new Term("filename", termPart + "*"));
-				if (first) first = false;
-				else sb.append(" AND ");
-				sb.append('(').append(termQuery1.toString()).append(" OR ")
-						.append(termQuery2.toString()).append(')');
+			SearchEngine searchEngine = repositoryFactory.getFullTextSearchEngine();
+			if (searchEngine != null) // resolve ids by search engine and load documents in one query
+				result = loadDocuments(findIdsBySearchEngine(searchEngine, getModelClassName(), term, repositoryFactory.getFullTextMaxHits()), maximum);
+			else {
+				// execute query
+				OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from File where " + createSearchTermFullText(term) + " LIMIT " + maximum);
+				result = db.command(query).execute();
 			}
-
-			// execute query
-			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from File where " + createSearchTermFullText(term) + " LIMIT " + maximum);
-			result = db.command(query).execute();
 		} else { // no term, just find top X entries
 			// execute query
 			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from File " + getDefaultOrder(true) + " LIMIT " + maximum);
@@ -283,7 +273,10 @@ public class OrientDbFileRepository extends AbstractAnnotatedOrientDbRepository<
 		List<String> constraints = new ArrayList<>();
 		// search term
 		if (filters.get("search") != null) {
-			constraints.add(createSearchTermFullText((String) filters.get("search")));
+			SearchEngine searchEngine = repositoryFactory.getFullTextSearchEngine();
+			String term = (String) filters.get("search");
+			constraints.add(searchEngine == null ? createSearchTermFullText(term)
+					: createRidConstraint(findIdsBySearchEngine(searchEngine, getModelClassName(), term, repositoryFactory.getFullTextMaxHits())));
 		}
 
 		// tags
@@ -301,7 +294,7 @@ public class OrientDbFileRepository extends AbstractAnnotatedOrientDbRepository<
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, customOrder);
+		return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
 	}
 
 	/**
@@ -310,21 +303,7 @@ public class OrientDbFileRepository extends AbstractAnnotatedOrientDbRepository<
 	 * @return search term part
 	 */
 	public static String createSearchTermFullText(String term) {
-		// create query term for lucene full text search
-		StringBuilder sb = new StringBuilder(" [title, filename] LUCENE '");
-		boolean first = true;
-		for (String termPart : term.toLowerCase().split("\\s+")) {
-			if (termPart.contains(":")) termPart = "\"" + termPart + "\"";
-			else termPart = QueryParserUtil.escape(termPart);
-			if (termPart.contains(".")) termPart = "\"" + termPart + "\"";
-			else if (!termPart.startsWith("\"") || !termPart.endsWith("\"")) termPart += "*";
-			if (first) first = false;
-			else sb.append(' ');
-			sb.append(termPart);
-		}
-		sb.append('\'');
-
-		return sb.toString();
+		return " [title, filename] LUCENE '" + createFullTextTerm(term) + "'";
 	}
 
 	@Override
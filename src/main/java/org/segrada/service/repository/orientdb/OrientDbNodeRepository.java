@@ -2,18 +2,19 @@ package org.segrada.service.repository.orientdb;
 
 import com.google.inject.Inject;
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.queryparser.flexible.standard.QueryParserUtil;
-import org.apache.lucene.search.TermQuery;
 import org.segrada.model.Node;
 import org.segrada.model.base.AbstractSegradaEntity;
 import org.segrada.model.prototype.INode;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.NodeRepository;
 import org.segrada.service.repository.RelationRepository;
 import org.segrada.service.repository.orientdb.base.AbstractCoreOrientDbRepository;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.segrada.service.util.PaginationInfo;
 import org.segrada.util.FlexibleDateParser;
 import org.segrada.util.OrientStringEscape;
@@ -118,6 +119,14 @@ public class OrientDbNodeRepository extends AbstractCoreOrientDbRepository<INode
 		return false;
 	}
 
+	@Override
+	protected void invalidateCachedEntity(ORID rid) {
+		super.invalidateCachedEntity(rid);
+
+		// relations contain titles of nodes
+		removeCachedEntities("Relation");
+	}
+
 	@Override
 	protected String getDefaultOrder(boolean addOrderBy) {
 		return (addOrderBy?" ORDER BY":"").concat(" titleasc");
@@ -140,20 +149,22 @@ public class OrientDbNodeRepository extends AbstractCoreOrientDbRepository<INode
 		// contain by tag ids - case
 		StringBuilder queryString;
 		if (tagIds != null && tagIds.length > 0) {
-			queryString = new StringBuilder("select * from ( traverse out('IsTagOf') from [");
-			boolean first = true;
+			// sub tags are known, so only entities tagged directly by them have to be traversed
+			OrientDbTagHierarchy tagHierarchy = repositoryFactory.getTagHierarchy();
+			Set<String> subTagIds = new LinkedHashSet<>();
 			for (String tagId : tagIds) {
 				// parse tag id - avoid sql injections
 				Matcher matcher = AbstractSegradaEntity.PATTERN_ORIENTID.matcher(tagId);
 				if (matcher.find()) {
-					if (first) first = false;
-					else queryString.append(",");
-					queryString.append(tagId);
+					subTagIds.add(tagId);
+					for (ORID subTagId : tagHierarchy.getDescendants(new ORecordId(tagId)))
+						subTagIds.add(subTagId.toString());
 				} else {
 					logger.warn("Could not parse to tagId: " + tagId);
 				}
 			}
-			queryString.append("]) where @class = 'Node'");
+			queryString = new StringBuilder("select * from ( traverse out('IsTagOf') from [")
+					.append(String.join(",", subTagIds)).append("] MAXDEPTH 1) where @class = 'Node'");
 
 			// with search term
 			if (term != null && !term.isEmpty()) {
@@ -166,8 +177,17 @@ public class OrientDbNodeRepository extends AbstractCoreOrientDbRepository<INode
 			queryString.append(" LIMIT ").append(maximum);
 		} else { // no tags, do search in normal way
 			String where;
-			if (term != null && !term.isEmpty()) where = "where " + createSearchTermFullText(term); // create search term
-			else where = getDefaultOrder(true); // no term, just find top X entries
+			if (term != null && !term.isEmpty()) {
+				// resolve ids by search engine and load documents in one query
+				SearchEngine searchEngine = repositoryFactory.getFullTextSearchEngine();
+				if (searchEngine != null) {
+					for (ODocument document : loadDocuments(findIdsBySearchEngine(searchEngine, getModelClassName(), term, repositoryFactory.getFullTextMaxHits()), maximum))
+						hits.add(convertToEntity(document));
+					return hits;
+				}
+
+				where = "where " + createSearchTermFullText(term); // create search term
+			} else where = getDefaultOrder(true); // no term, just find top X entries
 
 			// create query
 			queryString = new StringBuilder().append("select * from Node ").append(where).append(" LIMIT ").append(maximum);
@@ -194,7 +214,10 @@ public class OrientDbNodeRepository extends AbstractCoreOrientDbRepository<INode
 		List<String> constraints = new ArrayList<>();
 		// search term
 		if (filters.get("search") != null) {
-			constraints.add(createSearchTermFullText((String) filters.get("search")));
+			SearchEngine searchEngine = repositoryFactory.getFullTextSearchEngine();
+			String term = (String) filters.get("search");
+			constraints.add(searchEngine == null ? createSearchTermFullText(term)
+					: createRidConstraint(findIdsBySearchEngine(searchEngine, getModelClassName(), term, repositoryFactory.getFullTextMaxHits())));
 		}
 
 
@@ -230,7 +253,7 @@ public class OrientDbNodeRepository extends AbstractCoreOrientDbRepository<INode
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, customOrder);
+		return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
 	}
 
 	/**
@@ -239,20 +262,6 @@ public class OrientDbNodeRepository extends AbstractCoreOrientDbRepository<INode
 	 * @return search term part
 	 */
 	public static String createSearchTermFullText(String term) {
-		// create query term for lucene full text search
-		StringBuilder sb = new StringBuilder(" [title, alternativeTitles] LUCENE '");
-		boolean first = true;
-		for (String termPart : term.toLowerCase().split("\\s+")) {
-			if (termPart.contains(":")) termPart = "\"" + termPart + "\"";
-			else termPart = QueryParserUtil.escape(termPart);
-			if (termPart.contains(".")) termPart = "\"" + termPart + "\"";
-			else if (!termPart.startsWith("\"") || !termPart.endsWith("\"")) termPart += "*";
-			if (first) first = false;
-			else sb.append(' ');
-			sb.append(termPart);
-		}
-		sb.append('\'');
-
-		return sb.toString();
+		return " [title, alternativeTitles] LUCENE '" + createFullTextTerm(term) + "'";
 	}
 }
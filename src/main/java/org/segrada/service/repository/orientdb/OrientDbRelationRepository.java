@@ -2,6 +2,7 @@ package org.segrada.service.repository.orientdb;
 
 import com.google.inject.Inject;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
@@ -18,6 +19,7 @@ import org.segrada.service.repository.RelationRepository;
 import org.segrada.service.repository.RelationTypeRepository;
 import org.segrada.service.repository.orientdb.base.AbstractCoreOrientDbRepository;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
 import org.segrada.service.util.PaginationInfo;
 import org.segrada.util.FlexibleDateParser;
 import org.slf4j.Logger;
@@ -66,8 +68,89 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 	
 	@Override
 	public IRelation convertToEntity(ODocument document) {
+		return convertToEntity(document, new HashMap<>(), new HashMap<>());
+	}
+
+	/**
+	 * Convert relations, loading relation links, nodes and relation types of all relations with one query per kind
+	 * @param documents to be converted
+	 * @return converted relations, invalid relations are left out
+	 */
+	@Override
+	public List<IRelation> convertToEntities(List<ODocument> documents) {
+		if (documents.size() < 2) return super.convertToEntities(documents);
+
+		initDb();
+
+		// relations converted in this request already
+		OrientDbIdentityMap identityMap = repositoryFactory.getIdentityMap();
+		Map<ORID, IRelation> converted = new HashMap<>();
+		if (identityMap != null)
+			for (ODocument document : documents) {
+				IRelation relation = identityMap.get(document.getIdentity(), document.getVersion());
+				if (relation != null) converted.put(document.getIdentity(), relation);
+			}
+
+		// relation links and relation types
+		Map<ORID, ODocument> records = new HashMap<>();
+		Set<ORID> relationLinkIds = new HashSet<>();
+		Set<ORID> relationTypeIds = new HashSet<>();
+		for (ODocument document : documents) {
+			if (converted.containsKey(document.getIdentity())) continue;
+			ORID relationLinkId = getLinkId(document, "relationLink");
+			if (relationLinkId != null) relationLinkIds.add(relationLinkId);
+			ORID relationTypeId = getLinkId(document, "relationType");
+			if (relationTypeId != null) relationTypeIds.add(relationTypeId);
+		}
+		loadRecords(relationLinkIds, records);
+
+		// nodes of links
+		Set<ORID> nodeIds = new HashSet<>();
+		for (ORID relationLinkId : relationLinkIds) {
+			ODocument relationLink = records.get(relationLinkId);
+			if (relationLink == null) continue;
+			ORID out = getLinkId(relationLink, "out");
+			if (out != null) nodeIds.add(out);
+			ORID in = getLinkId(relationLink, "in");
+			if (in != null) nodeIds.add(in);
+		}
+		loadRecords(nodeIds, records);
+
+		// relation types are shared by many relations, so convert each one once
+		Map<ORID, IRelationType> relationTypes = new HashMap<>();
+		Map<ORID, ODocument> relationTypeDocuments = new HashMap<>();
+		loadRecords(relationTypeIds, relationTypeDocuments);
+		OrientDbRelationTypeRepository relationTypeRepository = repositoryFactory.produceRepository(OrientDbRelationTypeRepository.class);
+		if (relationTypeRepository != null) {
+			for (ODocument relationTypeDocument : relationTypeDocuments.values())
+				if (relationTypeRepository.getModelClassName().equals(relationTypeDocument.getClassName()))
+					relationTypes.put(relationTypeDocument.getIdentity(), relationTypeRepository.convertToCachedEntity(relationTypeDocument));
+		}
+
+		List<IRelation> list = new ArrayList<>(documents.size());
+		for (ODocument document : documents) {
+			IRelation relation = converted.get(document.getIdentity());
+			if (relation == null) {
+				relation = convertToEntity(document, records, relationTypes);
+				if (relation != null && identityMap != null && document.getIdentity().isPersistent())
+					identityMap.put(document.getIdentity(), document.getVersion(), relation);
+			}
+			if (relation != null) list.add(relation);
+		}
+
+		return list;
+	}
+
+	/**
+	 * convert relation using records loaded already
+	 * @param document of relation
+	 * @param records relation links and nodes by record id - records missing are loaded one by one
+	 * @param relationTypes converted relation types by record id - types missing are found and added
+	 * @return relation or null, if relation link is missing
+	 */
+	private @Nullable IRelation convertToEntity(ODocument document, Map<ORID, ODocument> records, Map<ORID, IRelationType> relationTypes) {
 		// load relation link
-		ODocument relationLink = getRelationLink(document, true);
+		ODocument relationLink = getRelationLink(document, true, records);
 		if (relationLink == null) {
 			// this is an invalid entry: delete if from database
 			document.delete(); // this is not elegant, but we can clean such entries on the fly by doing this
@@ -76,16 +159,19 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 
 		Relation relation = new Relation();
 		// get from/to - slim entities, just title and id
-		relation.setFromEntity(getRelatedEntity(relationLink, "out"));
-		relation.setToEntity(getRelatedEntity(relationLink, "in"));
+		relation.setFromEntity(getRelatedEntity(relationLink, "out", records));
+		relation.setToEntity(getRelatedEntity(relationLink, "in", records));
 
 		// set relation type
-		ORecordId relationType = document.field("relationType", ORecordId.class);
+		ORID relationType = getLinkId(document, "relationType");
 		if (relationType != null) {
-			RelationTypeRepository relationTypeRepository = repositoryFactory.produceRepository(OrientDbRelationTypeRepository.class);
-			if (relationTypeRepository != null)
-				relation.setRelationType(relationTypeRepository.find(relationType.getIdentity().toString()));
-			else logger.error("Could not produce RelationTypeRepository while converting relation.");
+			if (!relationTypes.containsKey(relationType)) {
+				RelationTypeRepository relationTypeRepository = repositoryFactory.produceRepository(OrientDbRelationTypeRepository.class);
+				if (relationTypeRepository != null)
+					relationTypes.put(relationType, relationTypeRepository.find(relationType.toString()));
+				else logger.error("Could not produce RelationTypeRepository while converting relation.");
+			}
+			relation.setRelationType(relationTypes.get(relationType));
 		}
 
 		// rest is easy
@@ -102,6 +188,18 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 		return relation;
 	}
 
+	/**
+	 * helper to get record id of link without loading the linked record
+	 * @param document containing link
+	 * @param field name of link field
+	 * @return record id or null
+	 */
+	private static @Nullable ORID getLinkId(ODocument document, String field) {
+		Object link = document.rawField(field);
+		if (link instanceof OIdentifiable) return ((OIdentifiable) link).getIdentity();
+		return null;
+	}
+
 	/**
 	 * helper to load relation link document
 	 * @param document of relation
@@ -109,15 +207,27 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 	 * @return relation link or null
 	 */
 	private @Nullable ODocument getRelationLink(ODocument document, boolean logError) {
-		Object relationLinkO = document.field("relationLink");
+		return getRelationLink(document, logError, Collections.emptyMap());
+	}
+
+	/**
+	 * helper to load relation link document
+	 * @param document of relation
+	 * @param logError log null error?
+	 * @param records records loaded already
+	 * @return relation link or null
+	 */
+	private @Nullable ODocument getRelationLink(ODocument document, boolean logError, Map<ORID, ODocument> records) {
+		Object relationLinkO = document.rawField("relationLink");
 		if (relationLinkO == null) {
 			if (logError)
 				logger.error("Could not create relationLink entity while converting relation.");
 			return null;
 		}
 		if (relationLinkO instanceof ODocument) return (ODocument) relationLinkO;
-		else if (relationLinkO instanceof ORecordId) {
-			ODocument doc = repositoryFactory.getDb().load((ORecordId) relationLinkO);
+		else if (relationLinkO instanceof ORID) {
+			ODocument doc = records.get(relationLinkO);
+			if (doc == null) doc = repositoryFactory.getDb().load((ORID) relationLinkO);
 			if (doc == null)
 				logger.error("Instance vanished from database: " + relationLinkO);
 			return doc;
@@ -131,40 +241,40 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 	 * helper to load nodes relation to document
 	 * @param document relationLink document/link
 	 * @param direction "in" or "out"
+	 * @param records records loaded already
 	 * @return INode instance or null
 	 */
-	private @Nullable INode getRelatedEntity(ODocument document, String direction) {
-		Object nodeO = document.field(direction, ORecordId.class);
-		if (nodeO == null) {
+	private @Nullable INode getRelatedEntity(ODocument document, String direction, Map<ORID, ODocument> records) {
+		ORID nodeId = getLinkId(document, direction);
+		if (nodeId == null) {
 			logger.error("Could not create related entity while converting relation with direction " + direction);
 			return null;
 		}
-		if (nodeO instanceof ORecordId) nodeO = repositoryFactory.getDb().load((ORecordId) nodeO);
-		if (nodeO == null) {
+		ODocument nodeDoc = records.get(nodeId);
+		if (nodeDoc == null) nodeDoc = repositoryFactory.getDb().load(nodeId);
+		if (nodeDoc == null) {
 			logger.error("Invalid record in direction " + direction + ": " + document.toString());
 			return null;
 		}
 
-		//convert
-		ODocument nodeDoc = (ODocument) nodeO;
-
 		// slim node: just set title and id
 		INode node = new Node();
 		node.setTitle(nodeDoc.field("title"));
 		node.setId(nodeDoc.getIdentity().toString());
 
 		return node;
+	}
 
-		/*
-		old -not performant
-		String id;
-		if (relationO instanceof OIdentifiable) id = ((ORecordId)relationO).getIdentity().toString();
-		else {
-			logger.error("Invalid class type: " + relationO.getClass().getName());
-			return null;
-		}
+	@Override
+	protected void reattachCachedEntity(ODocument document, IRelation entity) {
+		super.reattachCachedEntity(document, entity);
 
-		return nodeRepository.find(id);*/
+		// relation type contains proxies bound to the request having converted it
+		ORID relationType = getLinkId(document, "relationType");
+		if (relationType != null) {
+			RelationTypeRepository relationTypeRepository = repositoryFactory.produceRepository(OrientDbRelationTypeRepository.class);
+			if (relationTypeRepository != null) entity.setRelationType(relationTypeRepository.find(relationType.toString()));
+		}
 	}
 
 	@Override
@@ -212,8 +322,7 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 		List<ODocument> result = db.command(query).execute();
 
 		// populate set
-		for (ODocument document : result)
-			list.add(convertToEntity(document));
+		list.addAll(convertToEntities(result));
 
 		return list;
 	}
@@ -232,8 +341,7 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 		List<ODocument> result = db.command(query).execute();
 
 		// populate set
-		for (ODocument document : result)
-			list.add(convertToEntity(document));
+		list.addAll(convertToEntities(result));
 
 		return list;
 	}
@@ -291,6 +399,8 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 
 			// process after saving
 			processAfterSaving(updated, entity);
+			invalidateCounts(getModelClassName());
+			invalidateCachedEntity(updated.getIdentity());
 
 			if (logger.isInfoEnabled())
 				logger.info("Saved entity: " + entity.toString());
@@ -403,6 +513,6 @@ public class OrientDbRelationRepository extends AbstractCoreOrientDbRepository<I
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, customOrder);
+		return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
 	}
 }
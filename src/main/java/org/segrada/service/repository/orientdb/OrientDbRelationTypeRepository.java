@@ -256,7 +256,7 @@ public class OrientDbRelationTypeRepository extends AbstractColoredOrientDbRepos
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, customOrder);
+		return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
 	}
 
 	/**
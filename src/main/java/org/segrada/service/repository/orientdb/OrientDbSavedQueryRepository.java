@@ -96,6 +96,17 @@ public class OrientDbSavedQueryRepository extends AbstractSegradaOrientDbReposit
         return savedQuery;
     }
 
+    @Override
+    protected void reattachCachedEntity(ODocument document, ISavedQuery entity) {
+        super.reattachCachedEntity(document, entity);
+
+        ORecordId oUser = document.field("user", ORecordId.class);
+        if (oUser != null) {
+            entity.setCreator(lazyLoadUser(oUser));
+            entity.setModifier(lazyLoadUser(oUser));
+        }
+    }
+
     @Override
     public ODocument convertToDocument(ISavedQuery entity) {
         ODocument document = createOrLoadDocument(entity);
@@ -139,7 +150,7 @@ public class OrientDbSavedQueryRepository extends AbstractSegradaOrientDbReposit
         }
 
         // let helper do most of the work
-        return super.paginate(page, entriesPerPage, constraints, customOrder);
+        return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
     }
 
     @Override
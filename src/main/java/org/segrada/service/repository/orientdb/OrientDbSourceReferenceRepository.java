@@ -95,6 +95,14 @@ public class OrientDbSourceReferenceRepository extends AbstractSegradaOrientDbRe
 		return sourceReference;
 	}
 
+	/**
+	 * source and reference are loaded with the source reference and may change without changing it
+	 */
+	@Override
+	protected boolean isEntityCacheable() {
+		return false;
+	}
+
 	@Override
 	public ODocument convertToDocument(ISourceReference entity) {
 		ODocument document = createOrLoadDocument(entity);
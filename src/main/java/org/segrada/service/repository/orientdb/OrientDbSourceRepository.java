@@ -4,11 +4,9 @@ import com.google.inject.Inject;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.queryparser.flexible.standard.QueryParserUtil;
-import org.apache.lucene.search.TermQuery;
 import org.segrada.model.Source;
 import org.segrada.model.prototype.ISource;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.SourceRepository;
 import org.segrada.service.repository.orientdb.base.AbstractAnnotatedOrientDbRepository;
 import org.segrada.service.repository.orientdb.base.AbstractCoreOrientDbRepository;
@@ -173,9 +171,14 @@ public class OrientDbSourceRepository extends AbstractCoreOrientDbRepository<ISo
 		// search for term
 		List<ODocument> result;
 		if (term != null && !term.isEmpty()) {
-			// execute query
-			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from Source where " + createSearchTermFullText(term) + " LIMIT " + maximum);
-			result = db.command(query).execute();
+			SearchEngine searchEngine = repositoryFactory.getFullTextSearchEngine();
+			if (searchEngine != null) // resolve ids by search engine and load documents in one query
+				result = loadDocuments(findIdsBySearchEngine(searchEngine, getModelClassName(), term, repositoryFactory.getFullTextMaxHits()), maximum);
+			else {
+				// execute query
+				OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from Source where " + createSearchTermFullText(term) + " LIMIT " + maximum);
+				result = db.command(query).execute();
+			}
 		} else { // no term, just find top X entries
 			// execute query
 			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from Source " + getDefaultOrder(true) + " LIMIT " + maximum);
@@ -198,8 +201,11 @@ public class OrientDbSourceRepository extends AbstractCoreOrientDbRepository<ISo
 		// aggregate filters
 		List<String> constraints = new ArrayList<>();
 		// search term
-		if (filters.containsKey("search")) {
-			constraints.add(createSearchTermFullText((String) filters.get("search")));
+		if (filters.get("search") != null) {
+			SearchEngine searchEngine = repositoryFactory.getFullTextSearchEngine();
+			String term = (String) filters.get("search");
+			constraints.add(searchEngine == null ? createSearchTermFullText(term)
+					: createRidConstraint(findIdsBySearchEngine(searchEngine, getModelClassName(), term, repositoryFactory.getFullTextMaxHits())));
 		}
 		if (filters.containsKey("shortRef")) {
 			constraints.add("shortRef LIKE '%" + OrientStringEscape.escapeOrientSql((String) filters.get("shortRef")) + "%'");
@@ -220,7 +226,7 @@ public class OrientDbSourceRepository extends AbstractCoreOrientDbRepository<ISo
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, customOrder);
+		return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
 	}
 
 	/**
@@ -229,19 +235,6 @@ public class OrientDbSourceRepository extends AbstractCoreOrientDbRepository<ISo
 	 * @return search term part
 	 */
 	public static String createSearchTermFullText(String term) {
-		StringBuilder sb = new StringBuilder(" [longTitle,shortRef,shortTitle] LUCENE '");
-		boolean first = true;
-		for (String termPart : term.toLowerCase().split("\\s+")) {
-			if (termPart.contains(":")) termPart = "\"" + termPart + "\"";
-			else termPart = QueryParserUtil.escape(termPart);
-			if (termPart.contains(".")) termPart = "\"" + termPart + "\"";
-			else if (!termPart.startsWith("\"") || !termPart.endsWith("\"")) termPart += "*";
-			if (first) first = false;
-			else sb.append(' ');
-			sb.append(termPart);
-		}
-		sb.append('\'');
-
-		return sb.toString();
+		return " [longTitle,shortRef,shortTitle] LUCENE '" + createFullTextTerm(term) + "'";
 	}
 }
@@ -2,6 +2,9 @@ package org.segrada.service.repository.orientdb;
 
 import com.google.inject.Inject;
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
@@ -11,6 +14,7 @@ import org.apache.lucene.queryparser.flexible.standard.QueryParserUtil;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.TermQuery;
 import org.segrada.model.Tag;
+import org.segrada.model.base.AbstractSegradaEntity;
 import org.segrada.model.prototype.ITag;
 import org.segrada.model.prototype.SegradaTaggable;
 import org.segrada.service.repository.TagRepository;
@@ -18,6 +22,7 @@ import org.segrada.service.repository.orientdb.base.AbstractOrientDbRepository;
 import org.segrada.service.repository.orientdb.base.AbstractSegradaOrientDbRepository;
 import org.segrada.service.repository.orientdb.exception.CircularConnectionException;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.segrada.service.util.PaginationInfo;
 import org.segrada.util.OrientStringEscape;
 import org.segrada.util.Sluggify;
@@ -303,18 +308,44 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 
 	@Override
 	public String[] findTagIdsByParent(String id) {
-		List<SegradaTaggable> list = findByTag(id, true, new String[]{"Tag"});
+		ORecordId rid = parseTagId(id);
+		if (rid == null) return new String[]{};
+
+		initDb();
+
+		List<ORID> descendants = repositoryFactory.getTagHierarchy().getDescendants(rid);
+		// tags without children are not in hierarchy - check if tag exists
+		if (descendants.isEmpty()) {
+			ODocument document = db.load(rid);
+			if (document == null || !getModelClassName().equals(document.getClassName())) return new String[]{};
+		}
 
 		// aggregate ids
-		String[] tagIds = new String[list.size()];
-		int i = 0;
+		String[] tagIds = new String[descendants.size() + 1];
+		tagIds[0] = rid.toString();
+		int i = 1;
 
-		for (SegradaTaggable entity : list)
-			tagIds[i++] = entity.getId();
+		for (ORID descendant : descendants)
+			tagIds[i++] = descendant.toString();
 
 		return tagIds;
 	}
 
+	/**
+	 * @param id tag id
+	 * @return record id or null, if id is not valid
+	 */
+	private @Nullable ORecordId parseTagId(@Nullable String id) {
+		if (id == null || !AbstractSegradaEntity.PATTERN_ORIENTID.matcher(id).find()) return null;
+
+		try {
+			ORecordId rid = new ORecordId(id);
+			return rid.isValid() ? rid : null;
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
 	@Override
 	public List<SegradaTaggable> findByTag(String id, boolean traverse, @Nullable String[] classes) {
 		List<SegradaTaggable> list = new ArrayList<>();
@@ -338,7 +369,14 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 				where = sb.toString();
 			} else where = "";
 
-			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from ( traverse out('IsTagOf') from " + id + " )" + where);
+			// sub tags are known, so only entities tagged directly by them have to be traversed
+			StringBuilder ids = new StringBuilder(id);
+			ORecordId rid = parseTagId(id);
+			if (rid != null)
+				for (ORID descendant : repositoryFactory.getTagHierarchy().getDescendants(rid))
+					ids.append(',').append(descendant);
+
+			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from ( traverse out('IsTagOf') from [" + ids + "] MAXDEPTH 1 )" + where);
 			result = db.command(query).execute();
 		} else {
 			// create where statement
@@ -356,11 +394,14 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 			result = db.command(query).execute();
 		}
 
+		Set<ORID> found = new HashSet<>();
  		for (ODocument document : result) {
 			// get dynamic repository
 			ODocument doc;
 		    if (traverse) doc = document;
 		    else doc = document.field("in");
+			// sub tags are traversed from themselves and their parents
+			if (traverse && !found.add(doc.getIdentity())) continue;
 			AbstractOrientDbRepository repository = repositoryFactory.produceRepository(doc.getClassName());
 			if (repository != null)
 				list.add((SegradaTaggable) repository.convertToEntity(doc));
@@ -409,16 +450,37 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 		ODatabaseRecordThreadLocal.INSTANCE.set(db);
 
 		// only directly connected tags?
-		List<ODocument> result;
-		OSQLSynchQuery<ODocument> query;
 		if (onlyDirect) {
-			query = new OSQLSynchQuery<>("select out." + field + " as field from IsTagOf where out.@class = 'Tag' AND in = " + entity.getId());
-		} else {
-			// execute query
-			query = new OSQLSynchQuery<>("select " + field + " as field from ( traverse in('IsTagOf') from " + entity.getId() + ") where @class = 'Tag'");
+			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select out." + field + " as field from IsTagOf where out.@class = 'Tag' AND in = " + entity.getId());
+			return toFieldArray(db.command(query).execute());
 		}
-		result = db.command(query).execute();
 
+		// whole tree: directly connected tags and their ancestors (and tag itself)
+		OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select out.@RID as field from IsTagOf where out.@class = 'Tag' AND in = " + entity.getId());
+		List<ODocument> result = db.command(query).execute();
+
+		OrientDbTagHierarchy tagHierarchy = repositoryFactory.getTagHierarchy();
+		Set<String> ids = new LinkedHashSet<>();
+		if (entity instanceof ITag) ids.add(entity.getId());
+		for (ODocument document : result) {
+			String id = document.field("field", String.class);
+			ORID rid = new ORecordId(id);
+			ids.add(rid.toString());
+			for (ORID ancestor : tagHierarchy.getAncestors(rid))
+				ids.add(ancestor.toString());
+		}
+
+		if (field.equals("@RID") || ids.isEmpty()) return ids.toArray(new String[ids.size()]);
+
+		query = new OSQLSynchQuery<>("select " + field + " as field from [" + String.join(",", ids) + "]");
+		return toFieldArray(db.command(query).execute());
+	}
+
+	/**
+	 * @param result query result containing field "field"
+	 * @return array of field entries
+	 */
+	private String[] toFieldArray(List<ODocument> result) {
 		String[] results = new String[result.size()];
 		int i = 0;
 
@@ -429,6 +491,23 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 		return results;
 	}
 
+	/**
+	 * tag titles are contained in all tagged entities and relation types
+	 * @param rid record id of entity written to or deleted
+	 */
+	@Override
+	protected void invalidateCachedEntity(ORID rid) {
+		clearCachedEntities();
+	}
+
+	@Override
+	public boolean delete(@Nullable ITag entity) {
+		if (!super.delete(entity)) return false;
+
+		if (entity != null) repositoryFactory.getTagHierarchy().remove(new ORecordId(entity.getId()));
+		return true;
+	}
+
 	@Override
 	public void connectTag(ITag parent, SegradaTaggable child) {
 		if (parent == null || parent.getId() == null || child == null || child.getId() == null) {
@@ -436,26 +515,151 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 			return;
 		}
 
+		// tag cannot be connected to itself
+		if (parent.getId().equals(child.getId())) return;
+
 		initDb();
 
-		// check of childId is actually parent of parentId (circular tag path not allowed)
+		OrientDbTagHierarchy tagHierarchy = repositoryFactory.getTagHierarchy();
+		ORecordId parentId = new ORecordId(parent.getId());
+		ORecordId childId = new ORecordId(child.getId());
+
 		if (child instanceof ITag) {
-			ITag testChild = (ITag) child;
-			if (isParentOf(testChild, parent))
+			// check of childId is actually parent of parentId (circular tag path not allowed)
+			if (tagHierarchy.isAncestorOf(childId, parentId))
 				throw new CircularConnectionException("Circular connection of tags: " + parent + "=>" + child);
-		}
-
-		// no doubly connected tags:
-		// does the child have a vertex to parent already?
-		Iterable<ODocument> spath = db.command(new OSQLSynchQuery<>(
-				"select shortestPath(" + parent.getId() + "," + child.getId() + ",'OUT')")).execute();
-		ODocument sp = spath.iterator().next();
-		List path = sp.field("shortestPath");
 
-		if (!path.isEmpty() && path.size() <= 2) return;
+			// no doubly connected tags
+			if (tagHierarchy.isConnected(parentId, childId)) return;
+		} else if (isTagConnectedTo(parent.getId(), child.getId())) return;
 
 		// add edge
 		db.command(new OCommandSQL("create edge IsTagOf from " + parent.getId() + " to " + child.getId())).execute();
+		if (child instanceof ITag) tagHierarchy.connect(parentId, childId);
+		invalidateCounts(null); // tag filters of any class
+		invalidateConnectedEntities(parent.getId(), child.getId());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void setTags(SegradaTaggable entity, @Nullable String[] titles) {
+		if (entity == null || entity.getId() == null) return;
+
+		initDb();
+
+		ORecordId entityId = new ORecordId(entity.getId());
+		boolean isTag = entity instanceof ITag;
+		OrientDbTagHierarchy tagHierarchy = repositoryFactory.getTagHierarchy();
+
+		Set<ORID> tagIds = findOrCreateTagIdsByTitles(titles);
+
+		// edges currently connected by tag
+		Map<ORID, List<ORID>> connected = new LinkedHashMap<>();
+		OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select expand(inE('IsTagOf')) from " + entityId);
+		for (ODocument edge : (List<ODocument>) db.command(query).execute()) {
+			OIdentifiable tag = edge.rawField("out");
+			if (tag != null) connected.computeIfAbsent(tag.getIdentity(), k -> new ArrayList<>()).add(edge.getIdentity());
+		}
+
+		// diff
+		List<ORID> added = new ArrayList<>();
+		for (ORID tagId : tagIds) {
+			if (connected.containsKey(tagId) || tagId.equals(entityId)) continue;
+			// new edges all point to entity, so checking each on its own is sufficient
+			if (isTag && tagHierarchy.isAncestorOf(entityId, tagId))
+				throw new CircularConnectionException("Circular connection of tags: " + tagId + "=>" + entity);
+			added.add(tagId);
+		}
+		List<ORID> removed = new ArrayList<>();
+		List<ORID> removedEdges = new ArrayList<>();
+		for (Map.Entry<ORID, List<ORID>> entry : connected.entrySet()) {
+			if (!tagIds.contains(entry.getKey())) {
+				removed.add(entry.getKey());
+				removedEdges.addAll(entry.getValue());
+			}
+		}
+
+		if (added.isEmpty() && removed.isEmpty()) return;
+
+		db.begin();
+		try {
+			if (!added.isEmpty())
+				db.command(new OCommandSQL("create edge IsTagOf from " + toRidList(added) + " to " + entityId)).execute();
+			if (!removedEdges.isEmpty())
+				db.command(new OCommandSQL("delete edge " + toRidList(removedEdges))).execute();
+			db.commit();
+		} catch (RuntimeException e) {
+			db.rollback();
+			throw e;
+		}
+
+		if (isTag) {
+			for (ORID tagId : added)
+				tagHierarchy.connect(tagId, entityId);
+			for (ORID tagId : removed)
+				tagHierarchy.disconnect(tagId, entityId);
+		}
+
+		invalidateCounts(null); // tag filters of any class
+		removeCachedEntity(entityId);
+		for (ORID tagId : added)
+			removeCachedEntity(tagId);
+		for (ORID tagId : removed)
+			removeCachedEntity(tagId);
+	}
+
+	/**
+	 * find tags by titles in one query, tags not found are created
+	 * @param titles tag titles
+	 * @return tag ids in order of titles
+	 */
+	private Set<ORID> findOrCreateTagIdsByTitles(@Nullable String[] titles) {
+		Set<ORID> tagIds = new LinkedHashSet<>();
+		if (titles == null) return tagIds;
+
+		// titles are compared case insensitive
+		Map<String, String> titlesByKey = new LinkedHashMap<>();
+		for (String title : titles) {
+			if (title == null) continue;
+			title = title.trim();
+			if (!title.isEmpty()) titlesByKey.putIfAbsent(title.toLowerCase(), title);
+		}
+		if (titlesByKey.isEmpty()) return tagIds;
+
+		Map<String, ORID> found = new HashMap<>();
+		OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select @rid as id, title from Tag where title IN ?");
+		for (ODocument document : db.command(query).<List<ODocument>>execute(new ArrayList<>(titlesByKey.values()))) {
+			OIdentifiable id = document.field("id");
+			String title = document.field("title", String.class);
+			found.put(title.toLowerCase(), id.getIdentity());
+		}
+
+		for (Map.Entry<String, String> entry : titlesByKey.entrySet()) {
+			ORID tagId = found.get(entry.getKey());
+			if (tagId == null) {
+				Tag tag = new Tag();
+				tag.setTitle(entry.getValue());
+				if (!save(tag)) continue;
+				tagId = new ORecordId(tag.getId());
+			}
+			tagIds.add(tagId);
+		}
+
+		return tagIds;
+	}
+
+	/**
+	 * @param ids record ids
+	 * @return list like [#1:2,#1:3] to be used in queries
+	 */
+	private static String toRidList(Collection<ORID> ids) {
+		StringBuilder sb = new StringBuilder("[");
+		for (ORID id : ids) {
+			if (sb.length() > 1) sb.append(',');
+			sb.append(id);
+		}
+
+		return sb.append(']').toString();
 	}
 
 	@Override
@@ -474,9 +678,22 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 		if (!result.isEmpty()) {
 			// remove edge
 			db.command(new OCommandSQL("delete edge " + result.get(0).field("id", String.class))).execute();
+			repositoryFactory.getTagHierarchy().disconnect(new ORecordId(tagId), new ORecordId(childId));
+			invalidateCounts(null); // tag filters of any class
+			invalidateConnectedEntities(tagId, childId);
 		}
 	}
 
+	/**
+	 * drop cached entities connected or disconnected - edge changes do not always change the record versions
+	 * @param parentId id of tag
+	 * @param childId id of tagged entity
+	 */
+	private void invalidateConnectedEntities(String parentId, String childId) {
+		removeCachedEntity(new ORecordId(parentId));
+		removeCachedEntity(new ORecordId(childId));
+	}
+
 	@Override
 	public boolean isParentOf(ITag node, SegradaTaggable possibleChild) {
 		return isChildOf(possibleChild, node);
@@ -488,15 +705,23 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 		if (node == null || possibleParent == null) return false;
 		if (node.equals(possibleParent)) return false;
 
+		if (node.getId() == null || possibleParent.getId() == null) return false;
+
 		initDb();
 
-		// check shortest path
-		Iterable<ODocument> spath = db.command(new OSQLSynchQuery<>(
-				"select shortestPath(" + possibleParent.getId() + "," + node.getId() + ",'OUT')")).execute();
-		ODocument sp = spath.iterator().next();
-		List path = sp.field("shortestPath");
+		OrientDbTagHierarchy tagHierarchy = repositoryFactory.getTagHierarchy();
+		ORecordId parentId = new ORecordId(possibleParent.getId());
+		if (node instanceof ITag) return tagHierarchy.isAncestorOf(parentId, new ORecordId(node.getId()));
+
+		// other entities: check tags connected directly
+		OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select out.@RID as id from IsTagOf where out.@class = 'Tag' AND in = " + node.getId());
+		for (ODocument document : (List<ODocument>) db.command(query).execute()) {
+			String id = document.field("id", String.class);
+			ORecordId tagId = new ORecordId(id);
+			if (tagId.equals(parentId) || tagHierarchy.isAncestorOf(parentId, tagId)) return true;
+		}
 
-		return !path.isEmpty();
+		return false;
 	}
 
 	@Override
@@ -507,6 +732,8 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 		if (tagUid == null || nodeUid == null) return false;
 		if (tagUid.equals(nodeUid)) return false;
 
+		initDb();
+
 		// check shortest path
 		Iterable<ODocument> spath = db.command(new OSQLSynchQuery<>(
 				"select count(*) from IsTagOf where in = " + nodeUid + " and out = " + tagUid)).execute();
@@ -552,6 +779,6 @@ public class OrientDbTagRepository extends AbstractSegradaOrientDbRepository<ITa
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, customOrder);
+		return super.paginate(page, entriesPerPage, constraints, customOrder, filters);
 	}
 }
@@ -54,6 +54,13 @@ public class OrientDbUserRepository extends AbstractSegradaOrientDbRepository<IU
 		return convertToUser(document);
 	}
 
+	@Override
+	protected void reattachCachedEntity(ODocument document, IUser entity) {
+		super.reattachCachedEntity(document, entity);
+
+		entity.setGroup(lazyLoadUserGroup(document.field("group", ORecordId.class)));
+	}
+
 	@Override
 	public ODocument convertToDocument(IUser entity) {
 		ODocument document = createOrLoadDocument(entity);
@@ -101,7 +108,7 @@ public class OrientDbUserRepository extends AbstractSegradaOrientDbRepository<IU
 		}
 
 		// let helper do most of the work
-		return super.paginate(page, entriesPerPage, constraints, null);
+		return super.paginate(page, entriesPerPage, constraints, null, filters);
 	}
 
 	@Override
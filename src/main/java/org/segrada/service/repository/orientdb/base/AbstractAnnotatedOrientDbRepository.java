@@ -1,6 +1,8 @@
 package org.segrada.service.repository.orientdb.base;
 
 import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
@@ -13,6 +15,7 @@ import org.segrada.service.repository.orientdb.OrientDbCommentRepository;
 import org.segrada.service.repository.orientdb.OrientDbFileRepository;
 import org.segrada.service.repository.orientdb.OrientDbSourceReferenceRepository;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.segrada.service.util.AbstractLazyLoadedObject;
 import org.segrada.service.util.PaginationInfo;
 import org.segrada.util.OrientStringEscape;
@@ -69,6 +72,18 @@ abstract public class AbstractAnnotatedOrientDbRepository<T extends SegradaAnnot
 		}
 	}
 
+	@Override
+	protected void reattachCachedEntity(ODocument document, T entity) {
+		super.reattachCachedEntity(document, entity);
+
+		// tags are part of the record, lists are not
+		if (entity.getId() != null) {
+			entity.setSourceReferences(lazyLoadSourceReferences(entity, 1, 1000));
+			entity.setComments(lazyLoadComments(entity));
+			entity.setFiles(lazyLoadFiles(entity));
+		}
+	}
+
 	/**
 	 * lazily load source references for an entity
 	 * @param entity connected as reference
@@ -211,12 +226,14 @@ abstract public class AbstractAnnotatedOrientDbRepository<T extends SegradaAnnot
 				// get ids of tag
 				OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select @rid from Tag where " + sb.toString());
 				List<ODocument> tagIdsDocs = db.command(query).execute();
+				OrientDbTagHierarchy tagHierarchy = repositoryFactory.getTagHierarchy();
 				for (ODocument tagDoc : tagIdsDocs) {
-					// traverse sub tags
-					OSQLSynchQuery<ODocument> query2 = new OSQLSynchQuery<>("SELECT @rid FROM (traverse " + (in?"in":"out") + "('IsTagOf') from " + tagDoc.field("rid", String.class) + " MAXDEPTH 1 WHILE @class = 'Tag') WHERE @class = 'Tag'");
-					List<ODocument> subTagDocs = db.command(query2).execute();
-					for (ODocument subTagDoc : subTagDocs) // add ids to set
-						subTagIds.add(subTagDoc.field("rid", String.class));
+					// add tag and its direct sub tags (or parent tags)
+					String id = tagDoc.field("rid", String.class);
+					ORecordId tagId = new ORecordId(id);
+					subTagIds.add(tagId.toString());
+					for (ORID subTagId : in ? tagHierarchy.getParents(tagId) : tagHierarchy.getChildren(tagId))
+						subTagIds.add(subTagId.toString());
 				}
 
 				sb = new StringBuilder(" in('IsTagOf') IN [ ");
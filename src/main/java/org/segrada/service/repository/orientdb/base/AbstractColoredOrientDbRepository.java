@@ -5,7 +5,6 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.segrada.model.prototype.IPictogram;
 import org.segrada.model.prototype.SegradaColoredEntity;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
-import org.segrada.service.util.AbstractLazyLoadedObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +66,13 @@ abstract public class AbstractColoredOrientDbRepository<T extends SegradaColored
 		}
 	}
 
+	@Override
+	protected void reattachCachedEntity(ODocument document, T entity) {
+		super.reattachCachedEntity(document, entity);
+
+		populateEntityWithColored(document, entity);
+	}
+
 	/**
 	 * lazy load user
 	 * @param id record id of user
@@ -74,16 +80,7 @@ abstract public class AbstractColoredOrientDbRepository<T extends SegradaColored
 	 */
 	protected IPictogram lazyLoadPictogram(final ORecordId id) {
 		try {
-			return (IPictogram) java.lang.reflect.Proxy.newProxyInstance(
-					Thread.currentThread().getContextClassLoader(),
-					new Class[]{IPictogram.class},
-					new AbstractLazyLoadedObject() {
-						@Override
-						protected Object loadObject() {
-							return convertToPictogram(db.getRecord(id));
-						}
-					}
-			);
+			return lazyLoad(id, IPictogram.class, this::convertToPictogram);
 		} catch (Exception e) {
 			logger.error("Could not lazy load IPictogram " + id, e);
 		}
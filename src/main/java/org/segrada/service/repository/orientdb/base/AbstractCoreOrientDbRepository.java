@@ -81,6 +81,9 @@ abstract public class AbstractCoreOrientDbRepository<T extends SegradaCoreEntity
 			}
 			document.field("minJD", min);
 			document.field("maxJD", max);
+			// keep entity in sync, so it can be indexed with its extent after saving
+			entity.setMinJD(min);
+			entity.setMaxJD(max);
 			document.field("minEntry", minEntry);
 			document.field("maxEntry", maxEntry);
 			document.field("minEntryCalendar", minCalendar);
@@ -91,6 +94,8 @@ abstract public class AbstractCoreOrientDbRepository<T extends SegradaCoreEntity
 			// reset fields
 			document.field("minJD", Long.MIN_VALUE);
 			document.field("maxJD", Long.MAX_VALUE);
+			entity.setMinJD(Long.MIN_VALUE);
+			entity.setMaxJD(Long.MAX_VALUE);
 			document.removeField("minEntry");
 			document.removeField("maxEntry");
 			document.removeField("minEntryCalendar");
@@ -133,6 +138,16 @@ abstract public class AbstractCoreOrientDbRepository<T extends SegradaCoreEntity
 		}
 	}
 
+	@Override
+	protected void reattachCachedEntity(ODocument document, T entity) {
+		super.reattachCachedEntity(document, entity);
+
+		if (entity.getId() != null) {
+			entity.setLocations(lazyLoadLocations(entity));
+			entity.setPeriods(lazyLoadPeriods(entity));
+		}
+	}
+
 	/**
 	 * lazily load locations for an entity
 	 * @param entity connected as reference
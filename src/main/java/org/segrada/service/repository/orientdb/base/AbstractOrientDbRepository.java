@@ -1,20 +1,26 @@
 package org.segrada.service.repository.orientdb.base;
 
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.apache.lucene.queryparser.flexible.standard.QueryParserUtil;
 import org.segrada.model.base.AbstractSegradaEntity;
 import org.segrada.model.prototype.SegradaEntity;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
 import org.segrada.service.repository.orientdb.util.AbstractLateConverter;
+import org.segrada.service.repository.orientdb.util.KeysetOrder;
+import org.segrada.service.repository.orientdb.util.OrientDbCountCache;
+import org.segrada.service.repository.orientdb.util.OrientDbEntityCache;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
 import org.segrada.service.repository.prototype.CRUDRepository;
 import org.segrada.service.util.PaginationInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +43,11 @@ import java.util.stream.Collectors;
 abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extends AbstractOrientDbBaseRepository implements CRUDRepository<T> {
 	private static final Logger logger = LoggerFactory.getLogger(AbstractOrientDbRepository.class);
 
+	/**
+	 * maximum number of record ids loaded by one query
+	 */
+	private static final int LOAD_BATCH_SIZE = 500;
+
 	/**
 	 * Constructor
 	 * @param repositoryFactory injected
@@ -66,6 +77,108 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 	 */
 	abstract public T convertToEntity(ODocument document);
 
+	/**
+	 * Convert list of documents to entities - can be overwritten to load related records of all documents at once
+	 * @param documents to be converted
+	 * @return converted entities, documents that could not be converted are left out
+	 */
+	public List<T> convertToEntities(List<ODocument> documents) {
+		List<T> entities = new ArrayList<>(documents.size());
+
+		for (ODocument document : documents) {
+			T entity = convertToCachedEntity(document);
+			if (entity != null) entities.add(entity);
+		}
+
+		return entities;
+	}
+
+	/**
+	 * Convert document to entity, taking it from the identity map of the request or from the entity cache if the class
+	 * is cached and the record has not changed since
+	 * @param document to be converted
+	 * @return converted entity
+	 */
+	public T convertToCachedEntity(ODocument document) {
+		if (!document.getIdentity().isPersistent()) return convertToEntity(document);
+
+		// converted in this request already?
+		OrientDbIdentityMap identityMap = repositoryFactory.getIdentityMap();
+		T entity = identityMap != null ? identityMap.get(document.getIdentity(), document.getVersion()) : null;
+		if (entity != null) return entity;
+
+		OrientDbEntityCache entityCache = repositoryFactory.getEntityCache();
+		if (entityCache != null && isEntityCacheable() && entityCache.isCached(getModelClassName())) {
+			entity = entityCache.get(getModelClassName(), document.getIdentity(), document.getVersion());
+			if (entity != null) reattachCachedEntity(document, entity);
+			else {
+				entity = convertToEntity(document);
+				if (entity != null) entityCache.put(getModelClassName(), document.getIdentity(), document.getVersion(), entity);
+			}
+		} else entity = convertToEntity(document);
+
+		if (identityMap != null && entity != null) identityMap.put(document.getIdentity(), document.getVersion(), entity);
+
+		return entity;
+	}
+
+	/**
+	 * @return false, if entities contain other entities which could change without changing the record version
+	 */
+	protected boolean isEntityCacheable() {
+		return true;
+	}
+
+	/**
+	 * replace lazy loading proxies of a cached entity, which are bound to the request having converted it - to be
+	 * overwritten by repositories creating proxies
+	 * @param document entity has been converted from
+	 * @param entity copy of cached entity
+	 */
+	protected void reattachCachedEntity(ODocument document, T entity) {
+		// nothing to replace by default
+	}
+
+	/**
+	 * drop cached entity after writes - can be overwritten to drop entities depending on it
+	 * @param rid record id of entity written to or deleted
+	 */
+	protected void invalidateCachedEntity(ORID rid) {
+		removeCachedEntity(rid);
+	}
+
+	/**
+	 * drop single entity from entity cache and identity map
+	 * @param rid record id
+	 */
+	protected void removeCachedEntity(ORID rid) {
+		OrientDbEntityCache entityCache = repositoryFactory.getEntityCache();
+		if (entityCache != null) entityCache.invalidate(rid);
+		OrientDbIdentityMap identityMap = repositoryFactory.getIdentityMap();
+		if (identityMap != null) identityMap.remove(rid);
+	}
+
+	/**
+	 * drop entities of a class from entity cache and identity map
+	 * @param className class name, e.g. Relation
+	 */
+	protected void removeCachedEntities(String className) {
+		OrientDbEntityCache entityCache = repositoryFactory.getEntityCache();
+		if (entityCache != null) entityCache.invalidateClass(className);
+		OrientDbIdentityMap identityMap = repositoryFactory.getIdentityMap();
+		if (identityMap != null) identityMap.removeClass(className);
+	}
+
+	/**
+	 * drop all entities from entity cache and identity map
+	 */
+	protected void clearCachedEntities() {
+		OrientDbEntityCache entityCache = repositoryFactory.getEntityCache();
+		if (entityCache != null) entityCache.clear();
+		OrientDbIdentityMap identityMap = repositoryFactory.getIdentityMap();
+		if (identityMap != null) identityMap.clear();
+	}
+
 	/**
 	 * Convert entity to document
 	 * @param entity to be converted
@@ -163,6 +276,8 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 
 			// process after saving
 			processAfterSaving(updated, entity);
+			invalidateCounts(getModelClassName());
+			invalidateCachedEntity(updated.getIdentity());
 
 			if (logger.isInfoEnabled())
 				logger.info("Saved entity: " + entity.toString());
@@ -231,7 +346,7 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 						new AbstractLateConverter<T>() {
 							@Override
 							protected T convert() {
-								return convertToEntity(document);
+								return convertToCachedEntity(document);
 							}
 						}
 				));
@@ -258,7 +373,7 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 			String queryAdd = getDefaultQueryParameters();
 			if (uid != null) {
 				if ((queryAdd == null || "".equals(queryAdd))) queryAdd = " WHERE ";
-				else queryAdd = " AND ";
+				else queryAdd += " AND ";
 				queryAdd += "@rid > " + convertUidToId(uid);
 			}
 
@@ -288,6 +403,44 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 		return entities;
 	}
 
+	/**
+	 * Find uids of next entries starting from uid (or first if uid is null) up to number entries - does not load entities
+	 * @param uid to start with or null for first entry
+	 * @param number maximum number of entries
+	 * @return list of uids (empty if none exist)
+	 */
+	public List<String> findNextUidsFrom(String uid, int number) {
+		List<String> uids = new ArrayList<>();
+
+		try {
+			initDb();
+
+			String queryAdd = getDefaultQueryParameters();
+			if (uid != null) {
+				if ((queryAdd == null || "".equals(queryAdd))) queryAdd = " WHERE ";
+				else queryAdd += " AND ";
+				queryAdd += "@rid > " + convertUidToId(uid);
+			}
+
+			// create query
+			String sql = "select @rid from ".concat(getModelClassName())
+					.concat(queryAdd)
+					.concat(" ORDER BY @rid LIMIT " + (number <= 0?10:number));
+
+			// execute query
+			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>(sql);
+			List<ODocument> list = db.command(query).execute();
+
+			for (ODocument document : list) {
+				uids.add(AbstractSegradaEntity.convertOrientIdToUid(document.field("rid", String.class)));
+			}
+		} catch (Exception e) {
+			logger.error("Exception thrown while fetching next uids.", e);
+		}
+
+		return uids;
+	}
+
 	/**
 	 * find single entity by Orient Id
 	 * @param id string representation of orient db, e.g. "#11:1"
@@ -310,7 +463,7 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 			}
 
 			// correct class => convert to correct entity
-			return convertToEntity(document);
+			return convertToCachedEntity(document);
 		} catch (Exception e) {
 			logger.error("Exception thrown while fetching one entity.", e);
 		}
@@ -338,7 +491,13 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 			// The following code renders an NPE
 			//repositoryFactory.getDb().command(new OCommandSQL("delete edge where in = " + entity.getId() + " OR out = " + entity.getId())).execute();
 
-			return db.delete(new ORecordId(entity.getId())) != null;
+			ORecordId rid = new ORecordId(entity.getId());
+			boolean deleted = db.delete(rid) != null;
+
+			// invalidate after writing, so concurrent reads cannot cache the deleted entity again
+			invalidateCounts(getModelClassName());
+			invalidateCachedEntity(rid);
+			return deleted;
 		} catch (Exception e) {
 			logger.warn("Could not delete entry (search engine entry deleted if applicable): " + entity.getId());
 		}
@@ -388,6 +547,20 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 	 * @return PaginationInfo containing hits
 	 */
 	protected PaginationInfo<T> paginate(int page, int entriesPerPage, List<String> constraints, String customOrder) {
+		return paginate(page, entriesPerPage, constraints, customOrder, null);
+	}
+
+	/**
+	 * pagination helper function - pages are continued from the cursors of neighbouring pages, if filters contain
+	 * "after" (next page) or "before" (previous page), other pages are skipped to
+	 * @param page to show
+	 * @param entriesPerPage maximum entries per page
+	 * @param constraints constraint list to concatenate
+	 * @param customOrder custom order string or null for default
+	 * @param filters filters containing cursors or null
+	 * @return PaginationInfo containing hits
+	 */
+	protected PaginationInfo<T> paginate(int page, int entriesPerPage, List<String> constraints, String customOrder, @Nullable Map<String, Object> filters) {
 		// create constraint string
 		StringBuilder sb = new StringBuilder();
 		if (!constraints.isEmpty()) {
@@ -406,9 +579,7 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 			initDb();
 
 			// first, do a count of the entities
-			String sql = "select count(*) as count".concat(constraint);
-			if (logger.isTraceEnabled()) logger.trace(sql);
-			int total = ((ODocument) db.query(new OSQLSynchQuery<ODocument>(sql)).get(0)).field("count", Integer.class);
+			int total = countPaginated(constraint);
 
 			if (total == 0)
 				return new PaginationInfo<>(
@@ -427,23 +598,61 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 			if (page < 1) page = 1;
 			else if (page > pages) page = pages;
 
-			// prepare skip/limit strings
-			int skip = (page-1) * entriesPerPage;
-			String skipLimit = (skip>0?" SKIP ".concat(Integer.toString(skip)).concat(" "):"")
-					.concat(" LIMIT ").concat(Integer.toString(entriesPerPage));
+			// order made unique by @rid, if it can be continued by cursor
+			KeysetOrder keysetOrder = KeysetOrder.parse(customOrder != null && !customOrder.isEmpty() ? customOrder : getDefaultOrder(false));
+
+			// continue from cursor of neighbouring page
+			List<ODocument> list = null;
+			if (keysetOrder != null && filters != null) {
+				Map<String, Object> parameters = new HashMap<>();
+				boolean backwards = false;
+				String cursorConstraint = null;
+				if (filters.get("after") instanceof String)
+					cursorConstraint = keysetOrder.createConstraint((String) filters.get("after"), false, parameters);
+				else if (filters.get("before") instanceof String) {
+					cursorConstraint = keysetOrder.createConstraint((String) filters.get("before"), true, parameters);
+					backwards = true;
+				}
+
+				if (cursorConstraint != null) {
+					String sql = "select *".concat(constraint).concat(constraints.isEmpty()?" WHERE ":" AND ").concat(cursorConstraint)
+							.concat(keysetOrder.toOrderBy(backwards)).concat(" LIMIT ").concat(Integer.toString(entriesPerPage));
+					if (logger.isTraceEnabled()) logger.trace(sql);
+
+					list = new ArrayList<>(db.command(new OSQLSynchQuery<ODocument>(sql)).<List<ODocument>>execute(parameters));
+					if (backwards) Collections.reverse(list);
+					if (list.isEmpty()) list = null; // entities removed in the meantime, skip to page instead
+				}
+			}
+
+			if (list == null) {
+				// prepare skip/limit strings
+				int skip = (page-1) * entriesPerPage;
+				String skipLimit = (skip>0?" SKIP ".concat(Integer.toString(skip)).concat(" "):"")
+						.concat(" LIMIT ").concat(Integer.toString(entriesPerPage));
 
-			// custom order?
-			if (customOrder != null && !customOrder.isEmpty()) customOrder = " ORDER BY ".concat(customOrder);
-			else customOrder = getDefaultOrder(); // no, just use default order
+				// custom order?
+				String order;
+				if (keysetOrder != null) order = keysetOrder.toOrderBy(false);
+				else if (customOrder != null && !customOrder.isEmpty()) order = " ORDER BY ".concat(customOrder);
+				else order = getDefaultOrder(); // no, just use default order
 
-			// create query itself and fetch entities
-			sql = "select *".concat(constraint).concat(customOrder).concat(skipLimit);
-			if (logger.isTraceEnabled()) logger.trace(sql);
+				// create query itself and fetch entities
+				String sql = "select *".concat(constraint).concat(order).concat(skipLimit);
+				if (logger.isTraceEnabled()) logger.trace(sql);
 
-			// execute query
-			List<ODocument> list = db.command(new OSQLSynchQuery<>(sql)).execute();
+				// execute query
+				list = db.command(new OSQLSynchQuery<ODocument>(sql)).execute();
+			}
+
+			entities.addAll(convertToEntities(list));
 
-			entities.addAll(list.stream().map(this::convertToEntity).collect(Collectors.toList()));
+			// cursors of neighbouring pages
+			String nextCursor = null, previousCursor = null;
+			if (keysetOrder != null && !list.isEmpty()) {
+				if (page < pages) nextCursor = keysetOrder.createCursor(list.get(list.size() - 1));
+				if (page > 1) previousCursor = keysetOrder.createCursor(list.get(0));
+			}
 
 			/**
 			 * return pagination list
@@ -453,7 +662,9 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 					pages, // pages
 					total, // total entries
 					entriesPerPage, // per page
-					entities // list of entities
+					entities, // list of entities
+					nextCursor,
+					previousCursor
 			);
 		} catch (Exception e) {
 			logger.error("Exception thrown while fetching paginated entities.", e);
@@ -462,11 +673,134 @@ abstract public class AbstractOrientDbRepository<T extends SegradaEntity> extend
 		}
 	}
 
+	/**
+	 * count entities to paginate - counts are cached for a short time, if a count cache is set
+	 * @param constraint constraint string starting with " from"
+	 * @return number of entities
+	 */
+	protected int countPaginated(String constraint) {
+		OrientDbCountCache countCache = repositoryFactory.getCountCache();
+		if (countCache != null) {
+			Integer total = countCache.get(getModelClassName(), constraint);
+			if (total != null) return total;
+		}
+		long generation = countCache != null ? countCache.getGeneration() : 0L;
+
+		String sql = "select count(*) as count".concat(constraint);
+		if (logger.isTraceEnabled()) logger.trace(sql);
+		int total = ((ODocument) db.query(new OSQLSynchQuery<ODocument>(sql)).get(0)).field("count", Integer.class);
+
+		if (countCache != null) countCache.put(getModelClassName(), constraint, total, generation);
+
+		return total;
+	}
+
+	/**
+	 * drop cached counts after writes
+	 * @param className class written to, null if counts of any class may have changed
+	 */
+	protected void invalidateCounts(@Nullable String className) {
+		OrientDbCountCache countCache = repositoryFactory.getCountCache();
+		if (countCache != null) countCache.invalidate(className);
+	}
+
 	@Override
 	public String convertUidToId(String uid) {
 		return AbstractSegradaEntity.convertUidToOrientId(uid);
 	}
 
+	/**
+	 * load documents of this class by record ids in one query
+	 * @param ids list of record ids
+	 * @param maximum maximum number of documents to load
+	 * @return list of documents in default order
+	 */
+	protected List<ODocument> loadDocuments(List<String> ids, int maximum) {
+		if (ids.isEmpty()) return new ArrayList<>();
+
+		initDb();
+
+		OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>("select * from [" + String.join(", ", ids) + "] where @class = '"
+				+ getModelClassName() + "'" + getDefaultOrder(true) + " LIMIT " + maximum);
+
+		return db.command(query).execute();
+	}
+
+	/**
+	 * load records of any class by record ids, in batches of one query each
+	 * @param ids record ids to load, ids contained in records already are skipped
+	 * @param records map to add loaded records to
+	 */
+	protected void loadRecords(Collection<ORID> ids, Map<ORID, ODocument> records) {
+		List<String> batch = new ArrayList<>();
+
+		Iterator<ORID> iterator = ids.iterator();
+		while (iterator.hasNext()) {
+			ORID id = iterator.next();
+			if (!records.containsKey(id) && id.isPersistent()) batch.add(id.toString());
+
+			if (batch.size() >= LOAD_BATCH_SIZE || (!iterator.hasNext() && !batch.isEmpty())) {
+				List<ODocument> list = db.command(new OSQLSynchQuery<ODocument>("select from [" + String.join(", ", batch) + "]")).execute();
+				for (ODocument document : list) records.put(document.getIdentity(), document);
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * find record ids of entities by searching titles in the search engine
+	 * @param searchEngine search engine instance
+	 * @param className class of entities, e.g. Node
+	 * @param term term(s) to search for
+	 * @param maxHits maximum number of best hits
+	 * @return list of record ids
+	 */
+	public static List<String> findIdsBySearchEngine(SearchEngine searchEngine, String className, String term, int maxHits) {
+		Map<String, String> filters = new HashMap<>();
+		filters.put("class", className);
+		filters.put("fields", "allTitles");
+		// ids become a query constraint: keep it short
+		filters.put("limit", String.valueOf(maxHits));
+
+		// search index contains uids - convert them to record ids
+		return searchEngine.searchIds(createFullTextTerm(term), filters).stream()
+				.map(AbstractSegradaEntity::convertUidToOrientId).filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * create Lucene query from search term: all parts are searched as prefixes
+	 * @param term term(s) to search for
+	 * @return query string
+	 */
+	public static String createFullTextTerm(String term) {
+		StringBuilder sb = new StringBuilder();
+		boolean first = true;
+		for (String termPart : term.toLowerCase().split("\\s+")) {
+			if (termPart.contains(":")) termPart = "\"" + termPart + "\"";
+			else termPart = QueryParserUtil.escape(termPart);
+			if (termPart.contains(".")) termPart = "\"" + termPart + "\"";
+			else if (!termPart.startsWith("\"") || !termPart.endsWith("\"")) termPart += "*";
+			if (first) first = false;
+			else sb.append(' ');
+			sb.append(termPart);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * create constraint limiting results to record ids
+	 * @param ids list of record ids
+	 * @return constraint
+	 */
+	public static String createRidConstraint(List<String> ids) {
+		// add dummy, if nothing was found
+		if (ids.isEmpty()) return "@rid = #-1:0";
+
+		return "@rid IN [" + String.join(", ", ids) + "]";
+	}
+
 	/**
 	 * Helper method to get direction from string object
 	 * @param dir object in filter cache (should be string)
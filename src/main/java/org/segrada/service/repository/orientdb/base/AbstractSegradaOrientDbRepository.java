@@ -12,12 +12,14 @@ import org.segrada.model.prototype.*;
 import org.segrada.service.repository.TagRepository;
 import org.segrada.service.repository.orientdb.OrientDbTagRepository;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
 import org.segrada.service.util.AbstractLazyLoadedObject;
 import org.segrada.session.Identity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
@@ -80,6 +82,51 @@ abstract public class AbstractSegradaOrientDbRepository<T extends SegradaEntity>
 		if (oModifier != null) entity.setModifier(lazyLoadUser(oModifier));
 	}
 
+	@Override
+	protected void reattachCachedEntity(ODocument document, T entity) {
+		super.reattachCachedEntity(document, entity);
+
+		populateEntityWithCreatedModified(document, entity);
+	}
+
+	/**
+	 * lazy load entity - each record is loaded once per request, if there is an identity map
+	 * @param id record id
+	 * @param clazz entity interface
+	 * @param converter converts loaded record
+	 * @return entity or proxy loading it on first use
+	 */
+	@SuppressWarnings("unchecked")
+	protected <E extends SegradaEntity> E lazyLoad(final ORecordId id, Class<E> clazz, Function<ODocument, E> converter) {
+		final OrientDbIdentityMap identityMap = repositoryFactory != null && id != null ? repositoryFactory.getIdentityMap() : null;
+		if (identityMap != null) {
+			SegradaEntity entity = identityMap.getAny(id);
+			if (clazz.isInstance(entity)) return (E) entity;
+		}
+
+		E proxy = (E) java.lang.reflect.Proxy.newProxyInstance(
+				Thread.currentThread().getContextClassLoader(),
+				new Class[]{clazz},
+				new AbstractLazyLoadedObject() {
+					@Override
+					protected Object loadObject() {
+						ODocument document = db.getRecord(id);
+						if (identityMap == null) return converter.apply(document);
+
+						E entity = identityMap.get(id, document.getVersion());
+						if (entity == null) {
+							entity = converter.apply(document);
+							if (entity != null) identityMap.put(id, document.getVersion(), entity);
+						}
+						return entity;
+					}
+				}
+		);
+		if (identityMap != null) identityMap.putLazy(id, proxy);
+
+		return proxy;
+	}
+
 	/**
 	 * lazy load user
 	 * @param id record id of user
@@ -87,16 +134,7 @@ abstract public class AbstractSegradaOrientDbRepository<T extends SegradaEntity>
 	 */
 	protected IUser lazyLoadUser(final ORecordId id) {
 		try {
-			return (IUser) java.lang.reflect.Proxy.newProxyInstance(
-					Thread.currentThread().getContextClassLoader(),
-					new Class[]{IUser.class},
-					new AbstractLazyLoadedObject() {
-						@Override
-						protected Object loadObject() {
-							return convertToUser(db.getRecord(id));
-						}
-					}
-			);
+			return lazyLoad(id, IUser.class, this::convertToUser);
 		} catch (Exception e) {
 			logger.error("Could not lazy load IUser " + id, e);
 		}
@@ -110,16 +148,7 @@ abstract public class AbstractSegradaOrientDbRepository<T extends SegradaEntity>
 	 */
 	protected IUserGroup lazyLoadUserGroup(final ORecordId id) {
 		try {
-			return (IUserGroup) java.lang.reflect.Proxy.newProxyInstance(
-					Thread.currentThread().getContextClassLoader(),
-					new Class[]{IUserGroup.class},
-					new AbstractLazyLoadedObject() {
-						@Override
-						protected Object loadObject() {
-							return convertToUserGroup(db.getRecord(id));
-						}
-					}
-			);
+			return lazyLoad(id, IUserGroup.class, this::convertToUserGroup);
 		} catch (Exception e) {
 			logger.error("Could not lazy load IUserGroup " + id, e);
 		}
@@ -161,7 +190,7 @@ abstract public class AbstractSegradaOrientDbRepository<T extends SegradaEntity>
 
 	/**
 	 * update tag connections of a given entity
-	 * will delete old tag connections, create new tags and update them
+	 * will create new tags and add or delete connections differing from the entity's tags
 	 * @param entity to update tags from
 	 */
 	protected void updateEntityTags(SegradaTaggable entity) {
@@ -171,27 +200,7 @@ abstract public class AbstractSegradaOrientDbRepository<T extends SegradaEntity>
 		TagRepository tagRepository = repositoryFactory.produceRepository(OrientDbTagRepository.class);
 		if (tagRepository == null) return;
 
-		// create new tags, if needed
-		tagRepository.createNewTagsByTitles(entity.getTags());
-
-		// find all tags by title
-		List<ITag> tags = tagRepository.findTagsByTitles(entity.getTags());
-
-		// keeps added ids
-		Set<String> addedIds = new HashSet<>();
-
-		// add all tags to entity
-		for (ITag tag : tags) {
-			tagRepository.connectTag(tag, entity);
-			addedIds.add(tag.getId());
-		}
-
-		// now find all tag ids and see if there are some that have been deleted
-		String[] tagIds = tagRepository.findTagIdsConnectedToModel(entity, true);
-		for (String id : tagIds) {
-			if (!addedIds.contains(id)) // not in set connected - delete
-				tagRepository.removeTag(id, entity);
-		}
+		tagRepository.setTags(entity, entity.getTags());
 	}
 
 	/**
@@ -3,7 +3,12 @@ package org.segrada.service.repository.orientdb.factory;
 import com.google.inject.Inject;
 import com.google.inject.servlet.RequestScoped;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.factory.RepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbCountCache;
+import org.segrada.service.repository.orientdb.util.OrientDbEntityCache;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.segrada.service.repository.prototype.SegradaRepository;
 import org.segrada.session.ApplicationSettings;
 import org.segrada.session.Identity;
@@ -50,6 +55,31 @@ public class OrientDbRepositoryFactory implements RepositoryFactory {
 	 */
 	protected final Identity identity;
 
+	/**
+	 * search engine - optional, used by queries answered by the search index
+	 */
+	private SearchEngine searchEngine;
+
+	/**
+	 * cache of paginated counts - optional
+	 */
+	private OrientDbCountCache countCache;
+
+	/**
+	 * cache of converted entities - optional
+	 */
+	private OrientDbEntityCache entityCache;
+
+	/**
+	 * entities converted in this request - optional
+	 */
+	private OrientDbIdentityMap identityMap;
+
+	/**
+	 * tag hierarchy - shared by all requests if injected, otherwise loaded for this factory
+	 */
+	private OrientDbTagHierarchy tagHierarchy = new OrientDbTagHierarchy();
+
 	/**
 	 * map to cache repositories
 	 */
@@ -86,6 +116,100 @@ public class OrientDbRepositoryFactory implements RepositoryFactory {
 		return identity;
 	}
 
+	/**
+	 * @return search engine instance or null, if not set
+	 */
+	public @Nullable SearchEngine getSearchEngine() {
+		return searchEngine;
+	}
+
+	/**
+	 * full text searches of repositories are answered by the search engine instead of the OrientDB Lucene indexes, if
+	 * orientDB.fullText is set to searchEngine
+	 * @return search engine instance or null, if OrientDB indexes should be used
+	 */
+	public @Nullable SearchEngine getFullTextSearchEngine() {
+		if (searchEngine == null || applicationSettings == null) return null;
+
+		return "searchEngine".equalsIgnoreCase(applicationSettings.getSetting("orientDB.fullText")) ? searchEngine : null;
+	}
+
+	/**
+	 * @return maximum number of best hits of full text searches answered by the search engine
+	 */
+	public int getFullTextMaxHits() {
+		int maxHits = applicationSettings != null ? applicationSettings.getSettingAsInteger("orientDB.fullText.maxHits", 1000) : 1000;
+		return maxHits > 0 ? maxHits : 1000;
+	}
+
+	/**
+	 * @param searchEngine search engine instance
+	 */
+	@Inject(optional = true)
+	public void setSearchEngine(SearchEngine searchEngine) {
+		this.searchEngine = searchEngine;
+	}
+
+	/**
+	 * @return cache of paginated counts or null, if not set
+	 */
+	public @Nullable OrientDbCountCache getCountCache() {
+		return countCache;
+	}
+
+	/**
+	 * @param countCache cache of paginated counts
+	 */
+	@Inject(optional = true)
+	public void setCountCache(OrientDbCountCache countCache) {
+		this.countCache = countCache;
+	}
+
+	/**
+	 * @return cache of converted entities or null, if not set
+	 */
+	public @Nullable OrientDbEntityCache getEntityCache() {
+		return entityCache;
+	}
+
+	/**
+	 * @param entityCache cache of converted entities
+	 */
+	@Inject(optional = true)
+	public void setEntityCache(OrientDbEntityCache entityCache) {
+		this.entityCache = entityCache;
+	}
+
+	/**
+	 * @return entities converted in this request or null, if not set
+	 */
+	public @Nullable OrientDbIdentityMap getIdentityMap() {
+		return identityMap;
+	}
+
+	/**
+	 * @param identityMap entities converted in this request
+	 */
+	@Inject(optional = true)
+	public void setIdentityMap(OrientDbIdentityMap identityMap) {
+		this.identityMap = identityMap;
+	}
+
+	/**
+	 * @return tag hierarchy, loaded from database on first use
+	 */
+	public OrientDbTagHierarchy getTagHierarchy() {
+		return tagHierarchy.loadIfNeeded(db);
+	}
+
+	/**
+	 * @param tagHierarchy tag hierarchy shared by all requests
+	 */
+	@Inject(optional = true)
+	public void setTagHierarchy(OrientDbTagHierarchy tagHierarchy) {
+		this.tagHierarchy = tagHierarchy;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public @Nullable <T extends SegradaRepository> T produceRepository(Class<T> clazz) {
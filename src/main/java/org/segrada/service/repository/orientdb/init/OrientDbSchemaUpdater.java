@@ -19,6 +19,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -47,6 +48,16 @@ public class OrientDbSchemaUpdater {
 	 */
 	private static final int CURRENT_VERSION = 7;
 
+	/**
+	 * OrientDB full text indexes that duplicate the search engine index and their create statements
+	 */
+	private static final Map<String, String> FULL_TEXT_INDEXES = new LinkedHashMap<>();
+	static {
+		FULL_TEXT_INDEXES.put("Node.searchtitle", "create index Node.searchtitle ON Node (title,alternativeTitles) FULLTEXT ENGINE LUCENE");
+		FULL_TEXT_INDEXES.put("Source.searchtitle", "create index Source.searchtitle on Source (longTitle,shortRef,shortTitle) FULLTEXT ENGINE LUCENE");
+		FULL_TEXT_INDEXES.put("File.searchtitle", "create index File.searchtitle on File (title,filename) FULLTEXT ENGINE LUCENE");
+	}
+
 	/**
 	 * graph factory instance
 	 */
@@ -183,6 +194,35 @@ public class OrientDbSchemaUpdater {
 		db.close();
 	}
 
+	/**
+	 * drop OrientDB full text indexes of nodes, sources and files if full text searches are answered by the search
+	 * engine - recreate them if OrientDB is used for full text searches again
+	 * @param useSearchEngine true if search engine answers full text searches
+	 */
+	public void updateFullTextIndexes(boolean useSearchEngine) {
+		// open database
+		ODatabaseDocumentTx db = orientGraphFactory.getDatabase();
+
+		for (Map.Entry<String, String> index : FULL_TEXT_INDEXES.entrySet()) {
+			boolean exists = db.getMetadata().getIndexManager().existsIndex(index.getKey());
+
+			String sql;
+			if (useSearchEngine && exists) sql = "DROP INDEX " + index.getKey();
+			else if (!useSearchEngine && !exists) sql = index.getValue();
+			else continue;
+
+			try {
+				db.command(new OCommandSQL(sql)).execute();
+				logger.info(sql);
+			} catch (Exception e) {
+				logger.warn("Exception while updating full text index: \"" + sql + "\"", e);
+			}
+		}
+
+		// close db
+		db.close();
+	}
+
 	/**
 	 * helper to update database per schema script step by step
 	 * @param resourceName name of update script
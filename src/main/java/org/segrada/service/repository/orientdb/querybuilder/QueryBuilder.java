@@ -8,6 +8,7 @@ import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 import org.codehaus.jettison.json.JSONTokener;
 import org.segrada.model.prototype.*;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.orientdb.OrientDbFileRepository;
 import org.segrada.service.repository.orientdb.OrientDbNodeRepository;
 import org.segrada.service.repository.orientdb.OrientDbSourceRepository;
@@ -16,6 +17,7 @@ import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -28,6 +30,21 @@ public class QueryBuilder extends AbstractOrientDbBaseRepository {
     private final OrientDbSourceRepository sourceRepository;
     private final OrientDbFileRepository fileRepository;
 
+    /**
+     * search engine, may be null
+     */
+    private final SearchEngine searchEngine;
+
+    /**
+     * search engine answering full text searches, null if OrientDB indexes are used
+     */
+    private final SearchEngine fullTextSearchEngine;
+
+    /**
+     * maximum number of best hits of full text searches answered by the search engine
+     */
+    private final int fullTextMaxHits;
+
     /**
      * Constructor
      *
@@ -39,6 +56,9 @@ public class QueryBuilder extends AbstractOrientDbBaseRepository {
         nodeRepository = repositoryFactory.produceRepository(OrientDbNodeRepository.class);
         sourceRepository = repositoryFactory.produceRepository(OrientDbSourceRepository.class);
         fileRepository = repositoryFactory.produceRepository(OrientDbFileRepository.class);
+        searchEngine = repositoryFactory.getSearchEngine();
+        fullTextSearchEngine = repositoryFactory.getFullTextSearchEngine();
+        fullTextMaxHits = repositoryFactory.getFullTextMaxHits();
     }
 
     /**
@@ -140,6 +160,30 @@ public class QueryBuilder extends AbstractOrientDbBaseRepository {
         return db.command(new OCommandSQL(query)).execute();
     }
 
+    /**
+     * package local method to get search engine
+     * @return search engine or null, if not available
+     */
+    @Nullable SearchEngine getSearchEngine() {
+        return searchEngine;
+    }
+
+    /**
+     * package local method to get search engine answering full text searches
+     * @return search engine or null, if OrientDB indexes are used
+     */
+    @Nullable SearchEngine getFullTextSearchEngine() {
+        return fullTextSearchEngine;
+    }
+
+    /**
+     * package local method to get maximum number of full text hits
+     * @return maximum number of best hits of full text searches answered by the search engine
+     */
+    int getFullTextMaxHits() {
+        return fullTextMaxHits;
+    }
+
     /**
      * main worker for query parts: aggregate query and create command to be executed by OrientDB
      * @param query input
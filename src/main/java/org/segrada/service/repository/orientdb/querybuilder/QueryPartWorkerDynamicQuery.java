@@ -1,9 +1,13 @@
 package org.segrada.service.repository.orientdb.querybuilder;
 
 import com.orientechnologies.orient.core.id.ORecordId;
+import com.spatial4j.core.distance.DistanceUtils;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
+import org.segrada.model.base.AbstractSegradaEntity;
+import org.segrada.search.SearchEngine;
 import org.segrada.service.repository.orientdb.OrientDbFileRepository;
 import org.segrada.service.repository.orientdb.OrientDbNodeRepository;
 import org.segrada.service.repository.orientdb.OrientDbSourceRepository;
@@ -11,8 +15,16 @@ import org.segrada.util.FlexibleDateParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.segrada.service.repository.orientdb.base.AbstractOrientDbRepository.createRidConstraint;
+import static org.segrada.service.repository.orientdb.base.AbstractOrientDbRepository.findIdsBySearchEngine;
 
 public class QueryPartWorkerDynamicQuery implements QueryPartWorker {
     private static final Logger logger = LoggerFactory.getLogger(QueryPartWorkerManualList.class);
@@ -33,7 +45,12 @@ public class QueryPartWorkerDynamicQuery implements QueryPartWorker {
             // search text
             String searchTerm = data.optString("search");
             if (!(searchTerm == null || searchTerm.equals(""))) {
-                switch (field) {
+                SearchEngine fullTextSearchEngine = queryBuilder.getFullTextSearchEngine();
+                if (fullTextSearchEngine != null && (field.equals("node") || field.equals("source") || field.equals("file"))) {
+                    // titles are searched in search engine
+                    String className = field.substring(0, 1).toUpperCase() + field.substring(1);
+                    constraints.add(createRidConstraint(findIdsBySearchEngine(fullTextSearchEngine, className, searchTerm, queryBuilder.getFullTextMaxHits())));
+                } else switch (field) {
                     case "node":
                         constraints.add(OrientDbNodeRepository.createSearchTermFullText(searchTerm));
                         break;
@@ -62,53 +79,27 @@ public class QueryPartWorkerDynamicQuery implements QueryPartWorker {
                 }
             }
 
-            // geo
-            // for more information, look here: http://orientdb.com/docs/2.2.x/Spatial-Index.html
-            // and here: https://shazwazza.com/post/spatial-search-with-examine-and-lucene/
+            // geo - answered by search engine, if possible
             if (!field.equals("file")) {
                 if (data.optBoolean("hasGeo")) {
                     JSONObject geo = data.optJSONObject("geo");
                     if (geo != null) {
-                        String geoQuery = null;
-                        switch (geo.optString("shape")) {
-                            case "Circle":
-                                double lat = geo.getDouble("lat");
-                                double lng = geo.getDouble("lng");
-                                double radius = geo.getDouble("radius");
-                                geoQuery = "SELECT distinct(parent) FROM Location WHERE [latitude,longitude,$spatial] NEAR [" + lat + "," + lng + ",{\"maxDistance\": " + (radius / 1000) + "}]";
-                                break;
-                            case "Rectangle":
-                                String coordinates = geo.getJSONArray("coordinates").toString();
-                                geoQuery = "SELECT distinct(parent) FROM Location WHERE [latitude,longitude] WITHIN " + coordinates;
-                                break;
-                            case "Polygon":
-                                // TODO
-                                // this is not implemented in the current type of lucene indexes - we would need to update from legacy to 2.2
-                                break;
-                        }
-
-                        if (!(geoQuery == null || geoQuery.equals(""))) {
-                            // System.out.println("geoQuery = " + geoQuery);
-                            List<ODocument> locations = queryBuilder.runOrientDBQuery(geoQuery);
-                            if (locations != null && locations.size() > 0) {
-                                StringBuilder locSb = new StringBuilder("@rid IN [");
-                                boolean first = true;
-
-                                for (ODocument location : locations) {
-                                    if (first) first = false;
-                                    else locSb.append(", ");
-                                    locSb.append((ORecordId) location.field("distinct", ORecordId.class));
-                                }
-                                locSb.append(']');
-
-                                constraints.add(locSb.toString());
-                            } else {
-                                // add dummy
-                                constraints.add("@rid = #-1:0");
-                            }
+                        SearchEngine searchEngine = queryBuilder.getSearchEngine();
+                        String shape = createShapeWkt(geo);
+
+                        if (searchEngine != null && shape != null) {
+                            // locations are indexed in search engine: get ids of all entities within shape
+                            Map<String, String> filters = new HashMap<>();
+                            filters.put("class", field.substring(0, 1).toUpperCase() + field.substring(1));
+                            filters.put("geo", shape);
+
+                            // search index contains uids - convert them to record ids
+                            List<String> ids = searchEngine.searchIds(null, filters).stream()
+                                    .map(AbstractSegradaEntity::convertUidToOrientId).filter(Objects::nonNull)
+                                    .collect(Collectors.toList());
+                            constraints.add(createRidConstraint(ids));
                         } else {
-                            // add dummy
-                            constraints.add("@rid = #-1:0");
+                            constraints.add(createRidConstraint(findParentsByOrientDBQuery(geo)));
                         }
                     }
                 }
@@ -157,6 +148,82 @@ public class QueryPartWorkerDynamicQuery implements QueryPartWorker {
         return null;
     }
 
+    /**
+     * convert geo shape data to WKT shape understood by search engine
+     * @param geo shape data: Circle (lat, lng, radius in meters), Rectangle or Polygon (coordinates as lat/lng pairs)
+     * @return WKT shape or null, if shape is not known
+     * @throws JSONException if data is not complete
+     */
+    static @Nullable String createShapeWkt(JSONObject geo) throws JSONException {
+        switch (geo.optString("shape")) {
+            case "Circle":
+                double radius = DistanceUtils.dist2Degrees(geo.getDouble("radius") / 1000, DistanceUtils.EARTH_MEAN_RADIUS_KM);
+                return "BUFFER(POINT(" + geo.getDouble("lng") + " " + geo.getDouble("lat") + "), " + radius + ")";
+            case "Rectangle": {
+                JSONArray coordinates = geo.getJSONArray("coordinates");
+                JSONArray sw = coordinates.getJSONArray(0);
+                JSONArray ne = coordinates.getJSONArray(1);
+                // ENVELOPE(minX, maxX, maxY, minY)
+                return "ENVELOPE(" + Math.min(sw.getDouble(1), ne.getDouble(1)) + ", " + Math.max(sw.getDouble(1), ne.getDouble(1)) + ", "
+                        + Math.max(sw.getDouble(0), ne.getDouble(0)) + ", " + Math.min(sw.getDouble(0), ne.getDouble(0)) + ")";
+            }
+            case "Polygon": {
+                JSONArray coordinates = geo.getJSONArray("coordinates");
+                if (coordinates.length() < 3) return null;
+
+                StringBuilder sb = new StringBuilder("POLYGON((");
+                for (int i = 0; i < coordinates.length(); i++) {
+                    JSONArray point = coordinates.getJSONArray(i);
+                    if (i > 0) sb.append(", ");
+                    sb.append(point.getDouble(1)).append(' ').append(point.getDouble(0));
+                }
+                // close ring
+                JSONArray first = coordinates.getJSONArray(0);
+                JSONArray last = coordinates.getJSONArray(coordinates.length() - 1);
+                if (first.getDouble(0) != last.getDouble(0) || first.getDouble(1) != last.getDouble(1))
+                    sb.append(", ").append(first.getDouble(1)).append(' ').append(first.getDouble(0));
+
+                return sb.append("))").toString();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * fallback if search engine is not available: find parents of locations using the OrientDB spatial index
+     * (polygons are not supported)
+     * @param geo shape data
+     * @return list of parent ids
+     * @throws JSONException if data is not complete
+     */
+    private List<String> findParentsByOrientDBQuery(JSONObject geo) throws JSONException {
+        // for more information, look here: http://orientdb.com/docs/2.2.x/Spatial-Index.html
+        String geoQuery = null;
+        switch (geo.optString("shape")) {
+            case "Circle":
+                double lat = geo.getDouble("lat");
+                double lng = geo.getDouble("lng");
+                double radius = geo.getDouble("radius");
+                geoQuery = "SELECT distinct(parent) FROM Location WHERE [latitude,longitude,$spatial] NEAR [" + lat + "," + lng + ",{\"maxDistance\": " + (radius / 1000) + "}]";
+                break;
+            case "Rectangle":
+                String coordinates = geo.getJSONArray("coordinates").toString();
+                geoQuery = "SELECT distinct(parent) FROM Location WHERE [latitude,longitude] WITHIN " + coordinates;
+                break;
+        }
+
+        List<String> ids = new ArrayList<>();
+        if (geoQuery != null) {
+            List<ODocument> locations = queryBuilder.runOrientDBQuery(geoQuery);
+            if (locations != null)
+                for (ODocument location : locations)
+                    ids.add(location.field("distinct", ORecordId.class).toString());
+        }
+
+        return ids;
+    }
+
     @Override
     public void setQueryBuilderReference(QueryBuilder queryBuilder) {
         this.queryBuilder = queryBuilder;
@@ -0,0 +1,154 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Order by a single field (or none) made unique by @rid, so pages can be continued from a cursor (the sort value and
+ * @rid of the last or first entity shown) instead of skipping all entities before them. OrientDB sorts null values
+ * first in ascending and last in descending order.
+ */
+public class KeysetOrder {
+	private static final Pattern FIELD_PATTERN = Pattern.compile("^[A-Za-z_][A-Za-z0-9_]*$");
+
+	/**
+	 * field to order by, null to order by @rid only
+	 */
+	private final String field;
+
+	private final boolean ascending;
+
+	private KeysetOrder(@Nullable String field, boolean ascending) {
+		this.field = field;
+		this.ascending = ascending;
+	}
+
+	/**
+	 * parse order
+	 * @param order order like "titleasc", "minJD DESC" or empty, with or without leading ORDER BY
+	 * @return keyset order or null, if order cannot be continued by cursor (e.g. several fields)
+	 */
+	public static @Nullable KeysetOrder parse(@Nullable String order) {
+		if (order == null) return new KeysetOrder(null, true);
+
+		order = order.trim();
+		if (order.toUpperCase().startsWith("ORDER BY")) order = order.substring(8).trim();
+		if (order.isEmpty()) return new KeysetOrder(null, true);
+		if (order.contains(",")) return null;
+
+		String[] parts = order.split("\\s+");
+		if (parts.length > 2 || !FIELD_PATTERN.matcher(parts[0]).matches()) return null;
+
+		boolean ascending = true;
+		if (parts.length == 2) {
+			if (parts[1].equalsIgnoreCase("desc")) ascending = false;
+			else if (!parts[1].equalsIgnoreCase("asc")) return null;
+		}
+
+		return new KeysetOrder(parts[0], ascending);
+	}
+
+	/**
+	 * @param reverse true to create reversed order (fetching previous page)
+	 * @return order string including leading ORDER BY
+	 */
+	public String toOrderBy(boolean reverse) {
+		String dir = ascending != reverse ? " ASC" : " DESC";
+
+		return " ORDER BY " + (field != null ? field + dir + ", " : "") + "@rid" + dir;
+	}
+
+	/**
+	 * create cursor pointing to document
+	 * @param document last (or first) document of page
+	 * @return cursor or null, if sort value cannot be used as cursor
+	 */
+	public @Nullable String createCursor(ODocument document) {
+		Object value = field != null ? document.field(field) : null;
+
+		String encodedValue;
+		if (value == null) encodedValue = "n";
+		else if (value instanceof String) encodedValue = "s" + value;
+		else if (value instanceof Long || value instanceof Integer || value instanceof Short) encodedValue = "l" + value;
+		else if (value instanceof Double || value instanceof Float) encodedValue = "d" + value;
+		else return null;
+
+		String cursor = (field != null ? field : "") + "\n" + (ascending ? "a" : "d") + "\n" + document.getIdentity() + "\n" + encodedValue;
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * create constraint selecting entities after cursor
+	 * @param cursor created by createCursor
+	 * @param reverse true to select entities before cursor (use with reversed order)
+	 * @param parameters query parameters to add cursor values to
+	 * @return constraint or null, if cursor is not valid for this order
+	 */
+	public @Nullable String createConstraint(String cursor, boolean reverse, Map<String, Object> parameters) {
+		String[] parts;
+		try {
+			parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 4);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		// cursor of different order?
+		if (parts.length != 4 || !parts[0].equals(field != null ? field : "") || !parts[1].equals(ascending ? "a" : "d"))
+			return null;
+
+		ORecordId rid = new ORecordId();
+		try {
+			rid.fromString(parts[2]);
+		} catch (RuntimeException e) {
+			return null;
+		}
+		if (!rid.isValid()) return null;
+
+		Object value;
+		try {
+			switch (parts[3].charAt(0)) {
+				case 'n': value = null; break;
+				case 's': value = parts[3].substring(1); break;
+				case 'l': value = Long.valueOf(parts[3].substring(1)); break;
+				case 'd': value = Double.valueOf(parts[3].substring(1)); break;
+				default: return null;
+			}
+		} catch (RuntimeException e) {
+			return null;
+		}
+
+		boolean asc = ascending != reverse;
+		parameters.put("keysetRid", rid);
+		if (field == null) return "@rid " + (asc ? ">" : "<") + " :keysetRid";
+
+		if (value == null) {
+			// nulls come first in ascending order
+			if (asc) return "(" + field + " IS NOT NULL OR (" + field + " IS NULL AND @rid > :keysetRid))";
+			return "(" + field + " IS NULL AND @rid < :keysetRid)";
+		}
+
+		parameters.put("keysetValue", value);
+		if (asc) return "(" + field + " > :keysetValue OR (" + field + " = :keysetValue AND @rid > :keysetRid))";
+		return "(" + field + " < :keysetValue OR (" + field + " = :keysetValue AND @rid < :keysetRid) OR " + field + " IS NULL)";
+	}
+}
@@ -0,0 +1,148 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.segrada.session.ApplicationSettings;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Short-lived cache of paginated counts per class and constraint set. Writes to a class drop its counts, writes
+ * changing constraints of other classes (e.g. tag connections) drop all counts - anything missed expires after a few
+ * seconds.
+ */
+@Singleton
+public class OrientDbCountCache {
+	/**
+	 * maximum number of counts cached per class
+	 */
+	private static final int MAX_ENTRIES_PER_CLASS = 1000;
+
+	/**
+	 * time to live in milliseconds, 0 to disable cache
+	 */
+	private final long timeToLive;
+
+	/**
+	 * counts per class and constraint
+	 */
+	private final Map<String, Map<String, Entry>> counts = new ConcurrentHashMap<>();
+
+	/**
+	 * incremented on each invalidation - counts started before are not cached
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * Constructor
+	 * @param settings application settings
+	 */
+	@Inject
+	public OrientDbCountCache(ApplicationSettings settings) {
+		this(settings.getSettingAsInteger("orientDB.countCacheSeconds", 10) * 1000L);
+	}
+
+	/**
+	 * Constructor
+	 * @param timeToLive in milliseconds, 0 to disable cache
+	 */
+	public OrientDbCountCache(long timeToLive) {
+		this.timeToLive = Math.max(0L, timeToLive);
+	}
+
+	/**
+	 * @return true if counts are cached at all
+	 */
+	public boolean isEnabled() {
+		return timeToLive > 0;
+	}
+
+	/**
+	 * @return current generation, to be passed to put after counting
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * get cached count
+	 * @param className class counted
+	 * @param constraint constraint string of count query
+	 * @return count or null if not cached or expired
+	 */
+	public @Nullable Integer get(String className, String constraint) {
+		if (!isEnabled()) return null;
+
+		Map<String, Entry> classCounts = counts.get(className);
+		if (classCounts == null) return null;
+
+		Entry entry = classCounts.get(constraint);
+		if (entry == null) return null;
+		if (entry.expires < System.currentTimeMillis()) {
+			classCounts.remove(constraint, entry);
+			return null;
+		}
+
+		return entry.count;
+	}
+
+	/**
+	 * cache count
+	 * @param className class counted
+	 * @param constraint constraint string of count query
+	 * @param count number of entities
+	 * @param generation generation before counting - count is dropped if the cache has been invalidated since
+	 */
+	public void put(String className, String constraint, int count, long generation) {
+		if (!isEnabled()) return;
+
+		Map<String, Entry> classCounts = counts.computeIfAbsent(className, k -> new ConcurrentHashMap<>());
+		if (classCounts.size() >= MAX_ENTRIES_PER_CLASS) classCounts.clear();
+		classCounts.put(constraint, new Entry(count, System.currentTimeMillis() + timeToLive));
+
+		// invalidated while counting?
+		if (this.generation.get() != generation) classCounts.remove(constraint);
+	}
+
+	/**
+	 * drop counts of a class
+	 * @param className class written to, null to drop all counts
+	 */
+	public void invalidate(@Nullable String className) {
+		generation.incrementAndGet();
+
+		if (className == null) counts.clear();
+		else counts.remove(className);
+	}
+
+	/**
+	 * cached count
+	 */
+	private static class Entry {
+		private final int count;
+
+		private final long expires;
+
+		Entry(int count, long expires) {
+			this.count = count;
+			this.expires = expires;
+		}
+	}
+}
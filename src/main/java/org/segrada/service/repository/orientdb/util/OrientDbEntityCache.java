@@ -0,0 +1,362 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.id.ORID;
+import org.segrada.model.prototype.SegradaEntity;
+import org.segrada.session.ApplicationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Cache of converted entities shared by all requests, keyed by record id and valid for the record version they have
+ * been converted from. Entities are deep copied when put and when taken, including nested entities, so callers may
+ * change them freely. Lazy loading proxies are bound to the request that converted the entity, so they are dropped
+ * from copies and have to be replaced by the repository.
+ */
+@Singleton
+public class OrientDbEntityCache {
+	private static final Logger logger = LoggerFactory.getLogger(OrientDbEntityCache.class);
+
+	/**
+	 * cache of a single class
+	 */
+	public static class ClassCache {
+		/**
+		 * maximum number of entries, 0 for no limit
+		 */
+		private final int maxEntries;
+
+		/**
+		 * entries in access order
+		 */
+		private final LinkedHashMap<ORID, Entry> entries;
+
+		/**
+		 * counters
+		 */
+		private final AtomicLong hits = new AtomicLong();
+		private final AtomicLong misses = new AtomicLong();
+		private final AtomicLong evictions = new AtomicLong();
+		private final AtomicLong invalidations = new AtomicLong();
+
+		/**
+		 * Constructor
+		 * @param maxEntries maximum number of entries, 0 for no limit
+		 */
+		public ClassCache(int maxEntries) {
+			this.maxEntries = maxEntries;
+			this.entries = new LinkedHashMap<ORID, Entry>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<ORID, Entry> eldest) {
+					if (ClassCache.this.maxEntries > 0 && size() > ClassCache.this.maxEntries) {
+						evictions.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		/**
+		 * @param rid record id
+		 * @param version current version of record
+		 * @return cached entity or null, if not cached or older version
+		 */
+		synchronized @Nullable SegradaEntity get(ORID rid, int version) {
+			Entry entry = entries.get(rid);
+			if (entry != null && entry.version != version) {
+				entries.remove(rid);
+				invalidations.incrementAndGet();
+				entry = null;
+			}
+
+			if (entry == null) {
+				misses.incrementAndGet();
+				return null;
+			}
+
+			hits.incrementAndGet();
+			return entry.entity;
+		}
+
+		synchronized void put(ORID rid, int version, SegradaEntity entity) {
+			entries.put(rid, new Entry(version, entity));
+		}
+
+		synchronized void remove(ORID rid) {
+			if (entries.remove(rid) != null) invalidations.incrementAndGet();
+		}
+
+		synchronized void clear() {
+			if (!entries.isEmpty()) invalidations.incrementAndGet();
+			entries.clear();
+		}
+
+		public synchronized int size() {
+			return entries.size();
+		}
+
+		public int getMaxEntries() {
+			return maxEntries;
+		}
+
+		public long getHits() {
+			return hits.get();
+		}
+
+		public long getMisses() {
+			return misses.get();
+		}
+
+		/**
+		 * @return ratio of hits to all lookups, 0 if there were none
+		 */
+		public double getHitRate() {
+			long hits = this.hits.get();
+			long total = hits + misses.get();
+			return total == 0 ? 0d : (double) hits / total;
+		}
+
+		public long getEvictions() {
+			return evictions.get();
+		}
+
+		/**
+		 * @return number of entries (or whole caches) dropped because of writes or newer versions
+		 */
+		public long getInvalidations() {
+			return invalidations.get();
+		}
+	}
+
+	/**
+	 * cached entity
+	 */
+	private static class Entry {
+		private final int version;
+
+		private final SegradaEntity entity;
+
+		Entry(int version, SegradaEntity entity) {
+			this.version = version;
+			this.entity = entity;
+		}
+	}
+
+	/**
+	 * caches per class name
+	 */
+	private final Map<String, ClassCache> classCaches;
+
+	/**
+	 * Constructor
+	 * @param settings application settings
+	 */
+	@Inject
+	public OrientDbEntityCache(ApplicationSettings settings) {
+		this(settings.getSetting("orientDB.entityCache"));
+	}
+
+	/**
+	 * Constructor
+	 * @param definition comma separated class names to cache, "Class" caches all entities of a class, "Class:1000"
+	 *                   the 1000 entities used last - null or empty to disable cache
+	 */
+	public OrientDbEntityCache(@Nullable String definition) {
+		Map<String, ClassCache> classCaches = new HashMap<>();
+
+		if (definition != null) {
+			for (String part : definition.split(",")) {
+				part = part.trim();
+				if (part.isEmpty()) continue;
+
+				int maxEntries = 0;
+				int pos = part.indexOf(':');
+				if (pos > 0) {
+					try {
+						maxEntries = Integer.parseInt(part.substring(pos + 1).trim());
+					} catch (NumberFormatException e) {
+						logger.warn("Invalid entity cache size for " + part + " - caching all entities.");
+					}
+					part = part.substring(0, pos).trim();
+				}
+
+				classCaches.put(part, new ClassCache(Math.max(0, maxEntries)));
+			}
+		}
+
+		this.classCaches = Collections.unmodifiableMap(classCaches);
+	}
+
+	/**
+	 * @param className name of class
+	 * @return true if entities of class are cached
+	 */
+	public boolean isCached(String className) {
+		return classCaches.containsKey(className);
+	}
+
+	/**
+	 * get copy of cached entity
+	 * @param className name of class
+	 * @param rid record id
+	 * @param version current version of record
+	 * @return copy of entity or null, if not cached for this version
+	 */
+	@SuppressWarnings("unchecked")
+	public @Nullable <T extends SegradaEntity> T get(String className, ORID rid, int version) {
+		ClassCache classCache = classCaches.get(className);
+		if (classCache == null) return null;
+
+		SegradaEntity entity = classCache.get(rid, version);
+		return entity != null ? (T) copy(entity) : null;
+	}
+
+	/**
+	 * cache copy of entity
+	 * @param className name of class
+	 * @param rid record id
+	 * @param version version of record the entity has been converted from
+	 * @param entity converted entity
+	 */
+	public void put(String className, ORID rid, int version, SegradaEntity entity) {
+		ClassCache classCache = classCaches.get(className);
+		if (classCache == null) return;
+
+		SegradaEntity copy = copy(entity);
+		if (copy != null) classCache.put(rid, version, copy);
+	}
+
+	/**
+	 * drop single entity
+	 * @param rid record id of entity written to or deleted
+	 */
+	public void invalidate(ORID rid) {
+		for (ClassCache classCache : classCaches.values())
+			classCache.remove(rid);
+	}
+
+	/**
+	 * drop entities of a class
+	 * @param className name of class
+	 */
+	public void invalidateClass(String className) {
+		ClassCache classCache = classCaches.get(className);
+		if (classCache != null) classCache.clear();
+	}
+
+	/**
+	 * drop all entities
+	 */
+	public void clear() {
+		for (ClassCache classCache : classCaches.values())
+			classCache.clear();
+	}
+
+	/**
+	 * @return caches per class name, for statistics
+	 */
+	public Map<String, ClassCache> getClassCaches() {
+		return classCaches;
+	}
+
+	/**
+	 * deep copy entity field by field - nested entities, collections and arrays are copied as well, lazy loading proxies
+	 * are dropped
+	 * @param entity to copy
+	 * @return copy or null, if entity could not be copied
+	 */
+	private static @Nullable SegradaEntity copy(SegradaEntity entity) {
+		try {
+			return copy(entity, new IdentityHashMap<>());
+		} catch (Exception e) {
+			logger.error("Could not copy entity " + entity.getClass().getName() + " for entity cache.", e);
+		}
+		return null;
+	}
+
+	/**
+	 * @param entity to copy
+	 * @param copies entities copied so far, to keep shared and cyclic references intact
+	 * @return copy of entity
+	 */
+	private static SegradaEntity copy(SegradaEntity entity, Map<Object, Object> copies) throws Exception {
+		Object existing = copies.get(entity);
+		if (existing != null) return (SegradaEntity) existing;
+
+		SegradaEntity copy = entity.getClass().newInstance();
+		copies.put(entity, copy);
+
+		for (Class<?> clazz = entity.getClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) continue;
+				field.setAccessible(true);
+				field.set(copy, copyValue(field.get(entity), copies));
+			}
+		}
+
+		return copy;
+	}
+
+	/**
+	 * @param value field value
+	 * @param copies entities copied so far
+	 * @return copy of entities and mutable containers, null for lazy loading proxies, value itself otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object copyValue(Object value, Map<Object, Object> copies) throws Exception {
+		if (value == null || Proxy.isProxyClass(value.getClass())) return null;
+
+		if (value instanceof SegradaEntity) return copy((SegradaEntity) value, copies);
+		if (value instanceof EnumSet) return ((EnumSet) value).clone();
+		if (value instanceof Collection) {
+			Collection<Object> copy;
+			if (value instanceof SortedSet) copy = new TreeSet<>(((SortedSet) value).comparator());
+			else if (value instanceof Set) copy = new LinkedHashSet<>();
+			else copy = new ArrayList<>(((Collection) value).size());
+			for (Object element : (Collection<Object>) value)
+				if (element == null || !Proxy.isProxyClass(element.getClass())) copy.add(copyValue(element, copies));
+			return copy;
+		}
+		if (value instanceof Map) {
+			Map<Object, Object> copy = value instanceof SortedMap ? new TreeMap<>(((SortedMap) value).comparator()) : new LinkedHashMap<>();
+			for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) value).entrySet())
+				copy.put(entry.getKey(), copyValue(entry.getValue(), copies));
+			return copy;
+		}
+		if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Class<?> componentType = value.getClass().getComponentType();
+			Object copy = Array.newInstance(componentType, length);
+			if (componentType.isPrimitive()) System.arraycopy(value, 0, copy, 0, length);
+			else for (int i = 0; i < length; i++)
+				Array.set(copy, i, copyValue(Array.get(value, i), copies));
+			return copy;
+		}
+
+		return value;
+	}
+}
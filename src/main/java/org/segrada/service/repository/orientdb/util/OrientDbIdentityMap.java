@@ -0,0 +1,115 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.orientechnologies.orient.core.id.ORID;
+import org.segrada.model.prototype.SegradaEntity;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Entities converted during a single request by record id, so each record becomes one entity object per request. Lazy
+ * loading proxies are kept as well, until the record itself is converted. Not thread safe - bound to the request
+ * scope like the database instance.
+ */
+public class OrientDbIdentityMap {
+	/**
+	 * version of lazy loading proxies, which have not been checked against the record
+	 */
+	private static final int LAZY = -1;
+
+	/**
+	 * converted entity or proxy
+	 */
+	private static class Entry {
+		private final int version;
+
+		private final SegradaEntity entity;
+
+		Entry(int version, SegradaEntity entity) {
+			this.version = version;
+			this.entity = entity;
+		}
+	}
+
+	private final Map<ORID, Entry> entries = new HashMap<>();
+
+	/**
+	 * get entity converted from record
+	 * @param rid record id
+	 * @param version current version of record
+	 * @return entity or null, if not converted in this request or from older version
+	 */
+	@SuppressWarnings("unchecked")
+	public @Nullable <T extends SegradaEntity> T get(ORID rid, int version) {
+		Entry entry = entries.get(rid);
+
+		return entry != null && entry.version == version ? (T) entry.entity : null;
+	}
+
+	/**
+	 * get entity or lazy loading proxy of record, without checking the version
+	 * @param rid record id
+	 * @return entity, proxy or null
+	 */
+	public @Nullable SegradaEntity getAny(ORID rid) {
+		Entry entry = entries.get(rid);
+
+		return entry != null ? entry.entity : null;
+	}
+
+	/**
+	 * @param rid record id
+	 * @param version version of record the entity has been converted from
+	 * @param entity converted entity
+	 */
+	public void put(ORID rid, int version, SegradaEntity entity) {
+		entries.put(rid, new Entry(version, entity));
+	}
+
+	/**
+	 * add lazy loading proxy - replaced as soon as the record is converted
+	 * @param rid record id
+	 * @param proxy lazy loading proxy
+	 */
+	public void putLazy(ORID rid, SegradaEntity proxy) {
+		if (!entries.containsKey(rid)) entries.put(rid, new Entry(LAZY, proxy));
+	}
+
+	/**
+	 * @param rid record id of entity written to or deleted
+	 */
+	public void remove(ORID rid) {
+		entries.remove(rid);
+	}
+
+	/**
+	 * remove converted entities of a class - proxies are kept, since they would be loaded to check
+	 * @param modelName model name of entities, e.g. Relation
+	 */
+	public void removeClass(String modelName) {
+		entries.values().removeIf(entry -> entry.version != LAZY && modelName.equals(entry.entity.getModelName()));
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+}
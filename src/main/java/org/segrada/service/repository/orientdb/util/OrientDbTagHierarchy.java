@@ -0,0 +1,462 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.google.inject.Singleton;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copyright 2015-2021 Maximilian Kalus [segrada@auxnet.de]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Tags connected to other tags (IsTagOf edges between tags) held in memory, including the transitive closure as bit
+ * sets of ancestors and descendants per tag. Loaded from the database on first use and kept up to date by the tag
+ * repository - tags without parent or child tags are not contained.
+ */
+@Singleton
+public class OrientDbTagHierarchy {
+	private static final Logger logger = LoggerFactory.getLogger(OrientDbTagHierarchy.class);
+
+	/**
+	 * tag in hierarchy
+	 */
+	private static class TagEntry {
+		private final ORID id;
+
+		/**
+		 * position in entries and bit sets
+		 */
+		private final int index;
+
+		/**
+		 * direct children and parents in order of connection
+		 */
+		private final List<TagEntry> children = new ArrayList<>();
+		private final List<TagEntry> parents = new ArrayList<>();
+
+		/**
+		 * transitive closure
+		 */
+		private final BitSet descendants = new BitSet();
+		private final BitSet ancestors = new BitSet();
+
+		TagEntry(ORID id, int index) {
+			this.id = id;
+			this.index = index;
+		}
+	}
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * tags by id
+	 */
+	private final Map<ORID, TagEntry> tags = new HashMap<>();
+
+	/**
+	 * tags by index, null for removed tags
+	 */
+	private final List<TagEntry> entries = new ArrayList<>();
+
+	private boolean loaded = false;
+
+	/**
+	 * @return true if hierarchy has been loaded from database
+	 */
+	public boolean isLoaded() {
+		lock.readLock().lock();
+		try {
+			return loaded;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * load hierarchy, if not loaded yet
+	 * @param db database instance
+	 * @return this instance
+	 */
+	public OrientDbTagHierarchy loadIfNeeded(ODatabaseDocumentTx db) {
+		if (!isLoaded()) {
+			lock.writeLock().lock();
+			try {
+				if (!loaded) loadUnlocked(db);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * (re)load hierarchy from database
+	 * @param db database instance
+	 */
+	public void load(ODatabaseDocumentTx db) {
+		lock.writeLock().lock();
+		try {
+			loadUnlocked(db);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void loadUnlocked(ODatabaseDocumentTx db) {
+		tags.clear();
+		entries.clear();
+
+		OClass tagClass = db.getMetadata().getSchema().getClass("Tag");
+		if (tagClass != null && db.getMetadata().getSchema().existsClass("IsTagOf")) {
+			// tags are recognized by their clusters, so vertices do not have to be loaded
+			Set<Integer> tagClusters = new HashSet<>();
+			for (int clusterId : tagClass.getPolymorphicClusterIds())
+				tagClusters.add(clusterId);
+
+			int edges = 0;
+			for (ODocument edge : db.browseClass("IsTagOf")) {
+				OIdentifiable parent = edge.rawField("out");
+				OIdentifiable child = edge.rawField("in");
+				if (parent == null || child == null || !tagClusters.contains(parent.getIdentity().getClusterId())
+						|| !tagClusters.contains(child.getIdentity().getClusterId()))
+					continue;
+
+				if (connectUnlocked(parent.getIdentity(), child.getIdentity())) edges++;
+				else logger.warn("Skipping circular tag connection " + parent.getIdentity() + " => " + child.getIdentity());
+			}
+
+			if (logger.isInfoEnabled())
+				logger.info("Loaded tag hierarchy: " + tags.size() + " tags, " + edges + " connections.");
+		}
+
+		loaded = true;
+	}
+
+	/**
+	 * drop hierarchy - it is loaded again on next use
+	 */
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			tags.clear();
+			entries.clear();
+			loaded = false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return number of tags in hierarchy
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return tags.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param ancestor id of possible ancestor
+	 * @param descendant id of possible descendant
+	 * @return true if descendant is a child, grand child, etc. of ancestor
+	 */
+	public boolean isAncestorOf(ORID ancestor, ORID descendant) {
+		lock.readLock().lock();
+		try {
+			TagEntry ancestorEntry = tags.get(ancestor);
+			TagEntry descendantEntry = tags.get(descendant);
+
+			return ancestorEntry != null && descendantEntry != null && ancestorEntry.descendants.get(descendantEntry.index);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param parent id of parent tag
+	 * @param child id of child tag
+	 * @return true if tags are connected directly
+	 */
+	public boolean isConnected(ORID parent, ORID child) {
+		lock.readLock().lock();
+		try {
+			TagEntry parentEntry = tags.get(parent);
+			TagEntry childEntry = tags.get(child);
+
+			return parentEntry != null && childEntry != null && parentEntry.children.contains(childEntry);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id of tag
+	 * @return direct child tags in order of connection
+	 */
+	public List<ORID> getChildren(ORID id) {
+		lock.readLock().lock();
+		try {
+			TagEntry entry = tags.get(id);
+
+			return entry != null ? toIds(entry.children) : new ArrayList<>();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id of tag
+	 * @return direct parent tags in order of connection
+	 */
+	public List<ORID> getParents(ORID id) {
+		lock.readLock().lock();
+		try {
+			TagEntry entry = tags.get(id);
+
+			return entry != null ? toIds(entry.parents) : new ArrayList<>();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id of tag
+	 * @return all descendants depth first, each once, tag itself not included
+	 */
+	public List<ORID> getDescendants(ORID id) {
+		lock.readLock().lock();
+		try {
+			List<ORID> list = new ArrayList<>();
+
+			TagEntry entry = tags.get(id);
+			if (entry != null) {
+				BitSet visited = new BitSet();
+				visited.set(entry.index);
+
+				// depth first like OrientDB's traverse
+				Deque<TagEntry> stack = new ArrayDeque<>();
+				pushReversed(stack, entry.children);
+				while (!stack.isEmpty()) {
+					TagEntry current = stack.pop();
+					if (visited.get(current.index)) continue;
+					visited.set(current.index);
+
+					list.add(current.id);
+					pushReversed(stack, current.children);
+				}
+			}
+
+			return list;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id of tag
+	 * @return all ancestors, tag itself not included
+	 */
+	public List<ORID> getAncestors(ORID id) {
+		lock.readLock().lock();
+		try {
+			List<ORID> list = new ArrayList<>();
+
+			TagEntry entry = tags.get(id);
+			if (entry != null)
+				for (int i = entry.ancestors.nextSetBit(0); i >= 0; i = entry.ancestors.nextSetBit(i + 1))
+					list.add(entries.get(i).id);
+
+			return list;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * add connection of two tags - ignored if hierarchy has not been loaded yet, because it is contained when loading
+	 * @param parent id of parent tag
+	 * @param child id of child tag
+	 * @return false if connection would create a circle
+	 */
+	public boolean connect(ORID parent, ORID child) {
+		lock.writeLock().lock();
+		try {
+			return !loaded || connectUnlocked(parent, child);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private boolean connectUnlocked(ORID parent, ORID child) {
+		if (parent.equals(child)) return false;
+
+		TagEntry parentEntry = getOrCreate(parent);
+		TagEntry childEntry = getOrCreate(child);
+
+		if (parentEntry.children.contains(childEntry)) return true;
+		if (childEntry.descendants.get(parentEntry.index)) return false;
+
+		parentEntry.children.add(childEntry);
+		childEntry.parents.add(parentEntry);
+
+		// parent and its ancestors get child and its descendants...
+		BitSet descendants = (BitSet) childEntry.descendants.clone();
+		descendants.set(childEntry.index);
+		BitSet ancestors = (BitSet) parentEntry.ancestors.clone();
+		ancestors.set(parentEntry.index);
+
+		for (int i = ancestors.nextSetBit(0); i >= 0; i = ancestors.nextSetBit(i + 1))
+			entries.get(i).descendants.or(descendants);
+		// ...and the other way round
+		for (int i = descendants.nextSetBit(0); i >= 0; i = descendants.nextSetBit(i + 1))
+			entries.get(i).ancestors.or(ancestors);
+
+		return true;
+	}
+
+	/**
+	 * remove connection of two tags
+	 * @param parent id of parent tag
+	 * @param child id of child tag
+	 */
+	public void disconnect(ORID parent, ORID child) {
+		lock.writeLock().lock();
+		try {
+			TagEntry parentEntry = tags.get(parent);
+			TagEntry childEntry = tags.get(child);
+			if (parentEntry == null || childEntry == null || !parentEntry.children.remove(childEntry)) return;
+			childEntry.parents.remove(parentEntry);
+
+			// closure of parent and its ancestors as well as child and its descendants has to be recalculated
+			BitSet ancestors = (BitSet) parentEntry.ancestors.clone();
+			ancestors.set(parentEntry.index);
+			BitSet descendants = (BitSet) childEntry.descendants.clone();
+			descendants.set(childEntry.index);
+
+			recalculate(ancestors, true);
+			recalculate(descendants, false);
+
+			removeIfUnconnected(parentEntry);
+			removeIfUnconnected(childEntry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * remove tag and its connections, e.g. when it has been deleted
+	 * @param id of tag
+	 */
+	public void remove(ORID id) {
+		lock.writeLock().lock();
+		try {
+			TagEntry entry = tags.get(id);
+			if (entry == null) return;
+
+			List<TagEntry> neighbours = new ArrayList<>(entry.children);
+			neighbours.addAll(entry.parents);
+			for (TagEntry child : entry.children)
+				child.parents.remove(entry);
+			for (TagEntry parent : entry.parents)
+				parent.children.remove(entry);
+			entry.children.clear();
+			entry.parents.clear();
+
+			recalculate(entry.ancestors, true);
+			recalculate(entry.descendants, false);
+
+			for (TagEntry neighbour : neighbours)
+				removeIfUnconnected(neighbour);
+			removeIfUnconnected(entry);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * recalculate closure of tags - closures of other tags have to be correct
+	 * @param indexes tags to recalculate
+	 * @param descendants true to recalculate descendants, false for ancestors
+	 */
+	private void recalculate(BitSet indexes, boolean descendants) {
+		for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1))
+			closure(entries.get(i), descendants).clear();
+
+		BitSet done = new BitSet();
+		for (int i = indexes.nextSetBit(0); i >= 0; i = indexes.nextSetBit(i + 1))
+			recalculate(entries.get(i), indexes, done, descendants);
+	}
+
+	private void recalculate(TagEntry entry, BitSet indexes, BitSet done, boolean descendants) {
+		if (done.get(entry.index)) return;
+		done.set(entry.index);
+
+		BitSet closure = closure(entry, descendants);
+		for (TagEntry next : descendants ? entry.children : entry.parents) {
+			if (indexes.get(next.index)) recalculate(next, indexes, done, descendants);
+			closure.set(next.index);
+			closure.or(closure(next, descendants));
+		}
+	}
+
+	private static BitSet closure(TagEntry entry, boolean descendants) {
+		return descendants ? entry.descendants : entry.ancestors;
+	}
+
+	private TagEntry getOrCreate(ORID id) {
+		TagEntry entry = tags.get(id);
+		if (entry == null) {
+			// ids should not change, but copy them to be sure
+			entry = new TagEntry(id.copy(), entries.size());
+			tags.put(entry.id, entry);
+			entries.add(entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * tags without connections are not kept - index is not reused until the hierarchy is loaded again
+	 * @param entry to check
+	 */
+	private void removeIfUnconnected(TagEntry entry) {
+		if (entry.children.isEmpty() && entry.parents.isEmpty() && tags.remove(entry.id) != null)
+			entries.set(entry.index, null);
+	}
+
+	private static List<ORID> toIds(List<TagEntry> entries) {
+		List<ORID> list = new ArrayList<>(entries.size());
+		for (TagEntry entry : entries)
+			list.add(entry.id);
+
+		return list;
+	}
+
+	private static void pushReversed(Deque<TagEntry> stack, List<TagEntry> entries) {
+		for (int i = entries.size() - 1; i >= 0; i--)
+			stack.push(entries.get(i));
+	}
+}
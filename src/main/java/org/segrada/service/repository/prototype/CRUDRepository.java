@@ -49,6 +49,14 @@ public interface CRUDRepository<T extends SegradaEntity> extends SegradaReposito
 	 */
 	List<T> findNextEntriesFrom(String uid, int number);
 
+	/**
+	 * Find uids of next entries starting from uid (or first if uid is null) up to number entries - does not load entities
+	 * @param uid to start with or null for first entry
+	 * @param number maximum number of entries
+	 * @return list of uids (empty if none exist)
+	 */
+	List<String> findNextUidsFrom(String uid, int number);
+
 	/**
 	 * find single instance by id
 	 * @param id of entity to find
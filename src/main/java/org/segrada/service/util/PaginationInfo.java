@@ -2,6 +2,7 @@ package org.segrada.service.util;
 
 import org.segrada.model.prototype.SegradaEntity;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 /**
@@ -47,15 +48,31 @@ public class PaginationInfo<T extends SegradaEntity> {
 	 */
 	private final List<T> entities;
 
+	/**
+	 * cursors of next and previous page, null if pages have to be fetched by number
+	 */
+	private final String nextCursor;
+
+	private final String previousCursor;
+
 	/**
 	 * constructor
 	 */
 	public PaginationInfo(int page, int pages, int total, int entriesPerPage, List<T> entities) {
+		this(page, pages, total, entriesPerPage, entities, null, null);
+	}
+
+	/**
+	 * constructor including cursors of neighbouring pages
+	 */
+	public PaginationInfo(int page, int pages, int total, int entriesPerPage, List<T> entities, @Nullable String nextCursor, @Nullable String previousCursor) {
 		this.page = page;
 		this.pages = pages;
 		this.total = total;
 		this.entriesPerPage = entriesPerPage;
 		this.entities = entities;
+		this.nextCursor = nextCursor;
+		this.previousCursor = previousCursor;
 	}
 
 	/**
@@ -126,4 +143,12 @@ public class PaginationInfo<T extends SegradaEntity> {
 	public List<T> getEntities() {
 		return entities;
 	}
+
+	public @Nullable String getNextCursor() {
+		return nextCursor;
+	}
+
+	public @Nullable String getPreviousCursor() {
+		return previousCursor;
+	}
 }
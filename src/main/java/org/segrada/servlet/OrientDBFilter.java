@@ -16,9 +16,14 @@ import org.segrada.model.User;
 import org.segrada.model.UserGroup;
 import org.segrada.model.prototype.IUser;
 import org.segrada.model.prototype.IUserGroup;
+import org.segrada.search.SearchEngine;
+import org.segrada.search.SearchIndexQueue;
 import org.segrada.search.lucene.LuceneSearchEngine;
+import org.segrada.search.solr.SolrSearchEngine;
+import org.segrada.service.ReindexService;
 import org.segrada.service.repository.RememberMeRepository;
 import org.segrada.service.repository.orientdb.init.OrientDbSchemaUpdater;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.segrada.session.ApplicationSettings;
 import org.segrada.session.Identity;
 import org.segrada.util.PasswordEncoder;
@@ -94,6 +99,15 @@ public class OrientDBFilter implements Filter {
 		updater.initializeDatabase();
 		updater.buildOrUpdateSchema();
 		updater.populateWithData(passwordEncoder);
+		updater.updateFullTextIndexes("searchEngine".equalsIgnoreCase(applicationSettings.getSetting("orientDB.fullText")));
+
+		// load tag hierarchy
+		ODatabaseDocumentTx db = orientGraphFactory.getDatabase();
+		try {
+			injector.getInstance(OrientDbTagHierarchy.class).load(db);
+		} finally {
+			db.close();
+		}
 
 		// add exclude patterns
 		String pattern = filterConfig.getInitParameter("excludePatterns");
@@ -247,6 +261,13 @@ public class OrientDBFilter implements Filter {
 		// set server status
 		SegradaApplication.setServerStatus(SegradaApplication.STATUS_STOPPING);
 
+		// stop reindexing before database and search engine are closed
+		try {
+			injector.getInstance(ReindexService.class).shutdown();
+		} catch (Exception e) {
+			logger.warn("Could not shut down ReindexService properly.", e);
+		}
+
 		try {
 			OrientGraphFactory orientGraphFactory = injector.getInstance(OrientGraphFactory.class);
 			if (orientGraphFactory != null) {
@@ -262,14 +283,29 @@ public class OrientDBFilter implements Filter {
 
 		logger.info("OrientDB has been shut down.");
 
+		// write pending search index updates
+		try {
+			injector.getInstance(SearchIndexQueue.class).shutdown();
+		} catch (Exception e) {
+			logger.warn("Could not shut down SearchIndexQueue properly.", e);
+		}
+
 		// also shut down lucene
 		try {
-			LuceneSearchEngine luceneSearchEngine = injector.getInstance(LuceneSearchEngine.class);
-			luceneSearchEngine.destroy();
+			// get bound singleton instance - the engine keeps its index writer open
+			SearchEngine searchEngine = injector.getInstance(SearchEngine.class);
+			if (searchEngine instanceof LuceneSearchEngine) {
+				((LuceneSearchEngine) searchEngine).destroy();
+
+				logger.info("LuceneSearchEngine has been shut down.");
+			} else if (searchEngine instanceof SolrSearchEngine) {
+				// send buffered updates
+				((SolrSearchEngine) searchEngine).destroy();
 
-			logger.info("LuceneSearchEngine has been shut down.");
+				logger.info("SolrSearchEngine has been shut down.");
+			}
 		} catch (Exception e) {
-			logger.warn("Could not shut down LuceneSearchEngine properly.", e);
+			logger.warn("Could not shut down search engine properly.", e);
 		}
 
 		// remove injector
@@ -49,8 +49,29 @@ public class ApplicationSettingsProperties implements ApplicationSettings {
 		buildMap.put("SEGRADA_ORIENTDB_PASSWORD", "orientDB.password");
 		buildMap.put("SEGRADA_ORIENTDB_REMOTE_ROOT", "orientDB.remote_root");
 		buildMap.put("SEGRADA_ORIENTDB_REMOTE_PASSWORD", "orientDB.remote_pw");
+		buildMap.put("SEGRADA_ORIENTDB_FULL_TEXT", "orientDB.fullText");
+		buildMap.put("SEGRADA_ORIENTDB_FULL_TEXT_MAX_HITS", "orientDB.fullText.maxHits");
+		buildMap.put("SEGRADA_ORIENTDB_COUNT_CACHE_SECONDS", "orientDB.countCacheSeconds");
+		buildMap.put("SEGRADA_ORIENTDB_ENTITY_CACHE", "orientDB.entityCache");
 		buildMap.put("SEGRADA_REQUIRE_LOGIN", "requireLogin");
 		buildMap.put("SEGRADA_LUCENE_ANALYZER", "lucene.analyzer");
+		buildMap.put("SEGRADA_LUCENE_DIRECTORY", "lucene.directory");
+		buildMap.put("SEGRADA_LUCENE_DIRECTORY_MMAP_EXTENSIONS", "lucene.directory.mmapExtensions");
+		buildMap.put("SEGRADA_LUCENE_RAM_BUFFER_SIZE_MB", "lucene.ramBufferSizeMB");
+		buildMap.put("SEGRADA_LUCENE_MERGE_POLICY", "lucene.mergePolicy");
+		buildMap.put("SEGRADA_LUCENE_MAX_MERGED_SEGMENT_MB", "lucene.maxMergedSegmentMB");
+		buildMap.put("SEGRADA_LUCENE_MERGE_THROTTLE", "lucene.mergeThrottle");
+		buildMap.put("SEGRADA_LUCENE_MERGE_THREADS", "lucene.mergeThreads");
+		buildMap.put("SEGRADA_LUCENE_SEARCH_THREADS", "lucene.searchThreads");
+		buildMap.put("SEGRADA_LUCENE_HIGHLIGHTER", "lucene.highlighter");
+		buildMap.put("SEGRADA_SEARCH_INDEX_QUEUE_CAPACITY", "search.indexQueue.capacity");
+		buildMap.put("SEGRADA_SEARCH_INDEX_QUEUE_BATCH_SIZE", "search.indexQueue.batchSize");
+		buildMap.put("SEGRADA_SEARCH_INDEX_QUEUE_MAX_LATENCY", "search.indexQueue.maxLatency");
+		buildMap.put("SEGRADA_SEARCH_INDEX_QUEUE_RETRIES", "search.indexQueue.retries");
+		buildMap.put("SEGRADA_SEARCH_REINDEX_THREADS", "search.reindex.threads");
+		buildMap.put("SEGRADA_SEARCH_REINDEX_CHUNK_SIZE", "search.reindex.chunkSize");
+		buildMap.put("SEGRADA_SEARCH_RESULT_CACHE_SIZE", "search.resultCache.size");
+		buildMap.put("SEGRADA_SEARCH_FILTER_CACHE_SIZE", "search.filterCache.size");
 		buildMap.put("SEGRADA_SERVER_PORT", "server.port");
 		buildMap.put("SEGRADA_SERVER_CONTEXT", "server.context");
 		buildMap.put("SEGRADA_SOLR_SERVER", "solr.server");
@@ -61,6 +82,13 @@ public class ApplicationSettingsProperties implements ApplicationSettings {
 		buildMap.put("SEGRADA_SOLR_FIELD_TAG", "solr.field_tag");
 		buildMap.put("SEGRADA_SOLR_FIELD_COLOR", "solr.field_color");
 		buildMap.put("SEGRADA_SOLR_FIELD_ICON", "solr.icon");
+		buildMap.put("SEGRADA_SOLR_FIELD_MIN_JD", "solr.field_minJD");
+		buildMap.put("SEGRADA_SOLR_FIELD_MAX_JD", "solr.field_maxJD");
+		buildMap.put("SEGRADA_SOLR_FIELD_LOCATION", "solr.field_location");
+		buildMap.put("SEGRADA_SOLR_COMMIT_WITHIN", "solr.commitWithin");
+		buildMap.put("SEGRADA_SOLR_UPDATE_QUEUE_SIZE", "solr.update.queueSize");
+		buildMap.put("SEGRADA_SOLR_UPDATE_THREADS", "solr.update.threads");
+		buildMap.put("SEGRADA_SOLR_UPDATE_POLL_TIME", "solr.update.pollTime");
 		buildMap.put("SEGRADA_MAP_DEFAULT_ZOOM", "map.defaultZoom");
 		buildMap.put("SEGRADA_MAP_DEFAULT_LAT", "map.defaultLat");
 		buildMap.put("SEGRADA_MAP_DEFAULT_LNG", "map.defaultLng");
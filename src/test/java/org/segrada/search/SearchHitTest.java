@@ -1,7 +1,12 @@
 package org.segrada.search;
 
+import org.codehaus.jettison.json.JSONObject;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
 import static org.segrada.test.PropertyAsserter.assertBasicGetterSetterBehavior;
 
 public class SearchHitTest {
@@ -9,4 +14,23 @@ public class SearchHitTest {
 	public void testProperties() {
 		assertBasicGetterSetterBehavior(new SearchHit());
 	}
+
+	@Test
+	public void testToJSONWithFields() throws Exception {
+		SearchHit hit = new SearchHit();
+		hit.setId("#1:2");
+		hit.setTitle("Title");
+		hit.setClassName("Node");
+		hit.setHighlightText(new String[]{"<b>Title</b>"});
+
+		JSONObject jsonObject = hit.toJSON(Arrays.asList("id", "title"));
+		assertEquals(2, jsonObject.length());
+		assertEquals("#1:2", jsonObject.getString("id"));
+		assertEquals("Title", jsonObject.getString("title"));
+
+		// all fields
+		jsonObject = hit.toJSON(null);
+		assertEquals("Node", jsonObject.getString("className"));
+		assertEquals(1, jsonObject.getJSONArray("highlightText").length());
+	}
 }
\ No newline at end of file
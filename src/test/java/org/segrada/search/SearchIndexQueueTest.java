@@ -0,0 +1,125 @@
+package org.segrada.search;
+
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.segrada.search.lucene.LuceneSearchEngine;
+import org.segrada.search.lucene.LuceneSegradaAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SearchIndexQueueTest {
+	/**
+	 * Reference to search engine
+	 */
+	private LuceneSearchEngine searchEngine;
+
+	/**
+	 * queue to test
+	 */
+	private SearchIndexQueue queue;
+
+	@Before
+	public void setUp() throws Exception {
+		searchEngine = new LuceneSearchEngine(new RAMDirectory(), new LuceneSegradaAnalyzer());
+		queue = new SearchIndexQueue(searchEngine, 100, 10, 200, 3);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		queue.shutdown();
+	}
+
+	@Test
+	public void testEnqueueAndFlush() throws Exception {
+		queue.enqueue("1", () -> searchEngine.index("1", "DummyClass", "Hello World", null, "Text.", null, null, null, 1f));
+		queue.flush();
+
+		assertEquals(0, queue.size());
+		assertNotNull(searchEngine.getById("1"));
+
+		queue.enqueue("1", () -> { searchEngine.remove("1"); return true; });
+		queue.flush();
+
+		assertNull(searchEngine.getById("1"));
+	}
+
+	@Test
+	public void testCoalesce() throws Exception {
+		final List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+		// worker waits for more documents before writing, so these will be coalesced
+		queue.enqueue("1", () -> written.add("first"));
+		queue.enqueue("1", () -> written.add("second"));
+		queue.enqueue("2", () -> written.add("other"));
+		queue.flush();
+
+		assertEquals(2, written.size());
+		assertEquals("second", written.get(0));
+		assertEquals("other", written.get(1));
+	}
+
+	@Test
+	public void testRetry() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+
+		// fail twice, then succeed
+		queue.enqueue("1", () -> calls.incrementAndGet() > 2);
+		queue.flush();
+
+		assertEquals(3, calls.get());
+
+		// fail always - gives up after retries
+		calls.set(0);
+		queue.enqueue("2", () -> { calls.incrementAndGet(); throw new RuntimeException("test"); });
+		queue.flush();
+
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	public void testCommitOnFlushOnly() throws Exception {
+		queue.shutdown();
+
+		final AtomicInteger commits = new AtomicInteger();
+		searchEngine = new LuceneSearchEngine(new RAMDirectory(), new LuceneSegradaAnalyzer()) {
+			@Override
+			public void commit() {
+				commits.incrementAndGet();
+				super.commit();
+			}
+		};
+		queue = new SearchIndexQueue(searchEngine, 100, 10, 0, 3);
+
+		// batches are visible to searches without commit
+		queue.enqueue("1", () -> searchEngine.index("1", "DummyClass", "Hello World", null, "Text.", null, null, null, 1f));
+		queue.enqueue("2", () -> searchEngine.index("2", "DummyClass", "Hello World", null, "Text.", null, null, null, 1f));
+		for (int i = 0; i < 100 && searchEngine.getById("2") == null; i++)
+			Thread.sleep(20);
+		assertNotNull(searchEngine.getById("1"));
+		assertNotNull(searchEngine.getById("2"));
+		assertEquals(0, commits.get());
+
+		queue.flush();
+		assertEquals(1, commits.get());
+	}
+
+	@Test
+	public void testShutdown() throws Exception {
+		queue.enqueue("1", () -> searchEngine.index("1", "DummyClass", "Hello World", null, "Text.", null, null, null, 1f));
+		queue.shutdown();
+
+		// pending jobs have been written
+		assertNotNull(searchEngine.getById("1"));
+
+		// after shutdown, jobs are run synchronously
+		queue.enqueue("2", () -> searchEngine.index("2", "DummyClass", "Hello World", null, "Text.", null, null, null, 1f));
+		assertNotNull(searchEngine.getById("2"));
+	}
+}
@@ -0,0 +1,60 @@
+package org.segrada.search.lucene;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LuceneResultCacheTest {
+	@Test
+	public void testGetPut() throws Exception {
+		LuceneResultCache cache = new LuceneResultCache(10);
+		Object generation = new Object();
+
+		assertNull(cache.get("key", generation));
+
+		LuceneResultCache.Entry entry = new LuceneResultCache.Entry(new ScoreDoc[]{new ScoreDoc(1, 1f), new ScoreDoc(2, 0.5f)}, 5);
+		cache.put("key", generation, entry);
+
+		assertSame(entry, cache.get("key", generation));
+		assertTrue(entry.covers(2));
+		assertFalse(entry.covers(3));
+
+		// all hits cached
+		assertTrue(new LuceneResultCache.Entry(new ScoreDoc[]{new ScoreDoc(1, 1f)}, 1).covers(10));
+	}
+
+	@Test
+	public void testGeneration() throws Exception {
+		LuceneResultCache cache = new LuceneResultCache(10);
+		Object generation = new Object();
+		Object newGeneration = new Object();
+
+		cache.put("key", generation, new LuceneResultCache.Entry(new ScoreDoc[]{}, 0));
+
+		// entries of old generation are not returned
+		assertNull(cache.get("key", newGeneration));
+
+		// new generation drops old entries
+		cache.put("other", newGeneration, new LuceneResultCache.Entry(new ScoreDoc[]{}, 0));
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getInvalidations());
+		assertNull(cache.get("key", generation));
+	}
+
+	@Test
+	public void testEviction() throws Exception {
+		LuceneResultCache cache = new LuceneResultCache(2);
+		Object generation = new Object();
+
+		cache.put("1", generation, new LuceneResultCache.Entry(new ScoreDoc[]{}, 0));
+		cache.put("2", generation, new LuceneResultCache.Entry(new ScoreDoc[]{}, 0));
+		cache.get("1", generation); // 2 is least recently used now
+		cache.put("3", generation, new LuceneResultCache.Entry(new ScoreDoc[]{}, 0));
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNotNull(cache.get("1", generation));
+		assertNull(cache.get("2", generation));
+	}
+}
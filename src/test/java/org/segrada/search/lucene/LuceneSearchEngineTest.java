@@ -1,12 +1,31 @@
 package org.segrada.search.lucene;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FileSwitchDirectory;
 import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.store.SimpleFSDirectory;
 import org.junit.Before;
 import org.junit.Test;
 import org.segrada.search.SearchHit;
+import org.segrada.search.SearchIndexDocument;
+import org.segrada.search.SearchPaginationInfo;
 import org.segrada.service.util.PaginationInfo;
-
+import org.segrada.test.OrientDbTestApplicationSettings;
+import org.segrada.util.FlexibleDateParser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -17,9 +36,15 @@ public class LuceneSearchEngineTest {
 	 */
 	private LuceneSearchEngine searchEngine;
 
+	/**
+	 * Reference to directory
+	 */
+	private Directory directory;
+
 	@Before
 	public void setUp() throws Exception {
-		searchEngine = new LuceneSearchEngine(new RAMDirectory(), new LuceneSegradaAnalyzer());
+		directory = new RAMDirectory();
+		searchEngine = new LuceneSearchEngine(directory, new LuceneSegradaAnalyzer());
 	}
 
 	@Test
@@ -336,4 +361,542 @@ public class LuceneSearchEngineTest {
 		assertEquals("elitr, sed diam nonumy eirmod tempor invidunt ut x <b>labore</b> et dolore magna aliquyam erat, sed diam voluptua", highlights[0]);
 		assertEquals("elitr, sed diam nonumy eirmod tempor invidunt ut <b>labore</b> et dolore magna aliquyam erat, sed diam voluptua", highlights[1]);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testSearchWithoutHighlighting() throws Exception {
+		searchEngine.index("1", "DummyClass", "Hello World", null, "Lorem ipsum dolor sit amet.", null, null, null, 1f);
+
+		assertTrue(searchEngine.search("ipsum", null).getEntities().get(0).getHighlightText().length > 0);
+
+		Map<String, String> filters = new HashMap<>();
+		filters.put("highlight", "false");
+		List<SearchHit> hits = searchEngine.search("ipsum", filters).getEntities();
+		assertEquals(1, hits.size());
+		assertNull(hits.get(0).getHighlightText());
+	}
+
+	@Test
+	public void testPostingsHighlighter() throws Exception {
+		Directory postingsDirectory = new RAMDirectory();
+		LuceneSearchEngine postingsSearchEngine = new LuceneSearchEngine(postingsDirectory, new LuceneSegradaAnalyzer(), new OrientDbTestApplicationSettings() {
+			@Override
+			public String getSetting(String key, String defaultValue) {
+				return key.equals("lucene.highlighter") ? "postings" : super.getSetting(key, defaultValue);
+			}
+		});
+
+		postingsSearchEngine.index("1", "DummyClass", "Hello World", null, "Lorem ipsum dolor sit amet. Consetetur " +
+				"sadipscing elitr, sed diam nonumy eirmod. Tempor invidunt ut labore et dolore.", null, null, null, 1f);
+		postingsSearchEngine.index("2", "DummyClass", "Hello Moon", null, "At vero eos et accusam.", null, null, null, 1f);
+
+		// best sentences as fragments
+		List<SearchHit> hits = postingsSearchEngine.search("consetetur", null).getEntities();
+		assertEquals(1, hits.size());
+		assertArrayEquals(new String[]{"<b>Consetetur</b> sadipscing elitr, sed diam nonumy eirmod."}, hits.get(0).getHighlightText());
+
+		// no fragments for hits matching the title only
+		hits = postingsSearchEngine.search("hello", null).getEntities();
+		assertEquals(2, hits.size());
+		assertEquals(0, hits.get(0).getHighlightText().length);
+
+		String[] highlights = postingsSearchEngine.searchInDocument("ipsum labore", "1");
+		assertEquals(2, highlights.length);
+		assertEquals("Lorem <b>ipsum</b> dolor sit amet.", highlights[0]);
+		assertEquals(0, postingsSearchEngine.searchInDocument("accusam", "1").length);
+
+		// no term vectors written
+		postingsSearchEngine.commit();
+		DirectoryReader reader = DirectoryReader.open(postingsDirectory);
+		assertNull(reader.getTermVectors(0));
+		reader.close();
+		assertTrue(searchEngine.index("3", "DummyClass", "Vector", null, "Text.", null, null, null, 1f));
+		assertTrue(searchEngine.hasTermVectors());
+		assertFalse(postingsSearchEngine.hasTermVectors());
+
+		postingsSearchEngine.destroy();
+	}
+
+	@Test
+	public void testCommit() throws Exception {
+		searchEngine.index("5", "DummyClass", "Hello World", null, "Text.", null, null, null, 1.0f);
+
+		// visible to searchers before commit
+		assertNotNull(searchEngine.getById("5"));
+
+		// written to directory after commit
+		searchEngine.commit();
+		DirectoryReader reader = DirectoryReader.open(directory);
+		assertEquals(1, reader.numDocs());
+		reader.close();
+	}
+
+	@Test
+	public void testIndexAll() throws Exception {
+		List<SearchIndexDocument> documents = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			SearchIndexDocument document = new SearchIndexDocument("batch" + i);
+			document.setClassName("DummyClass");
+			document.setTitle("Batch " + i);
+			document.setContent("Batch content.");
+			documents.add(document);
+		}
+
+		assertTrue(searchEngine.indexAll(documents));
+
+		// visible after flush
+		searchEngine.flush();
+		assertNotNull(searchEngine.getById("batch0"));
+		assertEquals(3, searchEngine.search("batch", null).getTotal());
+	}
+
+	@Test
+	public void testRebuild() throws Exception {
+		searchEngine.index("old", "DummyClass", "Old document", null, "Text.", null, null, null, 1f);
+
+		assertTrue(searchEngine.startRebuild());
+		assertFalse(searchEngine.startRebuild());
+
+		// bulk writes go to the new index
+		SearchIndexDocument document = new SearchIndexDocument("new");
+		document.setClassName("DummyClass");
+		document.setTitle("New document");
+		assertTrue(searchEngine.indexAll(Collections.singletonList(document)));
+
+		// single updates go to the current index and are replayed later
+		searchEngine.index("live", "DummyClass", "Live document", null, "Text.", null, null, null, 1f);
+		searchEngine.remove("old");
+
+		// current index still serves searches
+		assertNull(searchEngine.getById("new"));
+		assertNotNull(searchEngine.getById("live"));
+
+		assertTrue(searchEngine.finishRebuild());
+
+		assertNotNull(searchEngine.getById("new"));
+		assertNotNull(searchEngine.getById("live"));
+		assertNull(searchEngine.getById("old"));
+
+		// index keeps working after switch
+		searchEngine.index("after", "DummyClass", "After switch", null, "Text.", null, null, null, 1f);
+		assertNotNull(searchEngine.getById("after"));
+	}
+
+	@Test
+	public void testRebuildFileSystem() throws Exception {
+		Path base = Files.createTempDirectory("segrada-lucene");
+		Path path = base.resolve("lucene");
+		LuceneSearchEngine fsSearchEngine = new LuceneSearchEngine(new SimpleFSDirectory(path), new LuceneSegradaAnalyzer());
+
+		try {
+			fsSearchEngine.index("old", "DummyClass", "Old document", null, "Text.", null, null, null, 1f);
+
+			assertTrue(fsSearchEngine.startRebuild());
+			assertTrue(Files.exists(base.resolve("lucene.rebuild")));
+
+			SearchIndexDocument document = new SearchIndexDocument("new");
+			document.setClassName("DummyClass");
+			document.setTitle("New document");
+			fsSearchEngine.indexAll(Collections.singletonList(document));
+
+			assertTrue(fsSearchEngine.finishRebuild());
+
+			assertNotNull(fsSearchEngine.getById("new"));
+			assertNull(fsSearchEngine.getById("old"));
+
+			// side directories are gone
+			assertTrue(Files.exists(path));
+			assertFalse(Files.exists(base.resolve("lucene.rebuild")));
+			assertFalse(Files.exists(base.resolve("lucene.old")));
+
+			// cancelled rebuild keeps current index
+			assertTrue(fsSearchEngine.startRebuild());
+			fsSearchEngine.cancelRebuild();
+			assertFalse(Files.exists(base.resolve("lucene.rebuild")));
+			assertNotNull(fsSearchEngine.getById("new"));
+		} finally {
+			fsSearchEngine.destroy();
+			FileUtils.deleteDirectory(base.toFile());
+		}
+	}
+
+	@Test
+	public void testRebuildHybridDirectory() throws Exception {
+		Path base = Files.createTempDirectory("segrada-lucene");
+		Path path = base.resolve("lucene");
+		LuceneDirectoryFactory directoryFactory = new LuceneDirectoryFactory(LuceneDirectoryFactory.HYBRID, LuceneDirectoryFactory.DEFAULT_MMAP_EXTENSIONS);
+		Directory hybridDirectory = directoryFactory.open(path);
+		assertTrue(hybridDirectory instanceof FileSwitchDirectory);
+		assertEquals(path, LuceneDirectoryFactory.getPath(hybridDirectory));
+
+		LuceneSearchEngine fsSearchEngine = new LuceneSearchEngine(hybridDirectory, new LuceneSegradaAnalyzer());
+
+		try {
+			fsSearchEngine.index("old", "DummyClass", "Old document", null, "Text.", null, null, null, 1f);
+			assertEquals(1, fsSearchEngine.search("document", new HashMap<>()).getTotal());
+
+			assertTrue(fsSearchEngine.startRebuild());
+			SearchIndexDocument document = new SearchIndexDocument("new");
+			document.setClassName("DummyClass");
+			document.setTitle("New document");
+			fsSearchEngine.indexAll(Collections.singletonList(document));
+			assertTrue(fsSearchEngine.finishRebuild());
+
+			// switched directory is hybrid again
+			assertTrue(fsSearchEngine.directory instanceof FileSwitchDirectory);
+			assertNotNull(fsSearchEngine.getById("new"));
+			assertNull(fsSearchEngine.getById("old"));
+			assertFalse(Files.exists(base.resolve("lucene.old")));
+		} finally {
+			fsSearchEngine.destroy();
+			FileUtils.deleteDirectory(base.toFile());
+		}
+	}
+
+	@Test
+	public void testSearchAfterCursor() throws Exception {
+		for (int i = 0; i < 25; i++)
+			searchEngine.index("p" + i, "DummyClass", "Page test " + i, null, "Paging content.", null, null, null, 1f);
+
+		Map<String, String> filters = new HashMap<>();
+		filters.put("limit", "10");
+
+		SearchPaginationInfo first = searchEngine.search("paging", filters);
+		assertEquals(25, first.getTotal());
+		assertEquals(3, first.getPages());
+		assertEquals(10, first.getEntities().size());
+		assertNotNull(first.getNextCursor());
+
+		// second page by page number and by cursor should be the same
+		filters.put("page", "2");
+		SearchPaginationInfo second = searchEngine.search("paging", filters);
+		filters.put("after", first.getNextCursor());
+		SearchPaginationInfo secondByCursor = searchEngine.search("paging", filters);
+
+		assertEquals(2, secondByCursor.getPage());
+		assertEquals(25, secondByCursor.getTotal());
+		assertEquals(10, secondByCursor.getEntities().size());
+		for (int i = 0; i < 10; i++)
+			assertEquals(second.getEntities().get(i).getId(), secondByCursor.getEntities().get(i).getId());
+
+		// last page has no cursor
+		filters.put("page", "3");
+		filters.put("after", secondByCursor.getNextCursor());
+		SearchPaginationInfo third = searchEngine.search("paging", filters);
+		assertEquals(5, third.getEntities().size());
+		assertNull(third.getNextCursor());
+
+		// invalid cursor falls back to page number
+		filters.put("after", "invalid");
+		assertEquals(5, searchEngine.search("paging", filters).getEntities().size());
+
+		// cursors are bound to the version of the reader
+		String cursor = LuceneSearchEngine.encodeCursor(new ScoreDoc(12, 0.5f), 7L);
+		ScoreDoc decoded = LuceneSearchEngine.decodeCursor(cursor, 7L);
+		assertNotNull(decoded);
+		assertEquals(12, decoded.doc);
+		assertEquals(0.5f, decoded.score, 0f);
+		assertNull(LuceneSearchEngine.decodeCursor(cursor, 8L));
+
+		// cursor of a reader before changing the index falls back to page number, too
+		searchEngine.index("p25", "DummyClass", "Page test 25", null, "Paging content.", null, null, null, 1f);
+		filters.put("page", "2");
+		filters.remove("after");
+		SearchPaginationInfo secondChanged = searchEngine.search("paging", filters);
+		filters.put("after", first.getNextCursor());
+		SearchPaginationInfo secondByStaleCursor = searchEngine.search("paging", filters);
+
+		assertEquals(2, secondByStaleCursor.getPage());
+		assertEquals(26, secondByStaleCursor.getTotal());
+		assertEquals(10, secondByStaleCursor.getEntities().size());
+		for (int i = 0; i < 10; i++)
+			assertEquals(secondChanged.getEntities().get(i).getId(), secondByStaleCursor.getEntities().get(i).getId());
+	}
+
+	@Test
+	public void testParallelSearch() throws Exception {
+		LuceneSearchEngine parallelSearchEngine = new LuceneSearchEngine(new RAMDirectory(), new LuceneSegradaAnalyzer(), new OrientDbTestApplicationSettings() {
+			@Override
+			public int getSettingAsInteger(String key, int defaultValue) {
+				return key.equals("lucene.searchThreads") ? 3 : super.getSettingAsInteger(key, defaultValue);
+			}
+		});
+
+		// several segments with equal scores
+		for (int i = 0; i < 25; i++) {
+			String[] tags = i % 2 == 0 ? new String[]{"even"} : null;
+			searchEngine.index("p" + i, "DummyClass", "Page test " + i, null, "Paging content.", tags, null, null, 1f);
+			parallelSearchEngine.index("p" + i, "DummyClass", "Page test " + i, null, "Paging content.", tags, null, null, 1f);
+			if (i % 5 == 4) parallelSearchEngine.commit();
+		}
+
+		Map<String, String> filters = new HashMap<>();
+		filters.put("limit", "10");
+		filters.put("facets", "true");
+
+		// pages by cursor are the same as in the sequential search
+		for (int page = 1; page <= 3; page++) {
+			SearchPaginationInfo expected = searchEngine.search("paging", filters);
+			SearchPaginationInfo actual = parallelSearchEngine.search("paging", filters);
+
+			assertEquals(expected.getTotal(), actual.getTotal());
+			assertEquals(expected.getEntities().size(), actual.getEntities().size());
+			for (int i = 0; i < expected.getEntities().size(); i++)
+				assertEquals(expected.getEntities().get(i).getId(), actual.getEntities().get(i).getId());
+			assertEquals(Integer.valueOf(13), actual.getFacetCount("tag", "even"));
+			assertEquals(Integer.valueOf(25), actual.getFacetCount("className", "DummyClass"));
+
+			filters.put("page", String.valueOf(page + 1));
+			if (actual.getNextCursor() != null) filters.put("after", actual.getNextCursor());
+		}
+
+		filters.clear();
+		filters.put("tags", "even");
+		List<String> ids = parallelSearchEngine.searchIds(null, filters);
+		Collections.sort(ids);
+		List<String> expectedIds = searchEngine.searchIds(null, filters);
+		Collections.sort(expectedIds);
+		assertEquals(13, ids.size());
+		assertEquals(expectedIds, ids);
+
+		parallelSearchEngine.destroy();
+	}
+
+	@Test
+	public void testSearchIdsLimit() throws Exception {
+		searchEngine.index("1", "DummyClass", "Avocado", null, "Text.", null, null, null, 1f);
+		searchEngine.index("2", "DummyClass", "Avocado Title", null, "Text.", null, null, null, 1f);
+		searchEngine.index("3", "DummyClass", "Banana", null, "Avocado.", null, null, null, 1f);
+
+		Map<String, String> filters = new HashMap<>();
+		assertEquals(3, searchEngine.searchIds("avocado", filters).size());
+
+		// best hits only, by relevance
+		filters.put("limit", "2");
+		List<String> ids = searchEngine.searchIds("avocado", filters);
+		assertEquals(2, ids.size());
+		assertTrue(ids.contains("1"));
+		assertTrue(ids.contains("2"));
+	}
+
+	@Test
+	public void testCreateSlices() throws Exception {
+		Directory sliceDirectory = new RAMDirectory();
+		IndexWriter writer = new IndexWriter(sliceDirectory, new IndexWriterConfig(new LuceneSegradaAnalyzer()));
+		for (int i = 0; i < 4; i++) {
+			writer.addDocument(new Document());
+			writer.commit(); // one segment each
+		}
+		writer.close();
+
+		DirectoryReader reader = DirectoryReader.open(sliceDirectory);
+		assertEquals(4, reader.leaves().size());
+
+		// at most as many slices as requested
+		assertEquals(2, LuceneSearcherFactory.createSlices(reader.leaves(), 2).length);
+		assertEquals(1, LuceneSearcherFactory.createSlices(reader.leaves(), 1).length);
+		assertEquals(4, LuceneSearcherFactory.createSlices(reader.leaves(), 10).length);
+
+		reader.close();
+	}
+
+	@Test
+	public void testResultCache() throws Exception {
+		searchEngine.index("c1", "DummyClass", "Cached document", null, "Cache content.", null, null, null, 1f);
+
+		LuceneResultCache resultCache = searchEngine.getResultCache();
+		assertNotNull(resultCache);
+
+		assertEquals(1, searchEngine.search("cache", null).getTotal());
+		long misses = resultCache.getMisses();
+
+		// same query, differently written filters
+		Map<String, String> filters = new HashMap<>();
+		filters.put("class", " DummyClass,AnotherClass");
+		assertEquals(1, searchEngine.search(" cache ", filters).getTotal());
+		filters.put("class", "AnotherClass, DummyClass");
+		assertEquals(1, searchEngine.search("cache", filters).getTotal());
+		assertEquals(misses + 1, resultCache.getMisses());
+		assertEquals(1, resultCache.getHits());
+
+		// index change invalidates cache
+		searchEngine.index("c2", "DummyClass", "Another cached document", null, "Cache content.", null, null, null, 1f);
+		assertEquals(2, searchEngine.search("cache", filters).getTotal());
+	}
+
+	@Test
+	public void testFilterCache() throws Exception {
+		searchEngine.index("f1", "DummyClass", "Filtered document", null, "Filter content.", new String[]{"t1", "t2"}, null, null, 1f);
+		searchEngine.index("f2", "OtherClass", "Filtered document", null, "Filter content.", new String[]{"t2"}, null, null, 1f);
+		searchEngine.index("f3", "ThirdClass", "Filtered document", null, "Filter content.", null, null, null, 1f);
+
+		LuceneFilterCache filterCache = searchEngine.getFilterCache();
+
+		Map<String, String> filters = new HashMap<>();
+		filters.put("class", "DummyClass,OtherClass");
+		assertEquals(2, searchEngine.search("filter", filters).getTotal());
+		filters.put("tags", "t1");
+		assertEquals(1, searchEngine.search("filter", filters).getTotal());
+		assertEquals(2, filterCache.size());
+		assertEquals(1, filterCache.getHits()); // class filter reused
+
+		// same filters written differently, index changed in between
+		searchEngine.index("f4", "OtherClass", "Filtered document", null, "Filter content.", new String[]{"t1"}, null, null, 1f);
+		filters.put("class", "OtherClass, DummyClass");
+		assertEquals(2, searchEngine.search("filter", filters).getTotal());
+		assertEquals(2, filterCache.size());
+		assertEquals(3, filterCache.getHits());
+
+		// deleted documents are not found
+		searchEngine.remove("f4");
+		assertEquals(1, searchEngine.search("filter", filters).getTotal());
+	}
+
+	@Test
+	public void testFacets() throws Exception {
+		// no facets in empty index
+		Map<String, String> filters = new HashMap<>();
+		filters.put("facets", "true");
+		SearchPaginationInfo result = searchEngine.search("facet", filters);
+		assertNotNull(result.getFacets());
+		assertTrue(result.getFacets().get("className").isEmpty());
+
+		searchEngine.index("x1", "DummyClass", "Facet document", null, "Facet content.", new String[]{"t1", "t2"}, null, null, 1f);
+		searchEngine.index("x2", "DummyClass", "Facet document", null, "Facet content.", new String[]{"t1"}, null, null, 1f);
+		searchEngine.index("x3", "OtherClass", "Facet document", null, "Facet content.", null, null, null, 1f);
+		searchEngine.index("x4", "OtherClass", "Other document", null, "Other content.", new String[]{"t2"}, null, null, 1f);
+
+		// not requested
+		assertNull(searchEngine.search("facet", new HashMap<>()).getFacets());
+
+		filters.put("limit", "1");
+		result = searchEngine.search("facet", filters);
+		assertEquals(3, result.getTotal());
+		assertEquals(1, result.getEntities().size());
+		assertEquals(Integer.valueOf(2), result.getFacetCount("className", "DummyClass"));
+		assertEquals(Integer.valueOf(1), result.getFacetCount("className", "OtherClass"));
+		assertEquals(Integer.valueOf(2), result.getFacetCount("tag", "t1"));
+		assertEquals(Integer.valueOf(1), result.getFacetCount("tag", "t2"));
+
+		// sorted by count
+		assertEquals("DummyClass", result.getFacets().get("className").keySet().iterator().next());
+
+		// next page via cursor keeps facets
+		filters.put("after", result.getNextCursor());
+		filters.put("page", "2");
+		result = searchEngine.search("facet", filters);
+		assertEquals(Integer.valueOf(2), result.getFacetCount("tag", "t1"));
+
+		// facets respect filters
+		filters.remove("after");
+		filters.remove("page");
+		filters.put("tags", "t2");
+		result = searchEngine.search("document", filters);
+		assertEquals(2, result.getTotal());
+		assertEquals(Integer.valueOf(1), result.getFacetCount("className", "DummyClass"));
+		assertEquals(Integer.valueOf(1), result.getFacetCount("className", "OtherClass"));
+		assertEquals(Integer.valueOf(1), result.getFacetCount("tag", "t1"));
+		assertEquals(Integer.valueOf(2), result.getFacetCount("tag", "t2"));
+	}
+
+	@Test
+	public void testTemporalFilters() throws Exception {
+		FlexibleDateParser parser = new FlexibleDateParser();
+
+		searchEngine.index("j1", "DummyClass", "Time document", null, "Time content.", null, null, null, 1f,
+				parser.inputToJd("1500", "G", false), parser.inputToJd("1550", "G", true));
+		searchEngine.index("j2", "DummyClass", "Time document", null, "Time content.", null, null, null, 1f,
+				parser.inputToJd("1600", "G", false), parser.inputToJd("1700", "G", true));
+		// no extent
+		searchEngine.index("j3", "DummyClass", "Time document", null, "Time content.", null, null, null, 1f,
+				Long.MIN_VALUE, Long.MAX_VALUE);
+		searchEngine.index("j4", "DummyClass", "Time document", null, "Time content.", null, null, null, 1f);
+
+		Map<String, String> filters = new HashMap<>();
+		assertEquals(4, searchEngine.search("time", filters).getTotal());
+
+		filters.put("minJD", "1550");
+		List<SearchHit> hits = searchEngine.search("time", filters).getEntities();
+		assertEquals(1, hits.size());
+		assertEquals("j2", hits.get(0).getId());
+
+		filters.put("minJD", "1400");
+		filters.put("maxJD", "1600");
+		hits = searchEngine.search("time", filters).getEntities();
+		assertEquals(1, hits.size());
+		assertEquals("j1", hits.get(0).getId());
+
+		filters.put("maxJD", "1700");
+		assertEquals(2, searchEngine.search("time", filters).getTotal());
+
+		// unparsable dates are ignored
+		filters.put("minJD", "nonsense");
+		filters.remove("maxJD");
+		assertEquals(4, searchEngine.search("time", filters).getTotal());
+
+		// temporal extent is indexed in bulk, too
+		SearchIndexDocument document = new SearchIndexDocument("j5");
+		document.setClassName("DummyClass");
+		document.setTitle("Time document");
+		document.setMinJD(parser.inputToJd("1800", "G", false));
+		document.setMaxJD(parser.inputToJd("1801", "G", true));
+		searchEngine.indexAll(Collections.singletonList(document));
+		searchEngine.flush();
+
+		filters.put("minJD", "1799");
+		hits = searchEngine.search("time", filters).getEntities();
+		assertEquals(1, hits.size());
+		assertEquals("j5", hits.get(0).getId());
+	}
+
+	@Test
+	public void testGeoFilters() throws Exception {
+		SearchIndexDocument berlin = new SearchIndexDocument("g1");
+		berlin.setClassName("DummyClass");
+		berlin.setTitle("Place document");
+		berlin.setLocations(Collections.singletonList(new double[]{52.52, 13.405}));
+		searchEngine.index(berlin);
+
+		SearchIndexDocument paris = new SearchIndexDocument("g2");
+		paris.setClassName("AnotherDummyClass");
+		paris.setTitle("Place document");
+		paris.setLocations(Arrays.asList(new double[]{48.8566, 2.3522}, new double[]{-33.87, 151.21}));
+		searchEngine.index(paris);
+
+		// no locations
+		searchEngine.index("g3", "DummyClass", "Place document", null, "Place content.", null, null, null, 1f);
+
+		Map<String, String> filters = new HashMap<>();
+		assertEquals(3, searchEngine.search("place", filters).getTotal());
+
+		// rectangle around Germany
+		filters.put("geo", "ENVELOPE(5.8, 15.1, 55.1, 47.2)");
+		List<SearchHit> hits = searchEngine.search("place", filters).getEntities();
+		assertEquals(1, hits.size());
+		assertEquals("g1", hits.get(0).getId());
+
+		// circle around Sydney
+		filters.put("geo", "BUFFER(POINT(151.2 -33.9), 1)");
+		hits = searchEngine.search("place", filters).getEntities();
+		assertEquals(1, hits.size());
+		assertEquals("g2", hits.get(0).getId());
+
+		// polygon covering Berlin and Paris
+		filters.put("geo", "POLYGON((0 45, 20 45, 20 55, 0 55, 0 45))");
+		assertEquals(2, searchEngine.search("place", filters).getTotal());
+
+		// combined with class filter
+		filters.put("class", "AnotherDummyClass");
+		assertEquals(1, searchEngine.search("place", filters).getTotal());
+
+		// ids only
+		filters.remove("class");
+		List<String> ids = searchEngine.searchIds(null, filters);
+		Collections.sort(ids);
+		assertEquals(Arrays.asList("g1", "g2"), ids);
+
+		// invalid shapes return no hits
+		filters.put("geo", "POLYGON(nonsense)");
+		assertEquals(0, searchEngine.search("place", filters).getTotal());
+		assertTrue(searchEngine.searchIds(null, filters).isEmpty());
+	}
+}
@@ -0,0 +1,93 @@
+package org.segrada.search.lucene;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.segrada.search.Suggestion;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LuceneSuggesterTest {
+	private LuceneSuggester suggester;
+
+	@Before
+	public void setUp() throws Exception {
+		suggester = new LuceneSuggester();
+
+		suggester.update("1-1", "Node", "Karl der Große", Arrays.asList("Karl der Große", "Charlemagne\nCarolus Magnus"));
+		suggester.update("1-2", "Node", "Karlsruhe", Collections.singletonList("Karlsruhe"));
+		suggester.update("2-1", "Source", "Annales regni Francorum", Arrays.asList("ARF", "ARF 801", "Annales regni Francorum"));
+		suggester.update("3-1", "Tag", "Karolinger", Collections.singletonList("Karolinger"));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		suggester.close();
+	}
+
+	@Test
+	public void testSuggest() throws Exception {
+		List<Suggestion> suggestions = suggester.suggest("kar", null, 10);
+		assertEquals(3, suggestions.size());
+
+		// shorter texts first
+		assertEquals("1-2", suggestions.get(0).getId());
+		assertEquals("Node", suggestions.get(0).getClassName());
+
+		// words within texts are found, too
+		suggestions = suggester.suggest("magn", null, 10);
+		assertEquals(1, suggestions.size());
+		assertEquals("1-1", suggestions.get(0).getId());
+		assertEquals("Karl der Große", suggestions.get(0).getTitle());
+		assertEquals("Charlemagne\nCarolus Magnus", suggestions.get(0).getText());
+
+		// all words have to match, case and accents do not matter
+		assertEquals(1, suggester.suggest("KARL gro", null, 10).size());
+		assertEquals(0, suggester.suggest("karl franc", null, 10).size());
+
+		// one suggestion per entity
+		assertEquals(1, suggester.suggest("arf", null, 10).size());
+
+		// limit
+		assertEquals(2, suggester.suggest("kar", null, 2).size());
+
+		// empty terms
+		assertTrue(suggester.suggest("", null, 10).isEmpty());
+		assertTrue(suggester.suggest(null, null, 10).isEmpty());
+	}
+
+	@Test
+	public void testSuggestClasses() throws Exception {
+		List<Suggestion> suggestions = suggester.suggest("kar", Collections.singletonList("Tag"), 10);
+		assertEquals(1, suggestions.size());
+		assertEquals("3-1", suggestions.get(0).getId());
+
+		assertEquals(3, suggester.suggest("kar", Arrays.asList("Node", "Tag"), 10).size());
+		assertTrue(suggester.suggest("kar", Collections.emptyList(), 10).isEmpty());
+	}
+
+	@Test
+	public void testUpdateAndRemove() throws Exception {
+		assertEquals(7, suggester.size());
+
+		// replace texts of entity
+		suggester.update("1-2", "Node", "Mannheim", Collections.singletonList("Mannheim"));
+		assertEquals(2, suggester.suggest("kar", null, 10).size());
+		assertEquals("1-2", suggester.suggest("mann", null, 10).get(0).getId());
+
+		// title falls back to first text
+		suggester.update("1-3", "Node", null, Arrays.asList(null, "Aachen"));
+		assertEquals("Aachen", suggester.suggest("aach", null, 10).get(0).getTitle());
+
+		suggester.remove("1-1");
+		assertEquals(1, suggester.suggest("kar", null, 10).size());
+
+		suggester.clear();
+		assertEquals(0, suggester.size());
+		assertTrue(suggester.suggest("mann", null, 10).isEmpty());
+	}
+}
@@ -0,0 +1,96 @@
+package org.segrada.service;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.segrada.model.Source;
+import org.segrada.model.base.AbstractSegradaEntity;
+import org.segrada.search.Suggestion;
+import org.segrada.test.OrientDBTestInstance;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SuggestServiceTest {
+	/**
+	 * reference to test instance of orientdb in memory
+	 */
+	private OrientDBTestInstance orientDBTestInstance = new OrientDBTestInstance();
+
+	private ODatabaseDocumentTx db;
+
+	private SuggestService service;
+
+	@Before
+	public void setUp() throws Exception {
+		// set up schema if needed
+		orientDBTestInstance.setUpSchemaIfNeeded();
+
+		db = orientDBTestInstance.getDatabase();
+		service = new SuggestService(orientDBTestInstance.getGraphFactory());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		service.destroy();
+
+		db.activateOnCurrentThread();
+		db.command(new OCommandSQL("delete vertex V")).execute();
+		db.close();
+	}
+
+	@Test
+	public void testLoadSources() throws Exception {
+		ODocument document = new ODocument("Source")
+				.field("shortTitle", "Annals")
+				.field("shortTitleasc", "annals")
+				.field("shortRef", "RFA")
+				.field("longTitle", "Royal Frankish Annals")
+				.field("created", 1L)
+				.field("modified", 1L);
+		document.save();
+		ODocument withoutLongTitle = new ODocument("Source")
+				.field("shortTitle", "Capitulary")
+				.field("shortTitleasc", "capitulary")
+				.field("shortRef", "Cap")
+				.field("created", 1L)
+				.field("modified", 1L);
+		withoutLongTitle.save();
+
+		// load from database
+		assertNull(service.suggest("royal", null, null, 10));
+		for (int i = 0; i < 100 && !service.isLoaded(); i++) Thread.sleep(50);
+		assertTrue(service.isLoaded());
+
+		// long title is suggested and displayed
+		List<Suggestion> suggestions = service.suggest("royal", Collections.singletonList("Source"), null, 10);
+		assertNotNull(suggestions);
+		assertEquals(1, suggestions.size());
+		String uid = AbstractSegradaEntity.convertOrientIdToUid(document.getIdentity().toString());
+		assertEquals(uid, suggestions.get(0).getId());
+		assertEquals("Royal Frankish Annals", suggestions.get(0).getTitle());
+
+		// short title is displayed without long title
+		suggestions = service.suggest("capit", Collections.singletonList("Source"), null, 10);
+		assertEquals(1, suggestions.size());
+		assertEquals("Capitulary", suggestions.get(0).getTitle());
+
+		// saving the entity keeps the same suggestions
+		Source source = new Source();
+		source.setId(document.getIdentity().toString());
+		source.setShortTitle("Annals");
+		source.setShortRef("RFA");
+		source.setLongTitle("Royal Frankish Annals");
+		service.update(source);
+
+		suggestions = service.suggest("royal", Collections.singletonList("Source"), null, 10);
+		assertEquals(1, suggestions.size());
+		assertEquals("Royal Frankish Annals", suggestions.get(0).getTitle());
+		assertEquals(1, service.suggest("rfa", Collections.singletonList("Source"), null, 10).size());
+	}
+}
@@ -5,6 +5,7 @@ import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import org.apache.lucene.store.RAMDirectory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,18 +17,26 @@ import org.segrada.model.prototype.ILocation;
 import org.segrada.model.prototype.INode;
 import org.segrada.model.prototype.IPeriod;
 import org.segrada.model.prototype.ITag;
+import org.segrada.search.lucene.LuceneSearchEngine;
+import org.segrada.search.lucene.LuceneSegradaAnalyzer;
 import org.segrada.service.repository.LocationRepository;
 import org.segrada.service.repository.PeriodRepository;
 import org.segrada.service.repository.TagRepository;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbCountCache;
+import org.segrada.service.repository.orientdb.util.OrientDbEntityCache;
+import org.segrada.service.repository.orientdb.util.OrientDbIdentityMap;
 import org.segrada.service.util.PaginationInfo;
 import org.segrada.session.Identity;
 import org.segrada.test.OrientDBTestInstance;
 import org.segrada.test.OrientDbTestApplicationSettings;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -189,6 +198,54 @@ public class OrientDbNodeRepositoryTest {
 		assertEquals(1, hits.size());
 	}
 
+	@Test
+	public void testFindBySearchTermBySearchEngine() throws Exception {
+		// answer full text searches by search engine
+		LuceneSearchEngine searchEngine = new LuceneSearchEngine(new RAMDirectory(), new LuceneSegradaAnalyzer());
+		OrientDbRepositoryFactory searchEngineFactory = new OrientDbRepositoryFactory(factory.getDb(), new OrientDbTestApplicationSettings() {
+			@Override
+			public String getSetting(String key) {
+				return key.equals("orientDB.fullText") ? "searchEngine" : super.getSetting(key);
+			}
+		}, new Identity());
+		searchEngineFactory.setSearchEngine(searchEngine);
+		assertSame(searchEngine, searchEngineFactory.getFullTextSearchEngine());
+		OrientDbNodeRepository searchEngineRepository = searchEngineFactory.produceRepository(OrientDbNodeRepository.class);
+
+		for (int i = 1; i <= 3; i++) {
+			INode node = new Node();
+			node.setTitle("Title " + i);
+			node.setAlternativeTitles(i == 2 ? "Alternative" : null);
+			node.setCreated(1L);
+			node.setModified(2L);
+			searchEngineRepository.save(node);
+
+			searchEngine.index(node.getUid(), "Node", node.getTitle(), node.getAlternativeTitles(), null, new String[]{}, null, null, 1f);
+		}
+
+		// ids found in search engine, documents loaded from database
+		List<INode> hits = searchEngineRepository.findBySearchTerm("tit", 10, true);
+		assertEquals(3, hits.size());
+		hits = searchEngineRepository.findBySearchTerm("tit", 2, true);
+		assertEquals(2, hits.size());
+		hits = searchEngineRepository.findBySearchTerm("altern", 10, true);
+		assertEquals(1, hits.size());
+		assertEquals("Title 2", hits.get(0).getTitle());
+		hits = searchEngineRepository.findBySearchTerm("complexxxxxx", 10, true);
+		assertEquals(0, hits.size());
+
+		// search filter in pagination
+		Map<String, Object> filters = new HashMap<>();
+		filters.put("search", "alt");
+		PaginationInfo<INode> pi = searchEngineRepository.paginate(1, 10, filters);
+		assertEquals(1, pi.getTotal());
+		filters.put("search", "complexxxxxx");
+		pi = searchEngineRepository.paginate(1, 10, filters);
+		assertEquals(0, pi.getTotal());
+
+		searchEngine.destroy();
+	}
+
 
 	@Test
 	public void testFindBySearchTermAndTags() throws Exception {
@@ -375,6 +432,160 @@ public class OrientDbNodeRepositoryTest {
 		//TODO more filters
 	}
 
+	@Test
+	public void testPaginateByCursor() throws Exception {
+		// many equal titles and dates
+		for (int i = 1; i <= 33; i++) {
+			INode node = new Node();
+			node.setTitle("Title " + (i % 4));
+			if (i % 3 == 0) node.setMinEntry("1." + i + ".1200");
+			repository.save(node);
+		}
+
+		for (String sort : new String[]{"titleasc", "minJD"}) {
+			for (String dir : new String[]{"asc", "desc"}) {
+				Map<String, Object> filters = new HashMap<>();
+				filters.put("sort", sort);
+				filters.put("dir", dir);
+
+				// walk forward by page numbers and by cursors
+				List<String> byPage = new ArrayList<>(), byCursor = new ArrayList<>();
+				PaginationInfo<INode> pi = null;
+				for (int page = 1; page <= 4; page++) {
+					byPage.addAll(repository.paginate(page, 10, filters).getEntities().stream().map(INode::getId).collect(Collectors.toList()));
+
+					if (pi != null) filters.put("after", pi.getNextCursor());
+					pi = repository.paginate(page, 10, filters);
+					byCursor.addAll(pi.getEntities().stream().map(INode::getId).collect(Collectors.toList()));
+					filters.remove("after");
+				}
+				assertNull(pi.getNextCursor());
+				assertEquals(33, new HashSet<>(byPage).size());
+				assertEquals(byPage, byCursor);
+
+				// walk back
+				List<String> backwards = new ArrayList<>(pi.getEntities().stream().map(INode::getId).collect(Collectors.toList()));
+				for (int page = 3; page >= 1; page--) {
+					filters.put("before", pi.getPreviousCursor());
+					pi = repository.paginate(page, 10, filters);
+					backwards.addAll(0, pi.getEntities().stream().map(INode::getId).collect(Collectors.toList()));
+				}
+				assertNull(pi.getPreviousCursor());
+				assertEquals(byPage, backwards);
+			}
+		}
+
+		// cursors of other orders are ignored
+		Map<String, Object> filters = new HashMap<>();
+		filters.put("sort", "titleasc");
+		filters.put("dir", "asc");
+		PaginationInfo<INode> pi = repository.paginate(1, 10, filters);
+		filters.put("dir", "desc");
+		List<INode> expected = repository.paginate(2, 10, filters).getEntities();
+		filters.put("after", pi.getNextCursor());
+		assertEquals(expected, repository.paginate(2, 10, filters).getEntities());
+		filters.put("after", "invalid");
+		assertEquals(expected, repository.paginate(2, 10, filters).getEntities());
+	}
+
+	@Test
+	public void testPaginateCountCache() throws Exception {
+		factory.setCountCache(new OrientDbCountCache(60000L));
+
+		INode node = new Node();
+		node.setTitle("Title");
+		repository.save(node);
+
+		assertEquals(1, repository.paginate(1, 10, null).getTotal());
+
+		// cached count
+		new ODocument("Node").field("title", "Other").field("titleasc", "other")
+				.field("alternativeTitles", "").field("description", "").field("descriptionMarkup", "default")
+				.field("created", 1L).field("modified", 1L).save();
+		assertEquals(1, repository.paginate(1, 10, null).getTotal());
+
+		// saving invalidates count
+		node = new Node();
+		node.setTitle("Third");
+		repository.save(node);
+		assertEquals(3, repository.paginate(1, 10, null).getTotal());
+	}
+
+	@Test
+	public void testFindEntityCache() throws Exception {
+		OrientDbEntityCache entityCache = new OrientDbEntityCache("Node:10");
+		factory.setEntityCache(entityCache);
+
+		INode node = new Node();
+		node.setTitle("Title");
+		repository.save(node);
+
+		INode found = repository.find(node.getId());
+		found.setTitle("Changed, but not saved");
+
+		// cached copy with own lazy lists
+		INode cached = repository.find(node.getId());
+		assertNotSame(found, cached);
+		assertEquals("Title", cached.getTitle());
+		assertNotNull(cached.getComments());
+		assertNotSame(found.getComments(), cached.getComments());
+		assertEquals(1, entityCache.getClassCaches().get("Node").getHits());
+		assertEquals(1, entityCache.getClassCaches().get("Node").getMisses());
+
+		// changed record versions are detected
+		factory.getDb().command(new OCommandSQL("update " + node.getId() + " set title = 'Updated'")).execute();
+		assertEquals("Updated", repository.find(node.getId()).getTitle());
+
+		// saving drops entity
+		cached.setTitle("Saved");
+		assertTrue(repository.save(cached));
+		assertEquals("Saved", repository.find(node.getId()).getTitle());
+	}
+
+	@Test
+	public void testFindIdentityMap() throws Exception {
+		factory.setIdentityMap(new OrientDbIdentityMap());
+
+		ODocument group = new ODocument("UserGroup").field("title", "title")
+				.field("titleasc", "titleasc").field("roles", new HashMap<String, String>())
+				.field("created", 1L).field("modified", 2L).save();
+		ODocument user = new ODocument("User").field("login", "login")
+				.field("password", "password").field("name", "name").field("nameasc", "name")
+				.field("group", group).field("created", 1L).field("modified", 2L)
+				.field("lastLogin", 3L).field("active", true).save();
+
+		try {
+			List<String> ids = new ArrayList<>();
+			for (int i = 0; i < 2; i++)
+				ids.add(new ODocument("Node").field("title", "title " + i).field("titleasc", "title " + i)
+						.field("alternativeTitles", "").field("description", "").field("descriptionMarkup", "default")
+						.field("created", 1L).field("modified", 1L)
+						.field("creator", user.getIdentity()).field("modifier", user.getIdentity())
+						.save().getIdentity().toString());
+
+			// one entity per record
+			INode node1 = repository.find(ids.get(0));
+			assertSame(node1, repository.find(ids.get(0)));
+			assertTrue(repository.paginate(1, 10, null).getEntities().stream().anyMatch(node -> node == node1));
+
+			// one user for all entities
+			INode node2 = repository.find(ids.get(1));
+			assertSame(node1.getCreator(), node1.getModifier());
+			assertSame(node1.getCreator(), node2.getCreator());
+			assertEquals("name", node2.getCreator().getName());
+
+			// saving drops entity
+			node1.setTitle("Saved");
+			assertTrue(repository.save(node1));
+			INode saved = repository.find(ids.get(0));
+			assertNotSame(node1, saved);
+			assertEquals("Saved", saved.getTitle());
+		} finally {
+			user.delete();
+			group.delete();
+		}
+	}
+
 	@Test
 	public void testDelete() throws Exception {
 		INode node = new Node();
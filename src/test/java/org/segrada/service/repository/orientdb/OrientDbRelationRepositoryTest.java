@@ -1,6 +1,7 @@
 package org.segrada.service.repository.orientdb;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.ORecord;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -23,6 +24,7 @@ import org.segrada.session.Identity;
 import org.segrada.test.OrientDBTestInstance;
 import org.segrada.test.OrientDbTestApplicationSettings;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -146,6 +148,69 @@ public class OrientDbRelationRepositoryTest {
 		assertEquals(node2.getIdentity().toString(), relation.getToEntity().getId());
 	}
 
+	@Test
+	public void testConvertToEntities() throws Exception {
+		ODocument[] relationTypes = new ODocument[2];
+		for (int i = 0; i < relationTypes.length; i++)
+			relationTypes[i] = new ODocument("RelationType")
+					.field("fromTitle", "fromTitle " + i).field("toTitle", "toTitle " + i)
+					.field("fromTitleAsc", "fromTitle " + i).field("toTitleAsc", "toTitle " + i)
+					.field("description", "Description")
+					.field("descriptionMarkup", "default")
+					.field("color", 0x123456)
+					.field("created", 1L)
+					.field("modified", 2L).save();
+
+		// hub node related to three other nodes
+		ODocument[] nodes = new ODocument[4];
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i] = new ODocument("Node").field("title", "title " + i).field("titleasc", "title-" + i)
+					.field("alternativeTitles", "alternativeTitles")
+					.field("description", "Description")
+					.field("descriptionMarkup", "default")
+					.field("color", 0x123456)
+					.field("created", 1L)
+					.field("modified", 2L).save();
+
+		for (int i = 1; i < nodes.length; i++) {
+			List<OIdentifiable> edges = factory.getDb().command(new OCommandSQL("create edge IsRelation from " + nodes[0].getIdentity().toString() + " to " + nodes[i].getIdentity().toString())).execute();
+
+			new ODocument("Relation")
+					.field("relationType", relationTypes[i < 3 ? 0 : 1].getIdentity())
+					.field("relationLink", edges.get(0).getIdentity())
+					.field("description", "rel_description " + i)
+					.field("descriptionMarkup", "default")
+					.field("color", 0x123456)
+					.field("created", 1L)
+					.field("modified", 2L).save();
+		}
+
+		// load fresh documents and convert them at once
+		List<ODocument> result = factory.getDb().command(new OSQLSynchQuery<ODocument>("select * from Relation order by description")).execute();
+		assertEquals(3, result.size());
+
+		List<IRelation> list = repository.convertToEntities(result);
+		assertEquals(3, list.size());
+		for (int i = 1; i < nodes.length; i++) {
+			IRelation relation = list.get(i - 1);
+			assertEquals(result.get(i - 1).getIdentity().toString(), relation.getId());
+			assertEquals("rel_description " + i, relation.getDescription());
+			assertEquals(nodes[0].getIdentity().toString(), relation.getFromEntity().getId());
+			assertEquals("title 0", relation.getFromEntity().getTitle());
+			assertEquals(nodes[i].getIdentity().toString(), relation.getToEntity().getId());
+			assertEquals("title " + i, relation.getToEntity().getTitle());
+		}
+
+		// relation types are shared
+		assertEquals(relationTypes[0].getIdentity().toString(), list.get(0).getRelationType().getId());
+		assertSame(list.get(0).getRelationType(), list.get(1).getRelationType());
+		assertEquals(relationTypes[1].getIdentity().toString(), list.get(2).getRelationType().getId());
+		assertEquals("fromTitle 1", list.get(2).getRelationType().getFromTitle());
+
+		// empty list
+		assertTrue(repository.convertToEntities(new ArrayList<>()).isEmpty());
+	}
+
 	@Test(expected = NotImplementedException.class)
 	public void testConvertToDocument() throws Exception {
 		repository.convertToDocument(new Relation());
@@ -1,6 +1,7 @@
 package org.segrada.service.repository.orientdb;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
@@ -13,11 +14,13 @@ import org.segrada.model.prototype.INode;
 import org.segrada.model.prototype.ITag;
 import org.segrada.model.prototype.SegradaTaggable;
 import org.segrada.service.repository.orientdb.factory.OrientDbRepositoryFactory;
+import org.segrada.service.repository.orientdb.util.OrientDbTagHierarchy;
 import org.segrada.session.Identity;
 import org.segrada.test.OrientDBTestInstance;
 import org.segrada.test.OrientDbTestApplicationSettings;
 import org.segrada.util.Sluggify;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -650,6 +653,55 @@ public class OrientDbTagRepositoryTest {
 		}
 	}
 
+	@Test
+	public void testSetTags() throws Exception {
+		ITag existing = new Tag();
+		existing.setTitle("Existing");
+		repository.save(existing);
+
+		// now create an entity
+		ODocument document = new ODocument("Node").field("title", "title 1").field("titleasc", "title-1")
+				.field("alternativeTitles", "alternativeTitles")
+				.field("description", "Description")
+				.field("descriptionMarkup", "default")
+				.field("created", 1L)
+				.field("modified", 2L)
+				.save();
+		INode node = new Node();
+		node.setId(document.getIdentity().toString());
+
+		// titles are matched case insensitive, new tags are created
+		repository.setTags(node, new String[]{"existing", " New ", "", "new"});
+		String[] titles = repository.findTagTitlesConnectedToModel(node, true);
+		Arrays.sort(titles);
+		assertArrayEquals(new String[]{"Existing", "New"}, titles);
+		assertNotNull(repository.findByTitle("New", false));
+
+		// diff: keep one, remove one, add one
+		repository.setTags(node, new String[]{"New", "Other"});
+		titles = repository.findTagTitlesConnectedToModel(node, true);
+		Arrays.sort(titles);
+		assertArrayEquals(new String[]{"New", "Other"}, titles);
+
+		// remove all
+		repository.setTags(node, null);
+		assertEquals(0, repository.findTagIdsConnectedToModel(node, true).length);
+
+		// tags of tags are added to hierarchy
+		ITag child = repository.findByTitle("New", false);
+		repository.setTags(child, new String[]{"Existing"});
+		assertTrue(repository.isChildOf(child, existing));
+
+		// circular connections are not allowed
+		try {
+			repository.setTags(existing, new String[]{"New"});
+			fail("Circular tags not detected!");
+		} catch (RuntimeException e) {
+			//OK
+		}
+		assertEquals(0, repository.findTagIdsConnectedToModel(existing, true).length);
+	}
+
 	@Test
 	public void testIsChildAndParentOf() throws Exception {
 		ITag root = new Tag();
@@ -733,6 +785,49 @@ public class OrientDbTagRepositoryTest {
 		assertFalse(repository.isChildOf(subTag1, root));
 	}
 
+	@Test
+	public void testTagHierarchy() throws Exception {
+		ITag root = new Tag();
+		root.setTitle("Root");
+		repository.save(root);
+		ITag subTag = new Tag();
+		subTag.setTitle("Sub");
+		repository.save(subTag);
+
+		// now create an entity
+		ODocument document = new ODocument("Node").field("title", "title 1").field("titleasc", "title-1")
+				.field("alternativeTitles", "alternativeTitles")
+				.field("description", "Description")
+				.field("descriptionMarkup", "default")
+				.field("created", 1L)
+				.field("modified", 2L)
+				.save();
+		INode node = new Node();
+		node.setId(document.getIdentity().toString());
+
+		repository.connectTag(root, subTag);
+		repository.connectTag(subTag, node);
+
+		// only tags are kept in hierarchy
+		OrientDbTagHierarchy tagHierarchy = factory.getTagHierarchy();
+		assertEquals(2, tagHierarchy.size());
+		assertTrue(tagHierarchy.isAncestorOf(new ORecordId(root.getId()), new ORecordId(subTag.getId())));
+
+		// same hierarchy loaded from database
+		OrientDbTagHierarchy loaded = new OrientDbTagHierarchy().loadIfNeeded(factory.getDb());
+		assertEquals(2, loaded.size());
+		assertTrue(loaded.isConnected(new ORecordId(root.getId()), new ORecordId(subTag.getId())));
+
+		// entities are checked via their tags
+		assertTrue(repository.isChildOf(node, root));
+
+		// deleted tags are removed
+		repository.delete(subTag);
+		assertEquals(0, tagHierarchy.size());
+		assertArrayEquals(new String[]{root.getId()}, repository.findTagIdsByParent(root.getId()));
+		assertFalse(repository.isChildOf(node, root));
+	}
+
 	@Test
 	public void testPaginate() throws Exception {
 		//fail("Test not implemented yet.");
@@ -254,6 +254,29 @@ public class AbstractOrientDbRepositoryTest {
 		assertNull(filledList);
 	}
 
+	@Test
+	public void testFindNextUidsFrom() throws Exception {
+		// no entities
+		assertTrue(mockOrientDbRepository.findNextUidsFrom(null, 10).isEmpty());
+
+		// add two entities
+		MockEntity entity1 = new MockEntity();
+		mockOrientDbRepository.save(entity1);
+		MockEntity entity2 = new MockEntity();
+		mockOrientDbRepository.save(entity2);
+
+		List<String> uids = mockOrientDbRepository.findNextUidsFrom(null, 10);
+		assertEquals(2, uids.size());
+		assertEquals(entity1.getUid(), uids.get(0));
+		assertEquals(entity2.getUid(), uids.get(1));
+
+		uids = mockOrientDbRepository.findNextUidsFrom(entity1.getUid(), 10);
+		assertEquals(1, uids.size());
+		assertEquals(entity2.getUid(), uids.get(0));
+
+		assertTrue(mockOrientDbRepository.findNextUidsFrom(entity2.getUid(), 10).isEmpty());
+	}
+
 	@Test
 	public void testFind() throws Exception {
 		// create and save document
@@ -0,0 +1,52 @@
+package org.segrada.service.repository.orientdb.querybuilder;
+
+import com.spatial4j.core.context.jts.JtsSpatialContext;
+import com.spatial4j.core.shape.Circle;
+import com.spatial4j.core.shape.Rectangle;
+import com.spatial4j.core.shape.Shape;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QueryPartWorkerDynamicQueryTest {
+	@Test
+	public void testCreateShapeWktCircle() throws Exception {
+		String wkt = QueryPartWorkerDynamicQuery.createShapeWkt(new JSONObject("{\"shape\": \"Circle\", \"lat\": 52.5, \"lng\": 13.4, \"radius\": 111195}"));
+
+		Shape shape = JtsSpatialContext.GEO.readShapeFromWkt(wkt);
+		assertTrue(shape instanceof Circle);
+		assertEquals(13.4, shape.getCenter().getX(), 0.0001);
+		assertEquals(52.5, shape.getCenter().getY(), 0.0001);
+		// about one degree
+		assertEquals(1, ((Circle) shape).getRadius(), 0.001);
+	}
+
+	@Test
+	public void testCreateShapeWktRectangle() throws Exception {
+		String wkt = QueryPartWorkerDynamicQuery.createShapeWkt(new JSONObject("{\"shape\": \"Rectangle\", \"coordinates\": [[47.2, 5.8], [55.1, 15.1]]}"));
+
+		Shape shape = JtsSpatialContext.GEO.readShapeFromWkt(wkt);
+		assertTrue(shape instanceof Rectangle);
+		assertEquals(5.8, ((Rectangle) shape).getMinX(), 0.0001);
+		assertEquals(15.1, ((Rectangle) shape).getMaxX(), 0.0001);
+		assertEquals(47.2, ((Rectangle) shape).getMinY(), 0.0001);
+		assertEquals(55.1, ((Rectangle) shape).getMaxY(), 0.0001);
+	}
+
+	@Test
+	public void testCreateShapeWktPolygon() throws Exception {
+		// ring is closed automatically
+		String wkt = QueryPartWorkerDynamicQuery.createShapeWkt(new JSONObject("{\"shape\": \"Polygon\", \"coordinates\": [[45, 0], [45, 20], [55, 20]]}"));
+		assertEquals("POLYGON((0.0 45.0, 20.0 45.0, 20.0 55.0, 0.0 45.0))", wkt);
+		assertNotNull(JtsSpatialContext.GEO.readShapeFromWkt(wkt));
+
+		// too few points
+		assertNull(QueryPartWorkerDynamicQuery.createShapeWkt(new JSONObject("{\"shape\": \"Polygon\", \"coordinates\": [[45, 0], [45, 20]]}")));
+	}
+
+	@Test
+	public void testCreateShapeWktUnknown() throws Exception {
+		assertNull(QueryPartWorkerDynamicQuery.createShapeWkt(new JSONObject("{\"shape\": \"Marker\"}")));
+	}
+}
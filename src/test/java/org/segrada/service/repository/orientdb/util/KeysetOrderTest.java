@@ -0,0 +1,53 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class KeysetOrderTest {
+	@Test
+	public void testParse() throws Exception {
+		assertEquals(" ORDER BY titleasc ASC, @rid ASC", KeysetOrder.parse(" ORDER BY titleasc").toOrderBy(false));
+		assertEquals(" ORDER BY minJD ASC, @rid ASC", KeysetOrder.parse("minJD DESC").toOrderBy(true));
+		assertEquals(" ORDER BY @rid ASC", KeysetOrder.parse("").toOrderBy(false));
+		assertEquals(" ORDER BY @rid ASC", KeysetOrder.parse(null).toOrderBy(false));
+
+		// several fields or expressions cannot be continued
+		assertNull(KeysetOrder.parse(" fromJD ASC, toJD ASC"));
+		assertNull(KeysetOrder.parse("title.toLowerCase()"));
+		assertNull(KeysetOrder.parse("title sideways"));
+	}
+
+	@Test
+	public void testCursor() throws Exception {
+		KeysetOrder order = KeysetOrder.parse("titleasc");
+		ODocument document = new ODocument(new ORecordId(11, 5));
+		document.field("titleasc", "title");
+
+		String cursor = order.createCursor(document);
+		assertNotNull(cursor);
+
+		Map<String, Object> parameters = new HashMap<>();
+		assertEquals("(titleasc > :keysetValue OR (titleasc = :keysetValue AND @rid > :keysetRid))", order.createConstraint(cursor, false, parameters));
+		assertEquals("title", parameters.get("keysetValue"));
+		assertEquals(new ORecordId(11, 5), parameters.get("keysetRid"));
+
+		// previous page: descending, nulls last
+		assertEquals("(titleasc < :keysetValue OR (titleasc = :keysetValue AND @rid < :keysetRid) OR titleasc IS NULL)", order.createConstraint(cursor, true, parameters));
+
+		// null values
+		document.removeField("titleasc");
+		assertEquals("(titleasc IS NOT NULL OR (titleasc IS NULL AND @rid > :keysetRid))", order.createConstraint(order.createCursor(document), false, parameters));
+
+		// cursors of other orders or invalid cursors are ignored
+		assertNull(KeysetOrder.parse("titleasc DESC").createConstraint(cursor, false, parameters));
+		assertNull(KeysetOrder.parse("minJD").createConstraint(cursor, false, parameters));
+		assertNull(order.createConstraint("invalid!", false, parameters));
+		assertNull(order.createConstraint("aW52YWxpZA", false, parameters));
+	}
+}
@@ -0,0 +1,168 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Test;
+import org.segrada.model.Color;
+import org.segrada.model.Node;
+import org.segrada.model.Relation;
+import org.segrada.model.UserGroup;
+import org.segrada.model.prototype.*;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.*;
+
+public class OrientDbEntityCacheTest {
+	@Test
+	public void testDefinition() throws Exception {
+		OrientDbEntityCache cache = new OrientDbEntityCache(" Color, Node:100 ,,Source:x");
+		assertTrue(cache.isCached("Color"));
+		assertTrue(cache.isCached("Node"));
+		assertTrue(cache.isCached("Source"));
+		assertFalse(cache.isCached("File"));
+		assertEquals(0, cache.getClassCaches().get("Color").getMaxEntries());
+		assertEquals(100, cache.getClassCaches().get("Node").getMaxEntries());
+		assertEquals(0, cache.getClassCaches().get("Source").getMaxEntries());
+
+		assertTrue(new OrientDbEntityCache((String) null).getClassCaches().isEmpty());
+		assertTrue(new OrientDbEntityCache("").getClassCaches().isEmpty());
+	}
+
+	@Test
+	public void testGetAndPut() throws Exception {
+		OrientDbEntityCache cache = new OrientDbEntityCache("Color");
+		ORecordId rid = new ORecordId(12, 1);
+
+		IColor color = createColor(rid.toString(), "Red");
+		cache.put("Color", rid, 1, color);
+		cache.put("Node", rid, 1, color); // not cached
+
+		// copies are returned
+		IColor cached = cache.get("Color", rid, 1);
+		assertNotNull(cached);
+		assertNotSame(color, cached);
+		assertEquals("Red", cached.getTitle());
+		assertEquals(rid.toString(), cached.getId());
+		assertNull(cache.get("Node", rid, 1));
+
+		// changing entities does not change the cache
+		color.setTitle("Blue");
+		cached.setTitle("Green");
+		assertEquals("Red", ((IColor) cache.get("Color", rid, 1)).getTitle());
+
+		// newer version drops entry
+		assertNull(cache.get("Color", rid, 2));
+		assertNull(cache.get("Color", rid, 1));
+
+		OrientDbEntityCache.ClassCache classCache = cache.getClassCaches().get("Color");
+		assertEquals(2, classCache.getHits());
+		assertEquals(2, classCache.getMisses());
+		assertEquals(0.5d, classCache.getHitRate(), 0.0001d);
+		assertEquals(1, classCache.getInvalidations());
+		assertEquals(0, classCache.size());
+	}
+
+	@Test
+	public void testCopyCollections() throws Exception {
+		OrientDbEntityCache cache = new OrientDbEntityCache("UserGroup");
+		ORecordId rid = new ORecordId(13, 1);
+
+		UserGroup userGroup = new UserGroup();
+		userGroup.setId(rid.toString());
+		userGroup.setTitle("Group");
+		userGroup.setRole("ADMIN", 1);
+		cache.put("UserGroup", rid, 1, userGroup);
+
+		IUserGroup cached = cache.get("UserGroup", rid, 1);
+		assertTrue(cached.hasRole("ADMIN"));
+		cached.setRole("EDIT", 1);
+		userGroup.unsetRole("ADMIN");
+
+		cached = cache.get("UserGroup", rid, 1);
+		assertTrue(cached.hasRole("ADMIN"));
+		assertFalse(cached.hasRole("EDIT"));
+	}
+
+	@Test
+	public void testCopyNestedEntities() throws Exception {
+		OrientDbEntityCache cache = new OrientDbEntityCache("Relation");
+		ORecordId rid = new ORecordId(14, 1);
+
+		Relation relation = new Relation();
+		relation.setId(rid.toString());
+		INode node = new Node();
+		node.setId("#15:1");
+		node.setTitle("From");
+		relation.setFromEntity(node);
+		relation.setToEntity(node);
+		relation.setRelationType((IRelationType) Proxy.newProxyInstance(IRelationType.class.getClassLoader(),
+				new Class[]{IRelationType.class}, (proxy, method, args) -> null));
+		cache.put("Relation", rid, 1, relation);
+
+		IRelation cached = cache.get("Relation", rid, 1);
+		assertNotSame(node, cached.getFromEntity());
+		assertEquals("From", cached.getFromEntity().getTitle());
+		// shared references stay shared within a copy
+		assertSame(cached.getFromEntity(), cached.getToEntity());
+		// lazy loading proxies are not kept
+		assertNull(cached.getRelationType());
+
+		// changing nested entities does not change the cache
+		cached.getFromEntity().setTitle("Changed");
+		node.setTitle("Changed too");
+		assertEquals("From", ((IRelation) cache.get("Relation", rid, 1)).getFromEntity().getTitle());
+	}
+
+	@Test
+	public void testLeastRecentlyUsed() throws Exception {
+		OrientDbEntityCache cache = new OrientDbEntityCache("Color:2");
+
+		for (int i = 0; i < 3; i++) {
+			ORecordId rid = new ORecordId(12, i);
+			cache.put("Color", rid, 1, createColor(rid.toString(), "Color " + i));
+			// keep first entry in use
+			assertNotNull(cache.get("Color", new ORecordId(12, 0), 1));
+		}
+
+		OrientDbEntityCache.ClassCache classCache = cache.getClassCaches().get("Color");
+		assertEquals(2, classCache.size());
+		assertEquals(1, classCache.getEvictions());
+		assertNotNull(cache.get("Color", new ORecordId(12, 0), 1));
+		assertNull(cache.get("Color", new ORecordId(12, 1), 1));
+		assertNotNull(cache.get("Color", new ORecordId(12, 2), 1));
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		OrientDbEntityCache cache = new OrientDbEntityCache("Color,UserGroup");
+		ORecordId rid1 = new ORecordId(12, 1);
+		ORecordId rid2 = new ORecordId(12, 2);
+		cache.put("Color", rid1, 1, createColor(rid1.toString(), "Red"));
+		cache.put("Color", rid2, 1, createColor(rid2.toString(), "Blue"));
+
+		cache.invalidate(rid1);
+		assertNull(cache.get("Color", rid1, 1));
+		assertNotNull(cache.get("Color", rid2, 1));
+
+		cache.invalidateClass("Color");
+		assertNull(cache.get("Color", rid2, 1));
+
+		cache.put("Color", rid1, 1, createColor(rid1.toString(), "Red"));
+		cache.clear();
+		assertNull(cache.get("Color", rid1, 1));
+	}
+
+	/**
+	 * @param id record id
+	 * @param title title of color
+	 * @return color entity
+	 */
+	private static IColor createColor(String id, String title) {
+		IColor color = new Color();
+		color.setId(id);
+		color.setTitle(title);
+		color.setColor(0x123456);
+		color.setVersion(1);
+		return color;
+	}
+}
@@ -0,0 +1,68 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Test;
+import org.segrada.model.Color;
+import org.segrada.model.Node;
+import org.segrada.model.prototype.IColor;
+import org.segrada.model.prototype.INode;
+
+import static org.junit.Assert.*;
+
+public class OrientDbIdentityMapTest {
+	@Test
+	public void testGetAndPut() throws Exception {
+		OrientDbIdentityMap identityMap = new OrientDbIdentityMap();
+		ORecordId rid = new ORecordId(12, 1);
+
+		IColor color = new Color();
+		identityMap.put(rid, 2, color);
+		assertSame(color, identityMap.get(rid, 2));
+		assertSame(color, identityMap.getAny(rid));
+
+		// other version
+		assertNull(identityMap.get(rid, 3));
+		assertNull(identityMap.get(new ORecordId(12, 2), 2));
+
+		identityMap.remove(rid);
+		assertNull(identityMap.getAny(rid));
+		assertEquals(0, identityMap.size());
+	}
+
+	@Test
+	public void testPutLazy() throws Exception {
+		OrientDbIdentityMap identityMap = new OrientDbIdentityMap();
+		ORecordId rid = new ORecordId(12, 1);
+
+		IColor proxy = new Color();
+		identityMap.putLazy(rid, proxy);
+		assertSame(proxy, identityMap.getAny(rid));
+		// proxies are never returned for versions
+		assertNull(identityMap.get(rid, 1));
+
+		// converted entity replaces proxy, but not the other way round
+		IColor color = new Color();
+		identityMap.put(rid, 1, color);
+		identityMap.putLazy(rid, proxy);
+		assertSame(color, identityMap.get(rid, 1));
+		assertSame(color, identityMap.getAny(rid));
+	}
+
+	@Test
+	public void testRemoveClass() throws Exception {
+		OrientDbIdentityMap identityMap = new OrientDbIdentityMap();
+
+		INode node = new Node();
+		identityMap.put(new ORecordId(9, 1), 1, node);
+		identityMap.put(new ORecordId(12, 1), 1, new Color());
+		identityMap.putLazy(new ORecordId(9, 2), new Node());
+
+		identityMap.removeClass("Node");
+		assertNull(identityMap.getAny(new ORecordId(9, 1)));
+		assertNotNull(identityMap.getAny(new ORecordId(12, 1)));
+		assertNotNull(identityMap.getAny(new ORecordId(9, 2)));
+
+		identityMap.clear();
+		assertEquals(0, identityMap.size());
+	}
+}
@@ -0,0 +1,120 @@
+package org.segrada.service.repository.orientdb.util;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import org.junit.Before;
+import org.junit.Test;
+import org.segrada.test.OrientDBTestInstance;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class OrientDbTagHierarchyTest {
+	private static final ORID ROOT = new ORecordId(16, 0);
+	private static final ORID SUB1 = new ORecordId(16, 1);
+	private static final ORID SUB2 = new ORecordId(16, 2);
+	private static final ORID LEAF = new ORecordId(16, 3);
+	private static final ORID OTHER = new ORecordId(16, 4);
+
+	private OrientDbTagHierarchy tagHierarchy;
+
+	@Before
+	public void setUp() throws Exception {
+		tagHierarchy = new OrientDbTagHierarchy();
+
+		// load empty database
+		OrientDBTestInstance orientDBTestInstance = new OrientDBTestInstance();
+		orientDBTestInstance.setUpSchemaIfNeeded();
+		ODatabaseDocumentTx db = orientDBTestInstance.getDatabase();
+		try {
+			tagHierarchy.load(db);
+		} finally {
+			db.close();
+		}
+
+		// diamond: root => sub1, sub2 => leaf
+		assertTrue(tagHierarchy.connect(ROOT, SUB1));
+		assertTrue(tagHierarchy.connect(ROOT, SUB2));
+		assertTrue(tagHierarchy.connect(SUB1, LEAF));
+		assertTrue(tagHierarchy.connect(SUB2, LEAF));
+	}
+
+	@Test
+	public void testClosure() throws Exception {
+		assertEquals(4, tagHierarchy.size());
+
+		assertTrue(tagHierarchy.isAncestorOf(ROOT, SUB1));
+		assertTrue(tagHierarchy.isAncestorOf(ROOT, LEAF));
+		assertTrue(tagHierarchy.isAncestorOf(SUB2, LEAF));
+		assertFalse(tagHierarchy.isAncestorOf(LEAF, ROOT));
+		assertFalse(tagHierarchy.isAncestorOf(SUB1, SUB2));
+		assertFalse(tagHierarchy.isAncestorOf(ROOT, ROOT));
+		assertFalse(tagHierarchy.isAncestorOf(ROOT, OTHER));
+
+		assertTrue(tagHierarchy.isConnected(ROOT, SUB1));
+		assertFalse(tagHierarchy.isConnected(ROOT, LEAF));
+
+		// depth first, each tag once
+		assertEquals(Arrays.asList(SUB1, LEAF, SUB2), tagHierarchy.getDescendants(ROOT));
+		assertEquals(new HashSet<>(Arrays.asList(ROOT, SUB1, SUB2)), new HashSet<>(tagHierarchy.getAncestors(LEAF)));
+		assertEquals(Arrays.asList(SUB1, SUB2), tagHierarchy.getParents(LEAF));
+		assertEquals(Arrays.asList(SUB1, SUB2), tagHierarchy.getChildren(ROOT));
+		assertEquals(Collections.emptyList(), tagHierarchy.getDescendants(OTHER));
+	}
+
+	@Test
+	public void testConnectCircular() throws Exception {
+		assertFalse(tagHierarchy.connect(LEAF, ROOT));
+		assertFalse(tagHierarchy.connect(SUB1, SUB1));
+		assertFalse(tagHierarchy.isAncestorOf(LEAF, ROOT));
+
+		// connecting again does not change anything
+		assertTrue(tagHierarchy.connect(ROOT, SUB1));
+		assertEquals(Arrays.asList(SUB1, SUB2), tagHierarchy.getChildren(ROOT));
+	}
+
+	@Test
+	public void testDisconnect() throws Exception {
+		// leaf still reachable via sub2
+		tagHierarchy.disconnect(SUB1, LEAF);
+		assertTrue(tagHierarchy.isAncestorOf(ROOT, LEAF));
+		assertFalse(tagHierarchy.isAncestorOf(SUB1, LEAF));
+		assertEquals(Collections.singletonList(SUB2), tagHierarchy.getParents(LEAF));
+
+		tagHierarchy.disconnect(ROOT, SUB2);
+		assertFalse(tagHierarchy.isAncestorOf(ROOT, LEAF));
+		assertTrue(tagHierarchy.isAncestorOf(SUB2, LEAF));
+		assertEquals(Collections.singletonList(SUB1), tagHierarchy.getDescendants(ROOT));
+
+		// circle possible now
+		assertTrue(tagHierarchy.connect(LEAF, ROOT));
+		assertTrue(tagHierarchy.isAncestorOf(SUB2, SUB1));
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		tagHierarchy.remove(SUB1);
+		assertEquals(3, tagHierarchy.size());
+		assertTrue(tagHierarchy.isAncestorOf(ROOT, LEAF));
+		assertEquals(Arrays.asList(SUB2, LEAF), tagHierarchy.getDescendants(ROOT));
+
+		tagHierarchy.remove(SUB2);
+		assertEquals(0, tagHierarchy.size());
+		assertFalse(tagHierarchy.isAncestorOf(ROOT, LEAF));
+	}
+
+	@Test
+	public void testClear() throws Exception {
+		tagHierarchy.clear();
+		assertFalse(tagHierarchy.isLoaded());
+		assertEquals(0, tagHierarchy.size());
+
+		// not loaded: connections are ignored, because they will be loaded from the database
+		assertTrue(tagHierarchy.connect(ROOT, SUB1));
+		assertEquals(0, tagHierarchy.size());
+	}
+}
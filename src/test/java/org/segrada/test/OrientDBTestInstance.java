@@ -38,6 +38,13 @@ public class OrientDBTestInstance {
 		return graphFactory.getDatabase();
 	}
 
+	/**
+	 * @return factory of test instance
+	 */
+	public OrientGraphFactory getGraphFactory() {
+		return graphFactory;
+	}
+
 	/**
 	 * run schema creator, if needed
 	 */